@@ -22,9 +22,11 @@ public class ClassCache implements Serializable {
     private static final long serialVersionUID = -8866246036237312215L;
     private static final Object AKEY = "ClassCache";
     private volatile boolean cachingIsEnabled = true;
+    private volatile boolean accessorGenerationIsEnabled;
     private transient Map<Class<?>, JavaMembers> classTable;
     private transient Map<JavaAdapter.JavaAdapterSignature, Class<?>> classAdapterCache;
     private transient Map<Class<?>, Object> interfaceAdapterCache;
+    private transient volatile SharedClassCache sharedCache;
     private int generatedClassSerial;
     private Scriptable associatedScope;
 
@@ -131,6 +133,52 @@ public class ClassCache implements Serializable {
         cachingIsEnabled = enabled;
     }
 
+    /** Check if classes are generated to access the fields and bean properties of Java objects. */
+    public final boolean isAccessorGenerationEnabled() {
+        return accessorGenerationIsEnabled;
+    }
+
+    /**
+     * Set whether to generate a class for each reflected Java class that reads and writes its
+     * public fields and bean properties directly, instead of through reflection.
+     *
+     * <p>This makes accessing these members from scripts faster, at the cost of generating and
+     * loading a class the first time each Java class is used. Accessors are only generated while
+     * caching is enabled. Members that the generated class cannot access, like those of classes
+     * that are not public, keep using reflection.
+     *
+     * <p>Accessor generation is disabled by default. Changing it empties the cache of reflection
+     * information.
+     *
+     * @param enabled if true, accessor classes are generated
+     * @see #setCachingEnabled(boolean)
+     */
+    public synchronized void setAccessorGenerationEnabled(boolean enabled) {
+        if (enabled == accessorGenerationIsEnabled) return;
+        classTable = null;
+        accessorGenerationIsEnabled = enabled;
+    }
+
+    /** Return the shared cache that this cache takes reflection information from, or null. */
+    public final SharedClassCache getSharedCache() {
+        return sharedCache;
+    }
+
+    /**
+     * Set a cache of reflection information and generated classes to share with the caches of
+     * other scopes.
+     *
+     * <p>When a Java class is not in this cache yet, its reflection information is taken from
+     * the shared cache, or created and stored there, so that scopes that use the same shared
+     * cache only reflect each Java class once. The shared cache is only used while caching is
+     * enabled.
+     *
+     * @param sharedCache the shared cache, or null to stop using one
+     */
+    public synchronized void setSharedCache(SharedClassCache sharedCache) {
+        this.sharedCache = sharedCache;
+    }
+
     /** @return a map from classes to associated JavaMembers objects */
     Map<Class<?>, JavaMembers> getClassCacheMap() {
         if (classTable == null) {
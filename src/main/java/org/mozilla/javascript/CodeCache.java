@@ -0,0 +1,283 @@
+/* -*- Mode: java; tab-width: 8; indent-tabs-mode: nil; c-basic-offset: 4 -*-
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * A cache of compiled scripts and functions in a directory.
+ *
+ * <p>When a context has a code cache, compiling a script first looks for an entry for the same
+ * source, source name, line number and compiler settings, and for the same Rhino version. If there
+ * is one, the script is loaded from it without being parsed or compiled again; otherwise the
+ * compiled code is stored in the cache for the next run. Entries hold the class file generated
+ * for the script when it is compiled, and the serialized interpreter code when it is
+ * interpreted.
+ *
+ * <p>The cache never removes entries, and scripts loaded from it do not report the warnings that
+ * compiling them reported. Errors reading or writing the directory are ignored, and the script is
+ * compiled as if there was no cache. Only directories that untrusted code cannot write to should
+ * be used as code caches. If the Rhino version is unknown, because Rhino was not loaded from its
+ * jar file, the directory should be cleared whenever Rhino changes.
+ *
+ * @see Context#setCodeCache(CodeCache)
+ */
+public class CodeCache {
+
+    private static final int MAGIC = 0x52484343;
+
+    /** The version of the format of the entries, to change whenever the format changes. */
+    private static final int FORMAT_VERSION = 1;
+
+    private static final byte COMPILED = 'C';
+    private static final byte INTERPRETED = 'I';
+
+    private static final String SUFFIX = ".jsc";
+
+    private final File directory;
+
+    /**
+     * Create a code cache that keeps its entries in the given directory, which is created when the
+     * first entry is stored.
+     *
+     * @param directory the directory of the cache entries
+     */
+    public CodeCache(File directory) {
+        if (directory == null) throw new IllegalArgumentException();
+        this.directory = directory;
+    }
+
+    /** Return the directory of the cache entries. */
+    public File getDirectory() {
+        return directory;
+    }
+
+    /** Remove all entries from the cache. */
+    public void clear() {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(SUFFIX));
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+    }
+
+    /**
+     * Return the key of the entry of a script: a digest of all that the compiled code depends on.
+     */
+    static String getKey(
+            CompilerEnvirons compilerEnv,
+            String source,
+            String sourceName,
+            int lineno,
+            boolean returnFunction,
+            boolean strict,
+            boolean tiered) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        String version = ImplementationVersion.get();
+        Set<String> activationNames = compilerEnv.getActivationNames();
+        StringBuilder settings = new StringBuilder(128);
+        settings.append(FORMAT_VERSION)
+                .append('|')
+                .append(version == null ? "unknown" : version)
+                .append('|')
+                .append(compilerEnv.getLanguageVersion())
+                .append('|')
+                .append(compilerEnv.getOptimizationLevel())
+                .append('|')
+                .append(compilerEnv.isGenerateDebugInfo())
+                .append(compilerEnv.isReservedKeywordAsIdentifier())
+                .append(compilerEnv.isAllowMemberExprAsFunctionName())
+                .append(compilerEnv.isStrictMode())
+                .append(compilerEnv.reportWarningAsError())
+                .append(compilerEnv.isXmlAvailable())
+                .append(compilerEnv.isGeneratingSource())
+                .append(compilerEnv.isGenerateObserverCount())
+                .append(compilerEnv.isLazyFunctionCompilation())
+                .append(returnFunction)
+                .append(strict)
+                .append(tiered)
+                .append('|')
+                .append(activationNames == null ? "" : new TreeSet<>(activationNames))
+                .append('|')
+                .append(lineno)
+                .append('|')
+                .append(sourceName.length())
+                .append(':')
+                .append(sourceName)
+                .append('|');
+        digest.update(settings.toString().getBytes(StandardCharsets.UTF_8));
+        digest.update(source.getBytes(StandardCharsets.UTF_8));
+
+        byte[] hash = digest.digest();
+        StringBuilder key = new StringBuilder(hash.length * 2);
+        for (byte b : hash) {
+            key.append(Character.forDigit((b >> 4) & 0xF, 16))
+                    .append(Character.forDigit(b & 0xF, 16));
+        }
+        return key.toString();
+    }
+
+    /**
+     * Return the code stored under the key, either the class name and class file generated by
+     * Codegen or an {@link InterpreterData}, or null if there is no such entry.
+     */
+    Object get(String key) {
+        byte[] data = read(key);
+        if (data == null) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                return null;
+            }
+            byte kind = in.readByte();
+            if (kind == COMPILED) {
+                String className = in.readUTF();
+                byte[] classBytes = new byte[in.readInt()];
+                in.readFully(classBytes);
+                return new Object[] {className, classBytes};
+            }
+            if (kind == INTERPRETED) {
+                Object idata = new CodeInputStream(in).readObject();
+                return idata instanceof InterpreterData ? idata : null;
+            }
+        } catch (IOException | ClassNotFoundException | RuntimeException e) {
+            // A damaged entry is the same as a missing one
+        }
+        return null;
+    }
+
+    /** Store compiled code under the key. */
+    void put(String key, Object bytecode) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            if (bytecode instanceof InterpreterData) {
+                out.writeByte(INTERPRETED);
+                ObjectOutputStream oos = new ObjectOutputStream(out);
+                oos.writeObject(bytecode);
+                oos.flush();
+            } else {
+                Object[] nameBytesPair = (Object[]) bytecode;
+                byte[] classBytes = (byte[]) nameBytesPair[1];
+                out.writeByte(COMPILED);
+                out.writeUTF((String) nameBytesPair[0]);
+                out.writeInt(classBytes.length);
+                out.write(classBytes);
+            }
+        } catch (IOException e) {
+            // Interpreter code that cannot be serialized is not cached
+            return;
+        }
+        write(key, bytes.toByteArray());
+    }
+
+    /**
+     * Read the entry stored under the key. Subclasses may override this method and {@link
+     * #write(String, byte[])} to keep the entries somewhere else than in files.
+     *
+     * @param key the key of the entry, a string of hexadecimal digits
+     * @return the content of the entry, or null if there is none
+     */
+    protected byte[] read(String key) {
+        File file = new File(directory, key + SUFFIX);
+        if (!file.isFile()) {
+            return null;
+        }
+        try {
+            return Files.readAllBytes(file.toPath());
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Store an entry under the key. The entry is written to a temporary file first, so that other
+     * processes never read an incomplete entry.
+     *
+     * @param key the key of the entry, a string of hexadecimal digits
+     * @param data the content of the entry
+     */
+    protected void write(String key, byte[] data) {
+        File tmp = null;
+        try {
+            directory.mkdirs();
+            tmp = File.createTempFile(key, ".tmp", directory);
+            Files.write(tmp.toPath(), data);
+            File file = new File(directory, key + SUFFIX);
+            try {
+                Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            tmp = null;
+        } catch (IOException | SecurityException e) {
+            // The script simply stays uncached
+        } finally {
+            if (tmp != null) {
+                tmp.delete();
+            }
+        }
+    }
+
+    /**
+     * Reads interpreter code, and refuses all classes that cannot be part of it, so that a bad
+     * entry cannot create arbitrary objects.
+     */
+    private static final class CodeInputStream extends ObjectInputStream {
+
+        CodeInputStream(InputStream in) throws IOException {
+            super(in);
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc)
+                throws IOException, ClassNotFoundException {
+            String name = desc.getName();
+            int start = 0;
+            while (start < name.length() && name.charAt(start) == '[') {
+                start++;
+            }
+            if (start > 0 && name.charAt(start) == 'L') {
+                start++;
+            } else if (start > 0 && name.length() == start + 1) {
+                // Array of primitives
+                return super.resolveClass(desc);
+            }
+            if (!(name.startsWith("org.mozilla.javascript.", start)
+                    || name.startsWith("java.lang.", start)
+                    || name.startsWith("java.math.", start))) {
+                throw new ClassNotFoundException(name);
+            }
+            return Class.forName(name, false, CodeCache.class.getClassLoader());
+        }
+    }
+}
@@ -99,15 +99,42 @@ class CodeGenerator extends Icode {
 
         FunctionNode theFunction = (FunctionNode) scriptOrFn;
 
+        initFunctionData(theFunction);
+        if (theFunction.isGenerator()) {
+            addIcode(Icode_GENERATOR);
+            addUint16(theFunction.getBaseLineno() & 0xFFFF);
+        }
+
+        generateICodeFromTree(theFunction.getLastChild());
+    }
+
+    /**
+     * Describe a function whose body is compiled when it is first called. See {@link
+     * LazyCompilation}.
+     */
+    private void generateLazyFunction() {
+        FunctionNode theFunction = (FunctionNode) scriptOrFn;
+
+        initFunctionData(theFunction);
+        itsData.lazyBody = true;
+        itsData.itsICode = null;
+        itsData.itsStringTable = null;
+        itsData.itsBigIntTable = null;
+
+        itsData.argCount = theFunction.getParamCount();
+        itsData.argsHasRest = theFunction.hasRestParameter();
+        itsData.argsHasDefaults = theFunction.getDefaultParams() != null;
+
+        itsData.encodedSourceStart = theFunction.getEncodedSourceStart();
+        itsData.encodedSourceEnd = theFunction.getEncodedSourceEnd();
+    }
+
+    private void initFunctionData(FunctionNode theFunction) {
         itsData.itsFunctionType = theFunction.getFunctionType();
         itsData.itsNeedsActivation = theFunction.requiresActivation();
         if (theFunction.getFunctionName() != null) {
             itsData.itsName = theFunction.getName();
         }
-        if (theFunction.isGenerator()) {
-            addIcode(Icode_GENERATOR);
-            addUint16(theFunction.getBaseLineno() & 0xFFFF);
-        }
         if (theFunction.isInStrictMode()) {
             itsData.isStrict = true;
         }
@@ -117,7 +144,25 @@ class CodeGenerator extends Icode {
 
         itsData.declaredAsVar = (theFunction.getParent() instanceof VariableInitializer);
 
-        generateICodeFromTree(theFunction.getLastChild());
+        itsData.rawSourceStart = theFunction.getAbsolutePosition();
+        itsData.rawSourceEnd = itsData.rawSourceStart + theFunction.getLength();
+        itsData.rawSourceLineno = theFunction.getLineno();
+    }
+
+    /**
+     * Return true if the body of the nested function can be compiled when it is first called: the
+     * function is written with the function keyword, so that its source text can be compiled on
+     * its own. The source positions of generators do not include the function keyword.
+     */
+    private boolean isLazyFunction(FunctionNode fn) {
+        int type = fn.getFunctionType();
+        return compilerEnv.isLazyFunctionCompilation()
+                && (type == FunctionNode.FUNCTION_STATEMENT
+                        || type == FunctionNode.FUNCTION_EXPRESSION)
+                && !fn.isMethod()
+                && !fn.isGenerator()
+                && fn.getAbsolutePosition() >= 0
+                && fn.getLength() > 0;
     }
 
     private void generateICodeFromTree(Node tree) {
@@ -133,6 +178,8 @@ class CodeGenerator extends Icode {
         if (itsData.itsFunctionType == 0) {
             addToken(Token.RETURN_RESULT);
         }
+        fuseInstructions();
+        itsData.itsPropertyCaches = new Object[itsData.itsPropertyCacheCount];
 
         if (itsData.itsICode.length != iCodeTop) {
             // Make itsData.itsICode length exactly iCodeTop to save memory
@@ -197,6 +244,9 @@ class CodeGenerator extends Icode {
         }
 
         if (Token.printICode) Interpreter.dumpICode(itsData);
+        // The interpreter quickens instructions in place, so hash the code while it is still
+        // the same for every copy of the function
+        itsData.icodeHashCode();
     }
 
     private void generateNestedFunctions() {
@@ -210,7 +260,11 @@ class CodeGenerator extends Icode {
             gen.compilerEnv = compilerEnv;
             gen.scriptOrFn = fn;
             gen.itsData = new InterpreterData(itsData);
-            gen.generateFunctionICode();
+            if (isLazyFunction(fn)) {
+                gen.generateLazyFunction();
+            } else {
+                gen.generateFunctionICode();
+            }
             array[i] = gen.itsData;
 
             final AstNode fnParent = fn.getParent();
@@ -716,7 +770,7 @@ class CodeGenerator extends Icode {
                     stackChange(-1);
 
                     // Access property
-                    addStringOp(type, child.getString());
+                    addGetPropOp(type, child.getString());
                     int afterLabel = iCodeTop;
                     addGotoOp(Token.GOTO);
 
@@ -726,7 +780,7 @@ class CodeGenerator extends Icode {
                     addStringOp(Token.NAME, "undefined");
                     resolveForwardGoto(afterLabel);
                 } else {
-                    addStringOp(type, child.getString());
+                    addGetPropOp(type, child.getString());
                 }
                 break;
 
@@ -844,7 +898,7 @@ class CodeGenerator extends Icode {
                     if (type == Token.SETPROP_OP) {
                         addIcode(Icode_DUP);
                         stackChange(1);
-                        addStringOp(Token.GETPROP, property);
+                        addGetPropOp(Token.GETPROP, property);
                         // Compensate for the following USE_STACK
                         stackChange(-1);
                     }
@@ -1559,6 +1613,78 @@ class CodeGenerator extends Icode {
         array[offsetSite + 1] = (byte) offset;
     }
 
+    /**
+     * Replace the first opcode of common instruction sequences by a superinstruction that executes
+     * the whole sequence in one step. The rest of the sequence is left in place, so the length of
+     * the code and all jump offsets stay the same, and a jump into the middle of a sequence still
+     * finds the original instructions there.
+     */
+    private void fuseInstructions() {
+        byte[] iCode = itsData.itsICode;
+        for (int pc = 0; pc < iCodeTop; ) {
+            int op = iCode[pc];
+            int next = pc + Interpreter.bytecodeSpan(op);
+            if (next >= iCodeTop) {
+                break;
+            }
+            int nextOp = iCode[next];
+            int fused = 0;
+            switch (op) {
+                case Token.LT:
+                case Token.LE:
+                case Token.GT:
+                case Token.GE:
+                case Token.SHEQ:
+                case Token.SHNE:
+                    if (nextOp == Token.IFEQ || nextOp == Token.IFNE) {
+                        fused = fusedCompareIcode(op);
+                    }
+                    break;
+                case Icode_SETVAR1:
+                    if (nextOp == Icode_POP) {
+                        fused = Icode_SETVAR1_POP;
+                    }
+                    break;
+                case Icode_VAR_INC_DEC:
+                    if (nextOp == Icode_POP) {
+                        fused = Icode_VAR_INC_DEC_POP;
+                    }
+                    break;
+                case Icode_GETVAR1:
+                    if (nextOp == Icode_REG_STR1
+                            || (Icode_REG_STR_C3 <= nextOp && nextOp <= Icode_REG_STR_C0)) {
+                        int getProp = next + Interpreter.bytecodeSpan(nextOp);
+                        if (getProp < iCodeTop && iCode[getProp] == Token.GETPROP) {
+                            fused = Icode_GETVAR1_GETPROP;
+                        }
+                    }
+                    break;
+            }
+            if (fused != 0) {
+                iCode[pc] = (byte) fused;
+            }
+            pc = next;
+        }
+    }
+
+    private static int fusedCompareIcode(int op) {
+        switch (op) {
+            case Token.LT:
+                return Icode_LT_IF;
+            case Token.LE:
+                return Icode_LE_IF;
+            case Token.GT:
+                return Icode_GT_IF;
+            case Token.GE:
+                return Icode_GE_IF;
+            case Token.SHEQ:
+                return Icode_SHEQ_IF;
+            case Token.SHNE:
+                return Icode_SHNE_IF;
+        }
+        throw Kit.codeBug();
+    }
+
     private void addToken(int token) {
         if (!Icode.validTokenCode(token)) throw Kit.codeBug();
         addUint8(token);
@@ -1665,6 +1791,22 @@ class CodeGenerator extends Icode {
         }
     }
 
+    /**
+     * Add a GETPROP or GETPROPNOWARN for "property". A GETPROP is followed by the index of its
+     * entry in the property cache of the function, so that the cache only needs a slot per
+     * GETPROP.
+     */
+    private void addGetPropOp(int op, String property) {
+        addStringOp(op, property);
+        if (op == Token.GETPROP) {
+            int index = itsData.itsPropertyCacheCount;
+            if (index < NO_PROPERTY_CACHE) {
+                itsData.itsPropertyCacheCount = index + 1;
+            }
+            addUint16(index);
+        }
+    }
+
     private void addIndexOp(int op, int index) {
         addIndexPrefix(index);
         if (Icode.validIcode(op)) {
@@ -42,6 +42,8 @@ public class CompilerEnvirons {
 
         // Observer code generation in compiled code :
         generateObserverCount = cx.generateObserverCount;
+
+        lazyFunctionCompilation = cx.isLazyFunctionCompilation() && cx.getDebugger() == null;
     }
 
     public final ErrorReporter getErrorReporter() {
@@ -161,6 +163,25 @@ public class CompilerEnvirons {
         this.generateObserverCount = generateObserverCount;
     }
 
+    /**
+     * @return true iff the interpreter compiles the bodies of nested functions when first called
+     */
+    public boolean isLazyFunctionCompilation() {
+        return lazyFunctionCompilation;
+    }
+
+    /**
+     * Turn on or off lazy compilation of nested functions. Only affects code compiled for the
+     * interpreter: the bodies of nested functions are still parsed, so that syntax errors are
+     * reported at once, but their code is only generated when they are first called.
+     *
+     * @param lazyFunctionCompilation if true, nested functions are compiled when first called
+     * @see Context#setLazyFunctionCompilation(boolean)
+     */
+    public void setLazyFunctionCompilation(boolean lazyFunctionCompilation) {
+        this.lazyFunctionCompilation = lazyFunctionCompilation;
+    }
+
     public boolean isRecordingComments() {
         return recordingComments;
     }
@@ -249,6 +270,7 @@ public class CompilerEnvirons {
     private boolean strictMode;
     private boolean warningAsError;
     private boolean generateObserverCount;
+    private boolean lazyFunctionCompilation;
     private boolean recordingComments;
     private boolean recordingLocalJsDocComments;
     private boolean recoverFromErrors;
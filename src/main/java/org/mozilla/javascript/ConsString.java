@@ -7,7 +7,9 @@
 package org.mozilla.javascript;
 
 import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayDeque;
+import java.util.Arrays;
 
 /**
  * This class represents a string composed of two components, each of which may be a <code>
@@ -15,8 +17,27 @@ import java.util.ArrayDeque;
  *
  * <p>This string representation is optimized for concatenation using the "+" operator. Instead of
  * immediately copying both components to a new character array, ConsString keeps references to the
- * original components and only converts them to a String if either toString() is called or a
- * certain depth level is reached.
+ * original components and only converts them to a String if toString() is called, or if charAt()
+ * is called often enough that walking the tree costs more than flattening it. The length,
+ * charAt() and {@link #regionMatches(int, String)} are answered from the tree until then.
+ *
+ * <p>Strings that are built by appending or prepending one piece at a time are kept shallow: once
+ * a tree is deeper than {@link #BALANCE_DEPTH}, concatenation regroups the pieces like the carries
+ * of a binary counter, so that the tree grows logarithmically with the number of pieces, and joins
+ * short pieces at its edge into one String, so that it does not hold a node for each of them.
+ *
+ * <p>Appending to a string that was itself mostly built by appending, as "s += chunk" does in a
+ * loop, copies the pieces into a growable buffer instead. The buffer is shared by the strings that
+ * are built from it, each of which sees a prefix of it, and the most recent of them can append to
+ * it in place, so that such loops take amortized linear time and allocate little more than the
+ * characters. Appending to an older string starts a new tree, and so never changes the characters
+ * that a string already has.
+ *
+ * <p>Flattening does not lock. Threads that flatten the same string at the same time both build
+ * the same String, and the tree is replaced by it in a way that readers always see a consistent
+ * state: the flat string is stored in the left component first, and readers read the right
+ * component before the left one and treat a String left component of the full length as the
+ * whole value.
  *
  * <p>Note that instances of this class are only immutable if both parts are immutable, i.e. either
  * Strings or ConsStrings that are ultimately composed of Strings.
@@ -27,21 +48,137 @@ public class ConsString implements CharSequence, Serializable {
 
     private static final long serialVersionUID = -8432806714471372570L;
 
-    private CharSequence left, right;
+    /** Trees up to this depth are never regrouped, so that short expressions stay cheap. */
+    private static final int BALANCE_DEPTH = 32;
+
+    /** Short leaves at the edge of a deep tree are joined up to this length instead of nested. */
+    private static final int SHORT_LEAF = 64;
+
+    /** The number of calls to charAt that walk the tree before it is flattened. */
+    private static final int CHAR_AT_WALKS = 8;
+
+    private volatile CharSequence left, right;
     private final int length;
-    private boolean isFlat;
+    private final int depth;
+    /** The number of characters at the end that were added by a run of appends. */
+    private final int appended;
+    private int charAtWalks;
 
     public ConsString(CharSequence str1, CharSequence str2) {
-        if (!(str1 instanceof String) && !(str1 instanceof ConsString)) {
-            str1 = str1.toString();
-        }
-        if (!(str2 instanceof String) && !(str2 instanceof ConsString)) {
-            str2 = str2.toString();
+        this(toRope(str1), toRope(str2), true);
+    }
+
+    private ConsString(CharSequence str1, CharSequence str2, boolean balance) {
+        int appendedChars = depthOf(str1) == 0 ? 0 : ((ConsString) str1).appended;
+        appendedChars += str2.length();
+        CharSequence buffered = balance ? appendInPlace(str1, str2, appendedChars) : null;
+        if (buffered != null) {
+            str1 = buffered;
+            str2 = "";
+            appendedChars = 0;
+        } else if (balance && depthOf(str1) > BALANCE_DEPTH) {
+            ConsString first = (ConsString) str1;
+            CharSequence b = first.right;
+            CharSequence a = first.left;
+            if (!first.isLeaf(a) && isShort(b, str2)) {
+                // ((a, b), c) -> (a, "bc") if b and c are short
+                str1 = a;
+                str2 = b.toString().concat(str2.toString());
+            }
+            // ((a, b), c) -> (a, (b, c)) while b is as deep as c
+            while (str1 instanceof ConsString) {
+                ConsString cons = (ConsString) str1;
+                CharSequence r = cons.right;
+                CharSequence l = cons.left;
+                if (cons.isLeaf(l) || depthOf(r) != depthOf(str2)) {
+                    break;
+                }
+                str2 = new ConsString(r, str2, false);
+                str1 = l;
+            }
+        } else if (balance && depthOf(str2) > BALANCE_DEPTH) {
+            ConsString second = (ConsString) str2;
+            CharSequence c = second.right;
+            CharSequence b = second.left;
+            if (!second.isLeaf(b) && isShort(str1, b)) {
+                // (a, (b, c)) -> ("ab", c) if a and b are short
+                str1 = str1.toString().concat(b.toString());
+                str2 = c;
+            }
+            // (a, (b, c)) -> ((a, b), c) while b is as deep as a
+            while (str2 instanceof ConsString) {
+                ConsString cons = (ConsString) str2;
+                CharSequence r = cons.right;
+                CharSequence l = cons.left;
+                if (cons.isLeaf(l) || depthOf(l) != depthOf(str1)) {
+                    break;
+                }
+                str1 = new ConsString(str1, l, false);
+                str2 = r;
+            }
         }
         left = str1;
         right = str2;
-        length = left.length() + right.length();
-        isFlat = false;
+        length = str1.length() + str2.length();
+        depth = 1 + Math.max(depthOf(str1), depthOf(str2));
+        appended = appendedChars;
+    }
+
+    /**
+     * Return the characters of "str1" followed by those of "str2" in a buffer, if "str1" already
+     * owns one or if most of it was appended piece by piece, otherwise null.
+     */
+    private static CharSequence appendInPlace(
+            CharSequence str1, CharSequence str2, int appendedChars) {
+        if (!(str1 instanceof ConsString)) {
+            return null;
+        }
+        ConsString cons = (ConsString) str1;
+        CharSequence l = cons.left;
+        if (l instanceof BufferedChars) {
+            return ((BufferedChars) l).append(str2);
+        }
+        if (cons.isFlat(l)
+                || cons.depth <= BALANCE_DEPTH
+                || 2L * appendedChars < (long) cons.length + str2.length()) {
+            // Copying the string now would not pay off
+            return null;
+        }
+        return BufferedChars.start(cons, str2);
+    }
+
+    private static CharSequence toRope(CharSequence str) {
+        if (!(str instanceof String) && !(str instanceof ConsString)) {
+            return str.toString();
+        }
+        return str;
+    }
+
+    private static boolean isShort(CharSequence str1, CharSequence str2) {
+        return depthOf(str1) <= 1
+                && depthOf(str2) <= 1
+                && str1.length() + str2.length() <= SHORT_LEAF;
+    }
+
+    private static int depthOf(CharSequence str) {
+        if (str instanceof ConsString) {
+            ConsString cons = (ConsString) str;
+            return cons.isLeaf(cons.left) ? 0 : cons.depth;
+        }
+        return 0;
+    }
+
+    /** Return true if "l", the left component of this string, is its flattened value. */
+    private boolean isFlat(CharSequence l) {
+        return l instanceof String && l.length() == length;
+    }
+
+    /**
+     * Return true if "l", the left component of this string, holds all of its characters, either
+     * flattened or in a buffer.
+     */
+    private boolean isLeaf(CharSequence l) {
+        return l instanceof BufferedChars || isFlat(l);
     }
 
     // Replace with string representation when serializing
@@ -51,41 +188,97 @@ public class ConsString implements CharSequence, Serializable {
 
     @Override
     public String toString() {
-        return isFlat ? (String) left : flatten();
+        CharSequence l = left;
+        return isFlat(l) ? (String) l : flatten();
     }
 
-    private synchronized String flatten() {
-        if (!isFlat) {
-            final char[] chars = new char[length];
-            int charPos = length;
+    private String flatten() {
+        String flat;
+        byte[] bytes = new byte[length];
+        if (getChars(bytes, null, length)) {
+            flat = new String(bytes, StandardCharsets.ISO_8859_1);
+        } else {
+            char[] chars = new char[length];
+            getChars(null, chars, length);
+            flat = new String(chars);
+        }
+        left = flat;
+        right = "";
+        return flat;
+    }
 
-            ArrayDeque<CharSequence> stack = new ArrayDeque<>();
-            stack.addFirst(left);
+    /**
+     * Copy the characters of this string, ending before index "end", either to "bytes" as
+     * Latin-1, or to "chars". Return false, and stop, if a character does not fit in a byte.
+     */
+    private boolean getChars(byte[] bytes, char[] chars, int end) {
+        int charPos = end;
 
-            CharSequence next = right;
-            do {
-                if (next instanceof ConsString) {
-                    ConsString casted = (ConsString) next;
-                    if (casted.isFlat) {
-                        next = casted.left;
-                    } else {
-                        stack.addFirst(casted.left);
-                        next = casted.right;
-                        continue;
-                    }
+        ArrayDeque<CharSequence> stack = new ArrayDeque<>();
+        CharSequence next = this;
+        do {
+            if (next instanceof ConsString) {
+                ConsString casted = (ConsString) next;
+                CharSequence r = casted.right;
+                CharSequence l = casted.left;
+                if (casted.isFlat(l)) {
+                    next = l;
+                } else {
+                    stack.addFirst(l);
+                    next = r;
+                    continue;
                 }
+            }
 
-                final String str = (String) next;
-                charPos -= str.length();
-                str.getChars(0, str.length(), chars, charPos);
-                next = stack.isEmpty() ? null : stack.removeFirst();
-            } while (next != null);
+            charPos -= next.length();
+            if (bytes == null) {
+                copyChars(next, chars, charPos);
+            } else if (!copyLatin1(next, bytes, charPos)) {
+                return false;
+            }
+            next = stack.isEmpty() ? null : stack.removeFirst();
+        } while (next != null);
+        return true;
+    }
+
+    /** Copy "leaf", a String or BufferedChars, to "chars" at "pos". */
+    private static void copyChars(CharSequence leaf, char[] chars, int pos) {
+        if (leaf instanceof String) {
+            ((String) leaf).getChars(0, leaf.length(), chars, pos);
+            return;
+        }
+        BufferedChars buffered = (BufferedChars) leaf;
+        if (buffered.bytes == null) {
+            System.arraycopy(buffered.chars, 0, chars, pos, buffered.length);
+            return;
+        }
+        byte[] src = buffered.bytes;
+        for (int i = 0; i < buffered.length; i++) {
+            chars[pos + i] = (char) (src[i] & 0xFF);
+        }
+    }
 
-            left = new String(chars);
-            right = "";
-            isFlat = true;
+    /**
+     * Copy "leaf", a String or BufferedChars, to "bytes" at "pos" as Latin-1. Return false if a
+     * character does not fit in a byte.
+     */
+    private static boolean copyLatin1(CharSequence leaf, byte[] bytes, int pos) {
+        int length = leaf.length();
+        if (leaf instanceof BufferedChars) {
+            BufferedChars buffered = (BufferedChars) leaf;
+            if (buffered.bytes != null) {
+                System.arraycopy(buffered.bytes, 0, bytes, pos, length);
+                return true;
+            }
+        }
+        for (int i = 0; i < length; i++) {
+            char c = leaf.charAt(i);
+            if (c > 0xFF) {
+                return false;
+            }
+            bytes[pos + i] = (byte) c;
         }
-        return (String) left;
+        return true;
     }
 
     @Override
@@ -95,13 +288,245 @@ public class ConsString implements CharSequence, Serializable {
 
     @Override
     public char charAt(int index) {
-        String str = isFlat ? (String) left : flatten();
-        return str.charAt(index);
+        CharSequence node = left;
+        if (isLeaf(node)) {
+            return node.charAt(index);
+        }
+        if (++charAtWalks > CHAR_AT_WALKS) {
+            return flatten().charAt(index);
+        }
+        node = this;
+        while (node instanceof ConsString) {
+            ConsString cons = (ConsString) node;
+            CharSequence r = cons.right;
+            CharSequence l = cons.left;
+            int leftLength = l.length();
+            if (index < leftLength) {
+                node = l;
+            } else {
+                node = r;
+                index -= leftLength;
+            }
+        }
+        return node.charAt(index);
     }
 
     @Override
     public CharSequence subSequence(int start, int end) {
-        String str = isFlat ? (String) left : flatten();
-        return str.substring(start, end);
+        if (start >= 0 && start <= end && end <= length) {
+            // Only flatten if the range is not within one component
+            CharSequence node = this;
+            int offset = 0;
+            while (node instanceof ConsString) {
+                ConsString cons = (ConsString) node;
+                CharSequence r = cons.right;
+                CharSequence l = cons.left;
+                int leftEnd = offset + l.length();
+                if (end <= leftEnd) {
+                    node = l;
+                } else if (start >= leftEnd) {
+                    node = r;
+                    offset = leftEnd;
+                } else {
+                    break;
+                }
+            }
+            if (!(node instanceof ConsString)) {
+                return node.subSequence(start - offset, end - offset);
+            }
+        }
+        return toString().substring(start, end);
+    }
+
+    /**
+     * Return true if the characters of this string from "offset" on are those of "str". Unlike
+     * {@code toString().startsWith(str, offset)}, this does not flatten the string, and only
+     * looks at the components that the range covers.
+     *
+     * @param offset the index of the first character to compare
+     * @param str the string to compare with
+     * @return false if the range is out of bounds or the characters are different
+     */
+    public boolean regionMatches(int offset, String str) {
+        int count = str.length();
+        if (offset < 0 || offset > length - count) {
+            return false;
+        }
+        ArrayDeque<CharSequence> pending = null;
+        CharSequence node = this;
+        int nodeStart = 0;
+        int matched = 0;
+        while (matched < count) {
+            if (node instanceof ConsString) {
+                ConsString cons = (ConsString) node;
+                CharSequence r = cons.right;
+                CharSequence l = cons.left;
+                if (!cons.isFlat(l)) {
+                    int leftEnd = nodeStart + l.length();
+                    if (offset + matched >= leftEnd) {
+                        node = r;
+                        nodeStart = leftEnd;
+                    } else {
+                        if (offset + count > leftEnd) {
+                            if (pending == null) {
+                                pending = new ArrayDeque<>();
+                            }
+                            pending.addFirst(r);
+                        }
+                        node = l;
+                    }
+                    continue;
+                }
+                node = l;
+            }
+            CharSequence leaf = node;
+            int start = offset + matched - nodeStart;
+            int n = Math.min(leaf.length() - start, count - matched);
+            if (leaf instanceof String) {
+                if (!((String) leaf).regionMatches(start, str, matched, n)) {
+                    return false;
+                }
+            } else {
+                for (int i = 0; i < n; i++) {
+                    if (leaf.charAt(start + i) != str.charAt(matched + i)) {
+                        return false;
+                    }
+                }
+            }
+            matched += n;
+            nodeStart += leaf.length();
+            if (matched < count) {
+                node = pending.removeFirst();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A prefix of the characters of an {@link AppendBuffer}, as Latin-1 bytes or as chars. The
+     * characters below its length are never changed, so it can be read without locking.
+     */
+    private static final class BufferedChars implements CharSequence {
+        final AppendBuffer buffer;
+        final byte[] bytes;
+        final char[] chars;
+        final int length;
+
+        BufferedChars(AppendBuffer buffer, int length) {
+            this.buffer = buffer;
+            this.bytes = buffer.bytes;
+            this.chars = buffer.chars;
+            this.length = length;
+        }
+
+        /** Start a buffer with the characters of "str1" and "str2". */
+        static BufferedChars start(ConsString str1, CharSequence str2) {
+            AppendBuffer buffer = new AppendBuffer(str1.length + str2.length());
+            synchronized (buffer) {
+                if (!str1.getChars(buffer.bytes, null, str1.length)) {
+                    buffer.inflate(0);
+                    str1.getChars(null, buffer.chars, str1.length);
+                }
+                buffer.count = str1.length;
+                return buffer.append(str2);
+            }
+        }
+
+        /** Return these characters followed by "str", or null if the buffer has moved on. */
+        BufferedChars append(CharSequence str) {
+            synchronized (buffer) {
+                return buffer.count == length ? buffer.append(str) : null;
+            }
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index >= length) {
+                throw new StringIndexOutOfBoundsException(index);
+            }
+            return bytes != null ? (char) (bytes[index] & 0xFF) : chars[index];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            if (start < 0 || start > end || end > length) {
+                throw new StringIndexOutOfBoundsException(start);
+            }
+            return bytes != null
+                    ? new String(bytes, start, end - start, StandardCharsets.ISO_8859_1)
+                    : new String(chars, start, end - start);
+        }
+
+        @Override
+        public String toString() {
+            return bytes != null
+                    ? new String(bytes, 0, length, StandardCharsets.ISO_8859_1)
+                    : new String(chars, 0, length);
+        }
+    }
+
+    /**
+     * The growable buffer behind strings that are built by appending in place. It holds Latin-1
+     * bytes until a character that does not fit in a byte is appended, and chars after that.
+     */
+    private static final class AppendBuffer {
+        byte[] bytes;
+        char[] chars;
+        int count;
+
+        AppendBuffer(int capacity) {
+            bytes = new byte[newCapacity(capacity)];
+        }
+
+        private static int newCapacity(int needed) {
+            return (int) Math.min(Integer.MAX_VALUE - 8, Math.max(16, 2L * needed));
+        }
+
+        /** Switch to chars, keeping the first "count" characters. */
+        void inflate(int count) {
+            char[] wide = new char[bytes.length];
+            for (int i = 0; i < count; i++) {
+                wide[i] = (char) (bytes[i] & 0xFF);
+            }
+            chars = wide;
+            bytes = null;
+        }
+
+        /** Append "str" and return the characters so far. Must be called with the lock held. */
+        BufferedChars append(CharSequence str) {
+            int end = count + str.length();
+            int capacity = bytes != null ? bytes.length : chars.length;
+            if (end > capacity) {
+                // Strings that were built before keep the old array
+                if (bytes != null) {
+                    bytes = Arrays.copyOf(bytes, newCapacity(end));
+                } else {
+                    chars = Arrays.copyOf(chars, newCapacity(end));
+                }
+            }
+            if (bytes != null) {
+                boolean latin1 =
+                        str instanceof String
+                                ? copyLatin1(str, bytes, count)
+                                : ((ConsString) str).getChars(bytes, null, end);
+                if (!latin1) {
+                    inflate(count);
+                }
+            }
+            if (chars != null) {
+                if (str instanceof String) {
+                    ((String) str).getChars(0, str.length(), chars, count);
+                } else {
+                    ((ConsString) str).getChars(null, chars, end);
+                }
+            }
+            count = end;
+            return new BufferedChars(this, end);
+        }
     }
 }
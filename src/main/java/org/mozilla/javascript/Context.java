@@ -389,6 +389,7 @@ public class Context implements Closeable {
         version = VERSION_DEFAULT;
         optimizationLevel = codegenClass != null ? 0 : -1;
         maximumInterpreterStackDepth = Integer.MAX_VALUE;
+        codeCache = factory.getCodeCache();
     }
 
     /**
@@ -1941,6 +1942,117 @@ public class Context implements Closeable {
         this.optimizationLevel = optimizationLevel;
     }
 
+    /**
+     * Get the tiered compilation threshold.
+     *
+     * @return the number of calls and loop iterations after which an interpreted function is
+     *     compiled to bytecode, or 0 if tiered compilation is disabled
+     * @see #setTieredCompilationThreshold(int)
+     */
+    public final int getTieredCompilationThreshold() {
+        return tieredCompilationThreshold;
+    }
+
+    /**
+     * Enable or disable tiered compilation.
+     *
+     * <p>With tiered compilation, scripts are run by the interpreter even if the optimization level
+     * is 0 or above, so that functions that are never called are never compiled to class files.
+     * Every interpreted function counts its calls and the backward jumps of its loops, and once the
+     * count reaches the threshold, the function is compiled with the current optimization level on
+     * a background thread. Calls that start after the compilation has finished run the compiled
+     * code.
+     *
+     * <p>Only functions that need no activation object are compiled this way, that is functions
+     * that do not contain other functions and do not use <code>arguments</code>. Named function
+     * expressions, arrow functions, methods and generators always stay interpreted. Tiered
+     * compilation is not used while a debugger is set, or if the optimizer package is not
+     * available, and continuations cannot be captured inside compiled functions.
+     *
+     * @param threshold the number of calls and loop iterations after which a function is compiled,
+     *     or 0 to disable tiered compilation, which is the default
+     * @throws IllegalArgumentException if the threshold is negative
+     * @see #setOptimizationLevel(int)
+     */
+    public final void setTieredCompilationThreshold(int threshold) {
+        if (sealed) onSealedMutation();
+        if (threshold < 0) {
+            throw new IllegalArgumentException(
+                    "Tiered compilation threshold is negative: " + threshold);
+        }
+        this.tieredCompilationThreshold = threshold;
+    }
+
+    /**
+     * Get the code cache of this context.
+     *
+     * @return the cache of compiled scripts, or null if there is none
+     * @see #setCodeCache(CodeCache)
+     */
+    public final CodeCache getCodeCache() {
+        return codeCache;
+    }
+
+    /**
+     * Set the cache of compiled scripts.
+     *
+     * <p>With a code cache, a script that was already compiled with the same settings, by this
+     * process or an earlier one, is loaded from the cache instead of being parsed and compiled
+     * again. This applies to scripts and functions compiled through this context, unless a
+     * debugger is set. New contexts start with the code cache of their factory.
+     *
+     * @param codeCache the cache to use, or null to compile every script
+     * @see CodeCache
+     * @see ContextFactory#setCodeCache(CodeCache)
+     */
+    public final void setCodeCache(CodeCache codeCache) {
+        if (sealed) onSealedMutation();
+        this.codeCache = codeCache;
+    }
+
+    /**
+     * Return whether nested functions are compiled when they are first called.
+     *
+     * @see #setLazyFunctionCompilation(boolean)
+     */
+    public final boolean isLazyFunctionCompilation() {
+        return lazyFunctionCompilation;
+    }
+
+    /**
+     * Enable or disable lazy compilation of nested functions.
+     *
+     * <p>With lazy compilation, the interpreter only generates code for the top level of a script
+     * when it is compiled. The bodies of its functions are still parsed, so that syntax errors are
+     * reported at once, but they are compiled from the source text of the function when the
+     * function is first called, and functions that are never called are never compiled. The
+     * source text of the script is kept in memory for that purpose.
+     *
+     * <p>Every function that is called is parsed twice: once with its script and once more on its
+     * first call, together with the functions nested in it. Lazy compilation saves time when most
+     * functions of a script are never called, and costs time when most of them are.
+     *
+     * <p>This applies to scripts run by the interpreter, that is with an optimization level of -1
+     * or with tiered compilation, and only to functions written with the <code>function</code>
+     * keyword. Lazy compilation is not used while a debugger is set.
+     *
+     * @param lazy true to compile nested functions when they are first called
+     * @see #setOptimizationLevel(int)
+     * @see #setTieredCompilationThreshold(int)
+     */
+    public final void setLazyFunctionCompilation(boolean lazy) {
+        if (sealed) onSealedMutation();
+        this.lazyFunctionCompilation = lazy;
+    }
+
+    /** Return true if scripts are interpreted first and their hot functions compiled later. */
+    final boolean isTieredCompilation() {
+        return tieredCompilationThreshold > 0
+                && optimizationLevel >= 0
+                && codegenClass != null
+                && debugger == null;
+    }
+
     public static boolean isValidOptimizationLevel(int optimizationLevel) {
         return -1 <= optimizationLevel && optimizationLevel <= 9;
     }
@@ -2432,28 +2544,33 @@ public class Context implements Closeable {
             compilationErrorReporter = compilerEnv.getErrorReporter();
         }
 
-        ScriptNode tree =
-                parse(
-                        sourceString,
-                        sourceName,
-                        lineno,
-                        compilerEnv,
-                        compilationErrorReporter,
-                        returnFunction);
-
-        Object bytecode;
-        try {
-            if (compiler == null) {
-                compiler = createCompiler();
+        Object bytecode = null;
+        boolean tiered = compiler == null && isTieredCompilation();
+        String cacheKey = null;
+        if (codeCache != null && compiler == null && debugger == null) {
+            cacheKey =
+                    CodeCache.getKey(
+                            compilerEnv,
+                            sourceString,
+                            sourceName,
+                            lineno,
+                            returnFunction,
+                            isStrictMode(),
+                            tiered);
+            bytecode = codeCache.get(cacheKey);
+            if (bytecode != null) {
+                compiler =
+                        bytecode instanceof InterpreterData
+                                ? createInterpreter()
+                                : createCodegen();
+                if (compiler == null) {
+                    bytecode = null;
+                }
             }
+        }
 
-            bytecode = compiler.compile(compilerEnv, tree, tree.getEncodedSource(), returnFunction);
-        } catch (ClassFileFormatException e) {
-            // we hit some class file limit, fall back to interpreter or report
-
-            // we have to recreate the tree because the compile call might have changed the tree
-            // already
-            tree =
+        if (bytecode == null) {
+            ScriptNode tree =
                     parse(
                             sourceString,
                             sourceName,
@@ -2462,8 +2579,43 @@ public class Context implements Closeable {
                             compilationErrorReporter,
                             returnFunction);
 
-            compiler = createInterpreter();
-            bytecode = compiler.compile(compilerEnv, tree, tree.getEncodedSource(), returnFunction);
+            try {
+                if (compiler == null) {
+                    compiler = tiered ? createInterpreter() : createCompiler();
+                }
+
+                bytecode =
+                        compiler.compile(
+                                compilerEnv, tree, tree.getEncodedSource(), returnFunction);
+            } catch (ClassFileFormatException e) {
+                // we hit some class file limit, fall back to interpreter or report
+
+                // we have to recreate the tree because the compile call might have changed the
+                // tree already
+                tree =
+                        parse(
+                                sourceString,
+                                sourceName,
+                                lineno,
+                                compilerEnv,
+                                compilationErrorReporter,
+                                returnFunction);
+
+                compiler = createInterpreter();
+                bytecode =
+                        compiler.compile(
+                                compilerEnv, tree, tree.getEncodedSource(), returnFunction);
+            }
+
+            if (cacheKey != null) {
+                codeCache.put(cacheKey, bytecode);
+            }
+        }
+
+        if (tiered
+                || (compilerEnv.isLazyFunctionCompilation()
+                        && bytecode instanceof InterpreterData)) {
+            TieredCompilation.setSource((InterpreterData) bytecode, sourceString);
         }
 
         if (debugger != null) {
@@ -2534,8 +2686,8 @@ public class Context implements Closeable {
 
     private Evaluator createCompiler() {
         Evaluator result = null;
-        if (optimizationLevel >= 0 && codegenClass != null) {
-            result = (Evaluator) Kit.newInstanceOrNull(codegenClass);
+        if (optimizationLevel >= 0) {
+            result = createCodegen();
         }
         if (result == null) {
             result = createInterpreter();
@@ -2543,6 +2695,13 @@ public class Context implements Closeable {
         return result;
     }
 
+    static Evaluator createCodegen() {
+        if (codegenClass == null) {
+            return null;
+        }
+        return (Evaluator) Kit.newInstanceOrNull(codegenClass);
+    }
+
     static Evaluator createInterpreter() {
         return (Evaluator) Kit.newInstanceOrNull(interpreterClass);
     }
@@ -2678,6 +2837,9 @@ public class Context implements Closeable {
     private boolean generatingSource = true;
     boolean useDynamicScope;
     private int optimizationLevel;
+    private int tieredCompilationThreshold;
+    private CodeCache codeCache;
+    private boolean lazyFunctionCompilation;
     private int maximumInterpreterStackDepth;
     private WrapFactory wrapFactory;
     Debugger debugger;
@@ -114,6 +114,7 @@ public class ContextFactory {
     private volatile Object listeners;
     private boolean disabledListening;
     private ClassLoader applicationClassLoader;
+    private volatile CodeCache codeCache;
 
     /** Listener of {@link Context} creation and release events. */
     public interface Listener {
@@ -373,6 +374,26 @@ public class ContextFactory {
         this.applicationClassLoader = loader;
     }
 
+    /**
+     * Get the code cache that contexts made by this factory start with.
+     *
+     * @see #setCodeCache(CodeCache)
+     */
+    public final CodeCache getCodeCache() {
+        return codeCache;
+    }
+
+    /**
+     * Set the code cache of the contexts made by this factory from now on.
+     *
+     * @param codeCache the cache of compiled scripts, or null for none
+     * @see Context#setCodeCache(CodeCache)
+     */
+    public final void setCodeCache(CodeCache codeCache) {
+        checkNotSealed();
+        this.codeCache = codeCache;
+    }
+
     /**
      * Execute top call to script or function. When the runtime is about to execute a script or
      * function that will create the first stack frame with scriptable code, it calls this method to
@@ -30,6 +30,9 @@ public class EmbeddedSlotMap implements SlotMap {
     // initial slot array size, must be a power of 2
     private static final int INITIAL_SLOT_SIZE = 4;
 
+    // slot array size when the first slot is added, a power of 2 of at least INITIAL_SLOT_SIZE
+    private final int initialSlotSize;
+
     private static final class Iter implements Iterator<Slot> {
         private Slot next;
 
@@ -53,7 +56,18 @@ public class EmbeddedSlotMap implements SlotMap {
         }
     }
 
-    public EmbeddedSlotMap() {}
+    public EmbeddedSlotMap() {
+        initialSlotSize = INITIAL_SLOT_SIZE;
+    }
+
+    /** Create a map with room for the given number of slots. */
+    public EmbeddedSlotMap(int initialSize) {
+        int size = INITIAL_SLOT_SIZE;
+        while (3L * size < 4L * initialSize) {
+            size <<= 1;
+        }
+        initialSlotSize = size;
+    }
 
     @Override
     public int size() {
@@ -117,7 +131,7 @@ public class EmbeddedSlotMap implements SlotMap {
     private Slot createSlot(Object key, int indexOrHash, int attributes) {
         if (count == 0) {
             // Always throw away old slots if any on empty insert.
-            slots = new Slot[INITIAL_SLOT_SIZE];
+            slots = new Slot[initialSlotSize];
         }
 
         // Check if the table is not too full before inserting.
@@ -179,7 +193,11 @@ public class EmbeddedSlotMap implements SlotMap {
     @Override
     public void add(Slot newSlot) {
         if (slots == null) {
-            slots = new Slot[INITIAL_SLOT_SIZE];
+            slots = new Slot[initialSlotSize];
+        } else if (4 * (count + 1) > 3 * slots.length) {
+            Slot[] newSlots = new Slot[slots.length * 2];
+            copyTable(slots, newSlots);
+            slots = newSlots;
         }
         insertNewSlot(newSlot);
     }
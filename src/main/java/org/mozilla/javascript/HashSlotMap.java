@@ -17,7 +17,16 @@ import java.util.LinkedHashMap;
  */
 public class HashSlotMap implements SlotMap {
 
-    private final LinkedHashMap<Object, Slot> map = new LinkedHashMap<>();
+    private final LinkedHashMap<Object, Slot> map;
+
+    public HashSlotMap() {
+        map = new LinkedHashMap<>();
+    }
+
+    /** Create a map with room for the given number of slots. */
+    public HashSlotMap(int initialSize) {
+        map = new LinkedHashMap<>(Math.max(16, initialSize * 4 / 3 + 1));
+    }
 
     @Override
     public int size() {
@@ -162,8 +162,32 @@ abstract class Icode {
             Icode_VALUE_AND_THIS_OPTIONAL = Icode_ELEM_AND_THIS_OPTIONAL - 1,
             Icode_CALLSPECIAL_OPTIONAL = Icode_VALUE_AND_THIS_OPTIONAL - 1,
 
+            // Superinstructions. They replace the first opcode of a common sequence and are
+            // followed by the unchanged rest of it, see CodeGenerator.fuseInstructions.
+            // Comparison followed by IFEQ or IFNE
+            Icode_LT_IF = Icode_CALLSPECIAL_OPTIONAL - 1,
+            Icode_LE_IF = Icode_LT_IF - 1,
+            Icode_GT_IF = Icode_LE_IF - 1,
+            Icode_GE_IF = Icode_GT_IF - 1,
+            Icode_SHEQ_IF = Icode_GE_IF - 1,
+            Icode_SHNE_IF = Icode_SHEQ_IF - 1,
+            // SETVAR1 or VAR_INC_DEC followed by POP
+            Icode_SETVAR1_POP = Icode_SHNE_IF - 1,
+            Icode_VAR_INC_DEC_POP = Icode_SETVAR1_POP - 1,
+            // GETVAR1 followed by REG_STR_C0-3 or REG_STR1 and GETPROP
+            Icode_GETVAR1_GETPROP = Icode_VAR_INC_DEC_POP - 1,
+
+            // GETPROP that has seen a receiver it can cache, rewritten by the interpreter
+            Icode_GETPROP_CACHED = Icode_GETVAR1_GETPROP - 1,
+
             // Last icode
-            MIN_ICODE = Icode_CALLSPECIAL_OPTIONAL;
+            MIN_ICODE = Icode_GETPROP_CACHED;
+
+    /**
+     * The cache index of every GETPROP after the first 0xFFFF ones in a function, which are not
+     * cached.
+     */
+    static final int NO_PROPERTY_CACHE = 0xFFFF;
 
     static String bytecodeName(int bytecode) {
         if (!validBytecode(bytecode)) {
@@ -355,6 +379,26 @@ abstract class Icode {
                 return "IF_NULL_UNDEF";
             case Icode_IF_NOT_NULL_UNDEF:
                 return "IF_NOT_NULL_UNDEF";
+            case Icode_LT_IF:
+                return "LT_IF";
+            case Icode_LE_IF:
+                return "LE_IF";
+            case Icode_GT_IF:
+                return "GT_IF";
+            case Icode_GE_IF:
+                return "GE_IF";
+            case Icode_SHEQ_IF:
+                return "SHEQ_IF";
+            case Icode_SHNE_IF:
+                return "SHNE_IF";
+            case Icode_SETVAR1_POP:
+                return "SETVAR1_POP";
+            case Icode_VAR_INC_DEC_POP:
+                return "VAR_INC_DEC_POP";
+            case Icode_GETVAR1_GETPROP:
+                return "GETVAR1_GETPROP";
+            case Icode_GETPROP_CACHED:
+                return "GETPROP_CACHED";
         }
 
         // icode without name
@@ -304,6 +304,10 @@ public abstract class IdScriptableObject extends ScriptableObject implements IdF
 
     public IdScriptableObject() {}
 
+    protected IdScriptableObject(int initialSize) {
+        super(initialSize);
+    }
+
     public IdScriptableObject(Scriptable scope, Scriptable prototype) {
         super(scope, prototype);
     }
@@ -384,6 +388,16 @@ public abstract class IdScriptableObject extends ScriptableObject implements IdF
         return NOT_FOUND;
     }
 
+    /**
+     * Instance and prototype ids are resolved outside the slot map, so names that map to one of
+     * them cannot be cached.
+     */
+    @Override
+    boolean isCacheableName(String name) {
+        return findInstanceIdInfo(name) == 0
+                && (prototypeValues == null || prototypeValues.findId(name) == 0);
+    }
+
     @Override
     public Object get(Symbol key, Scriptable start) {
         Object value = super.get(key, start);
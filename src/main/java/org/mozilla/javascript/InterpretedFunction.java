@@ -15,6 +15,9 @@ final class InterpretedFunction extends NativeFunction implements Script {
     SecurityController securityController;
     Object securityDomain;
 
+    /** The compiled function that calls are forwarded to under tiered execution, or null. */
+    private transient NativeFunction compiledFunction;
+
     private InterpretedFunction(InterpreterData idata, Object staticSecurityDomain) {
         this.idata = idata;
 
@@ -81,12 +84,27 @@ final class InterpretedFunction extends NativeFunction implements Script {
      */
     @Override
     public Object call(Context cx, Scriptable scope, Scriptable thisObj, Object[] args) {
+        if (idata.hasCompiledBody) {
+            NativeFunction compiled = getCompiledFunction(cx);
+            if (compiled != null) {
+                return compiled.call(cx, scope, thisObj, args);
+            }
+        }
         if (!ScriptRuntime.hasTopCall(cx)) {
             return ScriptRuntime.doTopCall(this, cx, scope, thisObj, args, idata.isStrict);
         }
         return Interpreter.interpret(this, cx, scope, thisObj, args);
     }
 
+    private NativeFunction getCompiledFunction(Context cx) {
+        NativeFunction compiled = compiledFunction;
+        if (compiled == null) {
+            compiled = TieredCompilation.getCompiledFunction(cx, this);
+            compiledFunction = compiled;
+        }
+        return compiled;
+    }
+
     @Override
     public Object exec(Context cx, Scriptable scope) {
         if (!isScript()) {
@@ -34,6 +34,12 @@ public final class Interpreter extends Icode implements Evaluator {
     //            exception local and scope local
     static final int EXCEPTION_SLOT_SIZE = 6;
 
+    /** A GETPROP site keeps cache entries for at most this many receiver layouts. */
+    private static final int MAX_PROPERTY_CACHE_ENTRIES = 4;
+
+    /** A GETPROP site that had to read a property the normal way this often stops caching. */
+    private static final int MAX_PROPERTY_CACHE_MISSES = 8;
+
     /** Class to hold data corresponding to one interpreted call stack frame. */
     private static class CallFrame implements Cloneable, Serializable {
         private static final long serialVersionUID = -2843792508994958978L;
@@ -386,6 +392,46 @@ public final class Interpreter extends Icode implements Evaluator {
         }
     }
 
+    /**
+     * The property cache of one GETPROP site: the entries for the receivers seen most recently,
+     * newest first, and the number of times the site had to read a property the normal way. A
+     * site is never changed but replaced, so threads that run the same function can share it
+     * without locking; a thread that loses a race only drops an entry.
+     */
+    private static final class PropertySite {
+        private static final PropertyCacheEntry[] NO_ENTRIES = new PropertyCacheEntry[0];
+
+        static final PropertySite EMPTY = new PropertySite(NO_ENTRIES, 0);
+        static final PropertySite MEGAMORPHIC =
+                new PropertySite(NO_ENTRIES, MAX_PROPERTY_CACHE_MISSES);
+
+        final PropertyCacheEntry[] entries;
+        final int misses;
+
+        PropertySite(PropertyCacheEntry[] entries, int misses) {
+            this.entries = entries;
+            this.misses = misses;
+        }
+
+        /**
+         * Return the site after one more miss, adding "entry" unless it is null. Once the site has
+         * missed too often, return MEGAMORPHIC.
+         */
+        PropertySite miss(PropertyCacheEntry entry) {
+            if (misses + 1 >= MAX_PROPERTY_CACHE_MISSES) {
+                return MEGAMORPHIC;
+            }
+            PropertyCacheEntry[] newEntries = entries;
+            if (entry != null) {
+                int keep = Math.min(entries.length, MAX_PROPERTY_CACHE_ENTRIES - 1);
+                newEntries = new PropertyCacheEntry[keep + 1];
+                newEntries[0] = entry;
+                System.arraycopy(entries, 0, newEntries, 1, keep);
+            }
+            return new PropertySite(newEntries, misses + 1);
+        }
+    }
+
     private static CallFrame captureFrameForGenerator(CallFrame frame) {
         frame.frozen = true;
         CallFrame result = frame.cloneFrozen();
@@ -426,10 +472,8 @@ public final class Interpreter extends Icode implements Evaluator {
 
     @Override
     public Script createScriptObject(Object bytecode, Object staticSecurityDomain) {
-        if (bytecode != itsData) {
-            Kit.codeBug();
-        }
-        return InterpretedFunction.createScript(itsData, staticSecurityDomain);
+        // The bytecode was compiled by this interpreter, or loaded from a code cache
+        return InterpretedFunction.createScript((InterpreterData) bytecode, staticSecurityDomain);
     }
 
     @Override
@@ -440,10 +484,8 @@ public final class Interpreter extends Icode implements Evaluator {
     @Override
     public Function createFunctionObject(
             Context cx, Scriptable scope, Object bytecode, Object staticSecurityDomain) {
-        if (bytecode != itsData) {
-            Kit.codeBug();
-        }
-        return InterpretedFunction.createFunction(cx, scope, itsData, staticSecurityDomain);
+        return InterpretedFunction.createFunction(
+                cx, scope, (InterpreterData) bytecode, staticSecurityDomain);
     }
 
     private static int getShort(byte[] iCode, int pc) {
@@ -545,6 +587,7 @@ public final class Interpreter extends Icode implements Evaluator {
                         break;
                     }
                 case Icode_VAR_INC_DEC:
+                case Icode_VAR_INC_DEC_POP:
                 case Icode_NAME_INC_DEC:
                 case Icode_PROP_INC_DEC:
                 case Icode_ELEM_INC_DEC:
@@ -568,6 +611,15 @@ public final class Interpreter extends Icode implements Evaluator {
                         break;
                     }
 
+                case Token.GETPROP:
+                case Icode_GETPROP_CACHED:
+                    {
+                        int cacheIndex = getIndex(iCode, pc);
+                        out.println(tname + " " + cacheIndex);
+                        pc += 2;
+                        break;
+                    }
+
                 case Token.CATCH_SCOPE:
                     {
                         boolean afterFisrtFlag = (iCode[pc] != 0);
@@ -700,6 +752,8 @@ public final class Interpreter extends Icode implements Evaluator {
                 case Icode_GETVAR1:
                 case Icode_SETVAR1:
                 case Icode_SETCONSTVAR1:
+                case Icode_SETVAR1_POP:
+                case Icode_GETVAR1_GETPROP:
                     indexReg = iCode[pc];
                     out.println(tname + " " + indexReg);
                     ++pc;
@@ -762,7 +816,12 @@ public final class Interpreter extends Icode implements Evaluator {
         out.flush();
     }
 
-    private static int bytecodeSpan(int bytecode) {
+    /**
+     * Return the length of the instruction that starts with "bytecode". For a superinstruction
+     * this is the length of the first instruction it replaces, as the rest of the sequence follows
+     * unchanged.
+     */
+    static int bytecodeSpan(int bytecode) {
         switch (bytecode) {
             case Token.THROW:
             case Token.YIELD:
@@ -796,6 +855,7 @@ public final class Interpreter extends Icode implements Evaluator {
                 return 1 + 1;
 
             case Icode_VAR_INC_DEC:
+            case Icode_VAR_INC_DEC_POP:
             case Icode_NAME_INC_DEC:
             case Icode_PROP_INC_DEC:
             case Icode_ELEM_INC_DEC:
@@ -807,6 +867,11 @@ public final class Interpreter extends Icode implements Evaluator {
                 // short number
                 return 1 + 2;
 
+            case Token.GETPROP:
+            case Icode_GETPROP_CACHED:
+                // property cache index
+                return 1 + 2;
+
             case Icode_INTNUMBER:
                 // int number
                 return 1 + 4;
@@ -838,6 +903,8 @@ public final class Interpreter extends Icode implements Evaluator {
             case Icode_GETVAR1:
             case Icode_SETVAR1:
             case Icode_SETCONSTVAR1:
+            case Icode_SETVAR1_POP:
+            case Icode_GETVAR1_GETPROP:
                 // byte var index
                 return 1 + 1;
 
@@ -1154,6 +1221,7 @@ public final class Interpreter extends Icode implements Evaluator {
         final int EXCEPTION_COST = 100;
 
         String stringReg = null;
+        int stringIndex = -1;
         BigInteger bigIntReg = null;
         int indexReg = -1;
 
@@ -1378,6 +1446,52 @@ public final class Interpreter extends Icode implements Evaluator {
                                     continue Loop;
                                 }
                                 break jumplessRun;
+                            case Icode_LT_IF:
+                            case Icode_LE_IF:
+                            case Icode_GT_IF:
+                            case Icode_GE_IF:
+                            case Icode_SHEQ_IF:
+                            case Icode_SHNE_IF:
+                                {
+                                    boolean valBln;
+                                    if (stack[stackTop] == DBL_MRK
+                                            && stack[stackTop - 1] == DBL_MRK) {
+                                        double rDbl = sDbl[stackTop];
+                                        double lDbl = sDbl[stackTop - 1];
+                                        switch (op) {
+                                            case Icode_LT_IF:
+                                                valBln = lDbl < rDbl;
+                                                break;
+                                            case Icode_LE_IF:
+                                                valBln = lDbl <= rDbl;
+                                                break;
+                                            case Icode_GT_IF:
+                                                valBln = lDbl > rDbl;
+                                                break;
+                                            case Icode_GE_IF:
+                                                valBln = lDbl >= rDbl;
+                                                break;
+                                            case Icode_SHEQ_IF:
+                                                valBln = lDbl == rDbl;
+                                                break;
+                                            default:
+                                                valBln = lDbl != rDbl;
+                                                break;
+                                        }
+                                    } else {
+                                        valBln = compareForJump(frame, op, stack, sDbl, stackTop);
+                                    }
+                                    stackTop -= 2;
+                                    // Skip the IFEQ or IFNE that follows, IFEQ jumps on true
+                                    if (iCode[frame.pc++] != Token.IFEQ) {
+                                        valBln = !valBln;
+                                    }
+                                    if (!valBln) {
+                                        frame.pc += 2;
+                                        continue Loop;
+                                    }
+                                    break jumplessRun;
+                                }
                             case Icode_IFEQ_POP:
                                 if (!stack_boolean(frame, stackTop--)) {
                                     frame.pc += 2;
@@ -1520,6 +1634,10 @@ public final class Interpreter extends Icode implements Evaluator {
                                 }
                             case Token.NEG:
                                 {
+                                    if (stack[stackTop] == DBL_MRK) {
+                                        sDbl[stackTop] = -sDbl[stackTop];
+                                        continue Loop;
+                                    }
                                     Number rNum = stack_numeric(frame, stackTop);
                                     Number rNegNum = ScriptRuntime.negate(rNum);
                                     if (rNegNum instanceof BigInteger) {
@@ -1599,8 +1717,19 @@ public final class Interpreter extends Icode implements Evaluator {
                                     if (lhs == DBL_MRK)
                                         lhs = ScriptRuntime.wrapNumber(sDbl[stackTop]);
                                     stack[stackTop] =
-                                            ScriptRuntime.getObjectProp(
-                                                    lhs, stringReg, cx, frame.scope);
+                                            getPropAndQuicken(
+                                                    cx, frame, lhs, stringReg, frame.pc - 1);
+                                    frame.pc += 2;
+                                    continue Loop;
+                                }
+                            case Icode_GETPROP_CACHED:
+                                {
+                                    Object lhs = stack[stackTop];
+                                    if (lhs == DBL_MRK)
+                                        lhs = ScriptRuntime.wrapNumber(sDbl[stackTop]);
+                                    stack[stackTop] =
+                                            getPropCached(cx, frame, lhs, stringReg, frame.pc - 1);
+                                    frame.pc += 2;
                                     continue Loop;
                                 }
                             case Token.SETPROP:
@@ -1694,8 +1823,8 @@ public final class Interpreter extends Icode implements Evaluator {
                                 // stringReg: name
                                 ++stackTop;
                                 stack[stackTop] =
-                                        ScriptRuntime.getNameFunctionAndThis(
-                                                stringReg, cx, frame.scope);
+                                        getNameFunctionAndThis(
+                                                cx, frame, stringReg, stringIndex);
                                 ++stackTop;
                                 stack[stackTop] = ScriptRuntime.lastStoredScriptable(cx);
                                 continue Loop;
@@ -1838,8 +1967,8 @@ public final class Interpreter extends Icode implements Evaluator {
                                     }
                                     if (fun instanceof InterpretedFunction) {
                                         InterpretedFunction ifun = (InterpretedFunction) fun;
-                                        if (frame.fnOrScript.securityDomain
-                                                == ifun.securityDomain) {
+                                        if (frame.fnOrScript.securityDomain == ifun.securityDomain
+                                                && !ifun.idata.hasCompiledBody) {
                                             CallFrame callParentFrame = frame;
                                             if (op == Icode_TAIL_CALL) {
                                                 // In principle tail call can re-use the current
@@ -1999,7 +2128,8 @@ public final class Interpreter extends Icode implements Evaluator {
                                     Object lhs = stack[stackTop];
                                     if (lhs instanceof InterpretedFunction) {
                                         InterpretedFunction f = (InterpretedFunction) lhs;
-                                        if (frame.fnOrScript.securityDomain == f.securityDomain) {
+                                        if (frame.fnOrScript.securityDomain == f.securityDomain
+                                                && !f.idata.hasCompiledBody) {
                                             Scriptable newInstance =
                                                     f.createObject(cx, frame.scope);
                                             CallFrame calleeFrame =
@@ -2079,7 +2209,7 @@ public final class Interpreter extends Icode implements Evaluator {
                                 stack[++stackTop] = bigIntReg;
                                 continue Loop;
                             case Token.NAME:
-                                stack[++stackTop] = ScriptRuntime.name(cx, frame.scope, stringReg);
+                                stack[++stackTop] = name(cx, frame, stringReg, stringIndex);
                                 continue Loop;
                             case Icode_NAME_INC_DEC:
                                 stack[++stackTop] =
@@ -2126,6 +2256,48 @@ public final class Interpreter extends Icode implements Evaluator {
                                                 frame, stack, sDbl, stackTop, vars, varDbls,
                                                 indexReg);
                                 continue Loop;
+                            case Icode_SETVAR1_POP:
+                                indexReg = iCode[frame.pc++];
+                                stackTop =
+                                        doSetVar(
+                                                frame,
+                                                stack,
+                                                sDbl,
+                                                stackTop,
+                                                vars,
+                                                varDbls,
+                                                varAttributes,
+                                                indexReg);
+                                // Skip the POP that follows
+                                ++frame.pc;
+                                stack[stackTop] = null;
+                                stackTop--;
+                                continue Loop;
+                            case Icode_GETVAR1_GETPROP:
+                                {
+                                    indexReg = iCode[frame.pc++];
+                                    stackTop =
+                                            doGetVar(
+                                                    frame, stack, sDbl, stackTop, vars, varDbls,
+                                                    indexReg);
+                                    // Decode the REG_STR_C0-3 or REG_STR1 that follows
+                                    int strOp = iCode[frame.pc++];
+                                    if (strOp == Icode_REG_STR1) {
+                                        stringIndex = 0xFF & iCode[frame.pc++];
+                                    } else {
+                                        stringIndex = Icode_REG_STR_C0 - strOp;
+                                    }
+                                    stringReg = strings[stringIndex];
+                                    // and skip the GETPROP, which keeps the cache of the site
+                                    int site = frame.pc;
+                                    Object lhs = stack[stackTop];
+                                    if (lhs == DBL_MRK)
+                                        lhs = ScriptRuntime.wrapNumber(sDbl[stackTop]);
+                                    stack[stackTop] =
+                                            getPropCached(cx, frame, lhs, stringReg, site);
+                                    frame.pc += 3;
+                                    continue Loop;
+                                }
                             case Icode_VAR_INC_DEC:
                                 {
                                     stackTop =
@@ -2141,6 +2313,37 @@ public final class Interpreter extends Icode implements Evaluator {
                                                     indexReg);
                                     continue Loop;
                                 }
+                            case Icode_VAR_INC_DEC_POP:
+                                if (!frame.useActivation
+                                        && vars[indexReg] == DBL_MRK
+                                        && (varAttributes[indexReg] & ScriptableObject.READONLY)
+                                                == 0) {
+                                    // The result is discarded, so just update the number
+                                    if ((iCode[frame.pc] & Node.DECR_FLAG) == 0) {
+                                        varDbls[indexReg] += 1.0;
+                                    } else {
+                                        varDbls[indexReg] -= 1.0;
+                                    }
+                                    // Skip the type of ++/-- and the POP that follows
+                                    frame.pc += 2;
+                                    continue Loop;
+                                }
+                                stackTop =
+                                        doVarIncDec(
+                                                cx,
+                                                frame,
+                                                stack,
+                                                sDbl,
+                                                stackTop,
+                                                vars,
+                                                varDbls,
+                                                varAttributes,
+                                                indexReg);
+                                // Skip the POP that follows
+                                ++frame.pc;
+                                stack[stackTop] = null;
+                                stackTop--;
+                                continue Loop;
                             case Icode_ZERO:
                                 ++stackTop;
                                 stack[stackTop] = DBL_MRK;
@@ -2470,27 +2673,34 @@ public final class Interpreter extends Icode implements Evaluator {
                                 frame.pc += 4;
                                 continue Loop;
                             case Icode_REG_STR_C0:
+                                stringIndex = 0;
                                 stringReg = strings[0];
                                 continue Loop;
                             case Icode_REG_STR_C1:
+                                stringIndex = 1;
                                 stringReg = strings[1];
                                 continue Loop;
                             case Icode_REG_STR_C2:
+                                stringIndex = 2;
                                 stringReg = strings[2];
                                 continue Loop;
                             case Icode_REG_STR_C3:
+                                stringIndex = 3;
                                 stringReg = strings[3];
                                 continue Loop;
                             case Icode_REG_STR1:
-                                stringReg = strings[0xFF & iCode[frame.pc]];
+                                stringIndex = 0xFF & iCode[frame.pc];
+                                stringReg = strings[stringIndex];
                                 ++frame.pc;
                                 continue Loop;
                             case Icode_REG_STR2:
-                                stringReg = strings[getIndex(iCode, frame.pc)];
+                                stringIndex = getIndex(iCode, frame.pc);
+                                stringReg = strings[stringIndex];
                                 frame.pc += 2;
                                 continue Loop;
                             case Icode_REG_STR4:
-                                stringReg = strings[getInt(iCode, frame.pc)];
+                                stringIndex = getInt(iCode, frame.pc);
+                                stringReg = strings[stringIndex];
                                 frame.pc += 4;
                                 continue Loop;
                             case Icode_REG_BIGINT_C0:
@@ -2530,6 +2740,10 @@ public final class Interpreter extends Icode implements Evaluator {
                         addInstructionCount(cx, frame, 2);
                     }
                     int offset = getShort(iCode, frame.pc);
+                    if (offset < 0 && frame.idata.rawSource != null) {
+                        // A backward jump closes a loop iteration of a function that may tier up
+                        ++frame.idata.itsHotness;
+                    }
                     if (offset != 0) {
                         // -1 accounts for pc pointing to jump opcode + 1
                         frame.pc += offset - 1;
@@ -2738,6 +2952,15 @@ public final class Interpreter extends Icode implements Evaluator {
         boolean valBln;
         object_compare:
         {
+            if (isPlainNumber(rhs) && isPlainNumber(lhs)) {
+                // Compare the doubles directly instead of boxing them for the generic compare
+                valBln =
+                        compareDoubles(
+                                stack_double(frame, stackTop),
+                                stack_double(frame, stackTop + 1),
+                                op);
+                break object_compare;
+            }
             number_compare:
             {
                 Number rNum, lNum;
@@ -2759,8 +2982,91 @@ public final class Interpreter extends Icode implements Evaluator {
         return stackTop;
     }
 
+    /**
+     * Compare the two values on top of the stack for one of the Icode_*_IF superinstructions and
+     * return the result without pushing it.
+     */
+    private static boolean compareForJump(
+            CallFrame frame, int op, Object[] stack, double[] sDbl, int stackTop) {
+        int compareOp;
+        switch (op) {
+            case Icode_LT_IF:
+                compareOp = Token.LT;
+                break;
+            case Icode_LE_IF:
+                compareOp = Token.LE;
+                break;
+            case Icode_GT_IF:
+                compareOp = Token.GT;
+                break;
+            case Icode_GE_IF:
+                compareOp = Token.GE;
+                break;
+            case Icode_SHEQ_IF:
+                return doShallowEquals(stack, sDbl, stackTop - 1);
+            case Icode_SHNE_IF:
+                return !doShallowEquals(stack, sDbl, stackTop - 1);
+            default:
+                throw Kit.codeBug();
+        }
+        doCompare(frame, compareOp, stack, sDbl, stackTop);
+        return stack[stackTop - 1] == Boolean.TRUE;
+    }
+
+    /**
+     * Return true if "x" is a stack value that stands for a Number other than a BigInt, so that
+     * it can be read with stack_double or stack_int32 without losing anything.
+     */
+    private static boolean isPlainNumber(Object x) {
+        return x == DOUBLE_MARK || x instanceof Double || x instanceof Integer;
+    }
+
+    private static boolean compareDoubles(double lDbl, double rDbl, int op) {
+        switch (op) {
+            case Token.GE:
+                return lDbl >= rDbl;
+            case Token.LE:
+                return lDbl <= rDbl;
+            case Token.GT:
+                return lDbl > rDbl;
+            case Token.LT:
+                return lDbl < rDbl;
+            default:
+                throw Kit.codeBug();
+        }
+    }
+
     private static int doBitOp(
             CallFrame frame, int op, Object[] stack, double[] sDbl, int stackTop) {
+        if (isPlainNumber(stack[stackTop]) && isPlainNumber(stack[stackTop - 1])) {
+            // Neither operand can be a BigInt, so work on int32 values without boxing
+            int lInt = stack_int32(frame, stackTop - 1);
+            int rInt = stack_int32(frame, stackTop);
+            --stackTop;
+            int result;
+            switch (op) {
+                case Token.BITAND:
+                    result = lInt & rInt;
+                    break;
+                case Token.BITOR:
+                    result = lInt | rInt;
+                    break;
+                case Token.BITXOR:
+                    result = lInt ^ rInt;
+                    break;
+                case Token.LSH:
+                    result = lInt << rInt;
+                    break;
+                case Token.RSH:
+                    result = lInt >> rInt;
+                    break;
+                default:
+                    throw Kit.codeBug();
+            }
+            stack[stackTop] = DOUBLE_MARK;
+            sDbl[stackTop] = result;
+            return stackTop;
+        }
         Number lValue = stack_numeric(frame, stackTop - 1);
         Number rValue = stack_numeric(frame, stackTop);
         stackTop--;
@@ -2794,6 +3100,12 @@ public final class Interpreter extends Icode implements Evaluator {
     }
 
     private static int doBitNOT(CallFrame frame, Object[] stack, double[] sDbl, int stackTop) {
+        if (isPlainNumber(stack[stackTop])) {
+            int result = ~stack_int32(frame, stackTop);
+            stack[stackTop] = DOUBLE_MARK;
+            sDbl[stackTop] = result;
+            return stackTop;
+        }
         Number value = stack_numeric(frame, stackTop);
         Number result = ScriptRuntime.bitwiseNOT(value);
         if (result instanceof BigInteger) {
@@ -2829,7 +3141,14 @@ public final class Interpreter extends Icode implements Evaluator {
             value = ScriptRuntime.getObjectElem(lhs, id, cx, frame.scope);
         } else {
             double d = sDbl[stackTop + 1];
-            value = ScriptRuntime.getObjectIndex(lhs, d, cx, frame.scope);
+            int index = (int) d;
+            value = Scriptable.NOT_FOUND;
+            if (index == d && lhs != null && lhs.getClass() == NativeArray.class) {
+                value = ((NativeArray) lhs).getDenseElement(index);
+            }
+            if (value == Scriptable.NOT_FOUND) {
+                value = ScriptRuntime.getObjectIndex(lhs, d, cx, frame.scope);
+            }
         }
         stack[stackTop] = value;
         return stackTop;
@@ -2852,7 +3171,15 @@ public final class Interpreter extends Icode implements Evaluator {
             value = ScriptRuntime.setObjectElem(lhs, id, rhs, cx, frame.scope);
         } else {
             double d = sDbl[stackTop + 1];
-            value = ScriptRuntime.setObjectIndex(lhs, d, rhs, cx, frame.scope);
+            int index = (int) d;
+            if (index == d
+                    && lhs != null
+                    && lhs.getClass() == NativeArray.class
+                    && ((NativeArray) lhs).setDenseElement(index, rhs)) {
+                value = rhs;
+            } else {
+                value = ScriptRuntime.setObjectIndex(lhs, d, rhs, cx, frame.scope);
+            }
         }
         stack[stackTop] = value;
         return stackTop;
@@ -3422,6 +3749,13 @@ public final class Interpreter extends Icode implements Evaluator {
             int argCount,
             InterpretedFunction fnOrScript,
             CallFrame parentFrame) {
+        InterpreterData idata = fnOrScript.idata;
+        if (idata.rawSource != null) {
+            if (idata.lazyBody) {
+                LazyCompilation.ensureCompiled(cx, idata);
+            }
+            TieredCompilation.countCall(cx, fnOrScript);
+        }
         CallFrame frame = new CallFrame(cx, thisObj, fnOrScript, parentFrame);
         frame.initializeArgs(cx, callerScope, args, argsDbl, argShift, argCount);
         enterFrame(cx, frame, args, false);
@@ -3587,6 +3921,120 @@ public final class Interpreter extends Icode implements Evaluator {
         return ScriptRuntime.toInt32(x);
     }
 
+    /**
+     * Look up a name like ScriptRuntime.name, reading variables of the top-level scope through the
+     * cell cache of the function. "stringIndex" is the position of the name in the string table.
+     */
+    private static Object name(Context cx, CallFrame frame, String name, int stringIndex) {
+        TopScopeCell cell = nameCell(frame, stringIndex);
+        if (cell != null && cell.holdsVariable()) {
+            Object value = cell.getValue(cx, frame.scope, name);
+            if (value != Scriptable.NOT_FOUND) {
+                return value;
+            }
+        }
+        Object value = ScriptRuntime.name(cx, frame.scope, name);
+        cacheName(cx, frame, name, stringIndex, cell);
+        return value;
+    }
+
+    /** Like name(), but for ScriptRuntime.getNameFunctionAndThis. */
+    private static Callable getNameFunctionAndThis(
+            Context cx, CallFrame frame, String name, int stringIndex) {
+        TopScopeCell cell = nameCell(frame, stringIndex);
+        if (cell != null && cell.holdsVariable()) {
+            Callable f = cell.getFunctionAndThis(cx, frame.scope, name);
+            if (f != null) {
+                return f;
+            }
+        }
+        Callable f = ScriptRuntime.getNameFunctionAndThis(name, cx, frame.scope);
+        cacheName(cx, frame, name, stringIndex, cell);
+        return f;
+    }
+
+    private static TopScopeCell nameCell(CallFrame frame, int stringIndex) {
+        TopScopeCell[] cells = frame.idata.itsNameCells;
+        return cells == null ? null : cells[stringIndex];
+    }
+
+    /**
+     * Read a property for a GETPROP at "site" that was quickened to Icode_GETPROP_CACHED, or that
+     * is part of a superinstruction, through the cache entries of the site.
+     */
+    private static Object getPropCached(
+            Context cx, CallFrame frame, Object lhs, String name, int site) {
+        int cacheIndex = getIndex(frame.idata.itsICode, site + 1);
+        if (cacheIndex != NO_PROPERTY_CACHE) {
+            PropertySite cache = (PropertySite) frame.idata.itsPropertyCaches[cacheIndex];
+            if (cache != null) {
+                for (PropertyCacheEntry entry : cache.entries) {
+                    if (entry.matches(lhs)) {
+                        return entry.getValue(lhs);
+                    }
+                }
+            }
+        }
+        return getPropAndQuicken(cx, frame, lhs, name, site);
+    }
+
+    /**
+     * Read a property the normal way for the GETPROP at "site", and add a cache entry for the
+     * receiver to the site if there is one. A GETPROP whose site has entries is rewritten to
+     * Icode_GETPROP_CACHED, and rewritten back once the site has missed too often.
+     *
+     * <p>The rewrites change the code shared by every thread that runs the function without
+     * locking. That is safe because both instructions read the property correctly and have the
+     * same length, so a thread may see either of them.
+     */
+    private static Object getPropAndQuicken(
+            Context cx, CallFrame frame, Object lhs, String name, int site) {
+        Object value = ScriptRuntime.getObjectProp(lhs, name, cx, frame.scope);
+        InterpreterData idata = frame.idata;
+        byte[] iCode = idata.itsICode;
+        int cacheIndex = getIndex(iCode, site + 1);
+        if (cacheIndex == NO_PROPERTY_CACHE) {
+            return value;
+        }
+        PropertySite cache = (PropertySite) idata.itsPropertyCaches[cacheIndex];
+        if (cache == PropertySite.MEGAMORPHIC) {
+            return value;
+        }
+        if (cache == null) {
+            cache = PropertySite.EMPTY;
+        }
+        cache = cache.miss(PropertyCacheEntry.lookup(lhs, name));
+        idata.itsPropertyCaches[cacheIndex] = cache;
+        if (cache == PropertySite.MEGAMORPHIC) {
+            if (iCode[site] == Icode_GETPROP_CACHED) {
+                iCode[site] = (byte) Token.GETPROP;
+            }
+        } else if (cache.entries.length != 0 && iCode[site] == Token.GETPROP) {
+            iCode[site] = (byte) Icode_GETPROP_CACHED;
+        }
+        return value;
+    }
+
+    /**
+     * Look for a cell for a name that "cell", the current cell of the site, did not answer. A site
+     * whose names could not be cached a few times in a row, such as a name inside a "with"
+     * statement, stops looking and always takes the normal path.
+     */
+    private static void cacheName(
+            Context cx, CallFrame frame, String name, int stringIndex, TopScopeCell cell) {
+        if (cell != null && !cell.mayRetry()) {
+            return;
+        }
+        InterpreterData idata = frame.idata;
+        TopScopeCell[] cells = idata.itsNameCells;
+        if (cells == null) {
+            cells = new TopScopeCell[idata.itsStringTable.length];
+            idata.itsNameCells = cells;
+        }
+        TopScopeCell newCell = TopScopeCell.lookup(cx, frame.scope, name);
+        cells[stringIndex] = newCell == null ? TopScopeCell.miss(cell) : newCell;
+    }
+
     private static double stack_double(CallFrame frame, int i) {
         Object x = frame.stack[i];
         if (x != UniqueTag.DOUBLE_MARK) {
@@ -3704,6 +4152,34 @@ public final class Interpreter extends Icode implements Evaluator {
 
     private static int doArithmetic(
             CallFrame frame, int op, Object[] stack, double[] sDbl, int stackTop) {
+        if (op != Token.EXP
+                && isPlainNumber(stack[stackTop])
+                && isPlainNumber(stack[stackTop - 1])) {
+            // Neither operand can be a BigInt, so compute the result without boxing
+            double rDbl = stack_double(frame, stackTop);
+            double lDbl = stack_double(frame, stackTop - 1);
+            --stackTop;
+            double result;
+            switch (op) {
+                case Token.SUB:
+                    result = lDbl - rDbl;
+                    break;
+                case Token.MUL:
+                    result = lDbl * rDbl;
+                    break;
+                case Token.DIV:
+                    result = lDbl / rDbl;
+                    break;
+                case Token.MOD:
+                    result = lDbl % rDbl;
+                    break;
+                default:
+                    throw Kit.codeBug();
+            }
+            stack[stackTop] = DOUBLE_MARK;
+            sDbl[stackTop] = result;
+            return stackTop;
+        }
         Number lNum = stack_numeric(frame, stackTop - 1);
         Number rNum = stack_numeric(frame, stackTop);
         --stackTop;
@@ -6,6 +6,8 @@
 
 package org.mozilla.javascript;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.math.BigInteger;
 import java.util.Arrays;
@@ -43,6 +45,13 @@ final class InterpreterData implements Serializable, DebuggableScript {
         itsBigIntTable = new BigInteger[INITIAL_BIGINTTABLE_SIZE];
     }
 
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        if (itsICode != null) {
+            itsPropertyCaches = new Object[itsPropertyCacheCount];
+        }
+    }
+
     String itsName;
     String itsSourceFile;
     boolean itsNeedsActivation;
@@ -57,6 +66,22 @@ final class InterpreterData implements Serializable, DebuggableScript {
 
     byte[] itsICode;
 
+    /**
+     * Cells for names that resolve to variables of the top-level scope, indexed like
+     * itsStringTable and created on first use.
+     */
+    transient TopScopeCell[] itsNameCells;
+
+    /**
+     * Property caches of GETPROP instructions, indexed by the cache index that follows each
+     * GETPROP in itsICode. The array is created together with itsICode, and each element on the
+     * first run of its GETPROP.
+     */
+    transient Object[] itsPropertyCaches;
+
+    /** The number of GETPROP instructions, and so the length of itsPropertyCaches. */
+    int itsPropertyCacheCount;
+
     int[] itsExceptionTable;
 
     int itsMaxVars;
@@ -77,6 +102,33 @@ final class InterpreterData implements Serializable, DebuggableScript {
     int encodedSourceStart;
     int encodedSourceEnd;
 
+    /**
+     * The source text the function was compiled from when it may be compiled to bytecode later
+     * for tiered execution, or when its body is compiled lazily, or null. See {@link
+     * TieredCompilation} and {@link LazyCompilation}. It is serialized, so that functions
+     * whose body is not compiled yet can still be compiled once deserialized.
+     */
+    String rawSource;
+
+    int rawSourceStart;
+    int rawSourceEnd;
+    int rawSourceLineno;
+
+    /** The number of calls and backward jumps seen so far, for tiered execution. */
+    transient int itsHotness;
+
+    /** The state of the tiered compilation of the function, managed by TieredCompilation. */
+    transient volatile Object tieredCode;
+
+    /** true once the function has a compiled body that calls should use instead. */
+    transient boolean hasCompiledBody;
+
+    /**
+     * true while the body of the function is not compiled yet: the function has no icode, and only
+     * the fields that describe its declaration and parameters are set.
+     */
+    volatile boolean lazyBody;
+
     int languageVersion;
 
     boolean isStrict;
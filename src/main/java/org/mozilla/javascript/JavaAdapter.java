@@ -305,10 +305,24 @@ public final class JavaAdapter implements IdFunctionCall {
         sig = new JavaAdapterSignature(superClass, interfaces, names);
         Class<?> adapterClass = generated.get(sig);
         if (adapterClass == null) {
-            String adapterName = "adapter" + cache.newClassSerialNumber();
-            byte[] code = createAdapterCode(names, adapterName, superClass, interfaces, null);
+            // Adapters are loaded in the security domain of the script, so they are only shared
+            // between scopes without a security controller
+            SharedClassCache shared =
+                    cache.isCachingEnabled() && Context.getContext().getSecurityController() == null
+                            ? cache.getSharedCache()
+                            : null;
+            if (shared != null) {
+                adapterClass = shared.getAdapterClass(sig);
+            }
+            if (adapterClass == null) {
+                String adapterName = "adapter" + cache.newClassSerialNumber();
+                byte[] code = createAdapterCode(names, adapterName, superClass, interfaces, null);
 
-            adapterClass = loadAdapterClass(adapterName, code);
+                adapterClass = loadAdapterClass(adapterName, code);
+                if (shared != null) {
+                    shared.putAdapterClass(sig, adapterClass);
+                }
+            }
             if (cache.isCachingEnabled()) {
                 generated.put(sig, adapterClass);
             }
@@ -1089,7 +1103,7 @@ public final class JavaAdapter implements IdFunctionCall {
         return firstLocal;
     }
 
-    private static StringBuilder appendTypeString(StringBuilder sb, Class<?> type) {
+    static StringBuilder appendTypeString(StringBuilder sb, Class<?> type) {
         while (type.isArray()) {
             sb.append('[');
             type = type.getComponentType();
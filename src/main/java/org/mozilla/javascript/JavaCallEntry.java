@@ -0,0 +1,203 @@
+/* -*- Mode: java; tab-width: 8; indent-tabs-mode: nil; c-basic-offset: 4 -*-
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * A JavaCallEntry lets a call site in generated code call a Java method directly, instead of
+ * going through {@link NativeJavaMethod#call}. The entry guards on the identity of the
+ * NativeJavaMethod, and its target converts the arguments, invokes the method handle of the
+ * method and wraps the result, so that the JIT compiler sees the Java method as a constant and can
+ * inline it into the script.
+ *
+ * <p>If the function has a single Java method, the entry is valid for all arguments, and the
+ * target reports arguments that cannot be converted exactly like {@link NativeJavaMethod#call}.
+ * If the method is overloaded, the entry holds the overload that was chosen for the types of the
+ * arguments of the call it was created for, and also guards on the types of the arguments, so
+ * that each call site resolves the overloads it sees only once. Methods that take a variable
+ * number of arguments are never cached.
+ */
+public final class JavaCallEntry {
+
+    private final NativeJavaMethod function;
+    private final MemberBox member;
+    private final ResolvedOverload overload;
+    private final Class<?> returnType;
+    private final MethodHandle target;
+
+    private JavaCallEntry(
+            NativeJavaMethod function,
+            MemberBox member,
+            ResolvedOverload overload,
+            MethodHandle invoker) {
+        this.function = function;
+        this.member = member;
+        this.overload = overload;
+        this.returnType = member.method().getReturnType();
+
+        // (Scriptable thisObj, Object[] args)Object
+        MethodHandle call =
+                MethodHandles.filterArguments(
+                        MethodHandles.catchException(invoker, Throwable.class, WRAP_EXCEPTION),
+                        0,
+                        JAVA_THIS.bindTo(this),
+                        CONVERT_ARGS.bindTo(this));
+        call = MethodHandles.dropArguments(call, 2, Context.class, Scriptable.class);
+        MethodHandle wrap =
+                MethodHandles.dropArguments(
+                        WRAP_RESULT.bindTo(this), 1, Scriptable.class, Object[].class);
+        this.target = MethodHandles.foldArguments(wrap, call);
+    }
+
+    /**
+     * Return an entry for calls to "fun" with arguments of the types of "args", or null if such
+     * calls cannot be cached.
+     */
+    public static JavaCallEntry lookup(Context cx, Object fun, Object[] args) {
+        if (fun == null || fun.getClass() != NativeJavaMethod.class || NativeJavaMethod.debug) {
+            return null;
+        }
+        NativeJavaMethod function = (NativeJavaMethod) fun;
+        MemberBox[] methods = function.methods;
+        MethodHandle invoker;
+        try {
+            ResolvedOverload overload = null;
+            int index = 0;
+            if (methods.length > 1) {
+                index = function.findCachedFunction(cx, args);
+                if (index < 0) {
+                    return null;
+                }
+                overload = new ResolvedOverload(args, index);
+            } else if (methods.length == 0) {
+                return null;
+            }
+            MemberBox member = methods[index];
+            if (!member.isMethod() || member.vararg) {
+                return null;
+            }
+            invoker = member.invoker();
+            return new JavaCallEntry(function, member, overload, invoker);
+        } catch (RuntimeException e) {
+            // The call is ambiguous or the method is not accessible; the full call reports that
+            return null;
+        }
+    }
+
+    /** Return true if "fun" is the function of this entry, for a call without arguments. */
+    public boolean matches(Object fun) {
+        return fun == function && (overload == null || overload.types.length == 0);
+    }
+
+    /** Return true if the entry applies to a call of "fun" with one argument. */
+    public boolean matches(Object fun, Object arg0) {
+        return fun == function && (overload == null || overload.matches(0, arg0));
+    }
+
+    /** Return true if the entry applies to a call of "fun" with two arguments. */
+    public boolean matches(Object fun, Object arg0, Object arg1) {
+        return fun == function
+                && (overload == null || (overload.matches(0, arg0) && overload.matches(1, arg1)));
+    }
+
+    /** Return true if the entry applies to a call of "fun" with the arguments "args". */
+    public boolean matches(Object fun, Object[] args) {
+        return fun == function && (overload == null || overload.matches(args));
+    }
+
+    /**
+     * Return the handle that calls the method, of type (Scriptable thisObj, Object[] args, Context
+     * cx, Scriptable scope)Object.
+     */
+    public MethodHandle getTarget() {
+        return target;
+    }
+
+    private Object javaThis(Scriptable thisObj) {
+        Object javaObject = function.javaThis(member, thisObj);
+        if (javaObject instanceof Delegator) {
+            javaObject = ((Delegator) javaObject).getDelegee();
+        }
+        return javaObject;
+    }
+
+    private Object[] convertArgs(Object[] args) {
+        Class<?>[] argTypes = member.argTypes;
+        // The guard of an overloaded method already checked the types of the arguments
+        if (overload == null
+                && (args.length != argTypes.length
+                        || !NativeJavaMethod.canConvertArgs(member, args.length, args, null))) {
+            throw function.noSuchMethod(args);
+        }
+        Object[] converted = args;
+        for (int i = 0; i < args.length; i++) {
+            Object arg = args[i];
+            Object coerced = Context.jsToJava(arg, argTypes[i]);
+            if (coerced instanceof Delegator) {
+                coerced = ((Delegator) coerced).getDelegee();
+            }
+            if (coerced != arg) {
+                if (converted == args) {
+                    converted = args.clone();
+                }
+                converted[i] = coerced;
+            }
+        }
+        return converted;
+    }
+
+    private Object wrapResult(Object result, Context cx, Scriptable scope) {
+        if (returnType == Void.TYPE) {
+            return Undefined.instance;
+        }
+        return cx.getWrapFactory().wrap(cx, scope, result, returnType);
+    }
+
+    private static final MethodHandle JAVA_THIS;
+    private static final MethodHandle CONVERT_ARGS;
+    private static final MethodHandle WRAP_RESULT;
+    private static final MethodHandle WRAP_EXCEPTION;
+
+    static {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        try {
+            JAVA_THIS =
+                    lookup.findVirtual(
+                            JavaCallEntry.class,
+                            "javaThis",
+                            MethodType.methodType(Object.class, Scriptable.class));
+            CONVERT_ARGS =
+                    lookup.findVirtual(
+                            JavaCallEntry.class,
+                            "convertArgs",
+                            MethodType.methodType(Object[].class, Object[].class));
+            WRAP_RESULT =
+                    lookup.findVirtual(
+                            JavaCallEntry.class,
+                            "wrapResult",
+                            MethodType.methodType(
+                                    Object.class, Object.class, Context.class, Scriptable.class));
+            MethodHandle wrapException =
+                    lookup.findStatic(
+                            MemberBox.class,
+                            "wrapException",
+                            MethodType.methodType(RuntimeException.class, Throwable.class));
+            WRAP_EXCEPTION =
+                    MethodHandles.dropArguments(
+                                    wrapException.asType(
+                                            MethodType.methodType(Object.class, Throwable.class)),
+                                    1,
+                                    Object.class,
+                                    Object[].class);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
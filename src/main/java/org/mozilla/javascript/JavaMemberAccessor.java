@@ -0,0 +1,273 @@
+/* -*- Mode: java; tab-width: 8; indent-tabs-mode: nil; c-basic-offset: 4 -*-
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.List;
+import org.mozilla.classfile.ByteCode;
+import org.mozilla.classfile.ClassFileWriter;
+
+/**
+ * Base class of the classes that {@link JavaMembers} generates to read and write the public fields
+ * and bean properties of a Java class without reflection.
+ *
+ * <p>A generated accessor holds a list of fields and methods. {@link #get} reads the field or
+ * calls the getter at the given index, and {@link #set} writes the field or calls the setter at
+ * the given index, with a plain field instruction or method call, so the JIT compiler can inline
+ * the access into its caller.
+ *
+ * <p>This class is public only because the generated classes are loaded by their own class loader
+ * and must be able to extend it; it is not intended for public use.
+ *
+ * @see ClassCache#setAccessorGenerationEnabled(boolean)
+ */
+public abstract class JavaMemberAccessor {
+
+    protected JavaMemberAccessor() {}
+
+    /**
+     * Read the field or call the getter at "index".
+     *
+     * @param index the index of the member
+     * @param target the Java object, ignored for static members
+     * @return the value, with primitive values boxed
+     */
+    public abstract Object get(int index, Object target);
+
+    /**
+     * Write the field or call the setter at "index".
+     *
+     * @param index the index of the member
+     * @param target the Java object, ignored for static members
+     * @param value the value, already converted to the type of the member
+     */
+    public abstract void set(int index, Object target, Object value);
+
+    private static final String SUPER_CLASS_NAME = JavaMemberAccessor.class.getName();
+
+    /**
+     * Generate and load an accessor for the members of "cl". A field is read with {@link #get}
+     * and, if "settable" is true for it, written with {@link #set}; a method without parameters is
+     * a getter and a method with one parameter is a setter. All members and the types that the
+     * setters convert to must be accessible from any class.
+     *
+     * @return the accessor, or null if its class cannot be loaded
+     */
+    static JavaMemberAccessor create(Class<?> cl, List<Member> members, boolean[] settable) {
+        ClassLoader parent = cl.getClassLoader();
+        if (parent == null || !Kit.testIfCanLoadRhinoClasses(parent)) {
+            // The generated class must see both the class and Rhino
+            ClassLoader rhinoLoader = JavaMemberAccessor.class.getClassLoader();
+            if (parent != null && Kit.classOrNull(rhinoLoader, cl.getName()) != cl) {
+                return null;
+            }
+            parent = rhinoLoader;
+        }
+        String className = "org.mozilla.javascript.gen.Accessor_" + mangle(cl.getName());
+        try {
+            byte[] code = generate(className, members, settable);
+            GeneratedClassLoader loader = SecurityController.createLoader(parent, null);
+            Class<?> accessorClass = loader.defineClass(className, code);
+            loader.linkClass(accessorClass);
+            return (JavaMemberAccessor) accessorClass.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+            // Reflection still works
+            return null;
+        }
+    }
+
+    private static String mangle(String name) {
+        StringBuilder sb = new StringBuilder(name.length());
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            sb.append(Character.isJavaIdentifierPart(c) ? c : '_');
+        }
+        return sb.toString();
+    }
+
+    private static byte[] generate(String className, List<Member> members, boolean[] settable) {
+        ClassFileWriter cfw = new ClassFileWriter(className, SUPER_CLASS_NAME, "<accessor>");
+        cfw.setFlags((short) (ClassFileWriter.ACC_PUBLIC | ClassFileWriter.ACC_FINAL));
+
+        cfw.startMethod("<init>", "()V", ClassFileWriter.ACC_PUBLIC);
+        cfw.addALoad(0);
+        cfw.addInvoke(ByteCode.INVOKESPECIAL, SUPER_CLASS_NAME, "<init>", "()V");
+        cfw.add(ByteCode.RETURN);
+        cfw.stopMethod((short) 1);
+
+        int count = members.size();
+
+        // Object get(int index, Object target)
+        cfw.startMethod(
+                "get", "(ILjava/lang/Object;)Ljava/lang/Object;", ClassFileWriter.ACC_PUBLIC);
+        cfw.addILoad(1);
+        int getSwitch = cfw.addTableSwitch(0, count - 1);
+        boolean[] hasCase = new boolean[count];
+        for (int i = 0; i != count; ++i) {
+            Member member = members.get(i);
+            if (member instanceof Method && ((Method) member).getParameterTypes().length != 0) {
+                continue;
+            }
+            cfw.markTableSwitchCase(getSwitch, i, 0);
+            hasCase[i] = true;
+            Class<?> type;
+            if (member instanceof Field) {
+                Field field = (Field) member;
+                type = field.getType();
+                loadTarget(cfw, field);
+                cfw.add(
+                        Modifier.isStatic(field.getModifiers())
+                                ? ByteCode.GETSTATIC
+                                : ByteCode.GETFIELD,
+                        field.getDeclaringClass().getName(),
+                        field.getName(),
+                        typeString(type));
+            } else {
+                Method method = (Method) member;
+                type = method.getReturnType();
+                loadTarget(cfw, method);
+                invoke(cfw, method);
+            }
+            box(cfw, type);
+            cfw.add(ByteCode.ARETURN);
+        }
+        markDefault(cfw, getSwitch, hasCase);
+        cfw.stopMethod((short) 3);
+
+        // void set(int index, Object target, Object value)
+        cfw.startMethod(
+                "set", "(ILjava/lang/Object;Ljava/lang/Object;)V", ClassFileWriter.ACC_PUBLIC);
+        cfw.addILoad(1);
+        int setSwitch = cfw.addTableSwitch(0, count - 1);
+        hasCase = new boolean[count];
+        for (int i = 0; i != count; ++i) {
+            Member member = members.get(i);
+            if (member instanceof Field) {
+                if (!settable[i]) {
+                    continue;
+                }
+                Field field = (Field) member;
+                cfw.markTableSwitchCase(setSwitch, i, 0);
+                hasCase[i] = true;
+                loadTarget(cfw, field);
+                cfw.addALoad(3);
+                unbox(cfw, field.getType());
+                cfw.add(
+                        Modifier.isStatic(field.getModifiers())
+                                ? ByteCode.PUTSTATIC
+                                : ByteCode.PUTFIELD,
+                        field.getDeclaringClass().getName(),
+                        field.getName(),
+                        typeString(field.getType()));
+            } else {
+                Method method = (Method) member;
+                Class<?>[] params = method.getParameterTypes();
+                if (params.length != 1) {
+                    continue;
+                }
+                cfw.markTableSwitchCase(setSwitch, i, 0);
+                hasCase[i] = true;
+                loadTarget(cfw, method);
+                cfw.addALoad(3);
+                unbox(cfw, params[0]);
+                invoke(cfw, method);
+                Class<?> returnType = method.getReturnType();
+                if (returnType == Long.TYPE || returnType == Double.TYPE) {
+                    cfw.add(ByteCode.POP2);
+                } else if (returnType != Void.TYPE) {
+                    cfw.add(ByteCode.POP);
+                }
+            }
+            cfw.add(ByteCode.RETURN);
+        }
+        markDefault(cfw, setSwitch, hasCase);
+        cfw.stopMethod((short) 4);
+
+        return cfw.toByteArray();
+    }
+
+    /** Send the indexes that have no case in the switch to the default, which throws. */
+    private static void markDefault(ClassFileWriter cfw, int switchStart, boolean[] hasCase) {
+        cfw.markTableSwitchDefault(switchStart);
+        for (int i = 0; i != hasCase.length; ++i) {
+            if (!hasCase[i]) {
+                cfw.markTableSwitchCase(switchStart, i);
+            }
+        }
+        cfw.add(ByteCode.NEW, "java/lang/IndexOutOfBoundsException");
+        cfw.add(ByteCode.DUP);
+        cfw.addInvoke(
+                ByteCode.INVOKESPECIAL, "java/lang/IndexOutOfBoundsException", "<init>", "()V");
+        cfw.add(ByteCode.ATHROW);
+    }
+
+    private static void loadTarget(ClassFileWriter cfw, Member member) {
+        if (!Modifier.isStatic(member.getModifiers())) {
+            cfw.addALoad(2);
+            cfw.add(ByteCode.CHECKCAST, member.getDeclaringClass().getName());
+        }
+    }
+
+    private static void invoke(ClassFileWriter cfw, Method method) {
+        Class<?> declaringClass = method.getDeclaringClass();
+        int opcode;
+        if (Modifier.isStatic(method.getModifiers())) {
+            opcode = ByteCode.INVOKESTATIC;
+        } else if (declaringClass.isInterface()) {
+            opcode = ByteCode.INVOKEINTERFACE;
+        } else {
+            opcode = ByteCode.INVOKEVIRTUAL;
+        }
+        StringBuilder sb = new StringBuilder();
+        JavaAdapter.appendMethodSignature(method.getParameterTypes(), method.getReturnType(), sb);
+        cfw.addInvoke(opcode, declaringClass.getName(), method.getName(), sb.toString());
+    }
+
+    private static String typeString(Class<?> type) {
+        return JavaAdapter.appendTypeString(new StringBuilder(), type).toString();
+    }
+
+    private static void box(ClassFileWriter cfw, Class<?> type) {
+        if (type.isPrimitive()) {
+            String wrapperName = wrapperName(type);
+            cfw.addInvoke(
+                    ByteCode.INVOKESTATIC,
+                    wrapperName,
+                    "valueOf",
+                    "(" + typeString(type) + ")L" + wrapperName + ";");
+        }
+    }
+
+    private static void unbox(ClassFileWriter cfw, Class<?> type) {
+        if (type.isPrimitive()) {
+            String wrapperName = wrapperName(type);
+            cfw.add(ByteCode.CHECKCAST, wrapperName);
+            cfw.addInvoke(
+                    ByteCode.INVOKEVIRTUAL,
+                    wrapperName,
+                    type.getName() + "Value",
+                    "()" + typeString(type));
+        } else if (type != ScriptRuntime.ObjectClass) {
+            cfw.add(ByteCode.CHECKCAST, type.getName());
+        }
+    }
+
+    private static String wrapperName(Class<?> type) {
+        if (type == Integer.TYPE) return "java/lang/Integer";
+        if (type == Boolean.TYPE) return "java/lang/Boolean";
+        if (type == Double.TYPE) return "java/lang/Double";
+        if (type == Long.TYPE) return "java/lang/Long";
+        if (type == Character.TYPE) return "java/lang/Character";
+        if (type == Float.TYPE) return "java/lang/Float";
+        if (type == Short.TYPE) return "java/lang/Short";
+        if (type == Byte.TYPE) return "java/lang/Byte";
+        throw Kit.codeBug();
+    }
+}
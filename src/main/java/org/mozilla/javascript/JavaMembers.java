@@ -21,6 +21,7 @@ import java.security.Permission;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -41,6 +42,11 @@ class JavaMembers {
     }
 
     JavaMembers(Scriptable scope, Class<?> cl, boolean includeProtected) {
+        this(scope, cl, includeProtected, false);
+    }
+
+    JavaMembers(
+            Scriptable scope, Class<?> cl, boolean includeProtected, boolean generateAccessor) {
         try (Context cx = ContextFactory.getGlobal().enterContext()) {
             ClassShutter shutter = cx.getClassShutter();
             if (shutter != null && !shutter.visibleToScripts(cl.getName())) {
@@ -51,9 +57,81 @@ class JavaMembers {
             this.cl = cl;
             boolean includePrivate = cx.hasFeature(Context.FEATURE_ENHANCED_JAVA_ACCESS);
             reflect(cx, scope, includeProtected, includePrivate);
+            if (generateAccessor) {
+                generateAccessor();
+            }
         }
     }
 
+    /**
+     * Create members for "scope" from the members of the same class in a {@link
+     * SharedClassCache}: the reflection information is shared, and the functions of the Java
+     * methods are copied to belong to the scope.
+     */
+    JavaMembers(JavaMembers shared, Scriptable scope) {
+        try (Context cx = ContextFactory.getGlobal().enterContext()) {
+            ClassShutter shutter = cx.getClassShutter();
+            if (shutter != null && !shutter.visibleToScripts(shared.cl.getName())) {
+                throw Context.reportRuntimeErrorById("msg.access.prohibited", shared.cl.getName());
+            }
+            this.cl = shared.cl;
+            this.accessor = shared.accessor;
+            this.ctors = shared.ctors;
+            Map<Object, Object> copies = new IdentityHashMap<>();
+            this.staticMembers = copyMembers(cx, scope, shared.staticMembers, copies);
+            this.members = copyMembers(cx, scope, shared.members, copies);
+            this.staticFieldAndMethods = copyFieldAndMethods(shared.staticFieldAndMethods, copies);
+            this.fieldAndMethods = copyFieldAndMethods(shared.fieldAndMethods, copies);
+        }
+    }
+
+    private static Map<String, Object> copyMembers(
+            Context cx, Scriptable scope, Map<String, Object> from, Map<Object, Object> copies) {
+        Map<String, Object> to = new HashMap<>(from);
+        for (Map.Entry<String, Object> entry : to.entrySet()) {
+            Object value = entry.getValue();
+            if (value instanceof FieldAndMethods) {
+                FieldAndMethods fam = (FieldAndMethods) value;
+                FieldAndMethods copy = new FieldAndMethods(scope, fam.methods, fam.field);
+                copies.put(fam, copy);
+                entry.setValue(copy);
+            } else if (value instanceof NativeJavaMethod) {
+                NativeJavaMethod fun = new NativeJavaMethod(((NativeJavaMethod) value).methods);
+                if (scope != null) {
+                    ScriptRuntime.setFunctionProtoAndParent(fun, cx, scope, false);
+                }
+                copies.put(value, fun);
+                entry.setValue(fun);
+            }
+        }
+        // Bean properties refer to the functions of their setters
+        for (Map.Entry<String, Object> entry : to.entrySet()) {
+            Object value = entry.getValue();
+            if (value instanceof BeanProperty) {
+                BeanProperty bp = (BeanProperty) value;
+                NativeJavaMethod setters =
+                        bp.setters == null ? null : (NativeJavaMethod) copies.get(bp.setters);
+                BeanProperty copy = new BeanProperty(bp.getter, bp.setter, setters);
+                copy.getterIndex = bp.getterIndex;
+                copy.setterIndex = bp.setterIndex;
+                entry.setValue(copy);
+            }
+        }
+        return to;
+    }
+
+    private static Map<String, FieldAndMethods> copyFieldAndMethods(
+            Map<String, FieldAndMethods> from, Map<Object, Object> copies) {
+        if (from == null) {
+            return null;
+        }
+        Map<String, FieldAndMethods> to = new HashMap<>(from);
+        for (Map.Entry<String, FieldAndMethods> entry : to.entrySet()) {
+            entry.setValue((FieldAndMethods) copies.get(entry.getValue()));
+        }
+        return to;
+    }
+
     /**
      * This method returns true if we are on a "modular" version of Java (Java 11 or up). It does
      * not use the SourceVersion class because this is not present on Android.
@@ -100,8 +178,16 @@ class JavaMembers {
             if (member instanceof BeanProperty) {
                 BeanProperty bp = (BeanProperty) member;
                 if (bp.getter == null) return Scriptable.NOT_FOUND;
-                rval = bp.getter.invoke(javaObject, Context.emptyArgs);
+                if (bp.getterIndex >= 0) {
+                    rval = accessor.get(bp.getterIndex, javaObject);
+                } else {
+                    rval = bp.getter.invoke(javaObject, Context.emptyArgs);
+                }
                 type = bp.getter.method().getReturnType();
+            } else if (member instanceof AccessorField) {
+                AccessorField af = (AccessorField) member;
+                rval = accessor.get(af.index, javaObject);
+                type = af.field.getType();
             } else {
                 Field field = (Field) member;
                 rval = field.get(isStatic ? null : javaObject);
@@ -139,9 +225,13 @@ class JavaMembers {
             // setter to use:
             if (bp.setters == null || value == null) {
                 Class<?> setType = bp.setter.argTypes[0];
-                Object[] args = {Context.jsToJava(value, setType)};
+                Object javaValue = Context.jsToJava(value, setType);
                 try {
-                    bp.setter.invoke(javaObject, args);
+                    if (bp.setterIndex >= 0) {
+                        accessor.set(bp.setterIndex, javaObject, javaValue);
+                    } else {
+                        bp.setter.invoke(javaObject, new Object[] {javaValue});
+                    }
                 } catch (Exception ex) {
                     throw Context.throwAsScriptRuntimeEx(ex);
                 }
@@ -154,6 +244,24 @@ class JavaMembers {
                         args);
             }
         } else {
+            if (member instanceof AccessorField) {
+                AccessorField af = (AccessorField) member;
+                if (af.settable) {
+                    Object javaValue = Context.jsToJava(value, af.field.getType());
+                    try {
+                        accessor.set(af.index, javaObject, javaValue);
+                    } catch (ClassCastException castEx) {
+                        throw Context.reportRuntimeErrorById(
+                                "msg.java.internal.field.type",
+                                value.getClass().getName(),
+                                af.field,
+                                javaObject.getClass().getName());
+                    }
+                    return;
+                }
+                // Final fields keep the behavior of reflection
+                member = af.field;
+            }
             if (!(member instanceof Field)) {
                 String str =
                         (member == null) ? "msg.java.internal.private" : "msg.java.method.assign";
@@ -632,6 +740,114 @@ class JavaMembers {
         ctors = new NativeJavaMethod(ctorMembers, cl.getSimpleName());
     }
 
+    /**
+     * Replace reflection for the public fields and bean properties with a generated {@link
+     * JavaMemberAccessor}. Members that a class in another package cannot access, and members
+     * of classes that {@link #isExported} rejects, keep using reflection.
+     */
+    private void generateAccessor() {
+        List<Member> accessed = new ArrayList<>();
+        List<Boolean> settable = new ArrayList<>();
+        Map<Object, Integer> indexes = new HashMap<>();
+        for (int tableCursor = 0; tableCursor != 2; ++tableCursor) {
+            Map<String, Object> ht = tableCursor == 0 ? staticMembers : members;
+            for (Object value : ht.values()) {
+                if (value instanceof Field) {
+                    Field field = (Field) value;
+                    if (isAccessibleMember(field)) {
+                        indexes.put(field, accessed.size());
+                        accessed.add(field);
+                        settable.add(
+                                !Modifier.isFinal(field.getModifiers())
+                                        && isAccessibleType(field.getType()));
+                    }
+                } else if (value instanceof BeanProperty) {
+                    BeanProperty bp = (BeanProperty) value;
+                    Method getter = bp.getter == null ? null : accessibleMethod(bp.getter);
+                    if (getter != null) {
+                        indexes.put(bp.getter, accessed.size());
+                        accessed.add(getter);
+                        settable.add(Boolean.FALSE);
+                    }
+                    Method setter = bp.setter == null ? null : accessibleMethod(bp.setter);
+                    if (setter != null && isAccessibleType(bp.setter.argTypes[0])) {
+                        indexes.put(bp.setter, accessed.size());
+                        accessed.add(setter);
+                        settable.add(Boolean.FALSE);
+                    }
+                }
+            }
+        }
+        if (accessed.isEmpty()) {
+            return;
+        }
+        boolean[] settableArray = new boolean[settable.size()];
+        for (int i = 0; i != settableArray.length; ++i) {
+            settableArray[i] = settable.get(i).booleanValue();
+        }
+        accessor = JavaMemberAccessor.create(cl, accessed, settableArray);
+        if (accessor == null) {
+            return;
+        }
+        for (int tableCursor = 0; tableCursor != 2; ++tableCursor) {
+            Map<String, Object> ht = tableCursor == 0 ? staticMembers : members;
+            for (Map.Entry<String, Object> entry : ht.entrySet()) {
+                Object value = entry.getValue();
+                if (value instanceof Field) {
+                    Integer index = indexes.get(value);
+                    if (index != null) {
+                        int i = index.intValue();
+                        entry.setValue(new AccessorField((Field) value, i, settableArray[i]));
+                    }
+                } else if (value instanceof BeanProperty) {
+                    BeanProperty bp = (BeanProperty) value;
+                    Integer getterIndex = bp.getter == null ? null : indexes.get(bp.getter);
+                    if (getterIndex != null) {
+                        bp.getterIndex = getterIndex.intValue();
+                    }
+                    Integer setterIndex = bp.setter == null ? null : indexes.get(bp.setter);
+                    if (setterIndex != null) {
+                        bp.setterIndex = setterIndex.intValue();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Return the method of "member" if the generated accessor can call it, or a method of a public
+     * class that it overrides.
+     */
+    private Method accessibleMethod(MemberBox member) {
+        Method method = member.method();
+        if (!isPublic(method.getDeclaringClass().getModifiers())) {
+            method = MemberBox.searchAccessibleMethod(method, member.argTypes);
+            if (method == null) {
+                return null;
+            }
+        }
+        if (Modifier.isStatic(method.getModifiers()) && method.getDeclaringClass().isInterface()) {
+            return null;
+        }
+        return isAccessibleMember(method) ? method : null;
+    }
+
+    private boolean isAccessibleMember(Member member) {
+        return isPublic(member.getModifiers()) && isAccessibleType(member.getDeclaringClass());
+    }
+
+    private boolean isAccessibleType(Class<?> type) {
+        while (type.isArray()) {
+            type = type.getComponentType();
+        }
+        return type.isPrimitive() || (isPublic(type.getModifiers()) && isExported(type));
+    }
+
+    /** Return true if classes in other modules can access the public members of "clazz". */
+    boolean isExported(Class<?> clazz) {
+        return true;
+    }
+
     private Constructor<?>[] getAccessibleConstructors(boolean includePrivate) {
         // The JVM currently doesn't allow changing access on java.lang.Class
         // constructors, so don't try
@@ -792,7 +1008,7 @@ class JavaMembers {
                 return members;
             }
             try {
-                members = createJavaMembers(cache.getAssociatedScope(), cl, includeProtected);
+                members = createJavaMembers(cache, cl, includeProtected);
                 break;
             } catch (SecurityException e) {
                 // Reflection may fail for objects that are in a restricted
@@ -829,11 +1045,36 @@ class JavaMembers {
     }
 
     private static JavaMembers createJavaMembers(
-            Scriptable associatedScope, Class<?> cl, boolean includeProtected) {
+            ClassCache cache, Class<?> cl, boolean includeProtected) {
+        Scriptable scope = cache.getAssociatedScope();
+        boolean generateAccessor = cache.isCachingEnabled() && cache.isAccessorGenerationEnabled();
+        SharedClassCache shared = cache.isCachingEnabled() ? cache.getSharedCache() : null;
+        if (shared == null || getSecurityContext() != null) {
+            return createJavaMembers(scope, cl, includeProtected, generateAccessor);
+        }
+        boolean includePrivate;
+        try (Context cx = ContextFactory.getGlobal().enterContext()) {
+            includePrivate = cx.hasFeature(Context.FEATURE_ENHANCED_JAVA_ACCESS);
+        }
+        int variant = SharedClassCache.variant(includeProtected, includePrivate, generateAccessor);
+        JavaMembers sharedMembers = shared.getMembers(cl, variant);
+        if (sharedMembers == null) {
+            // Members without a scope, that are only used to make copies
+            sharedMembers = createJavaMembers(null, cl, includeProtected, generateAccessor);
+            shared.putMembers(cl, variant, sharedMembers);
+        }
+        return new JavaMembers(sharedMembers, scope);
+    }
+
+    private static JavaMembers createJavaMembers(
+            Scriptable associatedScope,
+            Class<?> cl,
+            boolean includeProtected,
+            boolean generateAccessor) {
         if (STRICT_REFLECTIVE_ACCESS) {
-            return new JavaMembers_jdk11(associatedScope, cl, includeProtected);
+            return new JavaMembers_jdk11(associatedScope, cl, includeProtected, generateAccessor);
         } else {
-            return new JavaMembers(associatedScope, cl, includeProtected);
+            return new JavaMembers(associatedScope, cl, includeProtected, generateAccessor);
         }
     }
 
@@ -865,6 +1106,7 @@ class JavaMembers {
     private Map<String, FieldAndMethods> fieldAndMethods;
     private Map<String, Object> staticMembers;
     private Map<String, FieldAndMethods> staticFieldAndMethods;
+    private JavaMemberAccessor accessor;
     NativeJavaMethod ctors; // we use NativeJavaMethod for ctor overload resolution
 }
 
@@ -878,6 +1120,22 @@ class BeanProperty {
     MemberBox getter;
     MemberBox setter;
     NativeJavaMethod setters;
+    // The indexes of the getter and setter in the generated accessor, or -1
+    int getterIndex = -1;
+    int setterIndex = -1;
+}
+
+/** A field that the generated accessor of its JavaMembers reads, and writes if it is settable. */
+class AccessorField {
+    AccessorField(Field field, int index, boolean settable) {
+        this.field = field;
+        this.index = index;
+        this.settable = settable;
+    }
+
+    final Field field;
+    final int index;
+    final boolean settable;
 }
 
 class FieldAndMethods extends NativeJavaMethod {
@@ -886,8 +1144,10 @@ class FieldAndMethods extends NativeJavaMethod {
     FieldAndMethods(Scriptable scope, MemberBox[] methods, Field field) {
         super(methods);
         this.field = field;
-        setParentScope(scope);
-        setPrototype(ScriptableObject.getFunctionPrototype(scope));
+        if (scope != null) {
+            setParentScope(scope);
+            setPrototype(ScriptableObject.getFunctionPrototype(scope));
+        }
     }
 
     @Override
@@ -14,8 +14,9 @@ import java.util.Map;
 /** Version of {@link JavaMembers} for modular JDKs. */
 class JavaMembers_jdk11 extends JavaMembers {
 
-    JavaMembers_jdk11(Scriptable scope, Class<?> cl, boolean includeProtected) {
-        super(scope, cl, includeProtected);
+    JavaMembers_jdk11(
+            Scriptable scope, Class<?> cl, boolean includeProtected, boolean generateAccessor) {
+        super(scope, cl, includeProtected, generateAccessor);
     }
 
     @Override
@@ -31,6 +32,11 @@ class JavaMembers_jdk11 extends JavaMembers {
         }
     }
 
+    @Override
+    boolean isExported(Class<?> clazz) {
+        return isExportedClass(clazz);
+    }
+
     private static boolean isExportedClass(Class<?> clazz) {
         /*
          * We are going to invoke, using reflection, the approximate equivalent
@@ -0,0 +1,130 @@
+/* -*- Mode: java; tab-width: 8; indent-tabs-mode: nil; c-basic-offset: 4 -*-
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript;
+
+import org.mozilla.javascript.ast.AstRoot;
+import org.mozilla.javascript.ast.FunctionNode;
+import org.mozilla.javascript.ast.ScriptNode;
+
+/**
+ * Lazy compilation of interpreted functions.
+ *
+ * <p>With lazy compilation, CodeGenerator does not generate icode for the nested functions that
+ * are written with the function keyword. It only fills in the fields of their {@link
+ * InterpreterData} that describe how they are declared, and sets {@link
+ * InterpreterData#lazyBody}. When such a function is first called, its source text is parsed and
+ * compiled on its own, and the result is copied into the existing InterpreterData, so that all
+ * function objects that share it see the compiled body.
+ *
+ * <p>This works because a function that contains other functions always has an activation
+ * object, so the nested functions find the variables of the enclosing function by name at run
+ * time, whether they were compiled with it or not.
+ *
+ * @see Context#setLazyFunctionCompilation(boolean)
+ */
+final class LazyCompilation {
+
+    private LazyCompilation() {}
+
+    /** Compile the body of "idata" if it is not compiled yet. */
+    static void ensureCompiled(Context cx, InterpreterData idata) {
+        synchronized (idata) {
+            if (!idata.lazyBody) {
+                return;
+            }
+            if (idata.rawSource == null) {
+                // The function was serialized before its first call
+                throw new IllegalStateException("No source to compile " + idata.itsName);
+            }
+            String source = idata.rawSource.substring(idata.rawSourceStart, idata.rawSourceEnd);
+
+            CompilerEnvirons compilerEnv = new CompilerEnvirons();
+            compilerEnv.initFromContext(cx);
+            compilerEnv.setLanguageVersion(idata.languageVersion);
+            compilerEnv.setErrorReporter(DefaultErrorReporter.instance);
+            compilerEnv.setLazyFunctionCompilation(true);
+            ScriptNode tree = parseFunction(compilerEnv, idata, source);
+            InterpreterData compiled =
+                    new CodeGenerator().compile(compilerEnv, tree, tree.getEncodedSource(), true);
+            copyBody(compiled, idata);
+            for (int i = 0; i != idata.getFunctionCount(); i++) {
+                TieredCompilation.setSource(idata.itsNestedFunctions[i], source);
+            }
+            idata.lazyBody = false;
+        }
+    }
+
+    /**
+     * Parse the source text of a single function, with the kind of function of "idata" and the
+     * strict mode of the code around it. The function must not need anything from the script it
+     * was part of.
+     */
+    static ScriptNode parseFunction(
+            CompilerEnvirons compilerEnv, InterpreterData idata, String source) {
+        Parser p = new Parser(compilerEnv, compilerEnv.getErrorReporter());
+        p.calledByCompileFunction = idata.itsFunctionType != FunctionNode.FUNCTION_STATEMENT;
+        // A "use strict" directive of the function itself must stay a directive, since it makes
+        // the function require an activation
+        boolean outerStrict = idata.parentData != null ? idata.parentData.isStrict : idata.isStrict;
+        if (outerStrict) {
+            p.setDefaultUseStrictDirective(true);
+        }
+        AstRoot ast = p.parse(source, idata.itsSourceFile, idata.rawSourceLineno);
+        IRFactory irf = new IRFactory(compilerEnv, compilerEnv.getErrorReporter());
+        return irf.transformTree(ast);
+    }
+
+    /**
+     * Copy the compiled body of a function to the InterpreterData it was compiled for. The fields
+     * that describe how the function is declared in its script keep their values, and so do the
+     * positions in the source text of the script. The nested functions were compiled from the
+     * source text of the function alone; their positions are moved to the source text of the
+     * script, so that toString and decompilation give the same text as without lazy compilation.
+     */
+    private static void copyBody(InterpreterData from, InterpreterData to) {
+        to.itsNeedsActivation = from.itsNeedsActivation;
+        to.itsStringTable = from.itsStringTable;
+        to.itsDoubleTable = from.itsDoubleTable;
+        to.itsBigIntTable = from.itsBigIntTable;
+        to.itsNestedFunctions = from.itsNestedFunctions;
+        to.itsRegExpLiterals = from.itsRegExpLiterals;
+        to.itsTemplateLiterals = from.itsTemplateLiterals;
+        to.itsICode = from.itsICode;
+        to.itsPropertyCaches = from.itsPropertyCaches;
+        to.itsPropertyCacheCount = from.itsPropertyCacheCount;
+        to.itsExceptionTable = from.itsExceptionTable;
+        to.itsMaxVars = from.itsMaxVars;
+        to.itsMaxLocals = from.itsMaxLocals;
+        to.itsMaxStack = from.itsMaxStack;
+        to.itsMaxFrameArray = from.itsMaxFrameArray;
+        to.argNames = from.argNames;
+        to.argIsConst = from.argIsConst;
+        to.argCount = from.argCount;
+        to.argsHasRest = from.argsHasRest;
+        to.argsHasDefaults = from.argsHasDefaults;
+        to.itsMaxCalleeArgs = from.itsMaxCalleeArgs;
+        to.literalIds = from.literalIds;
+        to.longJumps = from.longJumps;
+        to.firstLinePC = from.firstLinePC;
+        for (int i = 0; i != to.getFunctionCount(); i++) {
+            to.itsNestedFunctions[i].parentData = to;
+            moveSource(
+                    to.itsNestedFunctions[i],
+                    to.encodedSource,
+                    to.encodedSourceStart - from.encodedSourceStart);
+        }
+    }
+
+    private static void moveSource(InterpreterData idata, String encodedSource, int offset) {
+        idata.encodedSource = encodedSource;
+        idata.encodedSourceStart += offset;
+        idata.encodedSourceEnd += offset;
+        for (int i = 0; i != idata.getFunctionCount(); i++) {
+            moveSource(idata.itsNestedFunctions[i], encodedSource, offset);
+        }
+    }
+}
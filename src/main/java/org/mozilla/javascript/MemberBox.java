@@ -10,8 +10,10 @@ import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Member;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
@@ -20,11 +22,16 @@ import java.lang.reflect.Modifier;
  * Wrapper class for Method and Constructor instances to cache getParameterTypes() results, recover
  * from IllegalAccessException in some cases and provide serialization support.
  *
+ * <p>Methods and constructors are invoked through a method handle that is created and adapted to
+ * take its arguments as an array when the member is first invoked, instead of through reflection.
+ *
  * @author Igor Bukanov
  */
 final class MemberBox implements Serializable {
     private static final long serialVersionUID = 6358550398665688245L;
 
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
     private transient Member memberObject;
     transient Class<?>[] argTypes;
     transient boolean vararg;
@@ -33,6 +40,17 @@ final class MemberBox implements Serializable {
     transient Function asSetterFunction;
     transient Object delegateTo;
 
+    /**
+     * The member as a handle of type (Object target, Object[] args)Object for a method, or
+     * (Object[] args)Object for a constructor, created by {@link #invoker()}.
+     */
+    private transient volatile MethodHandle invoker;
+
+    /**
+     * The conversion weight tables of the parameter types, created by {@link #conversionWeights()}.
+     */
+    private transient volatile byte[][] conversionWeights;
+
     MemberBox(Method method) {
         init(method);
     }
@@ -196,8 +214,6 @@ final class MemberBox implements Serializable {
     }
 
     Object invoke(Object target, Object[] args) {
-        Method method = method();
-
         // handle delegators
         if (target instanceof Delegator) {
             target = ((Delegator) target).getDelegee();
@@ -208,52 +224,118 @@ final class MemberBox implements Serializable {
             }
         }
 
+        MethodHandle handle = invoker();
         try {
-            try {
-                return method.invoke(target, args);
-            } catch (IllegalAccessException ex) {
-                Method accessible = searchAccessibleMethod(method, argTypes);
-                if (accessible != null) {
-                    memberObject = accessible;
-                    method = accessible;
-                } else {
-                    if (!VMBridge.instance.tryToMakeAccessible(method)) {
-                        throw Context.throwAsScriptRuntimeEx(ex);
-                    }
+            return (Object) handle.invokeExact(target, args);
+        } catch (Throwable e) {
+            throw wrapException(e);
+        }
+    }
+
+    Object newInstance(Object[] args) {
+        MethodHandle handle = invoker();
+        try {
+            return (Object) handle.invokeExact(args);
+        } catch (Throwable e) {
+            throw Context.throwAsScriptRuntimeEx(e);
+        }
+    }
+
+    /**
+     * Return the tables of conversion weights to the parameter types, see {@link
+     * NativeJavaObject#getConversionWeights(Class)}.
+     */
+    byte[][] conversionWeights() {
+        byte[][] weights = conversionWeights;
+        if (weights == null) {
+            weights = new byte[argTypes.length][];
+            for (int i = 0; i != argTypes.length; i++) {
+                weights[i] = NativeJavaObject.getConversionWeights(argTypes[i]);
+            }
+            conversionWeights = weights;
+        }
+        return weights;
+    }
+
+    /**
+     * Return the handle that invokes the member, creating it on first use. Unlike {@link
+     * #invoke(Object, Object[])}, the handle neither unwraps delegators nor wraps the exceptions
+     * of the member.
+     */
+    MethodHandle invoker() {
+        MethodHandle handle = invoker;
+        if (handle == null) {
+            handle = isMethod() ? createMethodInvoker() : createConstructorInvoker();
+            invoker = handle;
+        }
+        return handle;
+    }
+
+    private MethodHandle createMethodInvoker() {
+        Method method = method();
+        MethodHandle handle;
+        try {
+            handle = LOOKUP.unreflect(method);
+        } catch (IllegalAccessException ex) {
+            Method accessible = searchAccessibleMethod(method, argTypes);
+            if (accessible != null) {
+                memberObject = accessible;
+                method = accessible;
+            } else {
+                if (!VMBridge.instance.tryToMakeAccessible(method)) {
+                    throw Context.throwAsScriptRuntimeEx(ex);
                 }
-                // Retry after recovery
-                return method.invoke(target, args);
             }
-        } catch (InvocationTargetException ite) {
-            // Must allow ContinuationPending exceptions to propagate unhindered
-            Throwable e = ite;
-            do {
-                e = ((InvocationTargetException) e).getTargetException();
-            } while ((e instanceof InvocationTargetException));
-            if (e instanceof ContinuationPending) throw (ContinuationPending) e;
-            throw Context.throwAsScriptRuntimeEx(e);
-        } catch (Exception ex) {
-            throw Context.throwAsScriptRuntimeEx(ex);
+            // Retry after recovery
+            try {
+                handle = LOOKUP.unreflect(method);
+            } catch (IllegalAccessException e) {
+                throw Context.throwAsScriptRuntimeEx(e);
+            }
         }
+        handle = handle.asFixedArity();
+        if (Modifier.isStatic(method.getModifiers())) {
+            handle = MethodHandles.dropArguments(handle, 0, Object.class);
+        }
+        return spread(handle);
     }
 
-    Object newInstance(Object[] args) {
+    private MethodHandle createConstructorInvoker() {
         Constructor<?> ctor = ctor();
+        MethodHandle handle;
         try {
+            handle = LOOKUP.unreflectConstructor(ctor);
+        } catch (IllegalAccessException ex) {
+            if (!VMBridge.instance.tryToMakeAccessible(ctor)) {
+                throw Context.throwAsScriptRuntimeEx(ex);
+            }
             try {
-                return ctor.newInstance(args);
-            } catch (IllegalAccessException ex) {
-                if (!VMBridge.instance.tryToMakeAccessible(ctor)) {
-                    throw Context.throwAsScriptRuntimeEx(ex);
-                }
+                handle = LOOKUP.unreflectConstructor(ctor);
+            } catch (IllegalAccessException e) {
+                throw Context.throwAsScriptRuntimeEx(e);
             }
-            return ctor.newInstance(args);
-        } catch (Exception ex) {
-            throw Context.throwAsScriptRuntimeEx(ex);
         }
+        return spread(handle.asFixedArity());
+    }
+
+    /** Make the handle take and return Objects, with the arguments of the member in an array. */
+    private MethodHandle spread(MethodHandle handle) {
+        MethodType type = MethodType.genericMethodType(handle.type().parameterCount());
+        return handle.asType(type).asSpreader(Object[].class, argTypes.length);
+    }
+
+    /**
+     * Convert an exception thrown by a Java method to the exception that scripts see.
+     * ContinuationPending exceptions must propagate unhindered.
+     */
+    static RuntimeException wrapException(Throwable e) {
+        if (e instanceof ContinuationPending) {
+            throw (ContinuationPending) e;
+        }
+        throw Context.throwAsScriptRuntimeEx(e);
     }
 
-    private static Method searchAccessibleMethod(Method method, Class<?>[] params) {
+    static Method searchAccessibleMethod(Method method, Class<?>[] params) {
         int modifiers = method.getModifiers();
         if (Modifier.isPublic(modifiers) && !Modifier.isStatic(modifiers)) {
             Class<?> c = method.getDeclaringClass();
@@ -9,6 +9,7 @@ package org.mozilla.javascript;
 import static org.mozilla.javascript.ScriptRuntimeES6.requireObjectCoercible;
 
 import java.io.Serializable;
+import java.math.BigInteger;
 import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -73,8 +74,30 @@ public class NativeArray extends IdScriptableObject implements List {
 
     public NativeArray(Object[] array) {
         denseOnly = true;
-        dense = array;
         length = array.length;
+        // Arrays of numbers keep their elements unboxed
+        boolean ints = true;
+        for (Object value : array) {
+            if (value instanceof Double) {
+                ints = false;
+            } else if (!(value instanceof Integer)) {
+                dense = array;
+                return;
+            }
+        }
+        if (array.length == 0) {
+            dense = array;
+        } else if (ints) {
+            denseInts = new int[array.length];
+            for (int i = 0; i < array.length; i++) {
+                denseInts[i] = ((Integer) array[i]).intValue();
+            }
+        } else {
+            denseDoubles = new double[array.length];
+            for (int i = 0; i < array.length; i++) {
+                denseDoubles[i] = ((Number) array[i]).doubleValue();
+            }
+        }
     }
 
     @Override
@@ -487,14 +510,62 @@ public class NativeArray extends IdScriptableObject implements List {
     @Override
     public Object get(int index, Scriptable start) {
         if (!denseOnly && isGetterOrSetter(null, index, false)) return super.get(index, start);
-        if (dense != null && 0 <= index && index < dense.length) return dense[index];
+        if (dense != null && 0 <= index && index < dense.length - denseStart) {
+            return dense[denseStart + index];
+        }
+        if (0 <= index && index < length && hasNumericElements()) return numericElement(index);
         return super.get(index, start);
     }
 
+    /**
+     * Return the element at the given index if this array is dense and holds it, or NOT_FOUND if
+     * the element must be looked up the normal way. This is the fast path of element reads in
+     * compiled code.
+     */
+    public Object getDenseElement(int index) {
+        Object[] d = dense;
+        if (denseOnly && d != null && 0 <= index && index < d.length - denseStart) {
+            return d[denseStart + index];
+        }
+        if (0 <= index && index < length && hasNumericElements()) {
+            return numericElement(index);
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * Replace the element at the given index and return true if this array is dense, already
+     * holds the element and may be modified. Otherwise do nothing and return false, and the
+     * element must be stored the normal way.
+     */
+    public boolean setDenseElement(int index, Object value) {
+        if (hasNumericElements() && 0 <= index && index < length && !isSealed()) {
+            if (widenFor(value)) {
+                setNumericElement(index, value);
+                return true;
+            }
+            toObjectElements();
+        }
+        Object[] d = dense;
+        if (denseOnly
+                && d != null
+                && 0 <= index
+                && index < d.length - denseStart
+                && d[denseStart + index] != NOT_FOUND
+                && !isSealed()) {
+            d[denseStart + index] = value;
+            return true;
+        }
+        return false;
+    }
+
     @Override
     public boolean has(int index, Scriptable start) {
         if (!denseOnly && isGetterOrSetter(null, index, false)) return super.has(index, start);
-        if (dense != null && 0 <= index && index < dense.length) return dense[index] != NOT_FOUND;
+        if (dense != null && 0 <= index && index < dense.length - denseStart) {
+            return dense[denseStart + index] != NOT_FOUND;
+        }
+        if (0 <= index && index < length && hasNumericElements()) return true;
         return super.has(index, start);
     }
 
@@ -577,6 +648,7 @@ public class NativeArray extends IdScriptableObject implements List {
             // If the object is sealed, super will throw exception
             long index = toArrayIndex(id);
             if (index >= length) {
+                toObjectElements();
                 length = index + 1;
                 modCount++;
                 denseOnly = false;
@@ -585,22 +657,205 @@ public class NativeArray extends IdScriptableObject implements List {
     }
 
     private boolean ensureCapacity(int capacity) {
-        if (capacity > dense.length) {
+        int oldCapacity =
+                denseInts != null
+                        ? denseInts.length
+                        : denseDoubles != null ? denseDoubles.length : dense.length;
+        if (denseStart + capacity > oldCapacity) {
             if (capacity > MAX_PRE_GROW_SIZE) {
+                toObjectElements();
                 denseOnly = false;
                 return false;
             }
-            capacity = Math.max(capacity, (int) (dense.length * GROW_FACTOR));
-            Object[] newDense = new Object[capacity];
-            System.arraycopy(dense, 0, newDense, 0, dense.length);
-            Arrays.fill(newDense, dense.length, newDense.length, Scriptable.NOT_FOUND);
-            dense = newDense;
+            if (capacity <= oldCapacity && denseStart >= length) {
+                // Elements shifted off the front left at least as much room as moving the
+                // rest down costs
+                compact();
+                return true;
+            }
+            int start = denseStart;
+            int count = (int) length;
+            capacity = Math.max(capacity, (int) (oldCapacity * GROW_FACTOR));
+            if (denseInts != null) {
+                int[] newInts = new int[capacity];
+                System.arraycopy(denseInts, start, newInts, 0, count);
+                denseInts = newInts;
+            } else if (denseDoubles != null) {
+                double[] newDoubles = new double[capacity];
+                System.arraycopy(denseDoubles, start, newDoubles, 0, count);
+                denseDoubles = newDoubles;
+            } else {
+                count = dense.length - start;
+                Object[] newDense = new Object[capacity];
+                System.arraycopy(dense, start, newDense, 0, count);
+                Arrays.fill(newDense, count, newDense.length, Scriptable.NOT_FOUND);
+                dense = newDense;
+            }
+            denseStart = 0;
+        }
+        return true;
+    }
+
+    /** True if a dense array has no element at an index below its length. */
+    private boolean isHole(int index) {
+        return dense != null && dense[denseStart + index] == NOT_FOUND;
+    }
+
+    /** Move the elements of a dense array to the start of its storage. */
+    private void compact() {
+        int start = denseStart;
+        if (start == 0) {
+            return;
+        }
+        int count = (int) length;
+        if (denseInts != null) {
+            System.arraycopy(denseInts, start, denseInts, 0, count);
+        } else if (denseDoubles != null) {
+            System.arraycopy(denseDoubles, start, denseDoubles, 0, count);
+        } else {
+            System.arraycopy(dense, start, dense, 0, count);
+            Arrays.fill(dense, count, start + count, NOT_FOUND);
+        }
+        denseStart = 0;
+    }
+
+    /** True if the elements are kept in <code>denseInts</code> or <code>denseDoubles</code>. */
+    private boolean hasNumericElements() {
+        return denseInts != null || denseDoubles != null;
+    }
+
+    /** Box the element at an index below the length of an array with numeric elements. */
+    private Object numericElement(int index) {
+        if (denseInts != null) {
+            return Integer.valueOf(denseInts[denseStart + index]);
+        }
+        return Double.valueOf(denseDoubles[denseStart + index]);
+    }
+
+    /** Store a value for which {@link #widenFor} returned true. */
+    private void setNumericElement(int index, Object value) {
+        if (denseInts != null) {
+            denseInts[denseStart + index] = ((Integer) value).intValue();
+        } else {
+            denseDoubles[denseStart + index] = ((Number) value).doubleValue();
+        }
+    }
+
+    /**
+     * Prepare an array with numeric elements to store the value, moving ints to doubles for a
+     * Double. Return false if the value is not an Integer or a Double.
+     */
+    private boolean widenFor(Object value) {
+        if (value instanceof Integer) {
+            return true;
+        }
+        if (!(value instanceof Double)) {
+            return false;
+        }
+        if (denseInts != null) {
+            int[] ints = denseInts;
+            denseDoubles = new double[ints.length];
+            for (int i = denseStart; i < denseStart + length; i++) {
+                denseDoubles[i] = ints[i];
+            }
+            denseInts = null;
         }
         return true;
     }
 
+    /**
+     * Let an empty dense array keep its elements unboxed if the first one stored is an Integer or a
+     * Double.
+     */
+    private void retypeEmpty(Object value) {
+        if (length == 0 && denseOnly && dense != null) {
+            if (value instanceof Integer) {
+                denseInts = new int[dense.length];
+                dense = null;
+                denseStart = 0;
+            } else if (value instanceof Double) {
+                denseDoubles = new double[dense.length];
+                dense = null;
+                denseStart = 0;
+            }
+        }
+    }
+
+    /**
+     * Box the elements of an array with numeric elements into <code>dense</code>, so that it can
+     * hold any value, holes or attributes from now on, and move them to the start of the storage.
+     */
+    private void toObjectElements() {
+        compact();
+        if (!hasNumericElements()) {
+            return;
+        }
+        int capacity = denseInts != null ? denseInts.length : denseDoubles.length;
+        Object[] values = new Object[capacity];
+        copyElements(0, values, 0, (int) length);
+        Arrays.fill(values, (int) length, capacity, NOT_FOUND);
+        dense = values;
+        denseInts = null;
+        denseDoubles = null;
+    }
+
+    /**
+     * Search an array with numeric elements from an index in the given direction, comparing with
+     * === or, if sameValueZero is set, the SameValueZero algorithm. Return the index found or -1.
+     */
+    private int indexOfNumber(Object value, int from, int step, boolean sameValueZero) {
+        if (!(value instanceof Number) || value instanceof BigInteger) {
+            return -1;
+        }
+        double target = ((Number) value).doubleValue();
+        boolean nan = sameValueZero && Double.isNaN(target);
+        for (int i = from; 0 <= i && i < length; i += step) {
+            int at = denseStart + i;
+            double element = denseInts != null ? denseInts[at] : denseDoubles[at];
+            if (element == target || (nan && Double.isNaN(element))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /** Copy elements of a dense array, boxing them if they are numeric. */
+    private void copyElements(int from, Object[] dest, int destPos, int count) {
+        from += denseStart;
+        if (denseInts != null) {
+            for (int i = 0; i < count; i++) {
+                dest[destPos + i] = Integer.valueOf(denseInts[from + i]);
+            }
+        } else if (denseDoubles != null) {
+            for (int i = 0; i < count; i++) {
+                dest[destPos + i] = Double.valueOf(denseDoubles[from + i]);
+            }
+        } else {
+            System.arraycopy(dense, from, dest, destPos, count);
+        }
+    }
+
     @Override
     public void put(int index, Scriptable start, Object value) {
+        if (start == this && index == 0) {
+            retypeEmpty(value);
+        }
+        if (start == this && hasNumericElements()) {
+            if (0 <= index && index <= length && !isSealed() && widenFor(value)) {
+                if (index < length) {
+                    setNumericElement(index, value);
+                    return;
+                } else if (!isExtensible()) {
+                    return;
+                } else if (ensureCapacity(index + 1)) {
+                    setNumericElement(index, value);
+                    this.length = (long) index + 1;
+                    this.modCount++;
+                    return;
+                }
+            }
+            toObjectElements();
+        }
         if (start == this
                 && !isSealed()
                 && dense != null
@@ -608,21 +863,22 @@ public class NativeArray extends IdScriptableObject implements List {
                 && (denseOnly || !isGetterOrSetter(null, index, true))) {
             if (!isExtensible() && this.length <= index) {
                 return;
-            } else if (index < dense.length) {
-                dense[index] = value;
+            } else if (index < dense.length - denseStart) {
+                dense[denseStart + index] = value;
                 if (this.length <= index) {
                     this.length = (long) index + 1;
                     this.modCount++;
                 }
                 return;
             } else if (denseOnly
-                    && index < dense.length * GROW_FACTOR
+                    && (index < dense.length * GROW_FACTOR || index - length <= MAX_DENSE_GAP)
                     && ensureCapacity(index + 1)) {
-                dense[index] = value;
+                dense[denseStart + index] = value;
                 this.length = (long) index + 1;
                 this.modCount++;
                 return;
             } else {
+                toObjectElements();
                 denseOnly = false;
             }
         }
@@ -649,12 +905,15 @@ public class NativeArray extends IdScriptableObject implements List {
 
     @Override
     public void delete(int index) {
+        if (0 <= index && index < length && hasNumericElements()) {
+            toObjectElements();
+        }
         if (dense != null
                 && 0 <= index
-                && index < dense.length
+                && index < dense.length - denseStart
                 && !isSealed()
                 && (denseOnly || !isGetterOrSetter(null, index, true))) {
-            dense[index] = NOT_FOUND;
+            dense[denseStart + index] = NOT_FOUND;
         } else {
             super.delete(index);
         }
@@ -663,10 +922,19 @@ public class NativeArray extends IdScriptableObject implements List {
     @Override
     public Object[] getIds(boolean nonEnumerable, boolean getSymbols) {
         Object[] superIds = super.getIds(nonEnumerable, getSymbols);
+        if (hasNumericElements()) {
+            int n = (int) length;
+            Object[] ids = new Object[n + superIds.length];
+            for (int i = 0; i < n; i++) {
+                ids[i] = Integer.valueOf(i);
+            }
+            System.arraycopy(superIds, 0, ids, n, superIds.length);
+            return ids;
+        }
         if (dense == null) {
             return superIds;
         }
-        int N = dense.length;
+        int N = dense.length - denseStart;
         long currentLength = length;
         if (N > currentLength) {
             N = (int) currentLength;
@@ -680,7 +948,7 @@ public class NativeArray extends IdScriptableObject implements List {
         int presentCount = 0;
         for (int i = 0; i != N; ++i) {
             // Replace existing elements by their indexes
-            if (dense[i] != NOT_FOUND) {
+            if (dense[denseStart + i] != NOT_FOUND) {
                 ids[presentCount] = Integer.valueOf(i);
                 ++presentCount;
             }
@@ -731,7 +999,13 @@ public class NativeArray extends IdScriptableObject implements List {
 
     @Override
     public int getAttributes(int index) {
-        if (dense != null && index >= 0 && index < dense.length && dense[index] != NOT_FOUND) {
+        if (dense != null
+                && index >= 0
+                && index < dense.length - denseStart
+                && dense[denseStart + index] != NOT_FOUND) {
+            return EMPTY;
+        }
+        if (index >= 0 && index < length && hasNumericElements()) {
             return EMPTY;
         }
         return super.getAttributes(index);
@@ -741,10 +1015,17 @@ public class NativeArray extends IdScriptableObject implements List {
     protected ScriptableObject getOwnPropertyDescriptor(Context cx, Object id) {
         if (dense != null) {
             int index = toDenseIndex(id);
-            if (0 <= index && index < dense.length && dense[index] != NOT_FOUND) {
-                Object value = dense[index];
+            if (0 <= index
+                    && index < dense.length - denseStart
+                    && dense[denseStart + index] != NOT_FOUND) {
+                Object value = dense[denseStart + index];
                 return defaultIndexPropertyDescriptor(value);
             }
+        } else if (hasNumericElements()) {
+            int index = toDenseIndex(id);
+            if (0 <= index && index < length) {
+                return defaultIndexPropertyDescriptor(numericElement(index));
+            }
         }
         return super.getOwnPropertyDescriptor(cx, id);
     }
@@ -753,6 +1034,9 @@ public class NativeArray extends IdScriptableObject implements List {
     protected void defineOwnProperty(
             Context cx, Object id, ScriptableObject desc, boolean checkValid) {
         long index = toArrayIndex(id);
+        if (index != -1) {
+            toObjectElements();
+        }
         if (index >= length) {
             length = index + 1;
             modCount++;
@@ -934,6 +1218,7 @@ public class NativeArray extends IdScriptableObject implements List {
      */
     void setDenseOnly(boolean denseOnly) {
         if (denseOnly && !this.denseOnly) throw new IllegalArgumentException();
+        if (!denseOnly) toObjectElements();
         this.denseOnly = denseOnly;
     }
 
@@ -958,17 +1243,28 @@ public class NativeArray extends IdScriptableObject implements List {
         if (denseOnly) {
             if (longVal < length) {
                 // downcast okay because denseOnly
-                Arrays.fill(dense, (int) longVal, dense.length, NOT_FOUND);
+                if (dense != null) {
+                    Arrays.fill(dense, denseStart + (int) longVal, dense.length, NOT_FOUND);
+                }
+                if (longVal == 0) {
+                    denseStart = 0;
+                }
                 length = longVal;
                 modCount++;
                 return;
-            } else if (longVal < MAX_PRE_GROW_SIZE
-                    && longVal < (length * GROW_FACTOR)
+            }
+            if (longVal > length) {
+                // the new elements are holes
+                toObjectElements();
+            }
+            if (longVal < MAX_PRE_GROW_SIZE
+                    && (longVal < (length * GROW_FACTOR) || longVal - length <= MAX_DENSE_GAP)
                     && ensureCapacity((int) longVal)) {
                 length = longVal;
                 modCount++;
                 return;
             } else {
+                toObjectElements();
                 denseOnly = false;
             }
         }
@@ -1240,14 +1536,28 @@ public class NativeArray extends IdScriptableObject implements List {
                         : ScriptRuntime.toString(args[0]);
         if (o instanceof NativeArray) {
             NativeArray na = (NativeArray) o;
+            if (na.hasNumericElements()) {
+                StringBuilder sb = new StringBuilder();
+                for (int i = 0; i < length; i++) {
+                    if (i != 0) {
+                        sb.append(separator);
+                    }
+                    if (na.denseInts != null) {
+                        sb.append(na.denseInts[na.denseStart + i]);
+                    } else {
+                        sb.append(ScriptRuntime.toString(na.denseDoubles[na.denseStart + i]));
+                    }
+                }
+                return sb.toString();
+            }
             if (na.denseOnly) {
                 StringBuilder sb = new StringBuilder();
                 for (int i = 0; i < length; i++) {
                     if (i != 0) {
                         sb.append(separator);
                     }
-                    if (i < na.dense.length) {
-                        Object temp = na.dense[i];
+                    if (i < na.dense.length - na.denseStart) {
+                        Object temp = na.dense[na.denseStart + i];
                         if (temp != null
                                 && temp != Undefined.instance
                                 && temp != Scriptable.NOT_FOUND) {
@@ -1293,6 +1603,23 @@ public class NativeArray extends IdScriptableObject implements List {
 
         if (o instanceof NativeArray) {
             NativeArray na = (NativeArray) o;
+            na.compact();
+            if (na.denseInts != null) {
+                for (int i = 0, j = ((int) na.length) - 1; i < j; i++, j--) {
+                    int temp = na.denseInts[i];
+                    na.denseInts[i] = na.denseInts[j];
+                    na.denseInts[j] = temp;
+                }
+                return o;
+            }
+            if (na.denseDoubles != null) {
+                for (int i = 0, j = ((int) na.length) - 1; i < j; i++, j--) {
+                    double temp = na.denseDoubles[i];
+                    na.denseDoubles[i] = na.denseDoubles[j];
+                    na.denseDoubles[j] = temp;
+                }
+                return o;
+            }
             if (na.denseOnly) {
                 for (int i = 0, j = ((int) na.length) - 1; i < j; i++, j--) {
                     Object temp = na.dense[i];
@@ -1329,26 +1656,25 @@ public class NativeArray extends IdScriptableObject implements List {
             final Scriptable funThis = ScriptRuntime.lastStoredScriptable(cx);
             final Object[] cmpBuf = new Object[2]; // Buffer for cmp arguments
             comparator =
-                    new ElementComparator(
-                            new Comparator<Object>() {
-                                @Override
-                                public int compare(final Object x, final Object y) {
-                                    // This comparator is invoked only for non-undefined objects
-                                    cmpBuf[0] = x;
-                                    cmpBuf[1] = y;
-                                    Object ret = jsCompareFunction.call(cx, scope, funThis, cmpBuf);
-                                    double d = ScriptRuntime.toNumber(ret);
-                                    int cmp = Double.compare(d, 0);
-                                    if (cmp < 0) {
-                                        return -1;
-                                    } else if (cmp > 0) {
-                                        return +1;
-                                    }
-                                    return 0;
-                                }
-                            });
+                    new Comparator<Object>() {
+                        @Override
+                        public int compare(final Object x, final Object y) {
+                            // This comparator is invoked only for non-undefined objects
+                            cmpBuf[0] = x;
+                            cmpBuf[1] = y;
+                            Object ret = jsCompareFunction.call(cx, scope, funThis, cmpBuf);
+                            double d = ScriptRuntime.toNumber(ret);
+                            int cmp = Double.compare(d, 0);
+                            if (cmp < 0) {
+                                return -1;
+                            } else if (cmp > 0) {
+                                return +1;
+                            }
+                            return 0;
+                        }
+                    };
         } else {
-            comparator = DEFAULT_COMPARATOR;
+            comparator = null;
         }
 
         long llength = getLengthProperty(cx, o);
@@ -1360,11 +1686,38 @@ public class NativeArray extends IdScriptableObject implements List {
         // copy the JS array into a working array, so it can be
         // sorted cheaply.
         final Object[] working = new Object[length];
-        for (int i = 0; i != length; ++i) {
-            working[i] = getRawElem(o, i);
+        if (o instanceof NativeArray && ((NativeArray) o).denseOnly) {
+            ((NativeArray) o).copyElements(0, working, 0, length);
+            for (int i = 0; i != length; ++i) {
+                if (working[i] == NOT_FOUND) {
+                    working[i] = getRawElem(o, i);
+                }
+            }
+        } else {
+            for (int i = 0; i != length; ++i) {
+                working[i] = getRawElem(o, i);
+            }
         }
 
-        Sorting.get().hybridSort(working, comparator);
+        // Undefined values and holes go to the end without being compared, as per
+        // ECMA 22.1.3.25.1, and only the rest are sorted.
+        int defined = 0;
+        int undefined = 0;
+        for (int i = 0; i != length; ++i) {
+            Object elem = working[i];
+            if (elem == Undefined.instance) {
+                undefined++;
+            } else if (elem != NOT_FOUND) {
+                working[defined++] = elem;
+            }
+        }
+        if (comparator != null) {
+            Sorting.get().hybridSort(working, 0, defined, comparator);
+        } else if (!sortByStringKeys(working, defined)) {
+            Sorting.get().hybridSort(working, 0, defined, STRING_COMPARATOR);
+        }
+        Arrays.fill(working, defined, defined + undefined, Undefined.instance);
+        Arrays.fill(working, defined + undefined, length, NOT_FOUND);
 
         // copy the working array back into thisObj
         for (int i = 0; i < length; ++i) {
@@ -1374,14 +1727,77 @@ public class NativeArray extends IdScriptableObject implements List {
         return o;
     }
 
+    /**
+     * Sort the first count values in string order if none of them is an object, converting each
+     * to a string just once. Return false, leaving the values alone, if there is an object, whose
+     * conversion could run script code.
+     */
+    private static boolean sortByStringKeys(Object[] values, int count) {
+        String[] keys = new String[count];
+        boolean allStrings = true;
+        for (int i = 0; i != count; ++i) {
+            Object value = values[i];
+            if (value instanceof CharSequence) {
+                keys[i] = value.toString();
+            } else if (value == null || value instanceof Number || value instanceof Boolean) {
+                keys[i] = ScriptRuntime.toString(value);
+                allStrings = false;
+            } else {
+                return false;
+            }
+        }
+        if (allStrings) {
+            Arrays.sort(keys);
+            System.arraycopy(keys, 0, values, 0, count);
+            return true;
+        }
+        // Decorate each value with its key, sort and take the values back out
+        KeyedValue[] entries = new KeyedValue[count];
+        for (int i = 0; i != count; ++i) {
+            entries[i] = new KeyedValue(keys[i], values[i]);
+        }
+        Arrays.sort(entries, (a, b) -> a.key.compareTo(b.key));
+        for (int i = 0; i != count; ++i) {
+            values[i] = entries[i].value;
+        }
+        return true;
+    }
+
+    /** A value to sort, along with the string it sorts by. */
+    private static final class KeyedValue {
+        final String key;
+        final Object value;
+
+        KeyedValue(String key, Object value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
     private static Object js_push(Context cx, Scriptable scope, Scriptable thisObj, Object[] args) {
         Scriptable o = ScriptRuntime.toObject(cx, scope, thisObj);
 
         if (o instanceof NativeArray) {
             NativeArray na = (NativeArray) o;
+            if (args.length > 0) {
+                na.retypeEmpty(args[0]);
+            }
+            if (na.hasNumericElements()) {
+                for (Object arg : args) {
+                    if (!na.widenFor(arg)) {
+                        na.toObjectElements();
+                        break;
+                    }
+                }
+            }
             if (na.denseOnly && na.ensureCapacity((int) na.length + args.length)) {
                 for (Object arg : args) {
-                    na.dense[(int) na.length++] = arg;
+                    if (na.dense != null) {
+                        na.dense[na.denseStart + (int) na.length] = arg;
+                    } else {
+                        na.setNumericElement((int) na.length, arg);
+                    }
+                    na.length++;
                     na.modCount++;
                 }
                 return ScriptRuntime.wrapNumber(na.length);
@@ -1412,11 +1828,15 @@ public class NativeArray extends IdScriptableObject implements List {
         Object result;
         if (o instanceof NativeArray) {
             NativeArray na = (NativeArray) o;
-            if (na.denseOnly && na.length > 0) {
+            // A hole is looked up on the prototype chain the generic way
+            if (na.denseOnly && na.length > 0 && !na.isHole((int) na.length - 1)) {
                 na.length--;
                 na.modCount++;
-                result = na.dense[(int) na.length];
-                na.dense[(int) na.length] = NOT_FOUND;
+                if (na.hasNumericElements()) {
+                    return na.numericElement((int) na.length);
+                }
+                result = na.dense[na.denseStart + (int) na.length];
+                na.dense[na.denseStart + (int) na.length] = NOT_FOUND;
                 return result;
             }
         }
@@ -1446,13 +1866,19 @@ public class NativeArray extends IdScriptableObject implements List {
 
         if (o instanceof NativeArray) {
             NativeArray na = (NativeArray) o;
-            if (na.denseOnly && na.length > 0) {
+            if (na.denseOnly && na.length > 0 && !na.isHole(0)) {
+                // Leave the remaining elements where they are and start after the first
+                Object result;
+                if (na.hasNumericElements()) {
+                    result = na.numericElement(0);
+                } else {
+                    result = na.dense[na.denseStart];
+                    na.dense[na.denseStart] = NOT_FOUND;
+                }
                 na.length--;
                 na.modCount++;
-                Object result = na.dense[0];
-                System.arraycopy(na.dense, 1, na.dense, 0, (int) na.length);
-                na.dense[(int) na.length] = NOT_FOUND;
-                return result == NOT_FOUND ? Undefined.instance : result;
+                na.denseStart = na.length == 0 ? 0 : na.denseStart + 1;
+                return result;
             }
         }
         Object result;
@@ -1490,9 +1916,21 @@ public class NativeArray extends IdScriptableObject implements List {
 
         if (o instanceof NativeArray) {
             NativeArray na = (NativeArray) o;
+            if (na.hasNumericElements()) {
+                na.toObjectElements();
+            }
+            if (na.denseOnly && na.denseStart >= args.length) {
+                // Reuse the room left by shifted elements
+                na.denseStart -= args.length;
+                System.arraycopy(args, 0, na.dense, na.denseStart, args.length);
+                na.length += args.length;
+                na.modCount++;
+                return ScriptRuntime.wrapNumber(na.length);
+            }
             if (na.denseOnly && na.ensureCapacity((int) na.length + args.length)) {
-                System.arraycopy(na.dense, 0, na.dense, args.length, (int) na.length);
-                System.arraycopy(args, 0, na.dense, 0, args.length);
+                int start = na.denseStart;
+                System.arraycopy(na.dense, start, na.dense, start + args.length, (int) na.length);
+                System.arraycopy(args, 0, na.dense, start, args.length);
                 na.length += args.length;
                 na.modCount++;
                 return ScriptRuntime.wrapNumber(na.length);
@@ -1592,7 +2030,7 @@ public class NativeArray extends IdScriptableObject implements List {
                 if (denseMode) {
                     int intLen = (int) (end - begin);
                     Object[] copy = new Object[intLen];
-                    System.arraycopy(na.dense, (int) begin, copy, 0, intLen);
+                    na.copyElements((int) begin, copy, 0, intLen);
                     result = cx.newArray(scope, copy);
                 } else {
                     Scriptable resultArray = cx.newArray(scope, 0);
@@ -1617,6 +2055,9 @@ public class NativeArray extends IdScriptableObject implements List {
         }
 
         /* Find the direction (up or down) to copy and make way for argv. */
+        if (denseMode) {
+            na.toObjectElements();
+        }
         if (denseMode
                 && length + delta < Integer.MAX_VALUE
                 && na.ensureCapacity((int) (length + delta))) {
@@ -1708,9 +2149,9 @@ public class NativeArray extends IdScriptableObject implements List {
                 final NativeArray denseArg = (NativeArray) arg;
                 if (denseArg.denseOnly) {
                     // Now we can optimize
+                    denseResult.toObjectElements();
                     denseResult.ensureCapacity((int) newlen);
-                    System.arraycopy(
-                            denseArg.dense, 0, denseResult.dense, (int) offset, (int) srclen);
+                    denseArg.copyElements(0, denseResult.dense, (int) offset, (int) srclen);
                     return newlen;
                 }
                 // We could also optimize here if we are copying to a dense target from a non-dense
@@ -1841,10 +2282,13 @@ public class NativeArray extends IdScriptableObject implements List {
         }
         if (o instanceof NativeArray) {
             NativeArray na = (NativeArray) o;
+            if (na.hasNumericElements()) {
+                return Long.valueOf(na.indexOfNumber(compareTo, (int) start, 1, false));
+            }
             if (na.denseOnly) {
                 Scriptable proto = na.getPrototype();
                 for (int i = (int) start; i < length; i++) {
-                    Object val = na.dense[i];
+                    Object val = na.dense[na.denseStart + i];
                     if (val == NOT_FOUND && proto != null) {
                         val = ScriptableObject.getProperty(proto, i);
                     }
@@ -1893,10 +2337,13 @@ public class NativeArray extends IdScriptableObject implements List {
         }
         if (o instanceof NativeArray) {
             NativeArray na = (NativeArray) o;
+            if (na.hasNumericElements()) {
+                return Long.valueOf(na.indexOfNumber(compareTo, (int) start, -1, false));
+            }
             if (na.denseOnly) {
                 Scriptable proto = na.getPrototype();
                 for (int i = (int) start; i >= 0; i--) {
-                    Object val = na.dense[i];
+                    Object val = na.dense[na.denseStart + i];
                     if (val == NOT_FOUND && proto != null) {
                         val = ScriptableObject.getProperty(proto, i);
                     }
@@ -1940,10 +2387,13 @@ public class NativeArray extends IdScriptableObject implements List {
         }
         if (o instanceof NativeArray) {
             NativeArray na = (NativeArray) o;
+            if (na.hasNumericElements() && len == na.length) {
+                return Boolean.valueOf(na.indexOfNumber(compareTo, (int) k, 1, true) != -1);
+            }
             if (na.denseOnly) {
                 Scriptable proto = na.getPrototype();
                 for (int i = (int) k; i < len; i++) {
-                    Object elementK = na.dense[i];
+                    Object elementK = na.dense[na.denseStart + i];
                     if (elementK == NOT_FOUND && proto != null) {
                         elementK = ScriptableObject.getProperty(proto, i);
                     }
@@ -2049,9 +2499,25 @@ public class NativeArray extends IdScriptableObject implements List {
         // and other non-default options then we won't get here.
         if ((o instanceof NativeArray) && (count <= Integer.MAX_VALUE)) {
             NativeArray na = (NativeArray) o;
+            if (na.hasNumericElements()) {
+                if (direction < 0) {
+                    from -= count - 1;
+                    to -= count - 1;
+                }
+                from += na.denseStart;
+                to += na.denseStart;
+                if (na.denseInts != null) {
+                    System.arraycopy(
+                            na.denseInts, (int) from, na.denseInts, (int) to, (int) count);
+                } else {
+                    System.arraycopy(
+                            na.denseDoubles, (int) from, na.denseDoubles, (int) to, (int) count);
+                }
+                return thisObj;
+            }
             if (na.denseOnly) {
                 for (; count > 0; count--) {
-                    na.dense[(int) to] = na.dense[(int) from];
+                    na.dense[na.denseStart + (int) to] = na.dense[na.denseStart + (int) from];
                     from += direction;
                     to += direction;
                 }
@@ -2584,7 +3050,6 @@ public class NativeArray extends IdScriptableObject implements List {
     // Comparators for the js_sort method. Putting them here lets us unit-test them better.
 
     private static final Comparator<Object> STRING_COMPARATOR = new StringLikeComparator();
-    private static final Comparator<Object> DEFAULT_COMPARATOR = new ElementComparator();
 
     public static final class StringLikeComparator implements Comparator<Object>, Serializable {
 
@@ -2827,6 +3292,22 @@ public class NativeArray extends IdScriptableObject implements List {
      */
     private Object[] dense;
 
+    /**
+     * Unboxed storage for dense arrays that hold nothing but Integers, or nothing but Integers and
+     * Doubles. At most one of <code>dense</code>, <code>denseInts</code> and <code>denseDoubles
+     * </code> is set. The numeric ones are only used while <code>denseOnly</code> is true and
+     * every index below <code>length</code> holds an element; slots past the length are unused.
+     */
+    private int[] denseInts;
+
+    private double[] denseDoubles;
+
+    /**
+     * Index in the dense storage of element 0. Shifting an element off the front just moves it
+     * forward. It is always 0 while <code>denseOnly</code> is false.
+     */
+    private int denseStart;
+
     /** True if all numeric properties are stored in <code>dense</code>. */
     private boolean denseOnly;
     private boolean templateObj = false;
@@ -2841,4 +3322,7 @@ public class NativeArray extends IdScriptableObject implements List {
     private static final double GROW_FACTOR = 1.5;
 
     private static final int MAX_PRE_GROW_SIZE = (int) (Integer.MAX_VALUE / GROW_FACTOR);
+
+    /** The most holes that writing past the end may leave in <code>dense</code>. */
+    private static final int MAX_DENSE_GAP = 1024;
 }
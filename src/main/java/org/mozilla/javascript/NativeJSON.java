@@ -6,13 +6,12 @@
 
 package org.mozilla.javascript;
 
+import java.io.IOException;
 import java.lang.reflect.Array;
 import java.math.BigInteger;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.Iterator;
 import java.util.LinkedHashSet;
-import java.util.LinkedList;
 import java.util.Map;
 import java.util.Stack;
 import org.mozilla.javascript.json.JsonParser;
@@ -173,7 +172,8 @@ public final class NativeJSON extends ScriptableObject {
                 String indent,
                 String gap,
                 Callable replacer,
-                Object[] propertyList) {
+                Object[] propertyList,
+                Appendable out) {
             this.cx = cx;
             this.scope = scope;
 
@@ -181,6 +181,7 @@ public final class NativeJSON extends ScriptableObject {
             this.gap = gap;
             this.replacer = replacer;
             this.propertyList = propertyList;
+            this.out = out;
         }
 
         Stack<Object> stack = new Stack<>();
@@ -188,6 +189,7 @@ public final class NativeJSON extends ScriptableObject {
         String gap;
         Callable replacer;
         Object[] propertyList;
+        Appendable out;
 
         Context cx;
         Scriptable scope;
@@ -195,6 +197,44 @@ public final class NativeJSON extends ScriptableObject {
 
     public static Object stringify(
             Context cx, Scriptable scope, Object value, Object replacer, Object space) {
+        StringBuilder out = new StringBuilder();
+        try {
+            if (!stringify(cx, scope, value, replacer, space, out)) {
+                return Undefined.instance;
+            }
+        } catch (IOException e) {
+            // A StringBuilder does not throw
+            throw Kit.codeBug();
+        }
+        return out.toString();
+    }
+
+    /**
+     * Convert a value to JSON text the way JSON.stringify does, and append the text to "out" while
+     * it is produced, without building it as a String first. This is meant for large values that
+     * are sent to a {@link java.io.Writer} or a stream.
+     *
+     * <p>If converting a part of the value fails, for example because the value is cyclic or a
+     * toJSON method throws, the text of the parts before it has already been appended.
+     *
+     * @param cx the current Context
+     * @param scope the scope to convert in
+     * @param value the value to convert
+     * @param replacer a function, or an array of property names, or null, as for JSON.stringify
+     * @param space the indentation, or null, as for JSON.stringify
+     * @param out where to append the text
+     * @return false if the value has no JSON text, in which case JSON.stringify returns undefined
+     *     and nothing is appended
+     * @throws IOException if "out" throws it
+     */
+    public static boolean stringify(
+            Context cx,
+            Scriptable scope,
+            Object value,
+            Object replacer,
+            Object space,
+            Appendable out)
+            throws IOException {
         String indent = "";
         String gap = "";
 
@@ -248,15 +288,24 @@ public final class NativeJSON extends ScriptableObject {
         }
 
         StringifyState state =
-                new StringifyState(cx, scope, indent, gap, replacerFunction, propertyList);
+                new StringifyState(cx, scope, indent, gap, replacerFunction, propertyList, out);
 
         ScriptableObject wrapper = new NativeObject();
         wrapper.setParentScope(scope);
         wrapper.setPrototype(ScriptableObject.getObjectPrototype(scope));
         wrapper.defineProperty("", value, 0);
-        return str("", wrapper, state);
+        Object resolved = str("", wrapper, state);
+        if (resolved == Undefined.instance) {
+            return false;
+        }
+        write(resolved, state);
+        return true;
     }
 
+    /**
+     * Return the value of the property "key" of "holder" as it is to be written, after calling
+     * toJSON and the replacer, or Undefined.instance if the property is left out.
+     */
     private static Object str(Object key, Scriptable holder, StringifyState state) {
         Object value = null;
         Object unwrappedJavaValue = null;
@@ -329,15 +378,33 @@ public final class NativeJSON extends ScriptableObject {
             value = value.toString();
         }
 
-        if (value == null) return "null";
-        if (value.equals(Boolean.TRUE)) return "true";
-        if (value.equals(Boolean.FALSE)) return "false";
+        if (value == null
+                || value instanceof Boolean
+                || value instanceof CharSequence
+                || value instanceof Number) {
+            return value;
+        }
+
+        if (unwrappedJavaValue != null) {
+            return javaToJSON(value, state);
+        }
 
-        if (value instanceof CharSequence) {
-            return quote(value.toString());
+        if ((value instanceof Scriptable) && !(value instanceof Callable)) {
+            return value;
         }
+        return Undefined.instance;
+    }
 
-        if (value instanceof Number) {
+    /** Write a value that {@link #str} returned. */
+    private static void write(Object value, StringifyState state) throws IOException {
+        Appendable out = state.out;
+        if (value == null) {
+            out.append("null");
+        } else if (value instanceof Boolean) {
+            out.append(((Boolean) value).booleanValue() ? "true" : "false");
+        } else if (value instanceof CharSequence) {
+            quote(value.toString(), out);
+        } else if (value instanceof Number) {
             if (value instanceof BigInteger) {
                 throw ScriptRuntime.typeErrorById("msg.json.cant.serialize", "BigInt");
             }
@@ -345,38 +412,38 @@ public final class NativeJSON extends ScriptableObject {
             if (!Double.isNaN(d)
                     && d != Double.POSITIVE_INFINITY
                     && d != Double.NEGATIVE_INFINITY) {
-                return ScriptRuntime.toString(value);
+                out.append(ScriptRuntime.toString(value));
+            } else {
+                out.append("null");
             }
-            return "null";
+        } else if (isObjectArrayLike(value)) {
+            ja((Scriptable) value, state);
+        } else {
+            jo((Scriptable) value, state);
         }
+    }
 
-        if (unwrappedJavaValue != null) {
-            return javaToJSON(value, state);
+    /** Start the next member of an object or array, after "count" members. */
+    private static void writeSeparator(int count, StringifyState state) throws IOException {
+        Appendable out = state.out;
+        if (count > 0) {
+            out.append(',');
         }
-
-        if ((value instanceof Scriptable) && !(value instanceof Callable)) {
-            if (isObjectArrayLike(value)) {
-                return ja((Scriptable) value, state);
-            }
-            return jo((Scriptable) value, state);
+        if (state.gap.length() > 0) {
+            out.append('\n').append(state.indent);
         }
-        return Undefined.instance;
     }
 
-    private static String join(Collection<Object> objs, String delimiter) {
-        if (objs == null || objs.isEmpty()) {
-            return "";
-        }
-        Iterator<Object> iter = objs.iterator();
-        if (!iter.hasNext()) return "";
-        StringBuilder builder = new StringBuilder(iter.next().toString());
-        while (iter.hasNext()) {
-            builder.append(delimiter).append(iter.next());
+    /** End an object or array with "count" members. */
+    private static void writeEnd(int count, String stepback, char end, StringifyState state)
+            throws IOException {
+        if (count > 0 && state.gap.length() > 0) {
+            state.out.append('\n').append(stepback);
         }
-        return builder.toString();
+        state.out.append(end);
     }
 
-    private static String jo(Scriptable value, StringifyState state) {
+    private static void jo(Scriptable value, StringifyState state) throws IOException {
         Object trackValue = value, unwrapped = null;
         if (value instanceof Wrapper) {
             trackValue = unwrapped = ((Wrapper) value).unwrap();
@@ -425,40 +492,28 @@ public final class NativeJSON extends ScriptableObject {
             k = value.getIds();
         }
 
-        Collection<Object> partial = new LinkedList<>();
-
+        Appendable out = state.out;
+        out.append('{');
+        int count = 0;
         for (Object p : k) {
             Object strP = str(p, value, state);
             if (strP != Undefined.instance) {
-                String member = quote(p.toString()) + ":";
+                writeSeparator(count++, state);
+                quote(p.toString(), out);
+                out.append(':');
                 if (state.gap.length() > 0) {
-                    member = member + " ";
+                    out.append(' ');
                 }
-                member = member + strP;
-                partial.add(member);
-            }
-        }
-
-        final String finalValue;
-
-        if (partial.isEmpty()) {
-            finalValue = "{}";
-        } else {
-            if (state.gap.length() == 0) {
-                finalValue = '{' + join(partial, ",") + '}';
-            } else {
-                String separator = ",\n" + state.indent;
-                String properties = join(partial, separator);
-                finalValue = "{\n" + state.indent + properties + '\n' + stepback + '}';
+                write(strP, state);
             }
         }
+        writeEnd(count, stepback, '}', state);
 
         state.stack.pop();
         state.indent = stepback;
-        return finalValue;
     }
 
-    private static String ja(Scriptable value, StringifyState state) {
+    private static void ja(Scriptable value, StringifyState state) throws IOException {
         Object trackValue = value, unwrapped = null;
         if (value instanceof Wrapper) {
             trackValue = unwrapped = ((Wrapper) value).unwrap();
@@ -470,7 +525,6 @@ public final class NativeJSON extends ScriptableObject {
 
         String stepback = state.indent;
         state.indent = state.indent + state.gap;
-        Collection<Object> partial = new LinkedList<>();
 
         if (unwrapped != null) {
             Object[] elements = null;
@@ -495,6 +549,8 @@ public final class NativeJSON extends ScriptableObject {
 
         long len = ((NativeArray) value).getLength();
 
+        Appendable out = state.out;
+        out.append('[');
         for (long index = 0; index < len; index++) {
             Object strP;
             if (index > Integer.MAX_VALUE) {
@@ -502,74 +558,69 @@ public final class NativeJSON extends ScriptableObject {
             } else {
                 strP = str(Integer.valueOf((int) index), value, state);
             }
+            writeSeparator((int) Math.min(index, 1), state);
             if (strP == Undefined.instance) {
-                partial.add("null");
-            } else {
-                partial.add(strP);
-            }
-        }
-
-        final String finalValue;
-
-        if (partial.isEmpty()) {
-            finalValue = "[]";
-        } else {
-            if (state.gap.length() == 0) {
-                finalValue = '[' + join(partial, ",") + ']';
+                out.append("null");
             } else {
-                String separator = ",\n" + state.indent;
-                String properties = join(partial, separator);
-                finalValue = "[\n" + state.indent + properties + '\n' + stepback + ']';
+                write(strP, state);
             }
         }
+        writeEnd((int) Math.min(len, 1), stepback, ']', state);
 
         state.stack.pop();
         state.indent = stepback;
-        return finalValue;
     }
 
-    private static String quote(String string) {
-        StringBuilder product =
-                new StringBuilder(string.length() + 2); // two extra chars for " on either side
-        product.append('"');
+    /** Append "string" to "out" as a JSON string literal. */
+    private static void quote(String string, Appendable out) throws IOException {
+        out.append('"');
         int length = string.length();
+        // Unescaped characters are appended in runs, which keeps compact strings compact
+        int plain = 0;
         for (int i = 0; i < length; i++) {
             char c = string.charAt(i);
+            if (!needsEscape(c)) {
+                continue;
+            }
+            out.append(string, plain, i);
+            plain = i + 1;
             switch (c) {
                 case '"':
-                    product.append("\\\"");
+                    out.append("\\\"");
                     break;
                 case '\\':
-                    product.append("\\\\");
+                    out.append("\\\\");
                     break;
                 case '\b':
-                    product.append("\\b");
+                    out.append("\\b");
                     break;
                 case '\f':
-                    product.append("\\f");
+                    out.append("\\f");
                     break;
                 case '\n':
-                    product.append("\\n");
+                    out.append("\\n");
                     break;
                 case '\r':
-                    product.append("\\r");
+                    out.append("\\r");
                     break;
                 case '\t':
-                    product.append("\\t");
+                    out.append("\\t");
                     break;
                 default:
-                    if (c < ' ') {
-                        product.append("\\u");
-                        String hex = String.format("%04x", Integer.valueOf(c));
-                        product.append(hex);
-                    } else {
-                        product.append(c);
-                    }
+                    out.append("\\u00");
+                    out.append(HEX_DIGITS[c >> 4]);
+                    out.append(HEX_DIGITS[c & 0xF]);
                     break;
             }
         }
-        product.append('"');
-        return product.toString();
+        out.append(string, plain, length);
+        out.append('"');
+    }
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private static boolean needsEscape(char c) {
+        return c < ' ' || c == '"' || c == '\\';
     }
 
     private static Object javaToJSON(Object value, StringifyState state) {
@@ -8,7 +8,6 @@ package org.mozilla.javascript;
 
 import java.lang.reflect.Array;
 import java.lang.reflect.Method;
-import java.util.Arrays;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
@@ -128,9 +127,7 @@ public class NativeJavaMethod extends BaseFunction {
 
         int index = findCachedFunction(cx, args);
         if (index < 0) {
-            Class<?> c = methods[0].method().getDeclaringClass();
-            String sig = c.getName() + '.' + getFunctionName() + '(' + scriptSignature(args) + ')';
-            throw Context.reportRuntimeErrorById("msg.java.no_such_method", sig);
+            throw noSuchMethod(args);
         }
 
         MemberBox meth = methods[index];
@@ -181,29 +178,7 @@ public class NativeJavaMethod extends BaseFunction {
                 }
             }
         }
-        Object javaObject;
-        if (meth.isStatic()) {
-            javaObject = null; // don't need an object
-        } else {
-            Scriptable o = thisObj;
-            Class<?> c = meth.getDeclaringClass();
-            for (; ; ) {
-                if (o == null) {
-                    throw Context.reportRuntimeErrorById(
-                            "msg.nonjava.method",
-                            getFunctionName(),
-                            ScriptRuntime.toString(thisObj),
-                            c.getName());
-                }
-                if (o instanceof Wrapper) {
-                    javaObject = ((Wrapper) o).unwrap();
-                    if (c.isInstance(javaObject)) {
-                        break;
-                    }
-                }
-                o = o.getPrototype();
-            }
-        }
+        Object javaObject = javaThis(meth, thisObj);
         if (debug) {
             printDebug("Calling ", meth, args);
         }
@@ -241,6 +216,41 @@ public class NativeJavaMethod extends BaseFunction {
         return wrapped;
     }
 
+    /** Return the error for a call with arguments that no method accepts. */
+    RuntimeException noSuchMethod(Object[] args) {
+        Class<?> c = methods[0].method().getDeclaringClass();
+        String sig = c.getName() + '.' + getFunctionName() + '(' + scriptSignature(args) + ')';
+        return Context.reportRuntimeErrorById("msg.java.no_such_method", sig);
+    }
+
+    /**
+     * Return the Java object to call an instance method on: the first object on the prototype
+     * chain of "thisObj" that wraps an instance of the class of the method.
+     */
+    Object javaThis(MemberBox meth, Scriptable thisObj) {
+        if (meth.isStatic()) {
+            return null; // don't need an object
+        }
+        Scriptable o = thisObj;
+        Class<?> c = meth.getDeclaringClass();
+        for (; ; ) {
+            if (o == null) {
+                throw Context.reportRuntimeErrorById(
+                        "msg.nonjava.method",
+                        getFunctionName(),
+                        ScriptRuntime.toString(thisObj),
+                        c.getName());
+            }
+            if (o instanceof Wrapper) {
+                Object javaObject = ((Wrapper) o).unwrap();
+                if (c.isInstance(javaObject)) {
+                    return javaObject;
+                }
+            }
+            o = o.getPrototype();
+        }
+    }
+
     int findCachedFunction(Context cx, Object[] args) {
         if (methods.length > 1) {
             for (ResolvedOverload ovl : overloadCache) {
@@ -282,16 +292,20 @@ public class NativeJavaMethod extends BaseFunction {
                     return -1;
                 }
             }
-            for (int j = 0; j != alength; ++j) {
-                if (!NativeJavaObject.canConvert(args[j], argTypes[j])) {
-                    if (debug) printDebug("Rejecting (args can't convert) ", member, args);
-                    return -1;
-                }
+            if (!canConvertArgs(member, alength, args, null)) {
+                if (debug) printDebug("Rejecting (args can't convert) ", member, args);
+                return -1;
             }
             if (debug) printDebug("Found ", member, args);
             return 0;
         }
 
+        // The JS types of the arguments, which all candidates need
+        int[] argCodes = new int[args.length];
+        for (int j = 0; j != args.length; ++j) {
+            argCodes[j] = NativeJavaObject.getJSTypeCode(args[j]);
+        }
+
         int firstBestFit = -1;
         int[] extraBestFits = null;
         int extraBestFitsCount = 0;
@@ -311,11 +325,9 @@ public class NativeJavaMethod extends BaseFunction {
                     continue search;
                 }
             }
-            for (int j = 0; j < alength; j++) {
-                if (!NativeJavaObject.canConvert(args[j], argTypes[j])) {
-                    if (debug) printDebug("Rejecting (args can't convert) ", member, args);
-                    continue search;
-                }
+            if (!canConvertArgs(member, alength, args, argCodes)) {
+                if (debug) printDebug("Rejecting (args can't convert) ", member, args);
+                continue search;
             }
             if (firstBestFit < 0) {
                 if (debug) printDebug("Found first applicable ", member, args);
@@ -348,6 +360,7 @@ public class NativeJavaMethod extends BaseFunction {
                         int preference =
                                 preferSignature(
                                         args,
+                                        argCodes,
                                         argTypes,
                                         member.vararg,
                                         bestFit.argTypes,
@@ -445,6 +458,25 @@ public class NativeJavaMethod extends BaseFunction {
                 buf.toString());
     }
 
+    /**
+     * Return true if the first "alength" arguments can be converted to the parameter types of the
+     * member. "argCodes" holds the JS type codes of the arguments, or is null if they are not
+     * computed yet.
+     */
+    static boolean canConvertArgs(MemberBox member, int alength, Object[] args, int[] argCodes) {
+        Class<?>[] argTypes = member.argTypes;
+        byte[][] weights = member.conversionWeights();
+        for (int j = 0; j < alength; j++) {
+            Object arg = args[j];
+            int code = argCodes == null ? NativeJavaObject.getJSTypeCode(arg) : argCodes[j];
+            int weight = NativeJavaObject.getConversionWeight(arg, code, weights[j], argTypes[j]);
+            if (weight >= NativeJavaObject.CONVERSION_NONE) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /** Types are equal */
     private static final int PREFERENCE_EQUAL = 0;
 
@@ -458,7 +490,12 @@ public class NativeJavaMethod extends BaseFunction {
      * PREFERENCE_FIRST_ARG, PREFERENCE_SECOND_ARG, or PREFERENCE_AMBIGUOUS.
      */
     private static int preferSignature(
-            Object[] args, Class<?>[] sig1, boolean vararg1, Class<?>[] sig2, boolean vararg2) {
+            Object[] args,
+            int[] argCodes,
+            Class<?>[] sig1,
+            boolean vararg1,
+            Class<?>[] sig2,
+            boolean vararg2) {
         int totalPreference = 0;
         for (int j = 0; j < args.length; j++) {
             Class<?> type1 = vararg1 && j >= sig1.length ? sig1[sig1.length - 1] : sig1[j];
@@ -470,8 +507,13 @@ public class NativeJavaMethod extends BaseFunction {
 
             // Determine which of type1, type2 is easier to convert from arg.
 
-            int rank1 = NativeJavaObject.getConversionWeight(arg, type1);
-            int rank2 = NativeJavaObject.getConversionWeight(arg, type2);
+            int code = argCodes[j];
+            int rank1 =
+                    NativeJavaObject.getConversionWeight(
+                            arg, code, NativeJavaObject.getConversionWeights(type1), type1);
+            int rank2 =
+                    NativeJavaObject.getConversionWeight(
+                            arg, code, NativeJavaObject.getConversionWeights(type2), type2);
 
             int preference;
             if (rank1 < rank2) {
@@ -502,7 +544,7 @@ public class NativeJavaMethod extends BaseFunction {
         return totalPreference;
     }
 
-    private static final boolean debug = false;
+    static final boolean debug = false;
 
     private static void printDebug(String msg, MemberBox member, Object[] args) {
         if (debug) {
@@ -527,48 +569,3 @@ public class NativeJavaMethod extends BaseFunction {
     private final transient CopyOnWriteArrayList<ResolvedOverload> overloadCache =
             new CopyOnWriteArrayList<>();
 }
-
-class ResolvedOverload {
-    final Class<?>[] types;
-    final int index;
-
-    ResolvedOverload(Object[] args, int index) {
-        this.index = index;
-        types = new Class<?>[args.length];
-        for (int i = 0, l = args.length; i < l; i++) {
-            Object arg = args[i];
-            if (arg instanceof Wrapper) arg = ((Wrapper) arg).unwrap();
-            types[i] = arg == null ? null : arg.getClass();
-        }
-    }
-
-    boolean matches(Object[] args) {
-        if (args.length != types.length) {
-            return false;
-        }
-        for (int i = 0, l = args.length; i < l; i++) {
-            Object arg = args[i];
-            if (arg instanceof Wrapper) arg = ((Wrapper) arg).unwrap();
-            if (arg == null) {
-                if (types[i] != null) return false;
-            } else if (arg.getClass() != types[i]) {
-                return false;
-            }
-        }
-        return true;
-    }
-
-    @Override
-    public boolean equals(Object other) {
-        if (!(other instanceof ResolvedOverload)) {
-            return false;
-        }
-        ResolvedOverload ovl = (ResolvedOverload) other;
-        return Arrays.equals(types, ovl.types) && index == ovl.index;
-    }
-
-    @Override
-    public int hashCode() {
-        return Arrays.hashCode(types);
-    }
-}
@@ -280,11 +280,49 @@ public class NativeJavaObject implements Scriptable, SymbolScriptable, Wrapper,
     private static final int JSTYPE_JAVA_ARRAY = 7; // JavaArray
     private static final int JSTYPE_OBJECT = 8; // Scriptable
     private static final int JSTYPE_BIGINT = 9; // BigInt
+    private static final int JSTYPE_COUNT = 10;
 
     static final byte CONVERSION_TRIVIAL = 1;
     static final byte CONVERSION_NONTRIVIAL = 0;
     static final byte CONVERSION_NONE = 99;
 
+    /** Marks the JS types whose conversion weight depends on the value in a weight table. */
+    private static final byte VALUE_DEPENDENT = -1;
+
+    /**
+     * The conversion weights to a class, indexed by JS type code. Only the weights of undefined,
+     * null, booleans, numbers, bigints and Java classes are the same for all values, the other
+     * entries are VALUE_DEPENDENT.
+     */
+    private static final ClassValue<byte[]> CONVERSION_WEIGHTS =
+            new ClassValue<byte[]>() {
+                @Override
+                protected byte[] computeValue(Class<?> to) {
+                    byte[] weights = new byte[JSTYPE_COUNT];
+                    for (int code = 0; code != JSTYPE_COUNT; code++) {
+                        switch (code) {
+                            case JSTYPE_STRING:
+                            case JSTYPE_JAVA_OBJECT:
+                            case JSTYPE_JAVA_ARRAY:
+                            case JSTYPE_OBJECT:
+                                weights[code] = VALUE_DEPENDENT;
+                                break;
+                            default:
+                                weights[code] = (byte) getConversionWeight(code, null, to);
+                        }
+                    }
+                    return weights;
+                }
+            };
+
+    /**
+     * Return the table of conversion weights to a class, for {@link #getConversionWeight(Object,
+     * int, byte[], Class)}.
+     */
+    static byte[] getConversionWeights(Class<?> to) {
+        return CONVERSION_WEIGHTS.get(to);
+    }
+
     /**
      * Derive a ranking based on how "natural" the conversion is. The special value CONVERSION_NONE
      * means no conversion is possible, and CONVERSION_NONTRIVIAL signals that more type conformance
@@ -293,8 +331,20 @@ public class NativeJavaObject implements Scriptable, SymbolScriptable, Wrapper,
      * conversions" from Live Connect 3</a>
      */
     static int getConversionWeight(Object fromObj, Class<?> to) {
-        int fromCode = getJSTypeCode(fromObj);
+        return getConversionWeight(getJSTypeCode(fromObj), fromObj, to);
+    }
+
+    /**
+     * Same as {@link #getConversionWeight(Object, Class)}, for a value of which the JS type code is
+     * already known, looking the weight up in the table of "to" when it does not depend on the
+     * value.
+     */
+    static int getConversionWeight(Object fromObj, int fromCode, byte[] weights, Class<?> to) {
+        int weight = weights[fromCode];
+        return weight != VALUE_DEPENDENT ? weight : getConversionWeight(fromCode, fromObj, to);
+    }
 
+    private static int getConversionWeight(int fromCode, Object fromObj, Class<?> to) {
         switch (fromCode) {
             case JSTYPE_UNDEFINED:
                 if (to == ScriptRuntime.StringClass || to == ScriptRuntime.ObjectClass) {
@@ -447,7 +497,7 @@ public class NativeJavaObject implements Scriptable, SymbolScriptable, Wrapper,
         }
     }
 
-    private static int getJSTypeCode(Object value) {
+    static int getJSTypeCode(Object value) {
         if (value == null) {
             return JSTYPE_NULL;
         } else if (value == Undefined.instance) {
@@ -27,6 +27,16 @@ public class NativeObject extends IdScriptableObject implements Map {
 
     private static final Object OBJECT_TAG = "Object";
 
+    public NativeObject() {}
+
+    /**
+     * Create an object with room for the given number of properties, so that adding them does not
+     * grow its storage.
+     */
+    public NativeObject(int initialSize) {
+        super(initialSize);
+    }
+
     static void init(Scriptable scope, boolean sealed) {
         NativeObject obj = new NativeObject();
         obj.exportAsJSClass(MAX_PROTOTYPE_ID, scope, sealed);
@@ -466,8 +466,8 @@ final class NativeString extends IdScriptableObject {
                 case Id_includes:
                 case Id_startsWith:
                 case Id_endsWith:
-                    String thisString =
-                            ScriptRuntime.toString(requireObjectCoercible(cx, thisObj, f));
+                    CharSequence thisChars =
+                            ScriptRuntime.toCharSequence(requireObjectCoercible(cx, thisObj, f));
                     if (args.length > 0 && args[0] instanceof NativeRegExp) {
                         if (ScriptableObject.isTrue(
                                 ScriptableObject.getProperty(
@@ -480,7 +480,12 @@ final class NativeString extends IdScriptableObject {
                         }
                     }
 
-                    int idx = js_indexOf(id, thisString, args);
+                    if (id != Id_includes && thisChars instanceof ConsString) {
+                        return Boolean.valueOf(
+                                js_startsOrEndsWith(id, (ConsString) thisChars, args));
+                    }
+
+                    int idx = js_indexOf(id, thisChars.toString(), args);
 
                     if (id == Id_includes) {
                         return Boolean.valueOf(idx != -1);
@@ -667,16 +672,17 @@ final class NativeString extends IdScriptableObject {
                 case Id_trim:
                     {
                         String str = ScriptRuntime.toString(requireObjectCoercible(cx, thisObj, f));
-                        char[] chars = str.toCharArray();
 
                         int start = 0;
-                        while (start < chars.length
-                                && ScriptRuntime.isJSWhitespaceOrLineTerminator(chars[start])) {
+                        int end = str.length();
+                        while (start < end
+                                && ScriptRuntime.isJSWhitespaceOrLineTerminator(
+                                        str.charAt(start))) {
                             start++;
                         }
-                        int end = chars.length;
                         while (end > start
-                                && ScriptRuntime.isJSWhitespaceOrLineTerminator(chars[end - 1])) {
+                                && ScriptRuntime.isJSWhitespaceOrLineTerminator(
+                                        str.charAt(end - 1))) {
                             end--;
                         }
 
@@ -686,14 +692,14 @@ final class NativeString extends IdScriptableObject {
                 case Id_trimStart:
                     {
                         String str = ScriptRuntime.toString(requireObjectCoercible(cx, thisObj, f));
-                        char[] chars = str.toCharArray();
 
                         int start = 0;
-                        while (start < chars.length
-                                && ScriptRuntime.isJSWhitespaceOrLineTerminator(chars[start])) {
+                        int end = str.length();
+                        while (start < end
+                                && ScriptRuntime.isJSWhitespaceOrLineTerminator(
+                                        str.charAt(start))) {
                             start++;
                         }
-                        int end = chars.length;
 
                         return str.substring(start, end);
                     }
@@ -701,13 +707,12 @@ final class NativeString extends IdScriptableObject {
                 case Id_trimEnd:
                     {
                         String str = ScriptRuntime.toString(requireObjectCoercible(cx, thisObj, f));
-                        char[] chars = str.toCharArray();
 
                         int start = 0;
-
-                        int end = chars.length;
+                        int end = str.length();
                         while (end > start
-                                && ScriptRuntime.isJSWhitespaceOrLineTerminator(chars[end - 1])) {
+                                && ScriptRuntime.isJSWhitespaceOrLineTerminator(
+                                        str.charAt(end - 1))) {
                             end--;
                         }
 
@@ -755,7 +760,9 @@ final class NativeString extends IdScriptableObject {
                     }
                 case Id_at:
                     {
-                        String str = ScriptRuntime.toString(requireObjectCoercible(cx, thisObj, f));
+                        CharSequence str =
+                                ScriptRuntime.toCharSequence(
+                                        requireObjectCoercible(cx, thisObj, f));
                         Object targetArg = (args.length >= 1) ? args[0] : Undefined.instance;
                         int len = str.length();
                         int relativeIndex = (int) ScriptRuntime.toInteger(targetArg);
@@ -766,7 +773,7 @@ final class NativeString extends IdScriptableObject {
                             return Undefined.instance;
                         }
 
-                        return str.substring(k, k + 1);
+                        return String.valueOf(str.charAt(k));
                     }
 
                 case SymbolId_iterator:
@@ -939,6 +946,26 @@ final class NativeString extends IdScriptableObject {
                 : target.indexOf(searchStr, (int) position);
     }
 
+    /** startsWith and endsWith of a ConsString, without flattening it. */
+    private static boolean js_startsOrEndsWith(int methodId, ConsString target, Object[] args) {
+        String searchStr = ScriptRuntime.toString(args, 0);
+        int length = target.length();
+        double position;
+        if (methodId == Id_endsWith
+                && (args.length < 2 || args[1] == Undefined.instance)) {
+            position = length;
+        } else {
+            position = ScriptRuntime.toInteger(args, 1);
+            if (position < 0) position = 0;
+            else if (position > length) position = length;
+        }
+        int start = (int) position;
+        if (methodId == Id_endsWith) {
+            start -= searchStr.length();
+        }
+        return target.regionMatches(start, searchStr);
+    }
+
     /*
      *
      * See ECMA 15.5.4.7
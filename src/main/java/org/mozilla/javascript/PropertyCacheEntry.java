@@ -0,0 +1,210 @@
+/* -*- Mode: java; tab-width: 8; indent-tabs-mode: nil; c-basic-offset: 4 -*-
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript;
+
+import java.util.Arrays;
+
+/**
+ * A PropertyCacheEntry remembers where a named property was found, so that an inline cache in
+ * generated code can read it again with a guard and a direct slot read instead of a full property
+ * lookup.
+ *
+ * <p>If the receiver keeps its slots in a ShapedSlotMap, the entry guards on the receiver's class
+ * and {@link Shape}, which makes it valid for every object with the same layout. A property found
+ * on the receiver itself is then read from the receiver's slot array at a fixed offset.
+ * Otherwise the entry guards on the layout token of the receiver, which only matches that one
+ * object.
+ *
+ * <p>Prototypes are always fixed objects, so for a property found on the prototype chain the
+ * entry also records the layout token of every prototype up to and including the one that holds
+ * the property, and reads the slot it found there. Adding, removing or replacing a slot, or
+ * changing the prototype of any of those objects drops its token, after which the entry no longer
+ * matches.
+ *
+ * <p>Only ordinary data slots are cached; getters, setters and lazily-loaded slots always go
+ * through the normal lookup. Entries used for assignment are further restricted to properties
+ * that the receiver itself holds in a ShapedSlotMap.
+ */
+public final class PropertyCacheEntry {
+
+    /** Stop looking for the property after this many objects on the prototype chain. */
+    private static final int MAX_CHAIN_LENGTH = 8;
+
+    private static final ScriptableObject[] NO_PROTOTYPES = new ScriptableObject[0];
+    private static final Object[] NO_TOKENS = new Object[0];
+
+    private final Class<?> receiverClass;
+    private final Shape receiverShape;
+    private final Object receiverToken;
+    private final ScriptableObject[] prototypes;
+    private final Object[] prototypeTokens;
+    private final int offset;
+    private final Slot slot;
+
+    private PropertyCacheEntry(
+            ScriptableObject receiver,
+            Shape receiverShape,
+            Object receiverToken,
+            ScriptableObject[] prototypes,
+            Object[] prototypeTokens,
+            int offset,
+            Slot slot) {
+        this.receiverClass = receiver.getClass();
+        this.receiverShape = receiverShape;
+        this.receiverToken = receiverToken;
+        this.prototypes = prototypes;
+        this.prototypeTokens = prototypeTokens;
+        this.offset = offset;
+        this.slot = slot;
+    }
+
+    /**
+     * Look up the named property on "receiver" and return an entry describing where it was found,
+     * or null if the lookup cannot be cached.
+     */
+    public static PropertyCacheEntry lookup(Object receiver, String name) {
+        if (!(receiver instanceof ScriptableObject)) {
+            return null;
+        }
+        ScriptableObject start = (ScriptableObject) receiver;
+        ShapedSlotMap shaped = start.getShapedSlotMap();
+        Shape shape = shaped == null ? null : shaped.shape;
+
+        ScriptableObject[] chain = new ScriptableObject[MAX_CHAIN_LENGTH];
+        Object[] tokens = new Object[MAX_CHAIN_LENGTH];
+        int length = 0;
+
+        Object current = start;
+        while (current instanceof ScriptableObject && length < MAX_CHAIN_LENGTH) {
+            ScriptableObject obj = (ScriptableObject) current;
+            if (!obj.isCacheableLookup(name)) {
+                return null;
+            }
+            Object token = obj.getLayoutToken();
+            if (token == null) {
+                return null;
+            }
+            chain[length] = obj;
+            tokens[length] = token;
+            length++;
+
+            Slot slot = obj.queryNamedSlot(name);
+            if (slot != null) {
+                if (slot.getClass() != Slot.class) {
+                    return null;
+                }
+                if (length == 1) {
+                    int offset = shape == null ? -1 : shape.indexOf(name);
+                    return new PropertyCacheEntry(
+                            start, shape, token, NO_PROTOTYPES, NO_TOKENS, offset, slot);
+                }
+                return new PropertyCacheEntry(
+                        start,
+                        shape,
+                        tokens[0],
+                        Arrays.copyOfRange(chain, 1, length),
+                        Arrays.copyOfRange(tokens, 1, length),
+                        -1,
+                        slot);
+            }
+            current = obj.getPrototype();
+        }
+        return null;
+    }
+
+    /**
+     * Look up the named property on "receiver" for assignment and return an entry describing its
+     * slot, or null if the assignment cannot be cached. Only existing properties of the receiver
+     * itself are cached, since adding a property changes the receiver's shape anyway.
+     */
+    public static PropertyCacheEntry lookupForStore(Object receiver, String name) {
+        if (!(receiver instanceof ScriptableObject)) {
+            return null;
+        }
+        ScriptableObject obj = (ScriptableObject) receiver;
+        ShapedSlotMap shaped = obj.getShapedSlotMap();
+        if (shaped == null || !obj.isCacheableStore(name)) {
+            return null;
+        }
+        int offset = shaped.shape.indexOf(name);
+        if (offset < 0) {
+            return null;
+        }
+        Slot slot = shaped.slots[offset];
+        if (slot.getClass() != Slot.class) {
+            return null;
+        }
+        return new PropertyCacheEntry(
+                obj, shaped.shape, null, NO_PROTOTYPES, NO_TOKENS, offset, slot);
+    }
+
+    /** Return true if this entry still describes the property lookup on "receiver". */
+    public boolean matches(Object receiver) {
+        if (receiver == null || receiver.getClass() != receiverClass) {
+            return false;
+        }
+        ScriptableObject obj = (ScriptableObject) receiver;
+        if (receiverShape != null) {
+            ShapedSlotMap shaped = obj.getShapedSlotMap();
+            if (shaped == null || shaped.shape != receiverShape) {
+                return false;
+            }
+            if (prototypes.length != 0 && obj.getPrototype() != prototypes[0]) {
+                return false;
+            }
+        } else if (obj.peekLayoutToken() != receiverToken) {
+            return false;
+        }
+        for (int i = 0; i < prototypes.length; i++) {
+            if (prototypes[i].peekLayoutToken() != prototypeTokens[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Return the current value of the cached property on "receiver". Only valid after "matches"
+     * returned true for the same receiver.
+     */
+    public Object getValue(Object receiver) {
+        if (offset >= 0) {
+            return ((ScriptableObject) receiver).getShapedSlotMap().slots[offset].value;
+        }
+        return slot.value;
+    }
+
+    /**
+     * Return the cached property of "receiver" if it is a function, after storing the receiver as
+     * the "this" object for the call, as ScriptRuntime.getPropFunctionAndThis does. Return null
+     * without side effects if the property is not a function. Only valid after "matches" returned
+     * true for the same receiver.
+     */
+    public Callable getFunctionAndThis(Object receiver, Context cx) {
+        Object value = getValue(receiver);
+        if (!(value instanceof Callable)) {
+            return null;
+        }
+        ScriptRuntime.storeScriptable(cx, (Scriptable) receiver);
+        return (Callable) value;
+    }
+
+    /**
+     * Assign "value" to the cached property of "receiver" and return true, or return false if the
+     * assignment needs the checks done by the full "put". Only valid for entries returned by
+     * "lookupForStore", after "matches" returned true for the same receiver.
+     */
+    public boolean setValue(Object receiver, Object value) {
+        ScriptableObject obj = (ScriptableObject) receiver;
+        Slot s = obj.getShapedSlotMap().slots[offset];
+        if (obj.isSealed() || (s.getAttributes() & ScriptableObject.READONLY) != 0) {
+            return false;
+        }
+        s.value = value;
+        return true;
+    }
+}
@@ -0,0 +1,73 @@
+/* -*- Mode: java; tab-width: 8; indent-tabs-mode: nil; c-basic-offset: 4 -*-
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript;
+
+import java.util.Arrays;
+
+/**
+ * The overload chosen for the types of a list of arguments. Since the conversion weights only
+ * depend on the classes of the arguments, and for wrapped Java objects on the classes of the
+ * objects they wrap, the same overload is chosen for all arguments of the same types.
+ */
+final class ResolvedOverload {
+    final Class<?>[] types;
+    final Class<?>[] wrappedTypes;
+    final int index;
+
+    ResolvedOverload(Object[] args, int index) {
+        this.index = index;
+        types = new Class<?>[args.length];
+        wrappedTypes = new Class<?>[args.length];
+        for (int i = 0, l = args.length; i < l; i++) {
+            Object arg = args[i];
+            types[i] = typeOf(arg);
+            if (arg instanceof Wrapper) {
+                wrappedTypes[i] = typeOf(((Wrapper) arg).unwrap());
+            }
+        }
+    }
+
+    boolean matches(Object[] args) {
+        if (args.length != types.length) {
+            return false;
+        }
+        for (int i = 0, l = args.length; i < l; i++) {
+            if (!matches(i, args[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Return true if "arg" has the type of argument "i". */
+    boolean matches(int i, Object arg) {
+        if (typeOf(arg) != types[i]) {
+            return false;
+        }
+        return !(arg instanceof Wrapper) || typeOf(((Wrapper) arg).unwrap()) == wrappedTypes[i];
+    }
+
+    private static Class<?> typeOf(Object value) {
+        return value == null ? null : value.getClass();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof ResolvedOverload)) {
+            return false;
+        }
+        ResolvedOverload ovl = (ResolvedOverload) other;
+        return Arrays.equals(types, ovl.types)
+                && Arrays.equals(wrappedTypes, ovl.wrappedTypes)
+                && index == ovl.index;
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(types);
+    }
+}
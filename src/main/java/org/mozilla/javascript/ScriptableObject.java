@@ -173,6 +173,15 @@ public abstract class ScriptableObject
         slotMap = createSlotMap(0);
     }
 
+    /**
+     * Create an object with room for the given number of properties.
+     *
+     * @param initialSize the number of properties that are expected to be added
+     */
+    protected ScriptableObject(int initialSize) {
+        slotMap = createSlotMap(initialSize);
+    }
+
     public ScriptableObject(Scriptable scope, Scriptable prototype) {
         if (scope == null) throw new IllegalArgumentException();
 
@@ -732,6 +741,9 @@ public abstract class ScriptableObject
     /** Sets the prototype of the object. */
     @Override
     public void setPrototype(Scriptable m) {
+        if (m != prototypeObject) {
+            slotMap.invalidateLayout();
+        }
         prototypeObject = m;
     }
 
@@ -2730,6 +2742,116 @@ public abstract class ScriptableObject
         return slotMap.query(s.stringId, 0);
     }
 
+    /**
+     * Return true if looking up the named property on this object consults nothing but its slot
+     * map and then its prototype, which is what lets an inline cache rely on the slot map layout.
+     * Classes that override get(String, Scriptable) or getPrototype() are never cached.
+     */
+    boolean isCacheableLookup(String name) {
+        return (PLAIN_ACCESS.get(getClass()).intValue() & PLAIN_GET) != 0
+                && isCacheableName(name);
+    }
+
+    /**
+     * Return true if assigning to the named property of this object only updates its slot map,
+     * so that an inline cache can store into an existing slot directly. Classes that override
+     * put(String, Scriptable, Object) are never cached.
+     */
+    boolean isCacheableStore(String name) {
+        return (PLAIN_ACCESS.get(getClass()).intValue() & PLAIN_PUT) != 0
+                && isCacheableName(name);
+    }
+
+    /**
+     * Return true if get(String, Scriptable) returns the value of an ordinary data slot of this
+     * object whenever it has one, whatever else it may look at when it does not.
+     */
+    final boolean isOwnSlotLookup() {
+        return (PLAIN_ACCESS.get(getClass()).intValue() & OWN_SLOTS_FIRST) != 0;
+    }
+
+    /** Return false if the named property is handled outside the slot map. */
+    boolean isCacheableName(String name) {
+        return true;
+    }
+
+    /** Return the layout token of the slot map, or null if this object cannot be cached. */
+    Object getLayoutToken() {
+        return slotMap.getLayoutToken();
+    }
+
+    /** Return the cell token of the slot map, or null if its slots cannot be cached. */
+    Object getCellToken() {
+        return slotMap.getCellToken();
+    }
+
+    /** Return the current cell token of the slot map without creating one. */
+    final Object peekCellToken() {
+        return slotMap.cellToken;
+    }
+
+    /** Return the current layout token of the slot map without creating one. */
+    final Object peekLayoutToken() {
+        return slotMap.layoutToken;
+    }
+
+    final Slot queryNamedSlot(String name) {
+        return slotMap.query(name, 0);
+    }
+
+    /** Return the slot map if it is currently a ShapedSlotMap with a shape, and otherwise null. */
+    final ShapedSlotMap getShapedSlotMap() {
+        SlotMap map = slotMap.map;
+        return map instanceof ShapedSlotMap && ((ShapedSlotMap) map).isShaped()
+                ? (ShapedSlotMap) map
+                : null;
+    }
+
+    private static final int PLAIN_GET = 1;
+    private static final int PLAIN_PUT = 2;
+    private static final int OWN_SLOTS_FIRST = 4;
+
+    private static final ClassValue<Integer> PLAIN_ACCESS =
+            new ClassValue<Integer>() {
+                @Override
+                protected Integer computeValue(Class<?> type) {
+                    int flags = 0;
+                    try {
+                        Class<?> getter =
+                                type.getMethod("get", String.class, Scriptable.class)
+                                        .getDeclaringClass();
+                        Class<?> setter =
+                                type.getMethod(
+                                                "put",
+                                                String.class,
+                                                Scriptable.class,
+                                                Object.class)
+                                        .getDeclaringClass();
+                        Class<?> proto = type.getMethod("getPrototype").getDeclaringClass();
+                        // ImporterTopLevel only looks at its packages when the slots do not
+                        // have the name, so a top-level scope can still use slot caches
+                        if (getter == ScriptableObject.class
+                                || getter == IdScriptableObject.class
+                                || getter == ImporterTopLevel.class) {
+                            flags |= OWN_SLOTS_FIRST;
+                        }
+                        if (proto == ScriptableObject.class) {
+                            if (getter == ScriptableObject.class
+                                    || getter == IdScriptableObject.class) {
+                                flags |= PLAIN_GET;
+                            }
+                            if (setter == ScriptableObject.class
+                                    || setter == IdScriptableObject.class) {
+                                flags |= PLAIN_PUT;
+                            }
+                        }
+                    } catch (NoSuchMethodException | SecurityException e) {
+                        // Not cacheable
+                    }
+                    return Integer.valueOf(flags);
+                }
+            };
+
     // Partial implementation of java.util.Map. See NativeObject for
     // a subclass that implements java.util.Map.
 
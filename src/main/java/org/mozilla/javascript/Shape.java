@@ -0,0 +1,190 @@
+/* -*- Mode: java; tab-width: 8; indent-tabs-mode: nil; c-basic-offset: 4 -*-
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript;
+
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A Shape (sometimes called a "hidden class") describes the layout of a ShapedSlotMap: the
+ * property keys it contains, in insertion order, and the offset of each one in the map's slot
+ * array. Shapes are immutable and shared by every map that had the same keys added in the same
+ * order, starting from {@link #EMPTY}. Adding a key follows a transition to a child shape, which
+ * is created the first time it is needed.
+ *
+ * <p>Parents only hold weak references to their children, so shapes that no live object uses can be
+ * collected. To keep objects that are used as dictionaries from growing the tree without bound, a
+ * shape refuses new transitions once it has too many children or properties, and the map falls
+ * back to a hash table. The root is exempt from the limit on children: every object in the JVM
+ * starts from it, and a limit there would leave all objects whose first key is new unshaped.
+ */
+final class Shape {
+
+    /** The shape of a map with no properties, and the root of every transition tree. */
+    static final Shape EMPTY = new Shape(null, new Object[0]);
+
+    /** A map that grows beyond this many properties stops using shapes. */
+    static final int MAX_PROPERTIES = 64;
+
+    /**
+     * A shape other than the root with this many distinct transitions refuses to add more. The
+     * root purges collected transitions each time it grows to twice its live size.
+     */
+    private static final int MAX_TRANSITIONS = 64;
+
+    /** Shapes with more properties than this use a hash table to find offsets. */
+    private static final int LINEAR_SEARCH_LIMIT = 8;
+
+    private final Shape parent;
+    private final Object[] keys;
+    private final int[] hashes;
+
+    /**
+     * For larger shapes, an open-addressed hash table of offsets plus one, so that zero marks an
+     * empty entry. The length is always a power of two.
+     */
+    private final int[] table;
+
+    private final ConcurrentHashMap<Object, Transition> transitions = new ConcurrentHashMap<>(4);
+
+    /**
+     * The first transition taken from this shape. Nearly every shape only ever has one, so this
+     * lets "addProperty" skip the map. Transition has only final fields, so it is safe to read
+     * without synchronization.
+     */
+    private Transition firstTransition;
+
+    /** The number of transitions at which the root next purges the collected ones. */
+    private int purgeThreshold = MAX_TRANSITIONS;
+
+    /** A weak link from a shape to the child that adds "key". */
+    private static final class Transition extends WeakReference<Shape> {
+        final Object key;
+
+        Transition(Object key, Shape shape) {
+            super(shape);
+            this.key = key;
+        }
+    }
+
+    private Shape(Shape parent, Object[] keys) {
+        // Children keep their parents alive, so the transition tree above any shape that is
+        // still in use stays intact.
+        this.parent = parent;
+        this.keys = keys;
+        hashes = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            hashes[i] = keys[i].hashCode();
+        }
+        if (keys.length > LINEAR_SEARCH_LIMIT) {
+            table = new int[Integer.highestOneBit(keys.length) * 4];
+            int mask = table.length - 1;
+            for (int i = 0; i < keys.length; i++) {
+                int pos = hashes[i] & mask;
+                while (table[pos] != 0) {
+                    pos = (pos + 1) & mask;
+                }
+                table[pos] = i + 1;
+            }
+        } else {
+            table = null;
+        }
+    }
+
+    /** Return the number of properties in this shape. */
+    int size() {
+        return keys.length;
+    }
+
+    /** Return the offset of the key, or -1 if the shape does not contain it. */
+    int indexOf(Object key) {
+        Object[] k = keys;
+        int[] h = hashes;
+        int hash = key.hashCode();
+        if (table != null) {
+            int mask = table.length - 1;
+            int pos = hash & mask;
+            int entry;
+            while ((entry = table[pos]) != 0) {
+                int i = entry - 1;
+                if (h[i] == hash && (k[i] == key || k[i].equals(key))) {
+                    return i;
+                }
+                pos = (pos + 1) & mask;
+            }
+            return -1;
+        }
+        for (int i = 0; i < k.length; i++) {
+            if (h[i] == hash && (k[i] == key || k[i].equals(key))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Return the shape that results from adding "key" after the keys of this shape, or null if the
+     * map should stop using shapes instead. The key must not already be part of this shape.
+     */
+    Shape addProperty(Object key) {
+        Transition first = firstTransition;
+        if (first != null && (first.key == key || first.key.equals(key))) {
+            Shape shape = first.get();
+            if (shape != null) {
+                return shape;
+            }
+        }
+        Transition ref = transitions.get(key);
+        Shape existing = ref == null ? null : ref.get();
+        if (existing != null) {
+            return existing;
+        }
+        return addTransition(key);
+    }
+
+    private synchronized Shape addTransition(Object key) {
+        if (keys.length >= MAX_PROPERTIES) {
+            return null;
+        }
+        Transition ref = transitions.get(key);
+        Shape existing = ref == null ? null : ref.get();
+        if (existing != null) {
+            return existing;
+        }
+        if (transitions.size() >= purgeThreshold) {
+            purgeTransitions();
+            if (parent == null) {
+                purgeThreshold = Math.max(MAX_TRANSITIONS, transitions.size() * 2);
+            } else if (transitions.size() >= MAX_TRANSITIONS) {
+                return null;
+            }
+        }
+
+        Object[] newKeys = new Object[keys.length + 1];
+        System.arraycopy(keys, 0, newKeys, 0, keys.length);
+        newKeys[keys.length] = key;
+        Shape child = new Shape(this, newKeys);
+        Transition transition = new Transition(key, child);
+        transitions.put(key, transition);
+        Transition first = firstTransition;
+        if (first == null || first.get() == null) {
+            firstTransition = transition;
+        }
+        return child;
+    }
+
+    private void purgeTransitions() {
+        Iterator<Map.Entry<Object, Transition>> it = transitions.entrySet().iterator();
+        while (it.hasNext()) {
+            if (it.next().getValue().get() == null) {
+                it.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,204 @@
+/* -*- Mode: java; tab-width: 8; indent-tabs-mode: nil; c-basic-offset: 4 -*-
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * This class implements the SlotMap interface using a shared {@link Shape} and a flat array of
+ * slots. The shape maps each key to an offset in the array, so objects that had the same
+ * properties added in the same order share all of their lookup structure and only carry the array
+ * itself. Because the offset of a key only depends on the shape, an inline cache that has checked
+ * the shape can read the slot directly.
+ *
+ * <p>Shapes only describe the common case: named properties held in ordinary value slots, added
+ * and never removed. SlotMapContainer switches to another SlotMap as soon as it needs anything
+ * else:
+ *
+ * <ul>
+ *   <li>"modify" returns null instead of creating a slot it cannot hold, and
+ *   <li>"tryAdd" returns false instead of adding one.
+ * </ul>
+ *
+ * <p>Used on its own, the map moves its slots into an EmbeddedSlotMap instead, and from then on
+ * passes every call on to it and has no shape.
+ */
+final class ShapedSlotMap implements SlotMap {
+
+    private static final Slot[] EMPTY_SLOTS = new Slot[0];
+
+    private static final int INITIAL_SLOT_SIZE = 4;
+
+    Shape shape = Shape.EMPTY;
+    Slot[] slots = EMPTY_SLOTS;
+
+    /** The map that holds the slots once they no longer fit a shape, or null. */
+    private SlotMap fallback;
+
+    /** The size of the slot array when the first slot is added. */
+    private final int initialSlotSize;
+
+    ShapedSlotMap() {
+        this(0);
+    }
+
+    /** Create a map with room for the given number of slots. */
+    ShapedSlotMap(int initialSize) {
+        initialSlotSize = Math.max(INITIAL_SLOT_SIZE, Math.min(initialSize, Shape.MAX_PROPERTIES));
+    }
+
+    private static final class Iter implements Iterator<Slot> {
+        private final Slot[] slots;
+        private final int size;
+        private int next;
+
+        Iter(Slot[] slots, int size) {
+            this.slots = slots;
+            this.size = size;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < size;
+        }
+
+        @Override
+        public Slot next() {
+            if (next >= size) {
+                throw new NoSuchElementException();
+            }
+            return slots[next++];
+        }
+    }
+
+    /** Return false if the slots have moved out of the shape into another map. */
+    boolean isShaped() {
+        return fallback == null;
+    }
+
+    @Override
+    public int size() {
+        if (fallback != null) {
+            return fallback.size();
+        }
+        return shape.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        if (fallback != null) {
+            return fallback.isEmpty();
+        }
+        return shape.size() == 0;
+    }
+
+    @Override
+    public Iterator<Slot> iterator() {
+        if (fallback != null) {
+            return fallback.iterator();
+        }
+        return new Iter(slots, shape.size());
+    }
+
+    @Override
+    public Slot query(Object key, int index) {
+        if (fallback != null) {
+            return fallback.query(key, index);
+        }
+        if (key == null) {
+            return null;
+        }
+        int offset = shape.indexOf(key);
+        return offset < 0 ? null : slots[offset];
+    }
+
+    /**
+     * Locate the slot with the given key, and create a new one if necessary. Returns null if the
+     * slot does not exist and cannot be created in this map.
+     */
+    @Override
+    public Slot modify(Object key, int index, int attributes) {
+        if (fallback != null) {
+            return fallback.modify(key, index, attributes);
+        }
+        if (key == null) {
+            return null;
+        }
+        int offset = shape.indexOf(key);
+        if (offset >= 0) {
+            return slots[offset];
+        }
+        Slot newSlot = new Slot(key, key.hashCode(), attributes);
+        return append(newSlot) ? newSlot : null;
+    }
+
+    /**
+     * Add the slot and return true if the shape can be extended with it. Otherwise do nothing and
+     * return false.
+     */
+    boolean tryAdd(Slot newSlot) {
+        return fallback == null
+                && newSlot.name != null
+                && newSlot.getClass() == Slot.class
+                && append(newSlot);
+    }
+
+    @Override
+    public void add(Slot newSlot) {
+        if (!tryAdd(newSlot)) {
+            unshape().add(newSlot);
+        }
+    }
+
+    private boolean append(Slot newSlot) {
+        Shape newShape = shape.addProperty(newSlot.name);
+        if (newShape == null) {
+            return false;
+        }
+        int offset = shape.size();
+        if (offset == 0) {
+            slots = new Slot[initialSlotSize];
+        } else if (offset == slots.length) {
+            slots = Arrays.copyOf(slots, offset * 2);
+        }
+        slots[offset] = newSlot;
+        shape = newShape;
+        return true;
+    }
+
+    @Override
+    public void replace(Slot oldSlot, Slot newSlot) {
+        unshape().replace(oldSlot, newSlot);
+    }
+
+    @Override
+    public void remove(Object key, int index) {
+        if (fallback == null && query(key, index) == null) {
+            return;
+        }
+        unshape().remove(key, index);
+    }
+
+    /**
+     * Move the slots into an EmbeddedSlotMap, in the same order, unless that has already happened,
+     * and return it. The shape is dropped, so that no inline cache can match this map again.
+     */
+    private SlotMap unshape() {
+        if (fallback == null) {
+            SlotMap newMap = new EmbeddedSlotMap();
+            for (int i = 0; i < shape.size(); i++) {
+                newMap.add(slots[i]);
+            }
+            fallback = newMap;
+            shape = null;
+            slots = EMPTY_SLOTS;
+        }
+        return fallback;
+    }
+}
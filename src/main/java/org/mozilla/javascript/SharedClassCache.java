@@ -0,0 +1,210 @@
+/* -*- Mode: java; tab-width: 8; indent-tabs-mode: nil; c-basic-offset: 4 -*-
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A cache of Java reflection information and generated adapter classes that many {@link
+ * ClassCache} objects, and so many top-level scopes, can share.
+ *
+ * <p>A ClassCache only reflects a Java class once for its scope. With a shared cache, the
+ * reflection, and the accessor class if {@link ClassCache#setAccessorGenerationEnabled(boolean)
+ * accessor generation} is enabled, is done once for all scopes that use the cache, and each
+ * scope only gets its own copies of the function objects of the Java methods. {@link JavaAdapter}
+ * classes are shared the same way.
+ *
+ * <p>The cache is safe to use from many threads. It keeps the information of at most a given
+ * number of Java classes, and drops the classes that were used least recently first. It does
+ * not keep the classes it describes from being unloaded: the information is stored with each
+ * class as a {@link ClassValue}, and goes away with the class.
+ *
+ * <p>Information is only shared between scopes when no security manager restricts the code that
+ * looks it up, since reflection gives different results with fewer privileges.
+ *
+ * @see ClassCache#setSharedCache(SharedClassCache)
+ */
+public class SharedClassCache {
+
+    /** The number of variants of JavaMembers for each class; see {@link #variant}. */
+    private static final int VARIANTS = 8;
+
+    private final int maximumSize;
+
+    private final ClassValue<Entry> entries =
+            new ClassValue<Entry>() {
+                @Override
+                protected Entry computeValue(Class<?> type) {
+                    return new Entry(type, staleKeys);
+                }
+            };
+
+    /** The classes with entries, least recently used first. */
+    private final LinkedHashMap<Key, Boolean> recentlyUsed =
+            new LinkedHashMap<Key, Boolean>(16, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Key, Boolean> eldest) {
+                    if (size() <= maximumSize) {
+                        return false;
+                    }
+                    eldest.getKey().removed = true;
+                    Class<?> type = eldest.getKey().get();
+                    if (type != null) {
+                        entries.remove(type);
+                    }
+                    evictions.increment();
+                    return true;
+                }
+            };
+
+    private final ReferenceQueue<Class<?>> staleKeys = new ReferenceQueue<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Create a cache that keeps the information of at most "maximumSize" Java classes.
+     *
+     * @param maximumSize the maximum number of classes, at least 1
+     */
+    public SharedClassCache(int maximumSize) {
+        if (maximumSize < 1) throw new IllegalArgumentException();
+        this.maximumSize = maximumSize;
+    }
+
+    /** Return the maximum number of classes that the cache keeps information about. */
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    /** Return the number of classes that the cache keeps information about. */
+    public int size() {
+        synchronized (recentlyUsed) {
+            expungeStaleKeys();
+            return recentlyUsed.size();
+        }
+    }
+
+    /** Return how many times information was found in the cache. */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /** Return how many times information was not found in the cache and had to be created. */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /** Return how many classes were dropped from the cache because it was full. */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /** Remove all information from the cache. The statistics are kept. */
+    public void clear() {
+        synchronized (recentlyUsed) {
+            for (Key key : recentlyUsed.keySet()) {
+                key.removed = true;
+                Class<?> type = key.get();
+                if (type != null) {
+                    entries.remove(type);
+                }
+            }
+            recentlyUsed.clear();
+        }
+    }
+
+    /**
+     * Return the index of the kind of JavaMembers that reflection creates with the given
+     * settings.
+     */
+    static int variant(boolean includeProtected, boolean includePrivate, boolean generateAccessor) {
+        return (includeProtected ? 1 : 0) | (includePrivate ? 2 : 0) | (generateAccessor ? 4 : 0);
+    }
+
+    /**
+     * Return the shared JavaMembers of a class, created without a scope, or null if there are
+     * none yet.
+     */
+    JavaMembers getMembers(Class<?> cl, int variant) {
+        Entry entry = entries.get(cl);
+        JavaMembers members = entry.members.get(variant);
+        record(entry, members != null);
+        return members;
+    }
+
+    void putMembers(Class<?> cl, int variant, JavaMembers members) {
+        entries.get(cl).members.compareAndSet(variant, null, members);
+    }
+
+    Class<?> getAdapterClass(JavaAdapter.JavaAdapterSignature sig) {
+        Entry entry = entries.get(sig.superClass);
+        Class<?> adapterClass = entry.adapters.get(sig);
+        record(entry, adapterClass != null);
+        return adapterClass;
+    }
+
+    void putAdapterClass(JavaAdapter.JavaAdapterSignature sig, Class<?> adapterClass) {
+        entries.get(sig.superClass).adapters.putIfAbsent(sig, adapterClass);
+    }
+
+    /**
+     * Count a lookup and make its class the most recently used one, unless the entry was removed
+     * from the cache since the lookup found it. Adding such an entry back would leave two keys for
+     * the class, and evicting the stale one would remove the entry that replaced it.
+     */
+    private void record(Entry entry, boolean hit) {
+        (hit ? hits : misses).increment();
+        synchronized (recentlyUsed) {
+            expungeStaleKeys();
+            if (!entry.key.removed) {
+                recentlyUsed.put(entry.key, Boolean.TRUE);
+            }
+        }
+    }
+
+    private void expungeStaleKeys() {
+        Object key;
+        while ((key = staleKeys.poll()) != null) {
+            recentlyUsed.remove(key);
+        }
+    }
+
+    /**
+     * The information about one class. It is only referenced by the class, so that it does not
+     * keep the class from being unloaded.
+     */
+    private static final class Entry {
+        final Key key;
+        final AtomicReferenceArray<JavaMembers> members = new AtomicReferenceArray<>(VARIANTS);
+        final Map<JavaAdapter.JavaAdapterSignature, Class<?>> adapters =
+                new ConcurrentHashMap<>(4, 0.75f, 1);
+
+        Entry(Class<?> type, ReferenceQueue<Class<?>> queue) {
+            key = new Key(type, queue);
+        }
+    }
+
+    /** The key of a class in the list of recently used classes, compared by identity. */
+    private static final class Key extends WeakReference<Class<?>> {
+        /** Set once the entry was evicted or cleared. Only accessed with the list locked. */
+        boolean removed;
+
+        Key(Class<?> type, ReferenceQueue<Class<?>> queue) {
+            super(type, queue);
+        }
+    }
+}
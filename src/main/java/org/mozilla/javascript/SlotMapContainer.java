@@ -21,19 +21,44 @@ class SlotMapContainer implements SlotMap {
      */
     private static final int LARGE_HASH_SIZE = 2000;
 
-    private static final int DEFAULT_SIZE = 10;
+    static final int DEFAULT_SIZE = 10;
 
     protected SlotMap map;
 
+    /**
+     * A token that identifies the current layout of the map. It is handed out to inline caches
+     * and is dropped whenever a slot is added, removed or replaced, so that any cache that still
+     * holds the old token will miss.
+     */
+    Object layoutToken;
+
+    /**
+     * A token that is only dropped when a slot is removed or replaced. As long as it is unchanged,
+     * every slot that was found in the map is still the one that holds its property, so a cache
+     * can keep using the slot itself even after other slots were added.
+     */
+    Object cellToken;
+
     SlotMapContainer() {
         this(DEFAULT_SIZE);
     }
 
     SlotMapContainer(int initialSize) {
+        this(initialSize, true);
+    }
+
+    /**
+     * Create a container for the expected number of slots. Unless "shaped" is false, small maps
+     * start out as a ShapedSlotMap and switch to an EmbeddedSlotMap once they need something that
+     * shapes do not support.
+     */
+    SlotMapContainer(int initialSize, boolean shaped) {
         if (initialSize > LARGE_HASH_SIZE) {
-            map = new HashSlotMap();
+            map = new HashSlotMap(initialSize);
+        } else if (shaped && initialSize <= Shape.MAX_PROPERTIES) {
+            map = new ShapedSlotMap(initialSize);
         } else {
-            map = new EmbeddedSlotMap();
+            map = new EmbeddedSlotMap(initialSize);
         }
     }
 
@@ -53,28 +78,73 @@ class SlotMapContainer implements SlotMap {
 
     @Override
     public Slot modify(Object key, int index, int attributes) {
+        SlotMap m = map;
+        if (m instanceof ShapedSlotMap) {
+            ShapedSlotMap shaped = (ShapedSlotMap) m;
+            Shape oldShape = shaped.shape;
+            Slot slot = shaped.modify(key, index, attributes);
+            if (slot != null) {
+                if (shaped.shape != oldShape) {
+                    layoutToken = null;
+                }
+                return slot;
+            }
+            // The new slot does not fit in a ShapedSlotMap
+            unshape();
+        }
         checkMapSize();
-        return map.modify(key, index, attributes);
+        int oldSize = map.size();
+        Slot slot = map.modify(key, index, attributes);
+        if (map.size() != oldSize) {
+            layoutToken = null;
+        }
+        return slot;
     }
 
     @Override
     public void replace(Slot oldSlot, Slot newSlot) {
+        layoutToken = null;
+        cellToken = null;
+        if (map instanceof ShapedSlotMap) {
+            unshape();
+        }
         map.replace(oldSlot, newSlot);
     }
 
     @Override
     public Slot query(Object key, int index) {
-        return map.query(key, index);
+        SlotMap m = map;
+        if (m instanceof ShapedSlotMap) {
+            // Dispatching on the type here keeps both call sites from becoming megamorphic
+            return ((ShapedSlotMap) m).query(key, index);
+        }
+        return m.query(key, index);
     }
 
     @Override
     public void add(Slot newSlot) {
         checkMapSize();
+        layoutToken = null;
+        if (map instanceof ShapedSlotMap) {
+            if (((ShapedSlotMap) map).tryAdd(newSlot)) {
+                return;
+            }
+            // The slot does not fit in a ShapedSlotMap, or its shape cannot be extended
+            unshape();
+        }
         map.add(newSlot);
     }
 
     @Override
     public void remove(Object key, int index) {
+        layoutToken = null;
+        cellToken = null;
+        if (map instanceof ShapedSlotMap) {
+            if (map.query(key, index) == null) {
+                return;
+            }
+            unshape();
+        }
         map.remove(key, index);
     }
 
@@ -83,6 +153,37 @@ class SlotMapContainer implements SlotMap {
         return map.iterator();
     }
 
+    /**
+     * Return the token that identifies the current layout of this map, creating one if necessary.
+     * Returns null if the map cannot be used with inline caches.
+     */
+    Object getLayoutToken() {
+        Object token = layoutToken;
+        if (token == null) {
+            token = new Object();
+            layoutToken = token;
+        }
+        return token;
+    }
+
+    /**
+     * Return the token that stays the same for as long as no slot is removed from or replaced in
+     * this map, creating one if necessary. Returns null if the slots of this map cannot be cached.
+     */
+    Object getCellToken() {
+        Object token = cellToken;
+        if (token == null) {
+            token = new Object();
+            cellToken = token;
+        }
+        return token;
+    }
+
+    /** Drop the current layout token, for changes that are not visible in the map itself. */
+    void invalidateLayout() {
+        layoutToken = null;
+    }
+
     public long readLock() {
         // No locking in the default implementation
         return 0L;
@@ -92,6 +193,18 @@ class SlotMapContainer implements SlotMap {
         // No locking in the default implementation
     }
 
+    /**
+     * Replace a ShapedSlotMap with an EmbeddedSlotMap holding the same slots in the same order.
+     * This is a one-way switch: the object will not use shapes again.
+     */
+    protected void unshape() {
+        SlotMap newMap = new EmbeddedSlotMap();
+        for (Slot s : map) {
+            newMap.add(s);
+        }
+        map = newMap;
+    }
+
     /**
      * Before inserting a new item in the map, check and see if we need to expand from the embedded
      * map to a HashMap that is more robust against large numbers of hash collisions.
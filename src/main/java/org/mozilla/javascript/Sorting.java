@@ -45,6 +45,13 @@ public final class Sorting {
         hybridSort(a, 0, a.length - 1, cmp, log2(a.length) * 2);
     }
 
+    /** Sort the elements of a from fromIndex, inclusive, to toIndex, exclusive. */
+    public void hybridSort(Object[] a, int fromIndex, int toIndex, Comparator<Object> cmp) {
+        if (toIndex - fromIndex > 1) {
+            hybridSort(a, fromIndex, toIndex - 1, cmp, log2(toIndex - fromIndex) * 2);
+        }
+    }
+
     private void hybridSort(Object[] a, int start, int end, Comparator<Object> cmp, int maxdepth) {
         if (start < end) {
             if ((maxdepth == 0) || ((end - start) <= SMALLSORT)) {
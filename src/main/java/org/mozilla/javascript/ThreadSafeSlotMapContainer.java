@@ -17,10 +17,13 @@ class ThreadSafeSlotMapContainer extends SlotMapContainer {
 
     private final StampedLock lock = new StampedLock();
 
-    ThreadSafeSlotMapContainer() {}
+    ThreadSafeSlotMapContainer() {
+        this(DEFAULT_SIZE);
+    }
 
     ThreadSafeSlotMapContainer(int initialSize) {
-        super(initialSize);
+        // The methods below use "map" directly, so they cannot cope with a ShapedSlotMap
+        super(initialSize, false);
     }
 
     @Override
@@ -119,6 +122,20 @@ class ThreadSafeSlotMapContainer extends SlotMapContainer {
         }
     }
 
+    /**
+     * Inline caches read slots without taking the lock, so objects with thread-safe slot maps are
+     * never cached.
+     */
+    @Override
+    Object getLayoutToken() {
+        return null;
+    }
+
+    @Override
+    Object getCellToken() {
+        return null;
+    }
+
     /**
      * Take out a read lock on the slot map, if locking is implemented. The caller MUST call this
      * method before using the iterator, and MUST NOT call this method otherwise.
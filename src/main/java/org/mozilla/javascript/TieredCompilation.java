@@ -0,0 +1,172 @@
+/* -*- Mode: java; tab-width: 8; indent-tabs-mode: nil; c-basic-offset: 4 -*-
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript;
+
+import java.lang.reflect.Constructor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import org.mozilla.javascript.ast.FunctionNode;
+import org.mozilla.javascript.ast.ScriptNode;
+
+/**
+ * Tiered execution of interpreted functions.
+ *
+ * <p>A script compiled for tiered execution keeps its source text. Its functions start out
+ * interpreted and count their calls and loop iterations in {@link InterpreterData#itsHotness}. Once
+ * a function is hot, its source is parsed again and compiled with Codegen on a background thread,
+ * and the class file is stored in {@link InterpreterData#tieredCode}. Every function object then
+ * gets its own instance of the compiled function, with the same parent scope, and forwards its
+ * calls to it.
+ *
+ * <p>The compiled function object never escapes: it is only ever called through the interpreted
+ * one. Functions that could expose it, through "arguments.callee" or the name of a named function
+ * expression, are never compiled, and neither are functions that contain other functions.
+ *
+ * @see Context#setTieredCompilationThreshold(int)
+ */
+final class TieredCompilation {
+
+    /** The tiered code of a function whose compilation has been requested. */
+    private static final Object PENDING = new Object();
+
+    /** The tiered code of a function that cannot be compiled. */
+    private static final Object FAILED = new Object();
+
+    private TieredCompilation() {}
+
+    /** Keep the source text of a script and all its functions for tiered or lazy compilation. */
+    static void setSource(InterpreterData idata, String source) {
+        idata.rawSource = source;
+        for (int i = 0; i != idata.getFunctionCount(); i++) {
+            setSource(idata.itsNestedFunctions[i], source);
+        }
+    }
+
+    /**
+     * Count a call of "fun", and request its compilation once it is hot. This is only called for
+     * functions that keep their source.
+     */
+    static void countCall(Context cx, InterpretedFunction fun) {
+        InterpreterData idata = fun.idata;
+        int threshold = cx.getTieredCompilationThreshold();
+        if (++idata.itsHotness >= threshold && threshold > 0 && idata.tieredCode == null) {
+            requestCompilation(cx, fun);
+        }
+    }
+
+    /**
+     * Return the compiled function that "fun" forwards its calls to, creating it if needed, or
+     * null if the function is to be interpreted.
+     */
+    static NativeFunction getCompiledFunction(Context cx, InterpretedFunction fun) {
+        Object code = fun.idata.tieredCode;
+        Scriptable scope = fun.getParentScope();
+        try {
+            if (code instanceof Constructor) {
+                return (NativeFunction)
+                        ((Constructor<?>) code).newInstance(scope, cx, Integer.valueOf(0));
+            }
+            if (code instanceof Object[]) {
+                Evaluator codegen = Context.createCodegen();
+                NativeFunction compiled =
+                        (NativeFunction) codegen.createFunctionObject(cx, scope, code, null);
+                fun.idata.tieredCode = compiled.getClass().getConstructors()[0];
+                return compiled;
+            }
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            fun.idata.tieredCode = FAILED;
+            fun.idata.hasCompiledBody = false;
+        }
+        return null;
+    }
+
+    private static void requestCompilation(Context cx, InterpretedFunction fun) {
+        InterpreterData idata = fun.idata;
+        synchronized (idata) {
+            if (idata.tieredCode != null) {
+                return;
+            }
+            idata.tieredCode = PENDING;
+        }
+        String source = getFunctionSource(idata);
+        if (source == null
+                || fun.securityDomain != null
+                || cx.getSecurityController() != null
+                || !cx.isTieredCompilation()) {
+            idata.tieredCode = FAILED;
+            return;
+        }
+
+        CompilerEnvirons compilerEnv = new CompilerEnvirons();
+        compilerEnv.initFromContext(cx);
+        compilerEnv.setLanguageVersion(idata.languageVersion);
+        compilerEnv.setErrorReporter(DefaultErrorReporter.instance);
+        ContextFactory factory = cx.getFactory();
+        Runnable job =
+                () -> {
+                    Object code;
+                    try {
+                        code = factory.call(c -> compile(compilerEnv, idata, source));
+                    } catch (RuntimeException e) {
+                        code = FAILED;
+                    }
+                    idata.tieredCode = code;
+                    if (code != FAILED) {
+                        idata.hasCompiledBody = true;
+                    }
+                };
+        try {
+            BackgroundCompiler.EXECUTOR.execute(job);
+        } catch (RejectedExecutionException e) {
+            idata.tieredCode = FAILED;
+        }
+    }
+
+    /**
+     * Return the source text of the function if it can be compiled on its own, or null. Methods,
+     * getters and arrow functions are not written with the function keyword, and cannot be
+     * parsed on their own.
+     */
+    private static String getFunctionSource(InterpreterData idata) {
+        int type = idata.itsFunctionType;
+        boolean anonymousExpression =
+                type == FunctionNode.FUNCTION_EXPRESSION
+                        && (idata.itsName == null || idata.itsName.length() == 0);
+        if (idata.rawSource == null
+                || idata.itsNeedsActivation
+                || idata.isES6Generator
+                || !(type == FunctionNode.FUNCTION_STATEMENT || anonymousExpression)
+                || idata.rawSourceStart < 0
+                || idata.rawSourceEnd > idata.rawSource.length()) {
+            return null;
+        }
+        String source = idata.rawSource.substring(idata.rawSourceStart, idata.rawSourceEnd);
+        return source.startsWith("function") ? source : null;
+    }
+
+    private static Object compile(
+            CompilerEnvirons compilerEnv, InterpreterData idata, String source) {
+        ScriptNode tree = LazyCompilation.parseFunction(compilerEnv, idata, source);
+        if (tree.getFunctionCount() != 1 || tree.getFunctionNode(0).requiresActivation()) {
+            return FAILED;
+        }
+        return Context.createCodegen()
+                .compile(compilerEnv, tree, tree.getEncodedSource(), true);
+    }
+
+    /** Holder for the thread that compiles hot functions, created when it is first needed. */
+    private static final class BackgroundCompiler {
+        static final ExecutorService EXECUTOR =
+                Executors.newSingleThreadExecutor(
+                        r -> {
+                            Thread t = new Thread(r, "Rhino tiered compiler");
+                            t.setDaemon(true);
+                            return t;
+                        });
+    }
+}
@@ -0,0 +1,207 @@
+/* -*- Mode: java; tab-width: 8; indent-tabs-mode: nil; c-basic-offset: 4 -*-
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript;
+
+/**
+ * A TopScopeCell remembers the slot that holds a variable of a top-level scope, so that a name
+ * that resolves to it can be read again with a single field load instead of a property lookup.
+ *
+ * <p>A slot stays the home of its property until it is removed from the scope or replaced, for
+ * instance by a getter, and either of those drops the cell token of the scope's slot map. Adding
+ * other variables to the scope does not affect the cell. The cell is bound to one scope object;
+ * code that runs against another top-level scope simply misses.
+ *
+ * <p>A variable may also live on the prototype of the top-level scope, as in the usual setup of a
+ * per-request scope whose prototype is a shared scope with the standard objects. Such a cell also
+ * keeps the layout token of the top-level scope, which is dropped whenever a property is added to
+ * it, so that a variable that shadows the one of the prototype is never missed.
+ *
+ * <p>Names are resolved from the innermost scope outwards, so a cell can also be used from inside
+ * functions, as long as every scope between the function and the top-level scope is a function
+ * activation that does not have a variable with the same name.
+ */
+public final class TopScopeCell {
+
+    /** How often a site may fail to find a variable that can be cached before it gives up. */
+    private static final int MAX_MISSES = 4;
+
+    /** The top-level scope that the name is resolved from. */
+    private final ScriptableObject scope;
+
+    /** The layout token of "scope" if the slot belongs to its prototype, and otherwise null. */
+    private final Object scopeLayout;
+
+    /** The object that holds the slot, either "scope" or its prototype. */
+    private final ScriptableObject holder;
+
+    /** The cell token of "holder". */
+    private final Object token;
+
+    private final Slot slot;
+
+    /** For a cell that holds no variable, the number of lookups that could not be cached. */
+    private final int misses;
+
+    private TopScopeCell(
+            ScriptableObject scope,
+            Object scopeLayout,
+            ScriptableObject holder,
+            Object token,
+            Slot slot) {
+        this.scope = scope;
+        this.scopeLayout = scopeLayout;
+        this.holder = holder;
+        this.token = token;
+        this.slot = slot;
+        this.misses = 0;
+    }
+
+    private TopScopeCell(int misses) {
+        this.scope = null;
+        this.scopeLayout = null;
+        this.holder = null;
+        this.token = null;
+        this.slot = null;
+        this.misses = misses;
+    }
+
+    /**
+     * Resolve "name" from "scope" and return a cell for it if it is a plain variable of the
+     * top-level scope or of its prototype, or null if the lookup cannot be cached.
+     */
+    public static TopScopeCell lookup(Context cx, Scriptable scope, String name) {
+        if (cx.useDynamicScope) {
+            return null;
+        }
+        Scriptable s = scope;
+        while (s instanceof NativeCall) {
+            if (s.get(name, s) != Scriptable.NOT_FOUND) {
+                return null;
+            }
+            s = s.getParentScope();
+        }
+        if (!(s instanceof ScriptableObject) || s.getParentScope() != null) {
+            return null;
+        }
+        ScriptableObject top = (ScriptableObject) s;
+        if (!top.isOwnSlotLookup()) {
+            return null;
+        }
+        Object token = top.getCellToken();
+        if (token == null) {
+            return null;
+        }
+        Slot slot = top.queryNamedSlot(name);
+        if (slot != null) {
+            if (slot.getClass() != Slot.class) {
+                return null;
+            }
+            return new TopScopeCell(top, null, top, token, slot);
+        }
+        // The variable may be inherited from a shared scope
+        Scriptable proto = top.getPrototype();
+        if (!(proto instanceof ScriptableObject) || !top.isCacheableLookup(name)) {
+            return null;
+        }
+        ScriptableObject holder = (ScriptableObject) proto;
+        if (!holder.isOwnSlotLookup()) {
+            return null;
+        }
+        Object layout = top.getLayoutToken();
+        token = holder.getCellToken();
+        if (layout == null || token == null) {
+            return null;
+        }
+        slot = holder.queryNamedSlot(name);
+        if (slot == null || slot.getClass() != Slot.class) {
+            return null;
+        }
+        return new TopScopeCell(top, layout, holder, token, slot);
+    }
+
+    /** Return a cell that records one more failed lookup than "previous", which may be null. */
+    static TopScopeCell miss(TopScopeCell previous) {
+        int misses = previous == null ? 0 : previous.misses;
+        return new TopScopeCell(Math.min(misses + 1, MAX_MISSES));
+    }
+
+    /** Return true if this cell holds a variable, and false if it only records failed lookups. */
+    boolean holdsVariable() {
+        return slot != null;
+    }
+
+    /**
+     * Return false once this cell has recorded so many failed lookups that its site should stop
+     * looking for a variable that can be cached.
+     */
+    boolean mayRetry() {
+        return misses < MAX_MISSES;
+    }
+
+    /**
+     * Resolve "name" from "scope" the way ScriptRuntime.name does, and return its value if it is
+     * still held by this cell. Otherwise return NOT_FOUND, and the name must be looked up the
+     * normal way.
+     */
+    public Object getValue(Context cx, Scriptable scope, String name) {
+        Scriptable s = scope;
+        while (s instanceof NativeCall) {
+            Object value = s.get(name, s);
+            if (value != Scriptable.NOT_FOUND) {
+                return value;
+            }
+            s = s.getParentScope();
+        }
+        if (s == this.scope && matchesTop(cx)) {
+            return slot.value;
+        }
+        return Scriptable.NOT_FOUND;
+    }
+
+    /**
+     * Resolve "name" from "scope" for a call the way ScriptRuntime.getNameFunctionAndThis does.
+     * If the function is held by this cell, store the "this" object for the call and return the
+     * function. Otherwise return null without side effects, and the name must be looked up the
+     * normal way.
+     */
+    public Callable getFunctionAndThis(Context cx, Scriptable scope, String name) {
+        Scriptable s = scope;
+        Scriptable thisObj = this.scope;
+        Object value = Scriptable.NOT_FOUND;
+        while (s instanceof NativeCall) {
+            value = s.get(name, s);
+            if (value != Scriptable.NOT_FOUND) {
+                // Nested functions are called with the top-level scope as "this"
+                thisObj = ScriptableObject.getTopLevelScope(s.getParentScope());
+                break;
+            }
+            s = s.getParentScope();
+        }
+        if (value == Scriptable.NOT_FOUND) {
+            if (s != this.scope || !matchesTop(cx)) {
+                return null;
+            }
+            value = slot.value;
+        }
+        if (!(value instanceof Callable)) {
+            return null;
+        }
+        ScriptRuntime.storeScriptable(cx, thisObj);
+        return (Callable) value;
+    }
+
+    private boolean matchesTop(Context cx) {
+        if (scope == null
+                || holder.peekCellToken() != token
+                || scope.getParentScope() != null
+                || cx.useDynamicScope) {
+            return false;
+        }
+        return holder == scope
+                || (scope.peekLayoutToken() == scopeLayout && scope.getPrototype() == holder);
+    }
+}
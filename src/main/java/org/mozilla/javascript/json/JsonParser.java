@@ -6,16 +6,31 @@
 
 package org.mozilla.javascript.json;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.function.Consumer;
 import org.mozilla.javascript.Context;
+import org.mozilla.javascript.NativeArray;
+import org.mozilla.javascript.NativeObject;
 import org.mozilla.javascript.ScriptRuntime;
 import org.mozilla.javascript.ScriptRuntime.StringIdOrIndex;
 import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.ScriptableObject;
+import org.mozilla.javascript.TopLevel;
 
 /**
  * This class converts a stream of JSON tokens into a JSON value.
  *
+ * <p>The members of an object and the elements of an array are collected on a stack while they
+ * are parsed, so that each object is created with room for all of its properties and each array
+ * is created dense from an array of the right size. Property names that repeat, as they do in
+ * arrays of records, are looked up in a small cache instead of being copied again, and numbers
+ * that fit in a double exactly are converted without creating a String.
+ *
+ * <p>Large inputs can be read from a Reader one value at a time with {@link #parseArrayElements}
+ * and {@link #parseValues}, which find where each value ends and parse only that part.
+ *
  * <p>See ECMA 15.12.
  *
  * @author Raphael Speyer
@@ -26,10 +41,46 @@ public class JsonParser {
     private Context cx;
     private Scriptable scope;
 
+    /** The top-level scope and the prototypes of the objects and arrays, looked up once. */
+    private Scriptable topScope;
+
+    private Scriptable objectPrototype;
+    private Scriptable arrayPrototype;
+
     private int pos;
     private int length;
     private String src;
 
+    /** The input of a streaming parse, and the part of it that has been read but not parsed. */
+    private Reader reader;
+
+    private char[] buffer;
+    private int bufferPos;
+    private int bufferEnd;
+
+    private static final int BUFFER_SIZE = 8192;
+
+    /** The members and elements of the objects and arrays that are being parsed. */
+    private Object[] values = new Object[16];
+
+    private String[] keys = new String[16];
+    private int top;
+
+    /** Recently seen property names, by hash. */
+    private final String[] keyCache = new String[KEY_CACHE_SIZE];
+
+    private static final int KEY_CACHE_SIZE = 256;
+    private static final int MAX_CACHED_KEY_LENGTH = 32;
+
+    /** The powers of ten that are exact doubles. */
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16,
+        1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    /** Numbers with up to this many digits fit in the 53 bits of a double exactly. */
+    private static final int MAX_EXACT_DIGITS = 15;
+
     public JsonParser(Context cx, Scriptable scope) {
         this.cx = cx;
         this.scope = scope;
@@ -42,10 +93,223 @@ public class JsonParser {
         pos = 0;
         length = json.length();
         src = json;
+        start();
+        try {
+            Object value = readValue();
+            consumeWhitespace();
+            if (pos < length) {
+                throw new ParseException("Expected end of stream at char " + pos);
+            }
+            return value;
+        } finally {
+            finish();
+        }
+    }
+
+    /**
+     * Parse a JSON array from "in", and pass each of its elements to "handler" as soon as it has
+     * been read, instead of building the array. Only one element is kept in memory at a time, so
+     * arrays larger than the heap can be processed. Bytes can be read from a {@link
+     * java.nio.channels.ReadableByteChannel} with {@link
+     * java.nio.channels.Channels#newReader(java.nio.channels.ReadableByteChannel, String)}.
+     *
+     * <p>If the input is not valid JSON, the elements before the error have already been passed to
+     * the handler when the ParseException is thrown.
+     */
+    public synchronized void parseArrayElements(Reader in, Consumer<Object> handler)
+            throws IOException, ParseException {
+        startReading(in);
+        try {
+            if (peekToken() != '[') {
+                throw new ParseException("Expected [ at start of stream");
+            }
+            bufferPos += 1;
+            if (peekToken() == ']') {
+                bufferPos += 1;
+            } else {
+                for (; ; ) {
+                    handler.accept(readBufferedValue());
+                    int c = peekToken();
+                    bufferPos += 1;
+                    if (c == ']') {
+                        break;
+                    } else if (c != ',') {
+                        throw new ParseException(
+                                c < 0 ? "Unterminated array literal" : "Missing comma in array");
+                    }
+                }
+            }
+            if (peekToken() >= 0) {
+                throw new ParseException("Expected end of stream after array");
+            }
+        } finally {
+            finish();
+        }
+    }
+
+    /**
+     * Parse a sequence of JSON values separated by whitespace from "in", such as newline-delimited
+     * JSON, and pass each value to "handler" as soon as it has been read. Only one value is kept
+     * in memory at a time.
+     *
+     * <p>If the input is not valid JSON, the values before the error have already been passed to
+     * the handler when the ParseException is thrown.
+     */
+    public synchronized void parseValues(Reader in, Consumer<Object> handler)
+            throws IOException, ParseException {
+        startReading(in);
+        try {
+            while (peekToken() >= 0) {
+                handler.accept(readBufferedValue());
+            }
+        } finally {
+            finish();
+        }
+    }
+
+    private void start() {
+        top = 0;
+        if (topScope == null) {
+            topScope = ScriptableObject.getTopLevelScope(scope);
+            objectPrototype = TopLevel.getBuiltinPrototype(topScope, TopLevel.Builtins.Object);
+            arrayPrototype = TopLevel.getBuiltinPrototype(topScope, TopLevel.Builtins.Array);
+        }
+    }
+
+    private void startReading(Reader in) throws ParseException {
+        if (in == null) {
+            throw new ParseException("Input reader may not be null");
+        }
+        reader = in;
+        buffer = new char[BUFFER_SIZE];
+        bufferPos = 0;
+        bufferEnd = 0;
+        start();
+    }
+
+    private void finish() {
+        // Do not keep the values of a failed parse
+        Arrays.fill(values, 0, top, null);
+        src = null;
+        reader = null;
+        buffer = null;
+    }
+
+    /**
+     * Return the next character of the input that is not whitespace, without consuming it, or -1
+     * at the end of the input.
+     */
+    private int peekToken() throws IOException {
+        for (; ; ) {
+            while (bufferPos < bufferEnd) {
+                char c = buffer[bufferPos];
+                if (c != ' ' && c != '\t' && c != '\r' && c != '\n') {
+                    return c;
+                }
+                bufferPos += 1;
+            }
+            if (!fill()) {
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * Read more of the input, keeping the characters from bufferPos on. Return false at the end of
+     * the input.
+     */
+    private boolean fill() throws IOException {
+        int kept = bufferEnd - bufferPos;
+        if (bufferPos > 0) {
+            System.arraycopy(buffer, bufferPos, buffer, 0, kept);
+            bufferPos = 0;
+            bufferEnd = kept;
+        }
+        if (bufferEnd == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+        int count = reader.read(buffer, bufferEnd, buffer.length - bufferEnd);
+        if (count < 0) {
+            return false;
+        }
+        bufferEnd += count;
+        return true;
+    }
+
+    /**
+     * Find the end of the next value of the input by matching brackets and quotes, and parse it
+     * from a String as parseValue does.
+     */
+    private Object readBufferedValue() throws IOException, ParseException {
+        if (peekToken() < 0) {
+            throw new ParseException("Unexpected end of stream");
+        }
+        int valueLength = 0;
+        int depth = 0;
+        boolean inString = false;
+        boolean escaped = false;
+        scan:
+        for (; ; ) {
+            if (bufferPos + valueLength == bufferEnd && !fill()) {
+                // Let the parser report what is missing
+                break;
+            }
+            char c = buffer[bufferPos + valueLength++];
+            if (inString) {
+                if (escaped) {
+                    escaped = false;
+                } else if (c == '\\') {
+                    escaped = true;
+                } else if (c == '"') {
+                    inString = false;
+                    if (depth == 0) {
+                        break;
+                    }
+                }
+                continue;
+            }
+            switch (c) {
+                case '"':
+                    inString = true;
+                    break;
+                case '{':
+                case '[':
+                    depth += 1;
+                    break;
+                case '}':
+                case ']':
+                    if (depth == 0) {
+                        valueLength -= 1;
+                        break scan;
+                    }
+                    if (--depth == 0) {
+                        break scan;
+                    }
+                    break;
+                case ',':
+                case ' ':
+                case '\t':
+                case '\r':
+                case '\n':
+                    if (depth == 0) {
+                        valueLength -= 1;
+                        break scan;
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        if (valueLength == 0) {
+            throw new ParseException("Unexpected token: " + buffer[bufferPos]);
+        }
+        pos = 0;
+        length = valueLength;
+        src = new String(buffer, bufferPos, valueLength);
+        bufferPos += valueLength;
         Object value = readValue();
-        consumeWhitespace();
         if (pos < length) {
-            throw new ParseException("Expected end of stream at char " + pos);
+            throw new ParseException("Unexpected token: " + src.charAt(pos));
         }
         return value;
     }
@@ -88,12 +352,12 @@ public class JsonParser {
 
     private Object readObject() throws ParseException {
         consumeWhitespace();
-        Scriptable object = cx.newObject(scope);
         // handle empty object literal case early
         if (pos < length && src.charAt(pos) == '}') {
             pos += 1;
-            return object;
+            return newObject(0);
         }
+        final int start = top;
         String id;
         Object value;
         boolean needsComma = false;
@@ -104,7 +368,7 @@ public class JsonParser {
                     if (!needsComma) {
                         throw new ParseException("Unexpected comma in object literal");
                     }
-                    return object;
+                    return popObject(start);
                 case ',':
                     if (!needsComma) {
                         throw new ParseException("Unexpected comma in object literal");
@@ -115,16 +379,10 @@ public class JsonParser {
                     if (needsComma) {
                         throw new ParseException("Missing comma in object literal");
                     }
-                    id = readString();
+                    id = readKey();
                     consume(':');
                     value = readValue();
-
-                    StringIdOrIndex indexObj = ScriptRuntime.toStringIdOrIndex(id);
-                    if (indexObj.getStringId() == null) {
-                        object.put(indexObj.getIndex(), object, value);
-                    } else {
-                        object.put(indexObj.getStringId(), object, value);
-                    }
+                    push(id, value);
                     needsComma = true;
                     break;
                 default:
@@ -135,14 +393,58 @@ public class JsonParser {
         throw new ParseException("Unterminated object literal");
     }
 
+    private Scriptable newObject(int size) {
+        NativeObject object = new NativeObject(size);
+        object.setParentScope(topScope);
+        object.setPrototype(objectPrototype);
+        return object;
+    }
+
+    private Scriptable newArray(NativeArray array) {
+        array.setParentScope(topScope);
+        array.setPrototype(arrayPrototype);
+        return array;
+    }
+
+    /** Create an object from the members on the stack above "start", and pop them. */
+    private Scriptable popObject(int start) {
+        Scriptable object = newObject(top - start);
+        for (int i = start; i != top; ++i) {
+            String id = keys[i];
+            Object value = values[i];
+            keys[i] = null;
+            values[i] = null;
+            char c = id.isEmpty() ? 0 : id.charAt(0);
+            if (c >= '0' && c <= '9') {
+                StringIdOrIndex indexObj = ScriptRuntime.toStringIdOrIndex(id);
+                if (indexObj.getStringId() == null) {
+                    object.put(indexObj.getIndex(), object, value);
+                    continue;
+                }
+            }
+            object.put(id, object, value);
+        }
+        top = start;
+        return object;
+    }
+
+    private void push(String key, Object value) {
+        if (top == values.length) {
+            values = Arrays.copyOf(values, top * 2);
+            keys = Arrays.copyOf(keys, top * 2);
+        }
+        keys[top] = key;
+        values[top++] = value;
+    }
+
     private Object readArray() throws ParseException {
         consumeWhitespace();
         // handle empty array literal case early
         if (pos < length && src.charAt(pos) == ']') {
             pos += 1;
-            return cx.newArray(scope, 0);
+            return newArray(new NativeArray(0));
         }
-        List<Object> list = new ArrayList<>();
+        final int start = top;
         boolean needsComma = false;
         while (pos < length) {
             char c = src.charAt(pos);
@@ -152,7 +454,10 @@ public class JsonParser {
                         throw new ParseException("Unexpected comma in array literal");
                     }
                     pos += 1;
-                    return cx.newArray(scope, list.toArray());
+                    Object[] elements = Arrays.copyOfRange(values, start, top);
+                    Arrays.fill(values, start, top, null);
+                    top = start;
+                    return newArray(new NativeArray(elements));
                 case ',':
                     if (!needsComma) {
                         throw new ParseException("Unexpected comma in array literal");
@@ -164,7 +469,7 @@ public class JsonParser {
                     if (needsComma) {
                         throw new ParseException("Missing comma in array literal");
                     }
-                    list.add(readValue());
+                    push(null, readValue());
                     needsComma = true;
             }
             consumeWhitespace();
@@ -172,6 +477,50 @@ public class JsonParser {
         throw new ParseException("Unterminated array literal");
     }
 
+    /** Read a property name, which is a string that is likely to have been seen before. */
+    private String readKey() throws ParseException {
+        int start = pos;
+        // Computed like String.hashCode(), which the cached names keep
+        int hash = 0;
+        while (pos < length) {
+            char c = src.charAt(pos);
+            if (c == '"') {
+                int keyLength = pos - start;
+                if (keyLength > MAX_CACHED_KEY_LENGTH) {
+                    break;
+                }
+                pos += 1;
+                int slot = (hash ^ (hash >>> 8)) & (KEY_CACHE_SIZE - 1);
+                String key = keyCache[slot];
+                if (key == null || key.hashCode() != hash || !matches(key, start, keyLength)) {
+                    key = src.substring(start, start + keyLength);
+                    keyCache[slot] = key;
+                }
+                return key;
+            } else if (c == '\\' || c <= '\u001F') {
+                break;
+            }
+            hash = 31 * hash + c;
+            pos += 1;
+        }
+        // Escapes, errors and long names are handled as any other string
+        pos = start;
+        return readString();
+    }
+
+    /** Return true if "key" is the same as the source from "start" on. */
+    private boolean matches(String key, int start, int keyLength) {
+        if (key.length() != keyLength) {
+            return false;
+        }
+        for (int i = 0; i != keyLength; ++i) {
+            if (key.charAt(i) != src.charAt(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private String readString() throws ParseException {
         /*
          * Optimization: if the source contains no escaped characters, create the
@@ -272,14 +621,27 @@ public class JsonParser {
     private Number readNumber(char c) throws ParseException {
         assert c == '-' || (c >= '0' && c <= '9');
         final int numberStart = pos - 1;
-        if (c == '-') {
+        final boolean negative = c == '-';
+        if (negative) {
             c = nextOrNumberError(numberStart);
             if (!(c >= '0' && c <= '9')) {
                 throw numberError(numberStart, pos);
             }
         }
+        // The digits as an integer, and the power of ten to multiply it with
+        long mantissa = c - '0';
+        int digits = 1;
+        int scale = 0;
         if (c != '0') {
-            readDigits();
+            for (; pos < length; ++pos) {
+                c = src.charAt(pos);
+                if (!(c >= '0' && c <= '9')) {
+                    break;
+                }
+                if (++digits <= MAX_EXACT_DIGITS) {
+                    mantissa = mantissa * 10 + (c - '0');
+                }
+            }
         }
         // read optional fraction part
         if (pos < length) {
@@ -290,7 +652,17 @@ public class JsonParser {
                 if (!(c >= '0' && c <= '9')) {
                     throw numberError(numberStart, pos);
                 }
-                readDigits();
+                pos -= 1;
+                for (; pos < length; ++pos) {
+                    c = src.charAt(pos);
+                    if (!(c >= '0' && c <= '9')) {
+                        break;
+                    }
+                    if (++digits <= MAX_EXACT_DIGITS) {
+                        mantissa = mantissa * 10 + (c - '0');
+                        scale -= 1;
+                    }
+                }
             }
         }
         // read optional exponent part
@@ -299,17 +671,42 @@ public class JsonParser {
             if (c == 'e' || c == 'E') {
                 pos += 1;
                 c = nextOrNumberError(numberStart);
+                boolean negativeExponent = c == '-';
                 if (c == '-' || c == '+') {
                     c = nextOrNumberError(numberStart);
                 }
                 if (!(c >= '0' && c <= '9')) {
                     throw numberError(numberStart, pos);
                 }
-                readDigits();
+                pos -= 1;
+                int exponent = 0;
+                for (; pos < length; ++pos) {
+                    c = src.charAt(pos);
+                    if (!(c >= '0' && c <= '9')) {
+                        break;
+                    }
+                    if (exponent < POWERS_OF_TEN.length) {
+                        exponent = exponent * 10 + (c - '0');
+                    }
+                }
+                scale += negativeExponent ? -exponent : exponent;
+            }
+        }
+        double dval;
+        if (digits <= MAX_EXACT_DIGITS
+                && scale > -POWERS_OF_TEN.length
+                && scale < POWERS_OF_TEN.length) {
+            // Both operands are exact, so the result is correctly rounded
+            dval =
+                    scale < 0
+                            ? mantissa / POWERS_OF_TEN[-scale]
+                            : mantissa * POWERS_OF_TEN[scale];
+            if (negative) {
+                dval = -dval;
             }
+        } else {
+            dval = Double.parseDouble(src.substring(numberStart, pos));
         }
-        String num = src.substring(numberStart, pos);
-        final double dval = Double.parseDouble(num);
         final int ival = (int) dval;
         if (ival == dval) {
             return Integer.valueOf(ival);
@@ -328,15 +725,6 @@ public class JsonParser {
         return src.charAt(pos++);
     }
 
-    private void readDigits() {
-        for (; pos < length; ++pos) {
-            char c = src.charAt(pos);
-            if (!(c >= '0' && c <= '9')) {
-                break;
-            }
-        }
-    }
-
     private Boolean readTrue() throws ParseException {
         if (length - pos < 3
                 || src.charAt(pos) != 'r'
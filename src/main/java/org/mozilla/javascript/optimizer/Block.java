@@ -92,6 +92,9 @@ class Block {
 
         reachingDefDataFlow(fn, statementNodes, theBlocks, varTypes);
         typeFlow(fn, statementNodes, theBlocks, varTypes);
+        while (widenUnboundedCounters(fn, varTypes)) {
+            typeFlow(fn, statementNodes, theBlocks, varTypes);
+        }
 
         if (DEBUG) {
             for (Block theBlock : theBlocks) {
@@ -104,13 +107,34 @@ class Block {
             }
         }
 
+        boolean[] isConst = fn.fnode.getParamAndVarConst();
         for (int i = paramCount; i != varCount; i++) {
-            if (varTypes[i] == Optimizer.NumberType) {
+            if (varTypes[i] == Optimizer.Int32Type || varTypes[i] == Optimizer.NumberType) {
                 fn.setIsNumberVar(i);
+                if (varTypes[i] == Optimizer.Int32Type && !isConst[i]) {
+                    fn.setIsInt32Var(i);
+                }
             }
         }
     }
 
+    /**
+     * A bounded increment keeps its counter an int32 only if the bound is an int32 as well. Make
+     * the counters of the other bounded increments numbers, and return true if that changed any
+     * variable type so that the types have to flow again.
+     */
+    private static boolean widenUnboundedCounters(OptFunctionNode fn, int[] varTypes) {
+        boolean changed = false;
+        for (Map.Entry<Node, Node> e : fn.getIncrementBounds().entrySet()) {
+            int boundType = findExpressionType(fn, e.getValue(), varTypes);
+            if ((boundType | Optimizer.Int32Type) != Optimizer.Int32Type) {
+                int i = fn.getVarIndex(e.getKey().getFirstChild());
+                changed |= assignType(varTypes, i, Optimizer.NumberType);
+            }
+        }
+        return changed;
+    }
+
     private static Block[] buildBlocks(Node[] statementNodes) {
         // a mapping from each target node to the block it begins
         Map<Node, FatBlock> theTargetBlocks = new HashMap<>();
@@ -458,7 +482,13 @@ class Block {
     private static int findExpressionType(OptFunctionNode fn, Node n, int[] varTypes) {
         switch (n.getType()) {
             case Token.NUMBER:
-                return Optimizer.NumberType;
+                {
+                    double d = n.getDouble();
+                    if ((int) d == d && (d != 0 || 1 / d > 0)) {
+                        return Optimizer.Int32Type;
+                    }
+                    return Optimizer.NumberType;
+                }
 
             case Token.CALL:
             case Token.NEW:
@@ -480,18 +510,33 @@ class Block {
             case Token.DIV:
             case Token.MOD:
             case Token.EXP:
-            case Token.BITOR:
-            case Token.BITXOR:
-            case Token.BITAND:
-            case Token.BITNOT:
-            case Token.LSH:
-            case Token.RSH:
             case Token.URSH:
             case Token.SUB:
             case Token.POS:
             case Token.NEG:
                 return Optimizer.NumberType;
 
+            case Token.BITOR:
+            case Token.BITXOR:
+            case Token.BITAND:
+            case Token.LSH:
+            case Token.RSH:
+                {
+                    // The result is only a BigInt if both operands are, so a
+                    // number operand makes it an int32
+                    Node child = n.getFirstChild();
+                    int lType = findExpressionType(fn, child, varTypes);
+                    int rType = findExpressionType(fn, child.getNext(), varTypes);
+                    return isNumberType(lType) || isNumberType(rType)
+                            ? Optimizer.Int32Type
+                            : Optimizer.NumberType;
+                }
+
+            case Token.BITNOT:
+                return isNumberType(findExpressionType(fn, n.getFirstChild(), varTypes))
+                        ? Optimizer.Int32Type
+                        : Optimizer.NumberType;
+
             case Token.VOID:
                 // NYI: undefined type
                 return Optimizer.AnyType;
@@ -537,7 +582,9 @@ class Block {
                     Node child = n.getFirstChild();
                     int lType = findExpressionType(fn, child, varTypes);
                     int rType = findExpressionType(fn, child.getNext(), varTypes);
-                    return lType | rType; // we're not distinguishing strings yet
+                    int type = lType | rType; // we're not distinguishing strings yet
+                    // the sum of two int32 values may overflow
+                    return type == Optimizer.Int32Type ? Optimizer.NumberType : type;
                 }
 
             case Token.HOOK:
@@ -570,6 +617,10 @@ class Block {
         return Optimizer.AnyType;
     }
 
+    private static boolean isNumberType(int type) {
+        return (type | Optimizer.NumberType) == Optimizer.NumberType;
+    }
+
     private static boolean findDefPoints(OptFunctionNode fn, Node n, int[] varTypes) {
         boolean result = false;
         Node first = n.getFirstChild();
@@ -580,10 +631,15 @@ class Block {
             case Token.DEC:
             case Token.INC:
                 if (first.getType() == Token.GETVAR) {
-                    // theVar is a Number now
+                    // theVar is a Number now, or still an int32 if the loop
+                    // condition bounds it; runFlowAnalyzes checks the bound
                     int i = fn.getVarIndex(first);
                     if (!fn.fnode.getParamAndVarConst()[i]) {
-                        result |= assignType(varTypes, i, Optimizer.NumberType);
+                        int type =
+                                fn.getIncrementBound(n) != null
+                                        ? Optimizer.Int32Type
+                                        : Optimizer.NumberType;
+                        result |= assignType(varTypes, i, type);
                     }
                 }
                 break;
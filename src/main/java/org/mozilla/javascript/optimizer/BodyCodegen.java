@@ -384,6 +384,10 @@ public class BodyCodegen {
                         }
                         cfw.addAStore(reg);
                     }
+                } else if (fnCurrent.isInt32Var(i)) {
+                    reg = getNewWordPairLocal(false);
+                    cfw.addPush(0);
+                    cfw.addIStore(reg);
                 } else if (fnCurrent.isNumberVar(i)) {
                     reg = getNewWordPairLocal(constDeclarations[i]);
                     cfw.addPush(0.0);
@@ -409,7 +413,10 @@ public class BodyCodegen {
                 // Add debug table entry if we're generating debug info
                 if (compilerEnv.isGenerateDebugInfo()) {
                     String name = fnCurrent.fnode.getParamOrVarName(i);
-                    String type = fnCurrent.isNumberVar(i) ? "D" : "Ljava/lang/Object;";
+                    String type =
+                            fnCurrent.isInt32Var(i)
+                                    ? "I"
+                                    : fnCurrent.isNumberVar(i) ? "D" : "Ljava/lang/Object;";
                     int startPC = cfw.getCurrentCodeOffset();
                     if (reg < 0) {
                         reg = varRegisters[i];
@@ -1169,12 +1176,7 @@ public class BodyCodegen {
                     cfw.addALoad(contextLocal);
                     cfw.addALoad(variableObjectLocal);
                     cfw.addPush(node.getString());
-                    addScriptRuntimeInvoke(
-                            "name",
-                            "(Lorg/mozilla/javascript/Context;"
-                                    + "Lorg/mozilla/javascript/Scriptable;"
-                                    + "Ljava/lang/String;"
-                                    + ")Ljava/lang/Object;");
+                    addDynamicInvoke("name", "bootstrapName", OBJECT, CONTEXT, SCRIPTABLE, STRING);
                 }
                 break;
 
@@ -1988,25 +1990,45 @@ public class BodyCodegen {
     }
 
     private void finishGetElemGeneration(Node node, Node child) {
-        generateExpression(child.getNext(), node);
+        Node index = child.getNext();
+        boolean indexIsInt32 =
+                node.getIntProp(Node.ISNUMBER_PROP, -1) != -1 && isInt32Expression(index);
+        if (indexIsInt32) {
+            generateInt32Operand(index, node);
+        } else {
+            generateExpression(index, node);
+        }
 
         cfw.addALoad(contextLocal);
         cfw.addALoad(variableObjectLocal);
 
-        if (node.getIntProp(Node.ISNUMBER_PROP, -1) != -1) {
-            cfw.addInvoke(
-                    ByteCode.INVOKESTATIC,
-                    "org/mozilla/javascript/ScriptRuntime",
+        if (indexIsInt32) {
+            addDynamicInvoke(
+                    "getObjectIntIndex",
+                    "bootstrapGetObjectIntIndex",
+                    OBJECT,
+                    OBJECT,
+                    INTEGER,
+                    CONTEXT,
+                    SCRIPTABLE);
+        } else if (node.getIntProp(Node.ISNUMBER_PROP, -1) != -1) {
+            addDynamicInvoke(
                     "getObjectIndex",
-                    "(Ljava/lang/Object;DLorg/mozilla/javascript/Context;Lorg/mozilla/javascript/Scriptable;)Ljava/lang/Object;"
-            );
+                    "bootstrapGetObjectIndex",
+                    OBJECT,
+                    OBJECT,
+                    DOUBLE,
+                    CONTEXT,
+                    SCRIPTABLE);
         } else {
-            cfw.addInvoke(
-                    ByteCode.INVOKESTATIC,
-                    "org/mozilla/javascript/ScriptRuntime",
+            addDynamicInvoke(
                     "getObjectElem",
-                    "(Ljava/lang/Object;Ljava/lang/Object;Lorg/mozilla/javascript/Context;Lorg/mozilla/javascript/Scriptable;)Ljava/lang/Object;"
-            );
+                    "bootstrapGetObjectElem",
+                    OBJECT,
+                    OBJECT,
+                    OBJECT,
+                    CONTEXT,
+                    SCRIPTABLE);
         }
     }
 
@@ -2695,6 +2717,8 @@ public class BodyCodegen {
         String methodName;
         String signature;
         Integer afterLabel = null;
+        // Plain calls go through a call site that can link Java methods directly
+        boolean dynamicCall = false;
 
         if (firstArgChild == null) {
             if (childType == Token.NAME) {
@@ -2721,14 +2745,28 @@ public class BodyCodegen {
                     return;
                 }
 
-                String name = child.getString();
-                cfw.addPush(name);
-                methodName = isOptionalChainingCall ? "callName0Optional" : "callName0";
-                signature =
-                        "(Ljava/lang/String;"
-                                + "Lorg/mozilla/javascript/Context;"
-                                + "Lorg/mozilla/javascript/Scriptable;"
-                                + ")Ljava/lang/Object;";
+                if (isOptionalChainingCall) {
+                    String name = child.getString();
+                    cfw.addPush(name);
+                    methodName = "callName0Optional";
+                    signature =
+                            "(Ljava/lang/String;"
+                                    + "Lorg/mozilla/javascript/Context;"
+                                    + "Lorg/mozilla/javascript/Scriptable;"
+                                    + ")Ljava/lang/Object;";
+                } else {
+                    // Look the function up through a cached name site
+                    generateFunctionAndThisObj(child, node);
+                    pushThisFromLastScriptable();
+                    methodName = "call0";
+                    dynamicCall = true;
+                    signature =
+                            "(Lorg/mozilla/javascript/Callable;"
+                                    + "Lorg/mozilla/javascript/Scriptable;"
+                                    + "Lorg/mozilla/javascript/Context;"
+                                    + "Lorg/mozilla/javascript/Scriptable;"
+                                    + ")Ljava/lang/Object;";
+                }
             } else if (childType == Token.GETPROP) {
                 // x.name() call
                 Node propTarget = child.getFirstChild();
@@ -2745,22 +2783,36 @@ public class BodyCodegen {
                     return;
                 }
 
-                generateExpression(propTarget, node);
-                String property = id.getString();
-                cfw.addPush(property);
-                methodName = isOptionalChainingCall ? "callProp0Optional" : "callProp0";
-                signature =
-                        "(Ljava/lang/Object;"
-                                + "Ljava/lang/String;"
-                                + "Lorg/mozilla/javascript/Context;"
-                                + "Lorg/mozilla/javascript/Scriptable;"
-                                + ")Ljava/lang/Object;";
+                if (isOptionalChainingCall) {
+                    generateExpression(propTarget, node);
+                    String property = id.getString();
+                    cfw.addPush(property);
+                    methodName = "callProp0Optional";
+                    signature =
+                            "(Ljava/lang/Object;"
+                                    + "Ljava/lang/String;"
+                                    + "Lorg/mozilla/javascript/Context;"
+                                    + "Lorg/mozilla/javascript/Scriptable;"
+                                    + ")Ljava/lang/Object;";
+                } else {
+                    generateFunctionAndThisObj(child, node);
+                    pushThisFromLastScriptable();
+                    methodName = "call0";
+                    dynamicCall = true;
+                    signature =
+                            "(Lorg/mozilla/javascript/Callable;"
+                                    + "Lorg/mozilla/javascript/Scriptable;"
+                                    + "Lorg/mozilla/javascript/Context;"
+                                    + "Lorg/mozilla/javascript/Scriptable;"
+                                    + ")Ljava/lang/Object;";
+                }
             } else if (childType == Token.GETPROPNOWARN) {
                 throw Kit.codeBug();
             } else {
                 generateFunctionAndThisObj(child, node);
                 pushThisFromLastScriptable();
                 methodName = isOptionalChainingCall ? "call0Optional" : "call0";
+                dynamicCall = !isOptionalChainingCall;
                 signature =
                         "(Lorg/mozilla/javascript/Callable;"
                                 + "Lorg/mozilla/javascript/Scriptable;"
@@ -2769,11 +2821,10 @@ public class BodyCodegen {
                                 + ")Ljava/lang/Object;";
             }
 
-        } else if (childType == Token.NAME) {
-            // XXX: this optimization is only possible if name
-            // resolution
-            // is not affected by arguments evaluation and currently
-            // there are no checks for it
+        } else if (childType == Token.NAME
+                && (isOptionalChainingCall || child.getProp(Node.SUPER_PROP) != null)) {
+            // Other calls by name look the function up through a cached
+            // name site before evaluating the arguments, like any other call
             String name = child.getString();
 
             if (isOptionalChainingCall) { // name?.()
@@ -2836,30 +2887,29 @@ public class BodyCodegen {
                                 + ")Ljava/lang/Object;";
             } else {
                 generateCallArgArray(node, firstArgChild, false);
-                if (child.getProp(Node.SUPER_PROP) != null) {
-                    boolean isReturned = node.getNext() != null && node.getNext().getType() == Token.RETURN;
-                    cfw.addPush(isReturned);
-                    cfw.addALoad(funObjLocal);
-                    cfw.addALoad(thisObjLocal);
-                    cfw.addALoad(variableObjectLocal);
-                    cfw.addALoad(contextLocal);
-                    addScriptRuntimeInvoke("callSuper", OBJECT, OBJECT_ARRAY, BOOLEAN, NATIVE_FUNCTION, SCRIPTABLE, SCRIPTABLE, CONTEXT);
-
-                    if (!isReturned) {
-                        cfw.add(ByteCode.DUP);
-                        cfw.addAStore(thisObjLocal);
-                    }
-
-                    return;
+                boolean isReturned =
+                        node.getNext() != null && node.getNext().getType() == Token.RETURN;
+                cfw.addPush(isReturned);
+                cfw.addALoad(funObjLocal);
+                cfw.addALoad(thisObjLocal);
+                cfw.addALoad(variableObjectLocal);
+                cfw.addALoad(contextLocal);
+                addScriptRuntimeInvoke(
+                        "callSuper",
+                        OBJECT,
+                        OBJECT_ARRAY,
+                        BOOLEAN,
+                        NATIVE_FUNCTION,
+                        SCRIPTABLE,
+                        SCRIPTABLE,
+                        CONTEXT);
+
+                if (!isReturned) {
+                    cfw.add(ByteCode.DUP);
+                    cfw.addAStore(thisObjLocal);
                 }
-                cfw.addPush(name);
-                methodName = "callName";
-                signature =
-                        "([Ljava/lang/Object;"
-                                + "Ljava/lang/String;"
-                                + "Lorg/mozilla/javascript/Context;"
-                                + "Lorg/mozilla/javascript/Scriptable;"
-                                + ")Ljava/lang/Object;";
+
+                return;
             }
         } else {
             int argCount = 0;
@@ -2906,6 +2956,7 @@ public class BodyCodegen {
             }
 
             pushThisFromLastScriptable();
+            dynamicCall = true;
             if (argCount == 1) {
                 generateExpression(firstArgChild, node);
                 methodName = "call1";
@@ -2943,7 +2994,11 @@ public class BodyCodegen {
 
         cfw.addALoad(contextLocal);
         cfw.addALoad(variableObjectLocal);
-        addOptRuntimeInvoke(methodName, signature);
+        if (dynamicCall) {
+            addDynamicCall(methodName, signature);
+        } else {
+            addOptRuntimeInvoke(methodName, signature);
+        }
         if (afterLabel != null) {
             cfw.markLabel(afterLabel);
         }
@@ -3246,13 +3301,24 @@ public class BodyCodegen {
                         cfw.addPush(property);
                         cfw.addALoad(contextLocal);
                         cfw.addALoad(variableObjectLocal);
-                        String propAccessType = isOptionalChainingCall ? "getPropFunctionAndThisOptional" : "getPropFunctionAndThis";
-                        cfw.addInvoke(
-                                ByteCode.INVOKESTATIC,
-                                "org/mozilla/javascript/ScriptRuntime",
-                                propAccessType,
-                                "(Ljava/lang/Object;Ljava/lang/String;Lorg/mozilla/javascript/Context;Lorg/mozilla/javascript/Scriptable;)Lorg/mozilla/javascript/Callable;"
-                        );
+                        if (isOptionalChainingCall) {
+                            addScriptRuntimeInvoke(
+                                    "getPropFunctionAndThisOptional",
+                                    CALLABLE,
+                                    OBJECT,
+                                    STRING,
+                                    CONTEXT,
+                                    SCRIPTABLE);
+                        } else {
+                            addDynamicInvoke(
+                                    "getPropFunctionAndThis",
+                                    "bootstrapGetPropFunctionAndThis",
+                                    CALLABLE,
+                                    OBJECT,
+                                    STRING,
+                                    CONTEXT,
+                                    SCRIPTABLE);
+                        }
                     } else {
                         generateExpression(id, node); // id
                         if (node.getIntProp(Node.ISNUMBER_PROP, -1) != -1) addDoubleWrap();
@@ -3279,13 +3345,22 @@ public class BodyCodegen {
                     cfw.addPush(name);
                     cfw.addALoad(contextLocal);
                     cfw.addALoad(variableObjectLocal);
-                    String propAccessType = isOptionalChainingCall ? "getNameFunctionAndThisOptional" : "getNameFunctionAndThis";
-                    cfw.addInvoke(
-                            ByteCode.INVOKESTATIC,
-                            "org/mozilla/javascript/ScriptRuntime",
-                            propAccessType,
-                            "(Ljava/lang/String;Lorg/mozilla/javascript/Context;Lorg/mozilla/javascript/Scriptable;)Lorg/mozilla/javascript/Callable;"
-                    );
+                    if (isOptionalChainingCall) {
+                        addScriptRuntimeInvoke(
+                                "getNameFunctionAndThisOptional",
+                                CALLABLE,
+                                STRING,
+                                CONTEXT,
+                                SCRIPTABLE);
+                    } else {
+                        addDynamicInvoke(
+                                "getNameFunctionAndThis",
+                                "bootstrapGetNameFunctionAndThis",
+                                CALLABLE,
+                                STRING,
+                                CONTEXT,
+                                SCRIPTABLE);
+                    }
                     break;
                 }
 
@@ -3967,6 +4042,23 @@ public class BodyCodegen {
                     }
                     break;
                 }
+                if (fnCurrent.isInt32Var(varIndex)) {
+                    // Only a bounded increment leaves the variable an int32,
+                    // so the int cannot overflow
+                    int delta = (incrDecrMask & Node.DECR_FLAG) == 0 ? 1 : -1;
+                    if (!post) {
+                        cfw.add(ByteCode.IINC, reg, delta);
+                    }
+                    cfw.addILoad(reg);
+                    cfw.add(ByteCode.I2D);
+                    if (post) {
+                        cfw.add(ByteCode.IINC, reg, delta);
+                    }
+                    if (node.getIntProp(Node.ISNUMBER_PROP, -1) == -1) {
+                        addDoubleWrap();
+                    }
+                    break;
+                }
                 if (node.getIntProp(Node.ISNUMBER_PROP, -1) != -1) {
                     int offset = varIsDirectCallParameter(varIndex) ? 1 : 0;
                     cfw.addDLoad(reg + offset);
@@ -4172,20 +4264,23 @@ public class BodyCodegen {
 
     private void visitBitNot(Node node, Node child) {
         int childNumberFlag = node.getIntProp(Node.ISNUMBER_PROP, -1);
-        generateExpression(child, node);
         if (childNumberFlag == -1) {
+            generateExpression(child, node);
             addObjectToNumeric();
             addScriptRuntimeInvoke("bitwiseNOT", "(Ljava/lang/Number;)Ljava/lang/Number;");
         } else {
-            addScriptRuntimeInvoke("toInt32", "(D)I");
-            cfw.addPush(-1); // implement ~a as (a ^ -1)
-            cfw.add(ByteCode.IXOR);
+            generateInt32Operand(node, node);
             cfw.add(ByteCode.I2D);
         }
     }
 
     private void visitBitOp(Node node, int type, Node child) {
         int childNumberFlag = node.getIntProp(Node.ISNUMBER_PROP, -1);
+        if (childNumberFlag != -1 && type != Token.URSH) {
+            generateInt32Operand(node, node);
+            cfw.add(ByteCode.I2D);
+            return;
+        }
         generateExpression(child, node);
 
         // special-case URSH; work with the target arg as a long, so
@@ -4239,31 +4334,119 @@ public class BodyCodegen {
                     throw Kit.codeBug(Token.typeToName(type));
             }
         } else {
-            addScriptRuntimeInvoke("toInt32", "(D)I");
-            generateExpression(child.getNext(), node);
-            addScriptRuntimeInvoke("toInt32", "(D)I");
+            throw Kit.codeBug(Token.typeToName(type));
+        }
+    }
 
-            switch (type) {
-                case Token.BITOR:
-                    cfw.add(ByteCode.IOR);
-                    break;
-                case Token.BITXOR:
+    /**
+     * Return true if the node is a number expression whose value is known to be an int32, so
+     * that {@link #generateInt32Operand} produces it without any conversion.
+     */
+    private boolean isInt32Expression(Node node) {
+        switch (node.getType()) {
+            case Token.NUMBER:
+                {
+                    double d = node.getDouble();
+                    return (int) d == d && (d != 0 || 1 / d > 0);
+                }
+            case Token.GETVAR:
+                return hasVarsInRegs && fnCurrent.isInt32Var(fnCurrent.getVarIndex(node));
+            case Token.BITOR:
+            case Token.BITXOR:
+            case Token.BITAND:
+            case Token.LSH:
+            case Token.RSH:
+            case Token.BITNOT:
+                return node.getIntProp(Node.ISNUMBER_PROP, -1) != -1;
+        }
+        return false;
+    }
+
+    /**
+     * Return true if the node is an int32 expression or a sum or difference of them. Such a value
+     * is an exact integer well inside the double range, so its ToInt32 can be computed with
+     * wrapping int arithmetic.
+     */
+    private boolean isInt32Sum(Node node) {
+        int type = node.getType();
+        if ((type == Token.ADD || type == Token.SUB)
+                && node.getIntProp(Node.ISNUMBER_PROP, -1) == Node.BOTH) {
+            Node child = node.getFirstChild();
+            return isInt32Sum(child) && isInt32Sum(child.getNext());
+        }
+        return isInt32Expression(node);
+    }
+
+    /**
+     * Generate code that leaves the ToInt32 of a number expression on the stack. Literals, int32
+     * variables and bitwise operations are produced as ints directly, and only other expressions
+     * are computed as doubles and converted.
+     */
+    private void generateInt32Operand(Node node, Node parent) {
+        int type = node.getType();
+        Node child = node.getFirstChild();
+        switch (type) {
+            case Token.NUMBER:
+                cfw.addPush(ScriptRuntime.toInt32(node.getDouble()));
+                return;
+
+            case Token.GETVAR:
+                if (isInt32Expression(node)) {
+                    cfw.addILoad(varRegisters[fnCurrent.getVarIndex(node)]);
+                    return;
+                }
+                break;
+
+            case Token.BITOR:
+            case Token.BITXOR:
+            case Token.BITAND:
+            case Token.LSH:
+            case Token.RSH:
+                if (node.getIntProp(Node.ISNUMBER_PROP, -1) != -1) {
+                    generateInt32Operand(child, node);
+                    generateInt32Operand(child.getNext(), node);
+                    switch (type) {
+                        case Token.BITOR:
+                            cfw.add(ByteCode.IOR);
+                            break;
+                        case Token.BITXOR:
+                            cfw.add(ByteCode.IXOR);
+                            break;
+                        case Token.BITAND:
+                            cfw.add(ByteCode.IAND);
+                            break;
+                        case Token.RSH:
+                            cfw.add(ByteCode.ISHR);
+                            break;
+                        case Token.LSH:
+                            cfw.add(ByteCode.ISHL);
+                            break;
+                    }
+                    return;
+                }
+                break;
+
+            case Token.BITNOT:
+                if (node.getIntProp(Node.ISNUMBER_PROP, -1) != -1) {
+                    generateInt32Operand(child, node);
+                    cfw.addPush(-1); // implement ~a as (a ^ -1)
                     cfw.add(ByteCode.IXOR);
-                    break;
-                case Token.BITAND:
-                    cfw.add(ByteCode.IAND);
-                    break;
-                case Token.RSH:
-                    cfw.add(ByteCode.ISHR);
-                    break;
-                case Token.LSH:
-                    cfw.add(ByteCode.ISHL);
-                    break;
-                default:
-                    throw Kit.codeBug(Token.typeToName(type));
-            }
-            cfw.add(ByteCode.I2D);
+                    return;
+                }
+                break;
+
+            case Token.ADD:
+            case Token.SUB:
+                if (isInt32Sum(node)) {
+                    generateInt32Operand(child, node);
+                    generateInt32Operand(child.getNext(), node);
+                    cfw.add(type == Token.ADD ? ByteCode.IADD : ByteCode.ISUB);
+                    return;
+                }
+                break;
         }
+        generateExpression(node, parent);
+        addScriptRuntimeInvoke("toInt32", "(D)I");
     }
 
     private int nodeIsDirectCallParameter(Node node) {
@@ -4307,6 +4490,26 @@ public class BodyCodegen {
         if (falseGOTO != -1) cfw.add(ByteCode.GOTO, falseGOTO);
     }
 
+    private void genSimpleInt32Compare(int type, int trueGOTO, int falseGOTO) {
+        switch (type) {
+            case Token.LE:
+                cfw.add(ByteCode.IF_ICMPLE, trueGOTO);
+                break;
+            case Token.GE:
+                cfw.add(ByteCode.IF_ICMPGE, trueGOTO);
+                break;
+            case Token.LT:
+                cfw.add(ByteCode.IF_ICMPLT, trueGOTO);
+                break;
+            case Token.GT:
+                cfw.add(ByteCode.IF_ICMPGT, trueGOTO);
+                break;
+            default:
+                throw Codegen.badTree();
+        }
+        cfw.add(ByteCode.GOTO, falseGOTO);
+    }
+
     private void visitIfJumpRelOp(Node node, Node child, int trueGOTO, int falseGOTO) {
         if (trueGOTO == -1 || falseGOTO == -1) throw Codegen.badTree();
         int type = node.getType();
@@ -4328,7 +4531,11 @@ public class BodyCodegen {
         int childNumberFlag = node.getIntProp(Node.ISNUMBER_PROP, -1);
         int left_dcp_register = nodeIsDirectCallParameter(child);
         int right_dcp_register = nodeIsDirectCallParameter(rChild);
-        if (childNumberFlag != -1) {
+        if (childNumberFlag == Node.BOTH && isInt32Expression(child) && isInt32Expression(rChild)) {
+            generateInt32Operand(child, node);
+            generateInt32Operand(rChild, node);
+            genSimpleInt32Compare(type, trueGOTO, falseGOTO);
+        } else if (childNumberFlag != -1) {
             // Force numeric context on both parameters and optimize
             // direct call case as Optimizer currently does not handle it
 
@@ -4553,6 +4760,9 @@ public class BodyCodegen {
             } else {
                 dcpLoadAsObject(reg);
             }
+        } else if (fnCurrent.isInt32Var(varIndex)) {
+            cfw.addILoad(reg);
+            cfw.add(ByteCode.I2D);
         } else if (fnCurrent.isNumberVar(varIndex)) {
             cfw.addDLoad(reg);
         } else {
@@ -4563,6 +4773,18 @@ public class BodyCodegen {
     private void visitSetVar(Node node, Node child, boolean needValue) {
         if (!hasVarsInRegs) Kit.codeBug();
         int varIndex = fnCurrent.getVarIndex(node);
+        if (fnCurrent.isInt32Var(varIndex)) {
+            // The optimizer has proven that every value stored here is an
+            // int32, so the conversion does not change it
+            short reg = varRegisters[varIndex];
+            generateInt32Operand(child.getNext(), node);
+            cfw.addIStore(reg);
+            if (needValue) {
+                cfw.addILoad(reg);
+                cfw.add(ByteCode.I2D);
+            }
+            return;
+        }
         generateExpression(child.getNext(), node);
         boolean isNumber = (node.getIntProp(Node.ISNUMBER_PROP, -1) != -1);
         short reg = varRegisters[varIndex];
@@ -4696,12 +4918,14 @@ public class BodyCodegen {
         cfw.addALoad(contextLocal);
         cfw.addALoad(variableObjectLocal);
 
-        cfw.addInvoke(
-                ByteCode.INVOKESTATIC,
-                "org/mozilla/javascript/ScriptRuntime",
+        addDynamicInvoke(
                 "getObjectProp",
-                "(Ljava/lang/Object;Ljava/lang/String;Lorg/mozilla/javascript/Context;Lorg/mozilla/javascript/Scriptable;)Ljava/lang/Object;"
-        );
+                "bootstrapGetObjectProp",
+                OBJECT,
+                OBJECT,
+                STRING,
+                CONTEXT,
+                SCRIPTABLE);
     }
 
     private void visitSetProp(int type, Node node, Node child) {
@@ -4756,14 +4980,15 @@ public class BodyCodegen {
         generateExpression(child, node);
         cfw.addALoad(contextLocal);
         cfw.addALoad(variableObjectLocal);
-        addScriptRuntimeInvoke(
+        addDynamicInvoke(
                 "setObjectProp",
-                "(Ljava/lang/Object;"
-                        + "Ljava/lang/String;"
-                        + "Ljava/lang/Object;"
-                        + "Lorg/mozilla/javascript/Context;"
-                        + "Lorg/mozilla/javascript/Scriptable;"
-                        + ")Ljava/lang/Object;");
+                "bootstrapSetObjectProp",
+                OBJECT,
+                OBJECT,
+                STRING,
+                OBJECT,
+                CONTEXT,
+                SCRIPTABLE);
     }
 
     private void visitSetElem(int type, Node node, Node child) {
@@ -4788,58 +5013,92 @@ public class BodyCodegen {
         if (type == Token.SETELEM_OP) {
             cfw.add(ByteCode.DUP);
         }
-        generateExpression(child, node);
-        child = child.getNext();
         boolean indexIsNumber = (node.getIntProp(Node.ISNUMBER_PROP, -1) != -1);
+        boolean indexIsInt32 = indexIsNumber && isInt32Expression(child);
+        if (indexIsInt32) {
+            generateInt32Operand(child, node);
+        } else {
+            generateExpression(child, node);
+        }
+        child = child.getNext();
         if (type == Token.SETELEM_OP) {
-            if (indexIsNumber) {
+            if (indexIsInt32) {
+                // stack: ... object object int
+                //        -> ... object int object int
+                cfw.add(ByteCode.DUP_X1);
+                cfw.addALoad(contextLocal);
+                cfw.addALoad(variableObjectLocal);
+                addDynamicInvoke(
+                        "getObjectIntIndex",
+                        "bootstrapGetObjectIntIndex",
+                        OBJECT,
+                        OBJECT,
+                        INTEGER,
+                        CONTEXT,
+                        SCRIPTABLE);
+            } else if (indexIsNumber) {
                 // stack: ... object object number
                 //        -> ... object number object number
                 cfw.add(ByteCode.DUP2_X1);
                 cfw.addALoad(contextLocal);
                 cfw.addALoad(variableObjectLocal);
-                addScriptRuntimeInvoke(
+                addDynamicInvoke(
                         "getObjectIndex",
-                        "(Ljava/lang/Object;D"
-                                + "Lorg/mozilla/javascript/Context;"
-                                + "Lorg/mozilla/javascript/Scriptable;"
-                                + ")Ljava/lang/Object;");
+                        "bootstrapGetObjectIndex",
+                        OBJECT,
+                        OBJECT,
+                        DOUBLE,
+                        CONTEXT,
+                        SCRIPTABLE);
             } else {
                 // stack: ... object object indexObject
                 //        -> ... object indexObject object indexObject
                 cfw.add(ByteCode.DUP_X1);
                 cfw.addALoad(contextLocal);
                 cfw.addALoad(variableObjectLocal);
-                addScriptRuntimeInvoke(
+                addDynamicInvoke(
                         "getObjectElem",
-                        "(Ljava/lang/Object;"
-                                + "Ljava/lang/Object;"
-                                + "Lorg/mozilla/javascript/Context;"
-                                + "Lorg/mozilla/javascript/Scriptable;"
-                                + ")Ljava/lang/Object;");
+                        "bootstrapGetObjectElem",
+                        OBJECT,
+                        OBJECT,
+                        OBJECT,
+                        CONTEXT,
+                        SCRIPTABLE);
             }
         }
         generateExpression(child, node);
         cfw.addALoad(contextLocal);
         cfw.addALoad(variableObjectLocal);
-        if (indexIsNumber) {
-            addScriptRuntimeInvoke(
+        if (indexIsInt32) {
+            addDynamicInvoke(
+                    "setObjectIntIndex",
+                    "bootstrapSetObjectIntIndex",
+                    OBJECT,
+                    OBJECT,
+                    INTEGER,
+                    OBJECT,
+                    CONTEXT,
+                    SCRIPTABLE);
+        } else if (indexIsNumber) {
+            addDynamicInvoke(
                     "setObjectIndex",
-                    "(Ljava/lang/Object;"
-                            + "D"
-                            + "Ljava/lang/Object;"
-                            + "Lorg/mozilla/javascript/Context;"
-                            + "Lorg/mozilla/javascript/Scriptable;"
-                            + ")Ljava/lang/Object;");
+                    "bootstrapSetObjectIndex",
+                    OBJECT,
+                    OBJECT,
+                    DOUBLE,
+                    OBJECT,
+                    CONTEXT,
+                    SCRIPTABLE);
         } else {
-            addScriptRuntimeInvoke(
+            addDynamicInvoke(
                     "setObjectElem",
-                    "(Ljava/lang/Object;"
-                            + "Ljava/lang/Object;"
-                            + "Ljava/lang/Object;"
-                            + "Lorg/mozilla/javascript/Context;"
-                            + "Lorg/mozilla/javascript/Scriptable;"
-                            + ")Ljava/lang/Object;");
+                    "bootstrapSetObjectElem",
+                    OBJECT,
+                    OBJECT,
+                    OBJECT,
+                    OBJECT,
+                    CONTEXT,
+                    SCRIPTABLE);
         }
     }
 
@@ -5119,6 +5378,45 @@ public class BodyCodegen {
                 methodSignature);
     }
 
+    /**
+     * Emit an invokedynamic instruction that is linked by the given bootstrap method in {@link
+     * InvokeDynamicSupport}.
+     */
+    private void addDynamicInvoke(
+            String operation, String bootstrapMethod, String returnValue, String... args) {
+        cfw.addInvokeDynamic(
+                operation,
+                "(" + String.join("", args) + ")" + returnValue,
+                new ClassFileWriter.MHandle(
+                        ByteCode.MH_INVOKESTATIC,
+                        "org/mozilla/javascript/optimizer/InvokeDynamicSupport",
+                        bootstrapMethod,
+                        BOOTSTRAP_SIGNATURE)
+        );
+    }
+
+    /**
+     * Emit an invokedynamic instruction for a call of one of the call methods of {@link
+     * OptRuntime}, which is linked by {@link InvokeDynamicSupport#bootstrapCall}.
+     */
+    private void addDynamicCall(String methodName, String signature) {
+        cfw.addInvokeDynamic(
+                methodName,
+                signature,
+                new ClassFileWriter.MHandle(
+                        ByteCode.MH_INVOKESTATIC,
+                        "org/mozilla/javascript/optimizer/InvokeDynamicSupport",
+                        "bootstrapCall",
+                        BOOTSTRAP_SIGNATURE)
+        );
+    }
+
+    private static final String BOOTSTRAP_SIGNATURE =
+            "(Ljava/lang/invoke/MethodHandles$Lookup;"
+                    + "Ljava/lang/String;"
+                    + "Ljava/lang/invoke/MethodType;"
+                    + ")Ljava/lang/invoke/CallSite;";
+
     private void addJumpedBooleanWrap(int trueLabel, int falseLabel) {
         cfw.markLabel(falseLabel);
         int skip = cfw.acquireLabel();
@@ -1,26 +1,501 @@
 package org.mozilla.javascript.optimizer;
 
+import org.mozilla.javascript.Callable;
 import org.mozilla.javascript.Context;
+import org.mozilla.javascript.JavaCallEntry;
+import org.mozilla.javascript.NativeArray;
+import org.mozilla.javascript.NativeJavaMethod;
+import org.mozilla.javascript.PropertyCacheEntry;
 import org.mozilla.javascript.ScriptRuntime;
 import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.TopScopeCell;
 
 import java.lang.invoke.*;
 import java.util.Arrays;
 
 public class InvokeDynamicSupport {
-    public static CallSite bootstrapGetObjectProp(MethodHandles.Lookup lookup, String name, MethodType type) {
-        MutableCallSite callSite = new MutableCallSite(type);
+    /**
+     * The number of cache entries a caching site may chain before it gives up and links directly
+     * to the generic operation in {@link ScriptRuntime}.
+     */
+    private static final int MAX_POLYMORPHIC_DEPTH = 8;
 
-        // The first call will be to getObjectProp in this class.
-        MethodHandle check = INIT_GET_OBJ_PROP.bindTo(callSite);
+    /**
+     * A call site for a named property or variable access. Every site is emitted with a constant
+     * name, so the cache only needs to guard on the receiver. Each miss puts another guarded case
+     * in front of the current target, until the site has seen too many different layouts and is
+     * relinked to the generic operation for good.
+     */
+    static final class CachingCallSite extends MutableCallSite {
+        private final MethodHandle generic;
+        private int depth;
 
-        callSite.setTarget(check.asType(type));
+        CachingCallSite(MethodType type, MethodHandle generic) {
+            super(type);
+            this.generic = generic;
+        }
+
+        /** Count a cache miss, and return false once the site has become megamorphic. */
+        boolean miss() {
+            if (depth >= MAX_POLYMORPHIC_DEPTH) {
+                linkGeneric();
+                return false;
+            }
+            depth++;
+            return true;
+        }
+
+        /** Replace the target, which may have a more general type than the site. */
+        void link(MethodHandle target) {
+            setTarget(target.asType(type()));
+        }
+
+        /** Stop caching and always use the generic operation. */
+        void linkGeneric() {
+            setTarget(generic);
+        }
+
+        void addCase(MethodHandle test, MethodHandle hit) {
+            MethodType type = type();
+            setTarget(MethodHandles.guardWithTest(
+                    test.asType(type.changeReturnType(boolean.class)), hit.asType(type), getTarget()
+            ));
+        }
+    }
+
+    private static CallSite cachingCallSite(
+            MethodHandle init, MethodHandle generic, MethodType type
+    ) {
+        CachingCallSite callSite = new CachingCallSite(type, generic);
+
+        // The first call will be to the miss handler in this class.
+        callSite.setTarget(init.bindTo(callSite).asType(type));
         return callSite;
     }
 
-    public static Object getObjectProp(MutableCallSite callSite, Object value, String property, Context cx, Scriptable scope, boolean isPrivate) throws Throwable {
-        callSite.setTarget(REAL_GET_OBJ_PROP);
-        return REAL_GET_OBJ_PROP.invoke(value, property, cx, scope, isPrivate);
+    public static CallSite bootstrapGetObjectProp(
+            MethodHandles.Lookup lookup, String name, MethodType type
+    ) {
+        return cachingCallSite(INIT_GET_OBJ_PROP, REAL_GET_OBJ_PROP, type);
+    }
+
+    /**
+     * Handle a cache miss: look the property up, and if the result can be cached, put a guarded
+     * direct read in front of the current target.
+     */
+    public static Object getObjectProp(
+            CachingCallSite callSite, Object value, String property, Context cx, Scriptable scope
+    ) {
+        PropertyCacheEntry entry =
+                callSite.miss() ? PropertyCacheEntry.lookup(value, property) : null;
+        if (entry == null) {
+            return ScriptRuntime.getObjectProp(value, property, cx, scope);
+        }
+
+        MethodHandle hit = MethodHandles.dropArguments(
+                ENTRY_GET_VALUE.bindTo(entry), 1, String.class, Context.class, Scriptable.class
+        );
+        MethodHandle test = MethodHandles.dropArguments(
+                ENTRY_MATCHES.bindTo(entry), 1, String.class, Context.class, Scriptable.class
+        );
+
+        callSite.addCase(test, hit);
+        return entry.getValue(value);
+    }
+
+    public static CallSite bootstrapSetObjectProp(
+            MethodHandles.Lookup lookup, String name, MethodType type
+    ) {
+        return cachingCallSite(INIT_SET_OBJ_PROP, REAL_SET_OBJ_PROP, type);
+    }
+
+    /**
+     * Handle a cache miss for a property assignment. Only assignments to existing properties of
+     * shaped objects are cached; everything else, including every assignment that would fail,
+     * goes through {@link ScriptRuntime#setObjectProp}.
+     */
+    public static Object setObjectProp(
+            CachingCallSite callSite, Object obj, String property, Object value, Context cx,
+            Scriptable scope
+    ) {
+        PropertyCacheEntry entry =
+                callSite.miss() ? PropertyCacheEntry.lookupForStore(obj, property) : null;
+        if (entry != null) {
+            MethodHandle test = MethodHandles.dropArguments(
+                    ENTRY_MATCHES.bindTo(entry), 1,
+                    String.class, Object.class, Context.class, Scriptable.class
+            );
+            callSite.addCase(test, SET_CACHED_PROP.bindTo(entry));
+        }
+        return ScriptRuntime.setObjectProp(obj, property, value, cx, scope);
+    }
+
+    private static Object setCachedProp(
+            PropertyCacheEntry entry, Object obj, String property, Object value, Context cx,
+            Scriptable scope
+    ) {
+        if (entry.setValue(obj, value)) {
+            return value;
+        }
+        return ScriptRuntime.setObjectProp(obj, property, value, cx, scope);
+    }
+
+    public static CallSite bootstrapGetPropFunctionAndThis(
+            MethodHandles.Lookup lookup, String name, MethodType type
+    ) {
+        return cachingCallSite(INIT_GET_PROP_FUNCTION, REAL_GET_PROP_FUNCTION, type);
+    }
+
+    /**
+     * Handle a cache miss for a method lookup. Only properties that currently hold a function are
+     * cached, and a cached property that no longer holds one goes through the full lookup.
+     */
+    public static Callable getPropFunctionAndThis(
+            CachingCallSite callSite, Object obj, String property, Context cx, Scriptable scope
+    ) {
+        PropertyCacheEntry entry =
+                callSite.miss() ? PropertyCacheEntry.lookup(obj, property) : null;
+        if (entry != null && entry.getValue(obj) instanceof Callable) {
+            MethodHandle test = MethodHandles.dropArguments(
+                    ENTRY_MATCHES.bindTo(entry), 1, String.class, Context.class, Scriptable.class
+            );
+            callSite.addCase(test, GET_CACHED_FUNCTION.bindTo(entry));
+        }
+        return ScriptRuntime.getPropFunctionAndThis(obj, property, cx, scope);
+    }
+
+    private static Callable getCachedFunction(
+            PropertyCacheEntry entry, Object obj, String property, Context cx, Scriptable scope
+    ) {
+        Callable f = entry.getFunctionAndThis(obj, cx);
+        if (f != null) {
+            return f;
+        }
+        return ScriptRuntime.getPropFunctionAndThis(obj, property, cx, scope);
+    }
+
+    public static CallSite bootstrapName(
+            MethodHandles.Lookup lookup, String name, MethodType type
+    ) {
+        return cachingCallSite(INIT_NAME, REAL_NAME, type);
+    }
+
+    /**
+     * Handle a cache miss for a variable read. Variables of the top-level scope are read through
+     * a {@link TopScopeCell}; a site keeps one cell at a time and replaces it on a miss.
+     */
+    public static Object name(CachingCallSite callSite, Context cx, Scriptable scope, String name) {
+        Object result = ScriptRuntime.name(cx, scope, name);
+        TopScopeCell cell = callSite.miss() ? TopScopeCell.lookup(cx, scope, name) : null;
+        if (cell != null) {
+            callSite.link(MethodHandles.insertArguments(CACHED_NAME, 0, cell, callSite));
+        }
+        return result;
+    }
+
+    private static Object cachedName(
+            TopScopeCell cell, CachingCallSite callSite, Context cx, Scriptable scope, String name
+    ) {
+        Object value = cell.getValue(cx, scope, name);
+        if (value != Scriptable.NOT_FOUND) {
+            return value;
+        }
+        return name(callSite, cx, scope, name);
+    }
+
+    public static CallSite bootstrapGetNameFunctionAndThis(
+            MethodHandles.Lookup lookup, String name, MethodType type
+    ) {
+        return cachingCallSite(INIT_GET_NAME_FUNCTION, REAL_GET_NAME_FUNCTION, type);
+    }
+
+    /** Handle a cache miss for a function lookup by name, in the same way as {@link #name}. */
+    public static Callable getNameFunctionAndThis(
+            CachingCallSite callSite, String name, Context cx, Scriptable scope
+    ) {
+        TopScopeCell cell = callSite.miss() ? TopScopeCell.lookup(cx, scope, name) : null;
+        if (cell != null) {
+            callSite.link(MethodHandles.insertArguments(CACHED_NAME_FUNCTION, 0, cell, callSite));
+        }
+        return ScriptRuntime.getNameFunctionAndThis(name, cx, scope);
+    }
+
+    private static Callable cachedNameFunction(
+            TopScopeCell cell, CachingCallSite callSite, String name, Context cx, Scriptable scope
+    ) {
+        Callable f = cell.getFunctionAndThis(cx, scope, name);
+        if (f != null) {
+            return f;
+        }
+        return getNameFunctionAndThis(callSite, name, cx, scope);
+    }
+
+    /**
+     * Link a call of one of the call methods of {@link OptRuntime}, which is named by the
+     * operation. The site caches calls to Java methods, which then go straight to the method
+     * handle of the method; all other calls go through OptRuntime.
+     */
+    public static CallSite bootstrapCall(MethodHandles.Lookup lookup, String name, MethodType type)
+            throws NoSuchMethodException, IllegalAccessException {
+        MethodHandles.Lookup ownLookup = MethodHandles.lookup();
+        MethodHandle generic = ownLookup.findStatic(OptRuntime.class, name, type);
+        MethodHandle init = ownLookup.findStatic(
+                InvokeDynamicSupport.class,
+                name,
+                type.insertParameterTypes(0, CachingCallSite.class)
+        );
+        return cachingCallSite(init, generic, type);
+    }
+
+    public static Object call0(
+            CachingCallSite callSite, Callable fun, Scriptable thisObj, Context cx, Scriptable scope
+    ) {
+        linkJavaCall(callSite, fun, ScriptRuntime.emptyArgs, cx, 0);
+        return OptRuntime.call0(fun, thisObj, cx, scope);
+    }
+
+    public static Object call1(
+            CachingCallSite callSite, Callable fun, Scriptable thisObj, Object arg0, Context cx,
+            Scriptable scope
+    ) {
+        if (fun instanceof NativeJavaMethod) {
+            linkJavaCall(callSite, fun, new Object[] {arg0}, cx, 1);
+        } else {
+            callSite.miss();
+        }
+        return OptRuntime.call1(fun, thisObj, arg0, cx, scope);
+    }
+
+    public static Object call2(
+            CachingCallSite callSite, Callable fun, Scriptable thisObj, Object arg0, Object arg1,
+            Context cx, Scriptable scope
+    ) {
+        if (fun instanceof NativeJavaMethod) {
+            linkJavaCall(callSite, fun, new Object[] {arg0, arg1}, cx, 2);
+        } else {
+            callSite.miss();
+        }
+        return OptRuntime.call2(fun, thisObj, arg0, arg1, cx, scope);
+    }
+
+    public static Object callN(
+            CachingCallSite callSite, Callable fun, Scriptable thisObj, Object[] args, Context cx,
+            Scriptable scope
+    ) {
+        linkJavaCall(callSite, fun, args, cx, -1);
+        return OptRuntime.callN(fun, thisObj, args, cx, scope);
+    }
+
+    /**
+     * Handle a cache miss for a call: if the function is a Java method that can be called
+     * directly with these arguments, put a guarded direct call in front of the current target.
+     * The call itself still goes through the generic operation. An argument count of -1 means
+     * that the site passes its arguments as an array.
+     */
+    private static void linkJavaCall(
+            CachingCallSite callSite, Callable fun, Object[] args, Context cx, int argCount
+    ) {
+        JavaCallEntry entry = callSite.miss() ? JavaCallEntry.lookup(cx, fun, args) : null;
+        if (entry == null) {
+            return;
+        }
+        MethodHandle test;
+        if (argCount == 0) {
+            test = JAVA_CALL_MATCHES.bindTo(entry);
+        } else if (argCount == 1) {
+            test = JAVA_CALL_MATCHES_1.bindTo(entry);
+        } else if (argCount == 2) {
+            test = JAVA_CALL_MATCHES_2.bindTo(entry);
+        } else {
+            test = JAVA_CALL_MATCHES_N.bindTo(entry);
+        }
+        // Ignore thisObj, cx and scope
+        test = MethodHandles.dropArguments(test, 1, Scriptable.class);
+        test = MethodHandles.dropArguments(
+                test, test.type().parameterCount(), Context.class, Scriptable.class
+        );
+        callSite.addCase(test, javaCall(entry.getTarget(), argCount));
+    }
+
+    /**
+     * Adapt the target of a {@link JavaCallEntry}, which takes (thisObj, args, cx, scope), to the
+     * arguments of a call site, which start with the function and may pass the arguments one by
+     * one.
+     */
+    private static MethodHandle javaCall(MethodHandle target, int argCount) {
+        if (argCount == 0) {
+            target = MethodHandles.insertArguments(
+                    target, 1, new Object[] {ScriptRuntime.emptyArgs}
+            );
+        } else if (argCount > 0) {
+            // Move the argument array to the end to collect the arguments into it, and move them
+            // back between thisObj and cx
+            MethodHandle reordered = MethodHandles.permuteArguments(
+                    target,
+                    MethodType.methodType(
+                            Object.class, Context.class, Scriptable.class, Scriptable.class,
+                            Object[].class
+                    ),
+                    2, 3, 0, 1
+            );
+            MethodHandle collecting = reordered.asCollector(Object[].class, argCount);
+            Class<?>[] params = new Class<?>[argCount + 3];
+            int[] order = new int[argCount + 3];
+            params[0] = Scriptable.class;
+            for (int i = 0; i < argCount; i++) {
+                params[i + 1] = Object.class;
+                order[i + 3] = i + 1;
+            }
+            params[argCount + 1] = Context.class;
+            params[argCount + 2] = Scriptable.class;
+            order[0] = argCount + 1;
+            order[1] = argCount + 2;
+            order[2] = 0;
+            target = MethodHandles.permuteArguments(
+                    collecting, MethodType.methodType(Object.class, params), order
+            );
+        }
+        return MethodHandles.dropArguments(target, 0, Callable.class);
+    }
+
+    /*
+     * Element accesses have no name to cache on, so their sites are linked once to a test for a
+     * plain NativeArray in front of the generic operation. The array paths read or replace
+     * elements of dense arrays in place, and fall back to the generic operation otherwise.
+     */
+
+    public static CallSite bootstrapGetObjectElem(
+            MethodHandles.Lookup lookup, String name, MethodType type
+    ) {
+        return arrayCallSite(ARRAY_GET_ELEM, REAL_GET_OBJ_ELEM, type);
+    }
+
+    public static CallSite bootstrapGetObjectIndex(
+            MethodHandles.Lookup lookup, String name, MethodType type
+    ) {
+        return arrayCallSite(ARRAY_GET_INDEX, REAL_GET_OBJ_INDEX, type);
+    }
+
+    public static CallSite bootstrapGetObjectIntIndex(
+            MethodHandles.Lookup lookup, String name, MethodType type
+    ) {
+        return arrayCallSite(ARRAY_GET_INT_INDEX, REAL_GET_OBJ_INT_INDEX, type);
+    }
+
+    public static CallSite bootstrapSetObjectElem(
+            MethodHandles.Lookup lookup, String name, MethodType type
+    ) {
+        return arrayCallSite(ARRAY_SET_ELEM, REAL_SET_OBJ_ELEM, type);
+    }
+
+    public static CallSite bootstrapSetObjectIndex(
+            MethodHandles.Lookup lookup, String name, MethodType type
+    ) {
+        return arrayCallSite(ARRAY_SET_INDEX, REAL_SET_OBJ_INDEX, type);
+    }
+
+    public static CallSite bootstrapSetObjectIntIndex(
+            MethodHandles.Lookup lookup, String name, MethodType type
+    ) {
+        return arrayCallSite(ARRAY_SET_INT_INDEX, REAL_SET_OBJ_INT_INDEX, type);
+    }
+
+    private static CallSite arrayCallSite(
+            MethodHandle arrayPath, MethodHandle generic, MethodType type
+    ) {
+        MethodHandle test = MethodHandles.dropArguments(
+                IS_NATIVE_ARRAY, 1, type.parameterList().subList(1, type.parameterCount())
+        );
+        return new ConstantCallSite(
+                MethodHandles.guardWithTest(test, arrayPath, generic).asType(type)
+        );
+    }
+
+    private static boolean isNativeArray(Object obj) {
+        return obj != null && obj.getClass() == NativeArray.class;
+    }
+
+    /** Return the element index that "elem" denotes, or -1 if it is not a plain integer. */
+    private static int toIndex(Object elem) {
+        if (elem instanceof Integer) {
+            return ((Integer) elem).intValue();
+        }
+        if (elem instanceof Double) {
+            double d = ((Double) elem).doubleValue();
+            int index = (int) d;
+            if (index == d) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    private static Object getArrayElem(Object obj, Object elem, Context cx, Scriptable scope) {
+        Object result = ((NativeArray) obj).getDenseElement(toIndex(elem));
+        if (result != Scriptable.NOT_FOUND) {
+            return result;
+        }
+        return ScriptRuntime.getObjectElem(obj, elem, cx, scope);
+    }
+
+    private static Object getArrayIndex(Object obj, double dblIndex, Context cx, Scriptable scope) {
+        int index = (int) dblIndex;
+        if (index == dblIndex) {
+            Object result = ((NativeArray) obj).getDenseElement(index);
+            if (result != Scriptable.NOT_FOUND) {
+                return result;
+            }
+        }
+        return ScriptRuntime.getObjectIndex(obj, dblIndex, cx, scope);
+    }
+
+    private static Object getArrayIntIndex(Object obj, int index, Context cx, Scriptable scope) {
+        Object result = ((NativeArray) obj).getDenseElement(index);
+        if (result != Scriptable.NOT_FOUND) {
+            return result;
+        }
+        return ScriptRuntime.getObjectIndex(obj, index, cx, scope);
+    }
+
+    /**
+     * Compiled code passes an index that is known to be an int32 without widening it to a double.
+     */
+    private static Object getObjectIntIndex(Object obj, int index, Context cx, Scriptable scope) {
+        return ScriptRuntime.getObjectIndex(obj, index, cx, scope);
+    }
+
+    private static Object setArrayElem(
+            Object obj, Object elem, Object value, Context cx, Scriptable scope
+    ) {
+        if (((NativeArray) obj).setDenseElement(toIndex(elem), value)) {
+            return value;
+        }
+        return ScriptRuntime.setObjectElem(obj, elem, value, cx, scope);
+    }
+
+    private static Object setArrayIndex(
+            Object obj, double dblIndex, Object value, Context cx, Scriptable scope
+    ) {
+        int index = (int) dblIndex;
+        if (index == dblIndex && ((NativeArray) obj).setDenseElement(index, value)) {
+            return value;
+        }
+        return ScriptRuntime.setObjectIndex(obj, dblIndex, value, cx, scope);
+    }
+
+    private static Object setArrayIntIndex(
+            Object obj, int index, Object value, Context cx, Scriptable scope
+    ) {
+        if (((NativeArray) obj).setDenseElement(index, value)) {
+            return value;
+        }
+        return ScriptRuntime.setObjectIndex(obj, index, value, cx, scope);
+    }
+
+    private static Object setObjectIntIndex(
+            Object obj, int index, Object value, Context cx, Scriptable scope
+    ) {
+        return ScriptRuntime.setObjectIndex(obj, index, value, cx, scope);
     }
 
     public static CallSite bootstrapCallWithTemplateLiteral(MethodHandles.Lookup lookup, String name, MethodType type) {
@@ -56,6 +531,38 @@ public class InvokeDynamicSupport {
 
     private static final MethodHandle INIT_GET_OBJ_PROP;
     private static final MethodHandle REAL_GET_OBJ_PROP;
+    private static final MethodHandle INIT_SET_OBJ_PROP;
+    private static final MethodHandle REAL_SET_OBJ_PROP;
+    private static final MethodHandle SET_CACHED_PROP;
+    private static final MethodHandle INIT_GET_PROP_FUNCTION;
+    private static final MethodHandle REAL_GET_PROP_FUNCTION;
+    private static final MethodHandle GET_CACHED_FUNCTION;
+    private static final MethodHandle INIT_NAME;
+    private static final MethodHandle REAL_NAME;
+    private static final MethodHandle CACHED_NAME;
+    private static final MethodHandle INIT_GET_NAME_FUNCTION;
+    private static final MethodHandle REAL_GET_NAME_FUNCTION;
+    private static final MethodHandle CACHED_NAME_FUNCTION;
+    private static final MethodHandle ENTRY_MATCHES;
+    private static final MethodHandle ENTRY_GET_VALUE;
+    private static final MethodHandle JAVA_CALL_MATCHES;
+    private static final MethodHandle JAVA_CALL_MATCHES_1;
+    private static final MethodHandle JAVA_CALL_MATCHES_2;
+    private static final MethodHandle JAVA_CALL_MATCHES_N;
+
+    private static final MethodHandle IS_NATIVE_ARRAY;
+    private static final MethodHandle ARRAY_GET_ELEM;
+    private static final MethodHandle REAL_GET_OBJ_ELEM;
+    private static final MethodHandle ARRAY_GET_INDEX;
+    private static final MethodHandle REAL_GET_OBJ_INDEX;
+    private static final MethodHandle ARRAY_SET_ELEM;
+    private static final MethodHandle REAL_SET_OBJ_ELEM;
+    private static final MethodHandle ARRAY_SET_INDEX;
+    private static final MethodHandle REAL_SET_OBJ_INDEX;
+    private static final MethodHandle ARRAY_GET_INT_INDEX;
+    private static final MethodHandle REAL_GET_OBJ_INT_INDEX;
+    private static final MethodHandle ARRAY_SET_INT_INDEX;
+    private static final MethodHandle REAL_SET_OBJ_INT_INDEX;
 
     private static final MethodHandle INIT_CALL_WITH_TEMPLATE;
     private static final MethodHandle REAL_CALL_WITH_TEMPLATE;
@@ -65,17 +572,183 @@ public class InvokeDynamicSupport {
     static {
         MethodHandles.Lookup lookup = MethodHandles.lookup();
 
+        MethodType getPropType = MethodType.methodType(
+                Object.class, Object.class, String.class, Context.class, Scriptable.class
+        );
+        MethodType setPropType = MethodType.methodType(
+                Object.class, Object.class, String.class, Object.class, Context.class,
+                Scriptable.class
+        );
+        MethodType propFunctionType = MethodType.methodType(
+                Callable.class, Object.class, String.class, Context.class, Scriptable.class
+        );
+        MethodType nameType = MethodType.methodType(
+                Object.class, Context.class, Scriptable.class, String.class
+        );
+        MethodType nameFunctionType = MethodType.methodType(
+                Callable.class, String.class, Context.class, Scriptable.class
+        );
+        MethodType getElemType = MethodType.methodType(
+                Object.class, Object.class, Object.class, Context.class, Scriptable.class
+        );
+        MethodType getIndexType = MethodType.methodType(
+                Object.class, Object.class, double.class, Context.class, Scriptable.class
+        );
+        MethodType setElemType = MethodType.methodType(
+                Object.class, Object.class, Object.class, Object.class, Context.class,
+                Scriptable.class
+        );
+        MethodType setIndexType = MethodType.methodType(
+                Object.class, Object.class, double.class, Object.class, Context.class,
+                Scriptable.class
+        );
+        MethodType getIntIndexType = MethodType.methodType(
+                Object.class, Object.class, int.class, Context.class, Scriptable.class
+        );
+        MethodType setIntIndexType = MethodType.methodType(
+                Object.class, Object.class, int.class, Object.class, Context.class, Scriptable.class
+        );
+
         try {
             REAL_GET_OBJ_PROP = lookup.findStatic(
-                    ScriptRuntime.class,
-                    "getObjectProp",
-                    MethodType.methodType(Object.class, Object.class, String.class, Context.class, Scriptable.class, boolean.class)
+                    ScriptRuntime.class, "getObjectProp", getPropType
             );
-
             INIT_GET_OBJ_PROP = lookup.findStatic(
                     InvokeDynamicSupport.class,
                     "getObjectProp",
-                    MethodType.methodType(Object.class, MutableCallSite.class, Object.class, String.class, Context.class,  Scriptable.class, boolean.class)
+                    getPropType.insertParameterTypes(0, CachingCallSite.class)
+            );
+
+            REAL_SET_OBJ_PROP = lookup.findStatic(
+                    ScriptRuntime.class, "setObjectProp", setPropType
+            );
+            INIT_SET_OBJ_PROP = lookup.findStatic(
+                    InvokeDynamicSupport.class,
+                    "setObjectProp",
+                    setPropType.insertParameterTypes(0, CachingCallSite.class)
+            );
+            SET_CACHED_PROP = lookup.findStatic(
+                    InvokeDynamicSupport.class,
+                    "setCachedProp",
+                    setPropType.insertParameterTypes(0, PropertyCacheEntry.class)
+            );
+
+            REAL_GET_PROP_FUNCTION = lookup.findStatic(
+                    ScriptRuntime.class, "getPropFunctionAndThis", propFunctionType
+            );
+            INIT_GET_PROP_FUNCTION = lookup.findStatic(
+                    InvokeDynamicSupport.class,
+                    "getPropFunctionAndThis",
+                    propFunctionType.insertParameterTypes(0, CachingCallSite.class)
+            );
+            GET_CACHED_FUNCTION = lookup.findStatic(
+                    InvokeDynamicSupport.class,
+                    "getCachedFunction",
+                    propFunctionType.insertParameterTypes(0, PropertyCacheEntry.class)
+            );
+
+            REAL_NAME = lookup.findStatic(ScriptRuntime.class, "name", nameType);
+            INIT_NAME = lookup.findStatic(
+                    InvokeDynamicSupport.class,
+                    "name",
+                    nameType.insertParameterTypes(0, CachingCallSite.class)
+            );
+            CACHED_NAME = lookup.findStatic(
+                    InvokeDynamicSupport.class,
+                    "cachedName",
+                    nameType.insertParameterTypes(0, TopScopeCell.class, CachingCallSite.class)
+            );
+
+            REAL_GET_NAME_FUNCTION = lookup.findStatic(
+                    ScriptRuntime.class, "getNameFunctionAndThis", nameFunctionType
+            );
+            INIT_GET_NAME_FUNCTION = lookup.findStatic(
+                    InvokeDynamicSupport.class,
+                    "getNameFunctionAndThis",
+                    nameFunctionType.insertParameterTypes(0, CachingCallSite.class)
+            );
+            CACHED_NAME_FUNCTION = lookup.findStatic(
+                    InvokeDynamicSupport.class,
+                    "cachedNameFunction",
+                    nameFunctionType.insertParameterTypes(
+                            0, TopScopeCell.class, CachingCallSite.class
+                    )
+            );
+
+            ENTRY_MATCHES = lookup.findVirtual(
+                    PropertyCacheEntry.class,
+                    "matches",
+                    MethodType.methodType(boolean.class, Object.class)
+            );
+
+            ENTRY_GET_VALUE = lookup.findVirtual(
+                    PropertyCacheEntry.class,
+                    "getValue",
+                    MethodType.methodType(Object.class, Object.class)
+            );
+
+            JAVA_CALL_MATCHES = lookup.findVirtual(
+                    JavaCallEntry.class,
+                    "matches",
+                    MethodType.methodType(boolean.class, Object.class)
+            );
+            JAVA_CALL_MATCHES_1 = lookup.findVirtual(
+                    JavaCallEntry.class,
+                    "matches",
+                    MethodType.methodType(boolean.class, Object.class, Object.class)
+            );
+            JAVA_CALL_MATCHES_2 = lookup.findVirtual(
+                    JavaCallEntry.class,
+                    "matches",
+                    MethodType.methodType(boolean.class, Object.class, Object.class, Object.class)
+            );
+            JAVA_CALL_MATCHES_N = lookup.findVirtual(
+                    JavaCallEntry.class,
+                    "matches",
+                    MethodType.methodType(boolean.class, Object.class, Object[].class)
+            );
+
+            IS_NATIVE_ARRAY = lookup.findStatic(
+                    InvokeDynamicSupport.class,
+                    "isNativeArray",
+                    MethodType.methodType(boolean.class, Object.class)
+            );
+
+            REAL_GET_OBJ_ELEM = lookup.findStatic(
+                    ScriptRuntime.class, "getObjectElem", getElemType
+            );
+            ARRAY_GET_ELEM = lookup.findStatic(
+                    InvokeDynamicSupport.class, "getArrayElem", getElemType
+            );
+            REAL_GET_OBJ_INDEX = lookup.findStatic(
+                    ScriptRuntime.class, "getObjectIndex", getIndexType
+            );
+            ARRAY_GET_INDEX = lookup.findStatic(
+                    InvokeDynamicSupport.class, "getArrayIndex", getIndexType
+            );
+            REAL_SET_OBJ_ELEM = lookup.findStatic(
+                    ScriptRuntime.class, "setObjectElem", setElemType
+            );
+            ARRAY_SET_ELEM = lookup.findStatic(
+                    InvokeDynamicSupport.class, "setArrayElem", setElemType
+            );
+            REAL_SET_OBJ_INDEX = lookup.findStatic(
+                    ScriptRuntime.class, "setObjectIndex", setIndexType
+            );
+            ARRAY_SET_INDEX = lookup.findStatic(
+                    InvokeDynamicSupport.class, "setArrayIndex", setIndexType
+            );
+            REAL_GET_OBJ_INT_INDEX = lookup.findStatic(
+                    InvokeDynamicSupport.class, "getObjectIntIndex", getIntIndexType
+            );
+            ARRAY_GET_INT_INDEX = lookup.findStatic(
+                    InvokeDynamicSupport.class, "getArrayIntIndex", getIntIndexType
+            );
+            REAL_SET_OBJ_INT_INDEX = lookup.findStatic(
+                    InvokeDynamicSupport.class, "setObjectIntIndex", setIntIndexType
+            );
+            ARRAY_SET_INT_INDEX = lookup.findStatic(
+                    InvokeDynamicSupport.class, "setArrayIntIndex", setIntIndexType
             );
 
             REAL_CALL_WITH_TEMPLATE = lookup.findStatic(
@@ -4,6 +4,9 @@
 
 package org.mozilla.javascript.optimizer;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import org.mozilla.javascript.Kit;
 import org.mozilla.javascript.Node;
 import org.mozilla.javascript.Token;
@@ -74,6 +77,48 @@ public final class OptFunctionNode {
         numberVarFlags[varIndex] = true;
     }
 
+    /**
+     * Return true if the variable only ever holds int32 values, so that it can be kept in an int
+     * local. Every such variable is also a number variable.
+     */
+    public boolean isInt32Var(int varIndex) {
+        varIndex -= fnode.getParamCount();
+        if (varIndex >= 0 && int32VarFlags != null) {
+            return int32VarFlags[varIndex];
+        }
+        return false;
+    }
+
+    void setIsInt32Var(int varIndex) {
+        varIndex -= fnode.getParamCount();
+        // Can only be used with non-parameters
+        if (varIndex < 0) Kit.codeBug();
+        if (int32VarFlags == null) {
+            int size = fnode.getParamAndVarCount() - fnode.getParamCount();
+            int32VarFlags = new boolean[size];
+        }
+        int32VarFlags[varIndex] = true;
+    }
+
+    /**
+     * Return the bound of the loop condition that keeps the increment "n" from overflowing an
+     * int32, or null if there is none.
+     */
+    Node getIncrementBound(Node n) {
+        return incrementBounds == null ? null : incrementBounds.get(n);
+    }
+
+    void setIncrementBound(Node n, Node bound) {
+        if (incrementBounds == null) {
+            incrementBounds = new HashMap<>();
+        }
+        incrementBounds.put(n, bound);
+    }
+
+    Map<Node, Node> getIncrementBounds() {
+        return incrementBounds == null ? Collections.emptyMap() : incrementBounds;
+    }
+
     public int getVarIndex(Node n) {
         int index = n.getIntProp(Node.VARIABLE_PROP, -1);
         if (index == -1) {
@@ -96,6 +141,8 @@ public final class OptFunctionNode {
     public final FunctionNode fnode;
 
     private boolean[] numberVarFlags;
+    private boolean[] int32VarFlags;
+    private Map<Node, Node> incrementBounds;
     private int directTargetIndex = -1;
     private boolean itsParameterNumberContext;
     boolean itsContainsCalls0;
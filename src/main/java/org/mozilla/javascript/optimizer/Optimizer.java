@@ -7,15 +7,18 @@ package org.mozilla.javascript.optimizer;
 import org.mozilla.javascript.Node;
 import org.mozilla.javascript.ObjArray;
 import org.mozilla.javascript.Token;
+import org.mozilla.javascript.ast.Jump;
 import org.mozilla.javascript.ast.ScriptNode;
 
 class Optimizer {
 
     static final int NoType = 0;
-    static final int NumberType = 1;
-    static final int AnyType = 3;
+    static final int Int32Type = 1;
+    static final int NumberType = 3;
+    static final int AnyType = 7;
 
-    // It is assumed that (NumberType | AnyType) == AnyType
+    // It is assumed that (Int32Type | NumberType) == NumberType
+    // and (NumberType | AnyType) == AnyType
 
     void optimize(ScriptNode scriptOrFn) {
         //  run on one function at a time for now
@@ -37,6 +40,7 @@ class Optimizer {
         Node[] theStatementNodes = new Node[statementsArray.size()];
         statementsArray.toArray(theStatementNodes);
 
+        findBoundedIncrements(theFunction.fnode);
         Block.runFlowAnalyzes(theFunction, theStatementNodes);
 
         if (!theFunction.fnode.requiresActivation()) {
@@ -419,6 +423,92 @@ class Optimizer {
         }
     }
 
+    /**
+     * Record the increments of "for" loop counters that can only overflow an int32 if the loop
+     * bound does: the loop is "for (...; i < bound; i++)" and nothing else in the loop assigns
+     * "i". Whenever "i++" runs, "i < bound" held and "i" has not changed since, so "i + 1" is at
+     * most the bound. The flow analysis keeps such a counter an int32 when its bound is one.
+     */
+    private void findBoundedIncrements(Node node) {
+        for (Node child = node.getFirstChild(); child != null; child = child.getNext()) {
+            if (child.getType() == Token.LOOP) {
+                findBoundedIncrement((Jump) child);
+            }
+            findBoundedIncrements(child);
+        }
+    }
+
+    private void findBoundedIncrement(Jump loop) {
+        // The children of a "for" loop are [init] GOTO bodyTarget body incrTarget
+        // EXPR_VOID(incr) EMPTY condTarget IFEQ(cond -> bodyTarget) breakTarget
+        Node incrTarget = loop.getContinue();
+        if (incrTarget == null) return;
+        Node incr = incrTarget.getNext();
+        if (incr == null || incr.getType() != Token.EXPR_VOID) return;
+        Node inc = incr.getFirstChild();
+        if (inc.getType() != Token.INC
+                || (inc.getExistingIntProp(Node.INCRDECR_PROP) & Node.DECR_FLAG) != 0) {
+            return;
+        }
+        Node counter = inc.getFirstChild();
+        if (counter.getType() != Token.GETVAR) return;
+        int varIndex = theFunction.getVarIndex(counter);
+        if (theFunction.isParameter(varIndex)
+                || theFunction.fnode.getParamAndVarConst()[varIndex]) {
+            return;
+        }
+
+        Node test = incr.getNext();
+        while (test != null && test.getType() == Token.EMPTY) {
+            test = test.getNext();
+        }
+        if (test == null || test.getType() != Token.TARGET) return;
+        test = test.getNext();
+        if (test == null || test.getType() != Token.IFEQ) return;
+        Node bodyTarget = ((Jump) test).target;
+        Node cond = test.getFirstChild();
+        Node bound;
+        if (cond.getType() == Token.LT && isVar(cond.getFirstChild(), varIndex)) {
+            bound = cond.getLastChild();
+        } else if (cond.getType() == Token.GT && isVar(cond.getLastChild(), varIndex)) {
+            bound = cond.getFirstChild();
+        } else {
+            return;
+        }
+        if (assignsVar(cond, varIndex)) return;
+
+        Node body = loop.getFirstChild();
+        while (body != null && body != bodyTarget) {
+            body = body.getNext();
+        }
+        if (body == null) return;
+        for (body = body.getNext(); body != incrTarget; body = body.getNext()) {
+            if (body == null || assignsVar(body, varIndex)) return;
+        }
+        theFunction.setIncrementBound(inc, bound);
+    }
+
+    private boolean isVar(Node node, int varIndex) {
+        return node.getType() == Token.GETVAR && theFunction.getVarIndex(node) == varIndex;
+    }
+
+    private boolean assignsVar(Node node, int varIndex) {
+        switch (node.getType()) {
+            case Token.SETVAR:
+            case Token.SETCONSTVAR:
+                if (theFunction.getVarIndex(node) == varIndex) return true;
+                break;
+            case Token.INC:
+            case Token.DEC:
+                if (isVar(node.getFirstChild(), varIndex)) return true;
+                break;
+        }
+        for (Node child = node.getFirstChild(); child != null; child = child.getNext()) {
+            if (assignsVar(child, varIndex)) return true;
+        }
+        return false;
+    }
+
     private static void buildStatementList_r(Node node, ObjArray statements) {
         int type = node.getType();
         if (type == Token.BLOCK
@@ -6,6 +6,12 @@
 
 package org.mozilla.javascript.typedarrays;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import org.mozilla.javascript.Context;
 import org.mozilla.javascript.IdFunctionObject;
 import org.mozilla.javascript.IdScriptableObject;
@@ -15,7 +21,9 @@ import org.mozilla.javascript.Undefined;
 
 /**
  * A NativeArrayBuffer is the backing buffer for a typed array. Used inside JavaScript code, it
- * implements the ArrayBuffer interface. Used directly from Java, it simply holds a byte array.
+ * implements the ArrayBuffer interface. Used directly from Java, it simply holds a byte array, or
+ * it shares the bytes of a {@link ByteBuffer}, which may be direct or memory-mapped, so that data
+ * from files and sockets can be given to scripts without copying it.
  */
 public class NativeArrayBuffer extends IdScriptableObject {
     private static final long serialVersionUID = 3110411773054879549L;
@@ -24,8 +32,14 @@ public class NativeArrayBuffer extends IdScriptableObject {
 
     private static final byte[] EMPTY_BUF = new byte[0];
 
+    /** The bytes as an array, or null if they are in a ByteBuffer that has no such array. */
     final byte[] buffer;
 
+    /** The bytes in big-endian and in little-endian order. Both share the same content. */
+    private transient ByteBuffer bigEndian;
+
+    private transient ByteBuffer littleEndian;
+
     @Override
     public String getClassName() {
         return CLASS_NAME;
@@ -48,11 +62,38 @@ public class NativeArrayBuffer extends IdScriptableObject {
 
     /** Create an empty buffer. */
     public NativeArrayBuffer() {
-        buffer = EMPTY_BUF;
+        this(ByteBuffer.wrap(EMPTY_BUF));
     }
 
     /** Create a buffer of the specified length in bytes. */
     public NativeArrayBuffer(double len) {
+        this(ByteBuffer.wrap(newArray(len)));
+    }
+
+    /**
+     * Create a buffer that shares the bytes of "bytes" from its position to its limit, without
+     * copying them. Changes that scripts make are seen in "bytes", and the other way round. The
+     * position, limit and byte order of "bytes" are not used after this returns. Before giving the
+     * buffer to scripts, set its prototype, for example with {@link
+     * org.mozilla.javascript.ScriptRuntime#setObjectProtoAndParent}.
+     *
+     * @param bytes the bytes, which may be in a heap, direct or memory-mapped buffer
+     * @throws IllegalArgumentException if "bytes" is read-only
+     */
+    public NativeArrayBuffer(ByteBuffer bytes) {
+        if (bytes.isReadOnly()) {
+            throw new IllegalArgumentException("ArrayBuffer needs a writable ByteBuffer");
+        }
+        ByteBuffer data = bytes.slice();
+        if (data.hasArray() && data.arrayOffset() == 0 && data.array().length == data.capacity()) {
+            buffer = data.array();
+        } else {
+            buffer = null;
+        }
+        setBytes(data);
+    }
+
+    private static byte[] newArray(double len) {
         if (len >= Integer.MAX_VALUE) {
             throw ScriptRuntime.rangeError("length parameter (" + len + ") is too large ");
         }
@@ -70,25 +111,90 @@ public class NativeArrayBuffer extends IdScriptableObject {
             throw ScriptRuntime.rangeError("Negative array length " + len);
         }
         if (intLen == 0) {
-            buffer = EMPTY_BUF;
-        } else {
-            buffer = new byte[intLen];
+            return EMPTY_BUF;
         }
+        return new byte[intLen];
+    }
+
+    private void setBytes(ByteBuffer data) {
+        bigEndian = data.duplicate().order(ByteOrder.BIG_ENDIAN);
+        littleEndian = data.duplicate().order(ByteOrder.LITTLE_ENDIAN);
     }
 
     /** Get the number of bytes in the buffer. */
     public int getLength() {
-        return buffer.length;
+        return bigEndian.capacity();
     }
 
     /**
      * Return the actual bytes that back the buffer. This is a reference to the real buffer, so
      * changes to bytes here will be reflected in the actual object and all its views.
+     *
+     * @throws UnsupportedOperationException if the buffer was created from a ByteBuffer whose bytes
+     *     are not all in an array, such as a direct one. Use {@link #getByteBuffer} instead.
      */
     public byte[] getBuffer() {
+        if (buffer == null) {
+            throw new UnsupportedOperationException("ArrayBuffer is not backed by an array");
+        }
         return buffer;
     }
 
+    /**
+     * Return a new big-endian ByteBuffer that shares the bytes of the buffer, with its position at
+     * 0 and its limit at the length. Changes to the bytes will be seen by the buffer and all its
+     * views.
+     */
+    public ByteBuffer getByteBuffer() {
+        return bigEndian.duplicate();
+    }
+
+    /** Return the bytes in the given byte order, for absolute reads and writes only. */
+    ByteBuffer data(boolean useLittleEndian) {
+        return useLittleEndian ? littleEndian : bigEndian;
+    }
+
+    /**
+     * Copy "length" bytes from "src" to "dest" as System.arraycopy does, including when the two
+     * ranges overlap.
+     */
+    static void copy(
+            NativeArrayBuffer src, int srcPos, NativeArrayBuffer dest, int destPos, int length) {
+        if (src.buffer != null && dest.buffer != null) {
+            System.arraycopy(src.buffer, srcPos, dest.buffer, destPos, length);
+            return;
+        }
+        ByteBuffer from = src.bigEndian.duplicate();
+        // Called through Buffer, whose methods return the same types in every Java version
+        ((Buffer) from).limit(srcPos + length);
+        ((Buffer) from).position(srcPos);
+        if (src == dest && srcPos < destPos + length && destPos < srcPos + length) {
+            byte[] overlap = new byte[length];
+            from.get(overlap);
+            from = ByteBuffer.wrap(overlap);
+        }
+        ByteBuffer to = dest.bigEndian.duplicate();
+        ((Buffer) to).position(destPos);
+        to.put(from);
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        // A buffer that is not backed by an array is written as a copy
+        byte[] bytes = buffer;
+        if (bytes == null) {
+            bytes = new byte[getLength()];
+            bigEndian.duplicate().get(bytes);
+        }
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("buffer", bytes);
+        out.writeFields();
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        setBytes(ByteBuffer.wrap(buffer));
+    }
+
     // Actual implementations of actual code
 
     /**
@@ -104,15 +210,13 @@ public class NativeArrayBuffer extends IdScriptableObject {
     public NativeArrayBuffer slice(double s, double e) {
         // Handle negative start as relative to start
         // Clamp as per the spec to between 0 and length
-        int end =
-                ScriptRuntime.toInt32(
-                        Math.max(0, Math.min(buffer.length, (e < 0 ? buffer.length + e : e))));
-        int start =
-                ScriptRuntime.toInt32(Math.min(end, Math.max(0, (s < 0 ? buffer.length + s : s))));
+        int length = getLength();
+        int end = ScriptRuntime.toInt32(Math.max(0, Math.min(length, (e < 0 ? length + e : e))));
+        int start = ScriptRuntime.toInt32(Math.min(end, Math.max(0, (s < 0 ? length + s : s))));
         int len = end - start;
 
         NativeArrayBuffer newBuf = new NativeArrayBuffer(len);
-        System.arraycopy(buffer, start, newBuf.buffer, 0, len);
+        copy(this, start, newBuf, 0, len);
         return newBuf;
     }
 
@@ -137,7 +241,7 @@ public class NativeArrayBuffer extends IdScriptableObject {
             case Id_slice:
                 NativeArrayBuffer self = realThis(thisObj, f);
                 double start = isArg(args, 0) ? ScriptRuntime.toNumber(args[0]) : 0;
-                double end = isArg(args, 1) ? ScriptRuntime.toNumber(args[1]) : self.buffer.length;
+                double end = isArg(args, 1) ? ScriptRuntime.toNumber(args[1]) : self.getLength();
                 return self.slice(start, end);
         }
         throw new IllegalArgumentException(String.valueOf(id));
@@ -217,7 +321,7 @@ public class NativeArrayBuffer extends IdScriptableObject {
     @Override
     protected Object getInstanceIdValue(int id) {
         if (id == Id_byteLength) {
-            return ScriptRuntime.wrapInt(buffer.length);
+            return ScriptRuntime.wrapInt(getLength());
         }
         return super.getInstanceIdValue(id);
     }
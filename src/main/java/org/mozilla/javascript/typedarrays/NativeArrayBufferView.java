@@ -6,6 +6,7 @@
 
 package org.mozilla.javascript.typedarrays;
 
+import java.nio.ByteBuffer;
 import org.mozilla.javascript.Context;
 import org.mozilla.javascript.IdScriptableObject;
 import org.mozilla.javascript.ScriptRuntime;
@@ -70,6 +71,14 @@ public abstract class NativeArrayBufferView extends IdScriptableObject {
         return useLittleEndian.booleanValue();
     }
 
+    /**
+     * Return the bytes of the buffer in the byte order that the typed arrays use, for absolute
+     * reads and writes.
+     */
+    protected ByteBuffer byteBuffer() {
+        return arrayBuffer.data(useLittleEndian());
+    }
+
     protected static boolean isArg(Object[] args, int i) {
         return ((args.length > i) && !Undefined.instance.equals(args[i]));
     }
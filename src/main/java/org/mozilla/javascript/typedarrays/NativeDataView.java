@@ -6,6 +6,7 @@
 
 package org.mozilla.javascript.typedarrays;
 
+import java.nio.ByteBuffer;
 import org.mozilla.javascript.Context;
 import org.mozilla.javascript.IdFunctionObject;
 import org.mozilla.javascript.ScriptRuntime;
@@ -14,9 +15,8 @@ import org.mozilla.javascript.Undefined;
 
 /**
  * This class represents the JavaScript "DataView" interface, which allows direct manipulations of
- * the bytes in a NativeArrayBuffer. Java programmers would be best off getting the underling
- * "byte[]" array from the NativeArrayBuffer and manipulating it directly, perhaps using the
- * "ByteIo" class as a helper.
+ * the bytes in a NativeArrayBuffer. Java programmers would be best off getting the underlying
+ * ByteBuffer from the NativeArrayBuffer and manipulating it directly.
  */
 public class NativeDataView extends NativeArrayBufferView {
     private static final long serialVersionUID = 1427967607557438968L;
@@ -115,24 +115,27 @@ public class NativeDataView extends NativeArrayBufferView {
         rangeCheck(pos, bytes);
 
         boolean littleEndian = isArg(args, 1) && (bytes > 1) && ScriptRuntime.toBoolean(args[1]);
+        ByteBuffer data = arrayBuffer.data(littleEndian);
 
         switch (bytes) {
             case 1:
                 if (signed) {
-                    return ByteIo.readInt8(arrayBuffer.buffer, offset + pos);
+                    return Byte.valueOf(data.get(offset + pos));
                 } else {
-                    return ByteIo.readUint8(arrayBuffer.buffer, offset + pos);
+                    return Integer.valueOf(data.get(offset + pos) & 0xff);
                 }
             case 2:
                 if (signed) {
-                    return ByteIo.readInt16(arrayBuffer.buffer, offset + pos, littleEndian);
+                    return Short.valueOf(data.getShort(offset + pos));
                 } else {
-                    return ByteIo.readUint16(arrayBuffer.buffer, offset + pos, littleEndian);
+                    return Integer.valueOf(data.getShort(offset + pos) & 0xffff);
                 }
             case 4:
-                return signed
-                        ? ByteIo.readInt32(arrayBuffer.buffer, offset + pos, littleEndian)
-                        : ByteIo.readUint32(arrayBuffer.buffer, offset + pos, littleEndian);
+                if (signed) {
+                    return Integer.valueOf(data.getInt(offset + pos));
+                } else {
+                    return Long.valueOf(data.getInt(offset + pos) & 0xffffffffL);
+                }
             default:
                 throw new AssertionError();
         }
@@ -143,12 +146,13 @@ public class NativeDataView extends NativeArrayBufferView {
         rangeCheck(pos, bytes);
 
         boolean littleEndian = isArg(args, 1) && (bytes > 1) && ScriptRuntime.toBoolean(args[1]);
+        ByteBuffer data = arrayBuffer.data(littleEndian);
 
         switch (bytes) {
             case 4:
-                return ByteIo.readFloat32(arrayBuffer.buffer, offset + pos, littleEndian);
+                return Float.valueOf(data.getFloat(offset + pos));
             case 8:
-                return ByteIo.readFloat64(arrayBuffer.buffer, offset + pos, littleEndian);
+                return Double.valueOf(data.getDouble(offset + pos));
             default:
                 throw new AssertionError();
         }
@@ -161,6 +165,7 @@ public class NativeDataView extends NativeArrayBufferView {
         }
 
         boolean littleEndian = isArg(args, 2) && (bytes > 1) && ScriptRuntime.toBoolean(args[2]);
+        ByteBuffer data = arrayBuffer.data(littleEndian);
 
         Object val = ScriptRuntime.zeroObj;
         if (args.length > 1) {
@@ -174,13 +179,13 @@ public class NativeDataView extends NativeArrayBufferView {
                     if (pos + bytes > byteLength) {
                         throw ScriptRuntime.rangeError("offset out of range");
                     }
-                    ByteIo.writeInt8(arrayBuffer.buffer, offset + pos, value);
+                    data.put(offset + pos, (byte) value);
                 } else {
                     int value = Conversions.toUint8(val);
                     if (pos + bytes > byteLength) {
                         throw ScriptRuntime.rangeError("offset out of range");
                     }
-                    ByteIo.writeUint8(arrayBuffer.buffer, offset + pos, value);
+                    data.put(offset + pos, (byte) value);
                 }
                 break;
             case 2:
@@ -189,13 +194,13 @@ public class NativeDataView extends NativeArrayBufferView {
                     if (pos + bytes > byteLength) {
                         throw ScriptRuntime.rangeError("offset out of range");
                     }
-                    ByteIo.writeInt16(arrayBuffer.buffer, offset + pos, value, littleEndian);
+                    data.putShort(offset + pos, (short) value);
                 } else {
                     int value = Conversions.toUint16(val);
                     if (pos + bytes > byteLength) {
                         throw ScriptRuntime.rangeError("offset out of range");
                     }
-                    ByteIo.writeUint16(arrayBuffer.buffer, offset + pos, value, littleEndian);
+                    data.putShort(offset + pos, (short) value);
                 }
                 break;
             case 4:
@@ -204,13 +209,13 @@ public class NativeDataView extends NativeArrayBufferView {
                     if (pos + bytes > byteLength) {
                         throw ScriptRuntime.rangeError("offset out of range");
                     }
-                    ByteIo.writeInt32(arrayBuffer.buffer, offset + pos, value, littleEndian);
+                    data.putInt(offset + pos, value);
                 } else {
                     long value = Conversions.toUint32(val);
                     if (pos + bytes > byteLength) {
                         throw ScriptRuntime.rangeError("offset out of range");
                     }
-                    ByteIo.writeUint32(arrayBuffer.buffer, offset + pos, value, littleEndian);
+                    data.putInt(offset + pos, (int) value);
                 }
                 break;
             default:
@@ -225,6 +230,7 @@ public class NativeDataView extends NativeArrayBufferView {
         }
 
         boolean littleEndian = isArg(args, 2) && (bytes > 1) && ScriptRuntime.toBoolean(args[2]);
+        ByteBuffer data = arrayBuffer.data(littleEndian);
 
         double val = Double.NaN;
         if (args.length > 1) {
@@ -237,10 +243,10 @@ public class NativeDataView extends NativeArrayBufferView {
 
         switch (bytes) {
             case 4:
-                ByteIo.writeFloat32(arrayBuffer.buffer, offset + pos, val, littleEndian);
+                data.putFloat(offset + pos, (float) val);
                 break;
             case 8:
-                ByteIo.writeFloat64(arrayBuffer.buffer, offset + pos, val, littleEndian);
+                data.putDouble(offset + pos, val);
                 break;
             default:
                 throw new AssertionError();
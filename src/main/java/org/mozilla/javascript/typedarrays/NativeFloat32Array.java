@@ -74,8 +74,17 @@ public class NativeFloat32Array extends NativeTypedArrayView<Float> {
         if (checkIndex(index)) {
             return Undefined.instance;
         }
-        return ByteIo.readFloat32(
-                arrayBuffer.buffer, (index * BYTES_PER_ELEMENT) + offset, useLittleEndian());
+        return Float.valueOf(byteBuffer().getFloat((index * BYTES_PER_ELEMENT) + offset));
+    }
+
+    @Override
+    double getDouble(int index) {
+        return byteBuffer().getFloat((index * BYTES_PER_ELEMENT) + offset);
+    }
+
+    @Override
+    void setDouble(int index, double value) {
+        byteBuffer().putFloat((index * BYTES_PER_ELEMENT) + offset, (float) value);
     }
 
     @Override
@@ -84,8 +93,7 @@ public class NativeFloat32Array extends NativeTypedArrayView<Float> {
             return Undefined.instance;
         }
         double val = ScriptRuntime.toNumber(c);
-        ByteIo.writeFloat32(
-                arrayBuffer.buffer, (index * BYTES_PER_ELEMENT) + offset, val, useLittleEndian());
+        byteBuffer().putFloat((index * BYTES_PER_ELEMENT) + offset, (float) val);
         return null;
     }
 
@@ -74,12 +74,17 @@ public class NativeFloat64Array extends NativeTypedArrayView<Double> {
         if (checkIndex(index)) {
             return Undefined.instance;
         }
-        long base =
-                ByteIo.readUint64Primitive(
-                        arrayBuffer.buffer,
-                        (index * BYTES_PER_ELEMENT) + offset,
-                        useLittleEndian());
-        return Double.valueOf(Double.longBitsToDouble(base));
+        return Double.valueOf(byteBuffer().getDouble((index * BYTES_PER_ELEMENT) + offset));
+    }
+
+    @Override
+    double getDouble(int index) {
+        return byteBuffer().getDouble((index * BYTES_PER_ELEMENT) + offset);
+    }
+
+    @Override
+    void setDouble(int index, double value) {
+        byteBuffer().putDouble((index * BYTES_PER_ELEMENT) + offset, value);
     }
 
     @Override
@@ -88,9 +93,7 @@ public class NativeFloat64Array extends NativeTypedArrayView<Double> {
             return Undefined.instance;
         }
         double val = ScriptRuntime.toNumber(c);
-        long base = Double.doubleToLongBits(val);
-        ByteIo.writeUint64(
-                arrayBuffer.buffer, (index * BYTES_PER_ELEMENT) + offset, base, useLittleEndian());
+        byteBuffer().putDouble((index * BYTES_PER_ELEMENT) + offset, val);
         return null;
     }
 
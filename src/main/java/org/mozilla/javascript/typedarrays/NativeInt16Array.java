@@ -73,8 +73,17 @@ public class NativeInt16Array extends NativeTypedArrayView<Short> {
         if (checkIndex(index)) {
             return Undefined.instance;
         }
-        return ByteIo.readInt16(
-                arrayBuffer.buffer, (index * BYTES_PER_ELEMENT) + offset, useLittleEndian());
+        return Short.valueOf(byteBuffer().getShort((index * BYTES_PER_ELEMENT) + offset));
+    }
+
+    @Override
+    double getDouble(int index) {
+        return byteBuffer().getShort((index * BYTES_PER_ELEMENT) + offset);
+    }
+
+    @Override
+    void setDouble(int index, double value) {
+        byteBuffer().putShort((index * BYTES_PER_ELEMENT) + offset, (short) value);
     }
 
     @Override
@@ -83,8 +92,7 @@ public class NativeInt16Array extends NativeTypedArrayView<Short> {
             return Undefined.instance;
         }
         int val = Conversions.toInt16(c);
-        ByteIo.writeInt16(
-                arrayBuffer.buffer, (index * BYTES_PER_ELEMENT) + offset, val, useLittleEndian());
+        byteBuffer().putShort((index * BYTES_PER_ELEMENT) + offset, (short) val);
         return null;
     }
 
@@ -74,8 +74,17 @@ public class NativeInt32Array extends NativeTypedArrayView<Integer> {
         if (checkIndex(index)) {
             return Undefined.instance;
         }
-        return ByteIo.readInt32(
-                arrayBuffer.buffer, (index * BYTES_PER_ELEMENT) + offset, useLittleEndian());
+        return Integer.valueOf(byteBuffer().getInt((index * BYTES_PER_ELEMENT) + offset));
+    }
+
+    @Override
+    double getDouble(int index) {
+        return byteBuffer().getInt((index * BYTES_PER_ELEMENT) + offset);
+    }
+
+    @Override
+    void setDouble(int index, double value) {
+        byteBuffer().putInt((index * BYTES_PER_ELEMENT) + offset, (int) value);
     }
 
     @Override
@@ -83,9 +92,8 @@ public class NativeInt32Array extends NativeTypedArrayView<Integer> {
         if (checkIndex(index)) {
             return Undefined.instance;
         }
-        int val = ScriptRuntime.toInt32(c);
-        ByteIo.writeInt32(
-                arrayBuffer.buffer, (index * BYTES_PER_ELEMENT) + offset, val, useLittleEndian());
+        int val = Conversions.toInt32(c);
+        byteBuffer().putInt((index * BYTES_PER_ELEMENT) + offset, val);
         return null;
     }
 
@@ -72,7 +72,17 @@ public class NativeInt8Array extends NativeTypedArrayView<Byte> {
         if (checkIndex(index)) {
             return Undefined.instance;
         }
-        return ByteIo.readInt8(arrayBuffer.buffer, index + offset);
+        return Byte.valueOf(byteBuffer().get(index + offset));
+    }
+
+    @Override
+    double getDouble(int index) {
+        return byteBuffer().get(index + offset);
+    }
+
+    @Override
+    void setDouble(int index, double value) {
+        byteBuffer().put(index + offset, (byte) value);
     }
 
     @Override
@@ -81,7 +91,7 @@ public class NativeInt8Array extends NativeTypedArrayView<Byte> {
             return Undefined.instance;
         }
         int val = Conversions.toInt8(c);
-        ByteIo.writeInt8(arrayBuffer.buffer, index + offset, val);
+        byteBuffer().put(index + offset, (byte) val);
         return null;
     }
 
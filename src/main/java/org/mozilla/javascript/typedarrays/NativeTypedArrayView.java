@@ -7,12 +7,15 @@
 package org.mozilla.javascript.typedarrays;
 
 import java.lang.reflect.Array;
+import java.math.BigInteger;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Optional;
 import java.util.RandomAccess;
+import org.mozilla.javascript.Callable;
 import org.mozilla.javascript.Context;
 import org.mozilla.javascript.ExternalArrayData;
 import org.mozilla.javascript.IdFunctionObject;
@@ -21,6 +24,7 @@ import org.mozilla.javascript.NativeArrayIterator;
 import org.mozilla.javascript.NativeArrayIterator.ARRAY_ITERATOR_TYPE;
 import org.mozilla.javascript.ScriptRuntime;
 import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.Sorting;
 import org.mozilla.javascript.Symbol;
 import org.mozilla.javascript.SymbolKey;
 import org.mozilla.javascript.Undefined;
@@ -157,6 +161,22 @@ public abstract class NativeTypedArrayView<T> extends NativeArrayBufferView
 
     protected abstract Object js_set(int index, Object c);
 
+    /**
+     * Return the element at "index", which must be in range, as a number. The bulk methods use this
+     * instead of js_get so that they do not box every element.
+     */
+    double getDouble(int index) {
+        return ScriptRuntime.toNumber(js_get(index));
+    }
+
+    /**
+     * Store "value", which must be a number that getDouble returned for an array of this type, at
+     * "index", which must be in range.
+     */
+    void setDouble(int index, double value) {
+        js_set(index, Double.valueOf(value));
+    }
+
     protected abstract NativeTypedArrayView<T> realThis(Scriptable thisObj, IdFunctionObject f);
 
     private NativeArrayBuffer makeArrayBuffer(Context cx, Scriptable scope, int length) {
@@ -209,10 +229,10 @@ public abstract class NativeTypedArrayView<T> extends NativeArrayBufferView
                 byteLen = na.getLength() - byteOff;
             }
 
-            if ((byteOff < 0) || (byteOff > na.buffer.length)) {
+            if ((byteOff < 0) || (byteOff > na.getLength())) {
                 throw ScriptRuntime.rangeError("offset out of range");
             }
-            if ((byteLen < 0) || ((byteOff + byteLen) > na.buffer.length)) {
+            if ((byteLen < 0) || ((byteOff + byteLen) > na.getLength())) {
                 throw ScriptRuntime.rangeError("length out of range");
             }
             if ((byteOff % getBytesPerElement()) != 0) {
@@ -270,7 +290,12 @@ public abstract class NativeTypedArrayView<T> extends NativeArrayBufferView
             throw ScriptRuntime.rangeError("source array too long");
         }
 
-        if (v.arrayBuffer == arrayBuffer) {
+        if (v.getClass() == getClass()) {
+            // Same element type, so the bytes can be copied as they are, even if they overlap
+            int bytes = getBytesPerElement();
+            NativeArrayBuffer.copy(
+                    v.arrayBuffer, v.offset, arrayBuffer, offset + off * bytes, v.length * bytes);
+        } else if (v.arrayBuffer == arrayBuffer) {
             // Copy to temporary space first, as per spec, to avoid messing up overlapping copies
             Object[] tmp = new Object[v.length];
             for (int i = 0; i < v.length; i++) {
@@ -333,6 +358,155 @@ public abstract class NativeTypedArrayView<T> extends NativeArrayBufferView
         return getProperty(thisObj, (int) k);
     }
 
+    /**
+     * Convert the relative index in args[i] as the Array methods do, and clamp it to the range
+     * from 0 to length.
+     */
+    private int toRelativeIndex(Object[] args, int i, int defaultIndex) {
+        if (!isArg(args, i)) {
+            return defaultIndex;
+        }
+        double index = ScriptRuntime.toInteger(args[i]);
+        if (index < 0) {
+            return (int) Math.max(0, length + index);
+        }
+        return (int) Math.min(index, length);
+    }
+
+    private Object js_fill(Object[] args) {
+        Object arg = args.length > 0 ? args[0] : Undefined.instance;
+        Double value = Double.valueOf(ScriptRuntime.toNumber(arg));
+        int start = toRelativeIndex(args, 1, 0);
+        int end = toRelativeIndex(args, 2, length);
+        if (start < end) {
+            // Store the first element, then copy it over the rest in ever larger blocks
+            js_set(start, value);
+            int from = offset + start * getBytesPerElement();
+            int total = (end - start) * getBytesPerElement();
+            for (int filled = getBytesPerElement(); filled < total; filled *= 2) {
+                int count = Math.min(filled, total - filled);
+                NativeArrayBuffer.copy(arrayBuffer, from, arrayBuffer, from + filled, count);
+            }
+        }
+        return this;
+    }
+
+    private Object js_copyWithin(Object[] args) {
+        int target = toRelativeIndex(args, 0, 0);
+        int start = toRelativeIndex(args, 1, 0);
+        int end = toRelativeIndex(args, 2, length);
+        int count = Math.min(end - start, length - target);
+        if (count > 0) {
+            int bytes = getBytesPerElement();
+            NativeArrayBuffer.copy(
+                    arrayBuffer,
+                    offset + start * bytes,
+                    arrayBuffer,
+                    offset + target * bytes,
+                    count * bytes);
+        }
+        return this;
+    }
+
+    private Object js_slice(Context cx, Scriptable scope, Object[] args) {
+        int start = toRelativeIndex(args, 0, 0);
+        int end = toRelativeIndex(args, 1, length);
+        int count = Math.max(0, end - start);
+        NativeTypedArrayView<?> result =
+                (NativeTypedArrayView<?>)
+                        cx.newObject(scope, getClassName(), new Object[] {Integer.valueOf(count)});
+        int bytes = getBytesPerElement();
+        NativeArrayBuffer.copy(
+                arrayBuffer,
+                offset + start * bytes,
+                result.arrayBuffer,
+                result.offset,
+                count * bytes);
+        return result;
+    }
+
+    /**
+     * Return the index of the first element from "from" on that is the same number as "value", or
+     * -1. NaN is found only if "sameValueZero" is set, as for includes.
+     */
+    private int indexOfNumber(Object value, int from, boolean sameValueZero) {
+        if (!(value instanceof Number) || value instanceof BigInteger) {
+            // The elements are all numbers
+            return -1;
+        }
+        double number = ((Number) value).doubleValue();
+        if (Double.isNaN(number)) {
+            if (sameValueZero) {
+                for (int i = from; i < length; i++) {
+                    if (Double.isNaN(getDouble(i))) {
+                        return i;
+                    }
+                }
+            }
+            return -1;
+        }
+        for (int i = from; i < length; i++) {
+            if (getDouble(i) == number) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private Object js_lastIndexOf(Object[] args) {
+        double from = length - 1;
+        if (args.length > 1) {
+            from = ScriptRuntime.toInteger(args[1]);
+            from = from < 0 ? length + from : Math.min(from, length - 1);
+        }
+        Object value = args.length > 0 ? args[0] : Undefined.instance;
+        if (value instanceof Number && !(value instanceof BigInteger)) {
+            double number = ((Number) value).doubleValue();
+            for (int i = (int) from; i >= 0; i--) {
+                if (getDouble(i) == number) {
+                    return ScriptRuntime.wrapInt(i);
+                }
+            }
+        }
+        return ScriptRuntime.wrapInt(-1);
+    }
+
+    private Object js_sort(Context cx, Scriptable scope, Object[] args) {
+        if (isArg(args, 0)) {
+            final Callable compareFunction = ScriptRuntime.getValueFunctionAndThis(args[0], cx);
+            final Scriptable funThis = ScriptRuntime.lastStoredScriptable(cx);
+            final Object[] cmpBuf = new Object[2];
+            Object[] working = new Object[length];
+            for (int i = 0; i < length; i++) {
+                working[i] = js_get(i);
+            }
+            Sorting.get()
+                    .hybridSort(
+                            working,
+                            (x, y) -> {
+                                cmpBuf[0] = x;
+                                cmpBuf[1] = y;
+                                Object ret = compareFunction.call(cx, scope, funThis, cmpBuf);
+                                double d = ScriptRuntime.toNumber(ret);
+                                return d < 0 ? -1 : (d > 0 ? 1 : 0);
+                            });
+            for (int i = 0; i < length; i++) {
+                js_set(i, working[i]);
+            }
+            return this;
+        }
+        // Numeric order, with -0 before +0 and NaN last, is the order of Arrays.sort
+        double[] working = new double[length];
+        for (int i = 0; i < length; i++) {
+            working[i] = getDouble(i);
+        }
+        Arrays.sort(working);
+        for (int i = 0; i < length; i++) {
+            setDouble(i, working[i]);
+        }
+        return this;
+    }
+
     // Dispatcher
 
     @Override
@@ -409,6 +583,33 @@ public abstract class NativeTypedArrayView<T> extends NativeArrayBufferView
                 }
                 throw ScriptRuntime.constructError("Error", "invalid arguments");
 
+            case Id_fill:
+                return realThis(thisObj, f).js_fill(args);
+
+            case Id_copyWithin:
+                return realThis(thisObj, f).js_copyWithin(args);
+
+            case Id_slice:
+                return realThis(thisObj, f).js_slice(cx, scope, args);
+
+            case Id_indexOf:
+            case Id_includes:
+                {
+                    NativeTypedArrayView<T> searchSelf = realThis(thisObj, f);
+                    int from = searchSelf.toRelativeIndex(args, 1, 0);
+                    Object value = args.length > 0 ? args[0] : Undefined.instance;
+                    if (id == Id_includes) {
+                        return Boolean.valueOf(searchSelf.indexOfNumber(value, from, true) >= 0);
+                    }
+                    return ScriptRuntime.wrapInt(searchSelf.indexOfNumber(value, from, false));
+                }
+
+            case Id_lastIndexOf:
+                return realThis(thisObj, f).js_lastIndexOf(args);
+
+            case Id_sort:
+                return realThis(thisObj, f).js_sort(cx, scope, args);
+
             case SymbolId_iterator:
                 return new NativeArrayIterator(scope, thisObj, ARRAY_ITERATOR_TYPE.VALUES);
         }
@@ -449,6 +650,34 @@ public abstract class NativeTypedArrayView<T> extends NativeArrayBufferView
                 arity = 1;
                 s = "at";
                 break;
+            case Id_fill:
+                arity = 1;
+                s = "fill";
+                break;
+            case Id_copyWithin:
+                arity = 2;
+                s = "copyWithin";
+                break;
+            case Id_slice:
+                arity = 2;
+                s = "slice";
+                break;
+            case Id_indexOf:
+                arity = 1;
+                s = "indexOf";
+                break;
+            case Id_lastIndexOf:
+                arity = 1;
+                s = "lastIndexOf";
+                break;
+            case Id_includes:
+                arity = 1;
+                s = "includes";
+                break;
+            case Id_sort:
+                arity = 1;
+                s = "sort";
+                break;
             default:
                 throw new IllegalArgumentException(String.valueOf(id));
         }
@@ -485,6 +714,27 @@ public abstract class NativeTypedArrayView<T> extends NativeArrayBufferView
             case "at":
                 id = Id_at;
                 break;
+            case "fill":
+                id = Id_fill;
+                break;
+            case "copyWithin":
+                id = Id_copyWithin;
+                break;
+            case "slice":
+                id = Id_slice;
+                break;
+            case "indexOf":
+                id = Id_indexOf;
+                break;
+            case "lastIndexOf":
+                id = Id_lastIndexOf;
+                break;
+            case "includes":
+                id = Id_includes;
+                break;
+            case "sort":
+                id = Id_sort;
+                break;
             default:
                 id = 0;
                 break;
@@ -499,7 +749,14 @@ public abstract class NativeTypedArrayView<T> extends NativeArrayBufferView
             Id_set = 4,
             Id_subarray = 5,
             Id_at = 6,
-            SymbolId_iterator = 7;
+            Id_fill = 7,
+            Id_copyWithin = 8,
+            Id_slice = 9,
+            Id_indexOf = 10,
+            Id_lastIndexOf = 11,
+            Id_includes = 12,
+            Id_sort = 13,
+            SymbolId_iterator = 14;
 
     protected static final int MAX_PROTOTYPE_ID = SymbolId_iterator;
 
@@ -73,8 +73,18 @@ public class NativeUint16Array extends NativeTypedArrayView<Integer> {
         if (checkIndex(index)) {
             return Undefined.instance;
         }
-        return ByteIo.readUint16(
-                arrayBuffer.buffer, (index * BYTES_PER_ELEMENT) + offset, useLittleEndian());
+        return Integer.valueOf(
+                byteBuffer().getShort((index * BYTES_PER_ELEMENT) + offset) & 0xffff);
+    }
+
+    @Override
+    double getDouble(int index) {
+        return byteBuffer().getShort((index * BYTES_PER_ELEMENT) + offset) & 0xffff;
+    }
+
+    @Override
+    void setDouble(int index, double value) {
+        byteBuffer().putShort((index * BYTES_PER_ELEMENT) + offset, (short) value);
     }
 
     @Override
@@ -83,8 +93,7 @@ public class NativeUint16Array extends NativeTypedArrayView<Integer> {
             return Undefined.instance;
         }
         int val = Conversions.toUint16(c);
-        ByteIo.writeUint16(
-                arrayBuffer.buffer, (index * BYTES_PER_ELEMENT) + offset, val, useLittleEndian());
+        byteBuffer().putShort((index * BYTES_PER_ELEMENT) + offset, (short) val);
         return null;
     }
 
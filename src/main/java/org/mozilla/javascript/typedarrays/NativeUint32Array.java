@@ -73,8 +73,18 @@ public class NativeUint32Array extends NativeTypedArrayView<Long> {
         if (checkIndex(index)) {
             return Undefined.instance;
         }
-        return ByteIo.readUint32(
-                arrayBuffer.buffer, (index * BYTES_PER_ELEMENT) + offset, useLittleEndian());
+        return Long.valueOf(
+                byteBuffer().getInt((index * BYTES_PER_ELEMENT) + offset) & 0xffffffffL);
+    }
+
+    @Override
+    double getDouble(int index) {
+        return byteBuffer().getInt((index * BYTES_PER_ELEMENT) + offset) & 0xffffffffL;
+    }
+
+    @Override
+    void setDouble(int index, double value) {
+        byteBuffer().putInt((index * BYTES_PER_ELEMENT) + offset, (int) (long) value);
     }
 
     @Override
@@ -83,8 +93,7 @@ public class NativeUint32Array extends NativeTypedArrayView<Long> {
             return Undefined.instance;
         }
         long val = Conversions.toUint32(c);
-        ByteIo.writeUint32(
-                arrayBuffer.buffer, (index * BYTES_PER_ELEMENT) + offset, val, useLittleEndian());
+        byteBuffer().putInt((index * BYTES_PER_ELEMENT) + offset, (int) val);
         return null;
     }
 
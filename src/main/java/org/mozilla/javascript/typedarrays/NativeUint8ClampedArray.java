@@ -74,7 +74,17 @@ public class NativeUint8ClampedArray extends NativeTypedArrayView<Integer> {
         if (checkIndex(index)) {
             return Undefined.instance;
         }
-        return ByteIo.readUint8(arrayBuffer.buffer, index + offset);
+        return Integer.valueOf(byteBuffer().get(index + offset) & 0xff);
+    }
+
+    @Override
+    double getDouble(int index) {
+        return byteBuffer().get(index + offset) & 0xff;
+    }
+
+    @Override
+    void setDouble(int index, double value) {
+        byteBuffer().put(index + offset, (byte) value);
     }
 
     @Override
@@ -83,7 +93,7 @@ public class NativeUint8ClampedArray extends NativeTypedArrayView<Integer> {
             return Undefined.instance;
         }
         int val = Conversions.toUint8Clamp(c);
-        ByteIo.writeUint8(arrayBuffer.buffer, index + offset, val);
+        byteBuffer().put(index + offset, (byte) val);
         return null;
     }
 
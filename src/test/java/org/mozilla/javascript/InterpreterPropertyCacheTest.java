@@ -0,0 +1,95 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * A GETPROP site of the interpreter is quickened once it has a cache entry, keeps entries for a
+ * few receiver layouts, and goes back to the normal lookup once it has missed too often.
+ */
+public class InterpreterPropertyCacheTest {
+    private Context cx;
+    private Scriptable scope;
+
+    @Before
+    public void setUp() {
+        cx = Context.enter();
+        cx.setOptimizationLevel(-1);
+        scope = cx.initStandardObjects();
+    }
+
+    @After
+    public void tearDown() {
+        Context.exit();
+    }
+
+    /** Compile "get", whose GETPROP is not part of a superinstruction, and return its code. */
+    private InterpreterData compileGetter() {
+        InterpretedFunction script =
+                (InterpretedFunction)
+                        cx.compileString(
+                                "function get(a) { return a[0].x; }", "test", 1, null);
+        script.exec(cx, scope);
+        return script.idata.itsNestedFunctions[0];
+    }
+
+    private Object eval(String source) {
+        return cx.evaluateString(scope, source, "test", 1, null);
+    }
+
+    private static int countCachedSites(InterpreterData idata) {
+        byte[] iCode = idata.itsICode;
+        int count = 0;
+        for (int pc = 0; pc != iCode.length; pc += Interpreter.bytecodeSpan(iCode[pc])) {
+            if (iCode[pc] == Icode.Icode_GETPROP_CACHED) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Test
+    public void quickensAfterAnUncacheableFirstReceiver() {
+        InterpreterData idata = compileGetter();
+        assertEquals(1, idata.itsPropertyCaches.length);
+        eval("get(['primitive']); get([{x: 0}]);");
+        assertEquals(1, countCachedSites(idata));
+        assertEquals(7.0, eval("get([{x: 7}])"));
+    }
+
+    @Test
+    public void keepsEntriesForSeveralLayouts() {
+        InterpreterData idata = compileGetter();
+        Object result =
+                eval(
+                        "var objs = [{x: 1}, {a: 0, x: 2}, {b: 0, x: 3}];\n"
+                                + "var s = 0;\n"
+                                + "for (var i = 0; i < 300; i++) s += get([objs[i % 3]]);\n"
+                                + "s");
+        assertEquals(600.0, ((Number) result).doubleValue(), 0.0);
+        assertEquals(1, countCachedSites(idata));
+    }
+
+    @Test
+    public void stopsCachingWhenMegamorphic() {
+        InterpreterData idata = compileGetter();
+        Object result =
+                eval(
+                        "var objs = [];\n"
+                                + "for (var k = 0; k < 20; k++) {\n"
+                                + "  var o = {}; o['k' + k] = 0; o.x = 1; objs.push(o);\n"
+                                + "}\n"
+                                + "var s = 0;\n"
+                                + "for (var i = 0; i < 200; i++) s += get([objs[i % 20]]);\n"
+                                + "s");
+        assertEquals(200.0, ((Number) result).doubleValue(), 0.0);
+        assertEquals(0, countCachedSites(idata));
+    }
+}
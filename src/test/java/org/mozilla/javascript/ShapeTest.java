@@ -0,0 +1,57 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+/** Transitions between shapes are shared, bounded below the root, and never keep shapes alive. */
+public class ShapeTest {
+
+    @Test
+    public void rootAcceptsManyFirstKeys() {
+        List<Shape> live = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            Shape shape = Shape.EMPTY.addProperty("rootAcceptsManyFirstKeys" + i);
+            assertNotNull(shape);
+            live.add(shape);
+        }
+        assertSame(live.get(7), Shape.EMPTY.addProperty("rootAcceptsManyFirstKeys7"));
+    }
+
+    @Test
+    public void otherShapesLimitTransitions() {
+        Shape parent = Shape.EMPTY.addProperty("otherShapesLimitTransitions");
+        List<Shape> live = new ArrayList<>();
+        Shape refused = null;
+        for (int i = 0; i < 100 && refused == null; i++) {
+            Shape shape = parent.addProperty("k" + i);
+            if (shape == null) {
+                refused = parent;
+            } else {
+                live.add(shape);
+            }
+        }
+        assertNotNull("a shape with many live children refuses new ones", refused);
+    }
+
+    @Test
+    public void firstTransitionIsCollectable() throws InterruptedException {
+        Shape parent = Shape.EMPTY.addProperty("firstTransitionIsCollectable");
+        WeakReference<Shape> child = new WeakReference<>(parent.addProperty("first"));
+        for (int i = 0; i < 20 && child.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(child.get());
+        assertNotNull(parent.addProperty("first"));
+    }
+}
@@ -0,0 +1,80 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript.optimizer;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import org.junit.Test;
+import org.mozilla.javascript.CompilerEnvirons;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.IRFactory;
+import org.mozilla.javascript.Parser;
+import org.mozilla.javascript.ast.FunctionNode;
+import org.mozilla.javascript.ast.ScriptNode;
+
+/**
+ * A "for" loop counter that is only incremented while it is below an int32 bound cannot overflow,
+ * so the optimizer keeps it in an int local.
+ */
+public class BoundedCounterTest {
+
+    /** Compile the function "f" in "source" and return whether its variable "i" is an int32. */
+    private static boolean counterIsInt32(String source) {
+        CompilerEnvirons env = new CompilerEnvirons();
+        env.setOptimizationLevel(9);
+        env.setLanguageVersion(Context.VERSION_ES6);
+        ScriptNode tree = new IRFactory(env).transformTree(new Parser(env).parse(source, "t", 1));
+        new Codegen().compileToClassFile(env, "BoundedCounter", tree, "", false);
+        FunctionNode fn = tree.getFunctionNode(0);
+        int varIndex = Arrays.asList(fn.getParamAndVarNames()).indexOf("i");
+        return OptFunctionNode.get(tree, 0).isInt32Var(varIndex);
+    }
+
+    @Test
+    public void int32BoundKeepsCounterInt32() {
+        assertTrue(
+                counterIsInt32(
+                        "function f(n) { var m = n | 0, s = 0;\n"
+                                + "  for (var i = 0; i < m; i++) {\n"
+                                + "    if (i == 3) continue; s += i;\n"
+                                + "  }\n"
+                                + "  return s; }"));
+        assertTrue(
+                counterIsInt32(
+                        "function f(n) { var m = n | 0, s = 0;\n"
+                                + "  for (let i = 0; m > i; i++) s += i; return s; }"));
+        assertTrue(
+                counterIsInt32(
+                        "function f() { for (var i = 0; i < 2147483647; i++) {} return i; }"));
+    }
+
+    @Test
+    public void otherCountersStayNumbers() {
+        // the bound may be any value
+        assertFalse(
+                counterIsInt32(
+                        "function f(n) { var s = 0;\n"
+                                + "  for (var i = 0; i < n; i++) s += i; return s; }"));
+        // "i <= m" lets i reach m + 1
+        assertFalse(
+                counterIsInt32(
+                        "function f(n) { var m = n | 0, s = 0;\n"
+                                + "  for (var i = 0; i <= m; i++) s += i; return s; }"));
+        // the body moves i past the checked value
+        assertFalse(
+                counterIsInt32(
+                        "function f(n) { var m = n | 0, s = 0;\n"
+                                + "  for (var i = 0; i < m; i++) { i = i + 2; s += i; }\n"
+                                + "  return s; }"));
+        // a bound that becomes a number later
+        assertFalse(
+                counterIsInt32(
+                        "function f(n) { var m = n | 0, s = 0;\n"
+                                + "  for (var i = 0; i < m; i++) { m = m * 1.5; s += i; }\n"
+                                + "  return s; }"));
+    }
+}
@@ -0,0 +1,137 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript.tests;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import org.junit.Test;
+import org.mozilla.javascript.CodeCache;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.Function;
+import org.mozilla.javascript.Script;
+import org.mozilla.javascript.ScriptableObject;
+
+import junit.framework.TestCase;
+
+/**
+ * Scripts loaded from a code cache must behave the same as freshly compiled ones, and damaged
+ * entries must be ignored.
+ */
+public class CodeCacheTest extends TestCase {
+
+    private static final String SCRIPT =
+            "function f(n) { var a = []; for (var i = 0; i < n; i++) a.push(i * i); return a; }\n"
+                    + "var re = /b+/g, t = `x${1 + 1}`;\n"
+                    + "f(5).join() + '|' + 'abbcb'.replace(re, '-') + '|' + t + '|'\n"
+                    + "  + 12345678901234567890n";
+
+    private static final String EXPECTED = "0,1,4,9,16|a-c-|x2|12345678901234567890";
+
+    private File directory;
+
+    @Override
+    protected void setUp() throws IOException {
+        directory = Files.createTempDirectory("rhino-code-cache").toFile();
+    }
+
+    @Override
+    protected void tearDown() {
+        new CodeCache(directory).clear();
+        directory.delete();
+    }
+
+    private File[] entries() {
+        File[] files = directory.listFiles();
+        return files == null ? new File[0] : files;
+    }
+
+    @Test
+    public void testScripts() {
+        Utils.runWithAllOptimizationLevels(cx -> {
+            int languageVersion = cx.getLanguageVersion();
+            cx.setLanguageVersion(Context.VERSION_ES6);
+            cx.setCodeCache(new CodeCache(directory));
+            try {
+                for (int i = 0; i < 3; i++) {
+                    Script script = cx.compileString(SCRIPT, "cached", 1, null);
+                    ScriptableObject scope = cx.initStandardObjects();
+                    assertEquals(EXPECTED, Context.toString(script.exec(cx, scope)));
+                    assertEquals(1, entries().length);
+                }
+                cx.compileString(SCRIPT, "other", 1, null);
+                assertEquals(2, entries().length);
+            } finally {
+                cx.setCodeCache(null);
+                cx.setLanguageVersion(languageVersion);
+                new CodeCache(directory).clear();
+            }
+            return null;
+        });
+    }
+
+    @Test
+    public void testCompiledClassIsReused() {
+        Utils.runWithOptimizationLevel(cx -> {
+            int languageVersion = cx.getLanguageVersion();
+            cx.setLanguageVersion(Context.VERSION_ES6);
+            cx.setCodeCache(new CodeCache(directory));
+            try {
+                Script first = cx.compileString(SCRIPT, "cached", 1, null);
+                Script second = cx.compileString(SCRIPT, "cached", 1, null);
+                assertNotSame(first.getClass(), second.getClass());
+                assertEquals(first.getClass().getName(), second.getClass().getName());
+            } finally {
+                cx.setCodeCache(null);
+                cx.setLanguageVersion(languageVersion);
+            }
+            return null;
+        }, 9);
+    }
+
+    @Test
+    public void testFunctions() {
+        Utils.runWithAllOptimizationLevels(cx -> {
+            cx.setCodeCache(new CodeCache(directory));
+            try {
+                ScriptableObject scope = cx.initStandardObjects();
+                for (int i = 0; i < 2; i++) {
+                    Function f =
+                            cx.compileFunction(
+                                    scope, "function sq(x) { return x * x; }", "fn", 1, null);
+                    assertEquals(
+                            "49", Context.toString(f.call(cx, scope, scope, new Object[] {7})));
+                }
+            } finally {
+                cx.setCodeCache(null);
+                new CodeCache(directory).clear();
+            }
+            return null;
+        });
+    }
+
+    @Test
+    public void testDamagedEntries() throws IOException {
+        Context cx = Context.enter();
+        int optimizationLevel = cx.getOptimizationLevel();
+        try {
+            cx.setOptimizationLevel(0);
+            cx.setCodeCache(new CodeCache(directory));
+            cx.compileString("1 + 1", "damaged", 1, null);
+            File[] files = entries();
+            assertEquals(1, files.length);
+            Files.write(files[0].toPath(), "garbage".getBytes(StandardCharsets.UTF_8));
+
+            Script script = cx.compileString("1 + 1", "damaged", 1, null);
+            assertEquals("2", Context.toString(script.exec(cx, cx.initStandardObjects())));
+            assertTrue(files[0].length() > "garbage".length());
+        } finally {
+            cx.setCodeCache(null);
+            cx.setOptimizationLevel(optimizationLevel);
+            Context.exit();
+        }
+    }
+}
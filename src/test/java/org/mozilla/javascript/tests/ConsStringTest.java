@@ -1,6 +1,8 @@
 package org.mozilla.javascript.tests;
 
 import org.mozilla.javascript.ConsString;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.Scriptable;
 
 import junit.framework.TestCase;
 
@@ -43,4 +45,149 @@ public class ConsStringTest extends TestCase {
             recurseAndAppend(depth-1);
         }
     }
+
+    public void testRopeOperations() {
+        // Pieces of different lengths, so that both regrouping and joining happen
+        StringBuilder expected = new StringBuilder();
+        CharSequence appended = "";
+        CharSequence prepended = "";
+        for (int i = 0; i < 2000; i++) {
+            String piece = (i % 7 == 0) ? "piece-" + i + "-" + expected.length() : "" + i;
+            expected.append(piece);
+            appended = new ConsString(appended, piece);
+            prepended = new ConsString(piece, prepended);
+        }
+        String flat = expected.toString();
+        String reversed = reversePieces(2000);
+        assertRope(flat, (ConsString) appended);
+        assertRope(reversed, (ConsString) prepended);
+        assertEquals(flat, appended.toString());
+        assertEquals(reversed, prepended.toString());
+        // Once flattened, the same answers come from the String
+        assertRope(flat, (ConsString) appended);
+        assertRope(reversed, (ConsString) prepended);
+    }
+
+    private static String reversePieces(int count) {
+        StringBuilder expected = new StringBuilder();
+        int length = 0;
+        for (int i = 0; i < count; i++) {
+            String piece = (i % 7 == 0) ? "piece-" + i + "-" + length : "" + i;
+            expected.insert(0, piece);
+            length += piece.length();
+        }
+        return expected.toString();
+    }
+
+    private static void assertRope(String expected, ConsString rope) {
+        int length = expected.length();
+        assertEquals(length, rope.length());
+        for (int i = 0; i < length; i += 97) {
+            assertEquals(expected.charAt(i), rope.charAt(i));
+            int end = Math.min(length, i + 13);
+            assertEquals(expected.substring(i, end), rope.subSequence(i, end).toString());
+            String region = expected.substring(i, end);
+            assertTrue(rope.regionMatches(i, region));
+            assertFalse(rope.regionMatches(i + 1, region + "?"));
+        }
+        assertTrue(rope.regionMatches(0, expected));
+        assertTrue(rope.regionMatches(length, ""));
+        assertFalse(rope.regionMatches(-1, ""));
+        assertFalse(rope.regionMatches(length - 1, "xx"));
+    }
+
+    public void testSubSequenceAcrossComponents() {
+        ConsString current = new ConsString(new ConsString("c", "0"), new ConsString("a", "b"));
+        assertEquals("0a", current.subSequence(1, 3).toString());
+        current = new ConsString("c", new ConsString("0", new ConsString("a", "b")));
+        assertEquals("0a", current.subSequence(1, 3).toString());
+        assertEquals("ab", current.subSequence(2, 4).toString());
+    }
+
+    public void testAppendInPlace() {
+        CharSequence current = "";
+        StringBuilder expected = new StringBuilder();
+        CharSequence[] kept = new CharSequence[10];
+        String[] keptExpected = new String[10];
+        for (int i = 0; i < 10000; i++) {
+            String piece = "<" + i + ">";
+            current = new ConsString(current, piece);
+            expected.append(piece);
+            if (i % 1000 == 500) {
+                kept[i / 1000] = current;
+                keptExpected[i / 1000] = expected.toString();
+            }
+        }
+        assertEquals(expected.toString(), current.toString());
+        for (int i = 0; i < kept.length; i++) {
+            // Appending to an older string leaves the newer ones alone, and the other way round
+            CharSequence forked = new ConsString(kept[i], "fork");
+            assertEquals(keptExpected[i] + "fork", forked.toString());
+            assertEquals(keptExpected[i], kept[i].toString());
+            assertRope(keptExpected[i], (ConsString) kept[i]);
+        }
+        assertEquals(expected.toString(), current.toString());
+
+        CharSequence doubled = new ConsString(current, current);
+        assertEquals(expected.toString() + expected, doubled.toString());
+    }
+
+    public void testWideCharacters() {
+        // Latin-1 pieces first, so that the buffer has to switch to chars
+        CharSequence current = "";
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 3000; i++) {
+            String piece = i == 1500 ? "\u20ac" : (i % 100 == 0 ? "\u00e9" : "a" + i);
+            current = new ConsString(current, piece);
+            expected.append(piece);
+            if (i == 1000) {
+                assertEquals(expected.toString(), current.toString());
+            }
+        }
+        assertRope(expected.toString(), (ConsString) current);
+        assertEquals(expected.toString(), current.toString());
+
+        CharSequence mixed = new ConsString(new ConsString("\u00ff", "\u0100"), "x");
+        assertEquals("\u00ff\u0100x", mixed.toString());
+    }
+
+    public void testAppendInPlaceScript() {
+        Utils.runWithAllOptimizationLevels(cx -> {
+            Scriptable scope = cx.initStandardObjects();
+            String script =
+                    "var s = '', t;\n"
+                            + "for (var i = 0; i < 1000; i++) {\n"
+                            + "  s += i % 10;\n"
+                            + "  if (i == 500) t = s;\n"
+                            + "}\n"
+                            + "t += '!';\n"
+                            + "[s.length, t.length, s.charAt(501), t.charAt(501),\n"
+                            + " s.endsWith('789'), t.endsWith('0!')].join()";
+            Object result = cx.evaluateString(scope, script, "test", 1, null);
+            assertEquals("1000,502,1,!,true,true", Context.toString(result));
+            return null;
+        });
+    }
+
+    public void testStartsWithEndsWith() {
+        Utils.runWithAllOptimizationLevels(cx -> {
+            Scriptable scope = cx.initStandardObjects();
+            String script =
+                    "var s = '';\n"
+                            + "for (var i = 0; i < 100; i++) { s += '<' + i + '>'; }\n"
+                            + "[s.startsWith('<0><1>'), s.startsWith('<1>'),\n"
+                            + " s.startsWith('<1>', 3), s.endsWith('<99>'), s.endsWith('<98>'),\n"
+                            + " s.endsWith('<98>', s.length - 4), s.endsWith('<0>', 3),\n"
+                            + " s.endsWith('<0>', -1), s.startsWith('', 1000), s.endsWith(''),\n"
+                            + " s.startsWith('<99>', s.length - 4), s.endsWith('<99>', void 0),\n"
+                            + " s.includes('<50>'), s.at(-2),\n"
+                            + " JSON.stringify(s.substring(0, 6) + '\\n\\u0001\"')].join()";
+            Object result = cx.evaluateString(scope, script, "test", 1, null);
+            assertEquals(
+                    "true,false,true,true,false,true,true,false,true,true,true,true,true,9,"
+                            + "\"<0><1>\\n\\u0001\\\"\"",
+                    Context.toString(result));
+            return null;
+        });
+    }
 }
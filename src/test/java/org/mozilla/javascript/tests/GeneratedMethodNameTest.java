@@ -64,9 +64,15 @@ public class GeneratedMethodNameTest extends TestCase
     public class JavaNameGetter {
         public String readCurrentFunctionJavaName() {
             final Throwable t = new RuntimeException();
-            // remove prefix and suffix of method name
-            return t.getStackTrace()[8].getMethodName().
-                replaceFirst("_[^_]*_(.*)_[^_]*", "$1");
+            // find the caller in the generated code, however deep the Java call is,
+            // and remove prefix and suffix of method name
+            for (StackTraceElement element : t.getStackTrace()) {
+                if (element.getMethodName().startsWith("_c_")) {
+                    return element.getMethodName().
+                        replaceFirst("_[^_]*_(.*)_[^_]*", "$1");
+                }
+            }
+            return null;
         }
     }
 
@@ -0,0 +1,88 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript.tests;
+
+import org.junit.Test;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.ScriptableObject;
+
+import junit.framework.TestCase;
+
+/**
+ * The optimizer keeps variables that only hold int32 values in int locals and computes bitwise
+ * operations, comparisons and array indexes on them with int arithmetic; the results must be the
+ * same as with double arithmetic.
+ */
+public class Int32TypeTest extends TestCase {
+
+    private static void assertScript(final String expected, final String script) {
+        Utils.runWithAllOptimizationLevels(cx -> {
+            final ScriptableObject scope = cx.initStandardObjects();
+            final Object result = cx.evaluateString(scope, script, "test script", 0, null);
+            assertEquals(expected, Context.toString(result));
+            return null;
+        });
+    }
+
+    @Test
+    public void testOverflow() {
+        assertScript("-2147483648,-2,2147483647,-2147483648,1,Infinity",
+            "function f() {\n"
+            + "  var a = 2147483647; a = (a + 1) | 0;\n"
+            + "  var b = 2147483647; b = (b + b) | 0;\n"
+            + "  var c = -2147483648; c = (c - 1) | 0;\n"
+            + "  var d = 1; d = d << 31;\n"
+            + "  var e = 1; e = e << 32;\n"
+            + "  var z = -0; var g = z | 0;\n"
+            + "  return [a, b, c, d, e, 1 / g].join();\n"
+            + "}\n"
+            + "f()");
+    }
+
+    @Test
+    public void testConversions() {
+        assertScript("3,-3,12,2147483647,0,0,-1|number",
+            "function f(v) { var x = v | 0; x = x ^ 0; return x; }\n"
+            + "function t() { var x = 5; x = x & 3; return typeof x; }\n"
+            + "[f(3.7), f(-3.7), f('12'), f(-2147483649), f(NaN), f(undefined),\n"
+            + " f(4294967295)].join()"
+            + " + '|' + t()");
+    }
+
+    @Test
+    public void testLoopsAndIndexes() {
+        assertScript("-271563279,1295451602,1822342674,-1072039501,663572019,-1986853484,"
+                + "-1317296428,-1025517067|-2089775718|1,2",
+            "function f(n) {\n"
+            + "  var h = 0, t = 0, k = 0, a = [1, 2, 3, 4, 5, 6, 7, 8];\n"
+            + "  for (var i = 0; i < n; i++) {\n"
+            + "    h = (h * 31 + i) | 0; h = h ^ (h << 5);\n"
+            + "    t = (t + a[h & 7]) | 0;\n"
+            + "    a[k & 7] = h; a[k & 7] += 1;\n"
+            + "    k = (k + 1) | 0;\n"
+            + "  }\n"
+            + "  return a.join() + '|' + t;\n"
+            + "}\n"
+            + "function c(a, b) { var x = a | 0, y = b | 0, r = []; if (x < y) r.push(1);\n"
+            + "  if (y >= x) r.push(2); if (x > y) r.push(3); return r.join(); }\n"
+            + "f(1000) + '|' + c(-1, 1)");
+    }
+
+    @Test
+    public void testBoundedCounters() {
+        assertScript("45|45|3,2147483646,2147483647|2,3|0",
+            "function sum(n) { var m = n | 0, s = 0;\n"
+            + "  for (var i = 0; i < m; i++) s += i; return s; }\n"
+            + "function skip(n) { var m = n | 0, s = 0;\n"
+            + "  for (var i = 0; m > i; i++) { if (i == 0) continue; s += i; } return s; }\n"
+            + "function top() { var s = 0, t;\n"
+            + "  for (var i = 2147483644; i < 2147483647; i++) { s++; t = i; }\n"
+            + "  return [s, t, i].join(); }\n"
+            + "function values() { var m = 3, a = 0, b = 0;\n"
+            + "  for (var i = 0; i < m; i++) { a = i++; b = ++i; } return [a + b, i].join(); }\n"
+            + "function none() { var m = -5; for (var i = 0; i < m; i++) {} return i; }\n"
+            + "[sum(10), skip(10), top(), values(), none()].join('|')");
+    }
+}
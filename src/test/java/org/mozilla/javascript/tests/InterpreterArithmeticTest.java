@@ -0,0 +1,84 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript.tests;
+
+import org.junit.Test;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.ScriptableObject;
+
+import junit.framework.TestCase;
+
+/**
+ * Arithmetic on unboxed numbers takes shortcuts in the interpreter; the results must not depend
+ * on whether the operands were unboxed, boxed, BigInts or other values.
+ */
+public class InterpreterArithmeticTest extends TestCase {
+
+    private static final String OPERATORS =
+            "function ar(a, b) {\n"
+                    + "  return [a - b, a * b, a / b, a % b, a ** b, a & b, a | b, a ^ b,\n"
+                    + "    a << b, a >> b, a >>> b, ~a, -a, a < b, a >= b].join();\n"
+                    + "}\n";
+
+    private static void assertScript(final String expected, final String script) {
+        Utils.runWithAllOptimizationLevels(cx -> {
+            cx.setLanguageVersion(Context.VERSION_ES6);
+            final ScriptableObject scope = cx.initStandardObjects();
+            final Object result = cx.evaluateString(scope, script, "test script", 0, null);
+            assertEquals(expected, Context.toString(result));
+            return null;
+        });
+    }
+
+    @Test
+    public void testNumbers() {
+        assertScript("4,21,2.3333333333333335,1,343,3,7,4,56,0,0,-8,-7,false,true",
+            OPERATORS + "ar(7, 3)");
+        assertScript("-9.5,-15,-3.75,-1.5,56.25,0,-5,-5,-28,-2,1073741822,6,7.5,true,false",
+            OPERATORS + "ar(-7.5, 2)");
+        assertScript(
+            "2147483647,2147483648,2147483648,0,2147483648,0,-2147483647,-2147483647,0,"
+                + "-1073741824,1073741824,2147483647,-2147483648,false,true",
+            OPERATORS + "ar(2147483648, 1)");
+        assertScript("NaN,NaN,NaN,NaN,1,0,0,0,0,0,0,-1,NaN,false,false",
+            OPERATORS + "ar(NaN, 0)");
+    }
+
+    @Test
+    public void testBoxedNumbers() {
+        Utils.runWithAllOptimizationLevels(cx -> {
+            cx.setLanguageVersion(Context.VERSION_ES6);
+            final ScriptableObject scope = cx.initStandardObjects();
+            ScriptableObject.putProperty(scope, "i", Integer.valueOf(7));
+            ScriptableObject.putProperty(scope, "d", Double.valueOf(3));
+            final Object result = cx.evaluateString(scope, OPERATORS + "ar(i, d)", "test", 0, null);
+            assertEquals(
+                "4,21,2.3333333333333335,1,343,3,7,4,56,0,0,-8,-7,false,true",
+                Context.toString(result));
+            return null;
+        });
+    }
+
+    @Test
+    public void testOtherValues() {
+        assertScript("5,24,2.6666666666666665,2,512,0,11,11,64,1,1,-9,-8,false,true",
+            OPERATORS + "ar('8', 3)");
+        assertScript("5,0,Infinity,NaN,1,0,5,5,5,5,5,-6,-5,false,true",
+            OPERATORS + "ar(5, null)");
+        assertScript("4,21,2,1,3,56,-8,-7,false",
+            "function big(a, b) {\n"
+            + "  return [a - b, a * b, a / b, a % b, a & b, a << b, ~a, -a, a < b].join();\n"
+            + "}\n"
+            + "big(7n, 3n)");
+    }
+
+    @Test
+    public void testArrayIndexes() {
+        assertScript("1,x,3,,,6|1|||4",
+            "var a = [1, 2, 3]; a[1] = 'x'; a[5] = 6;\n"
+            + "function Sub() {} Sub.prototype = []; var s = new Sub(); s[0] = 4;\n"
+            + "[a.join(), a[-0], a[1.5], a[7], s[0]].join('|')");
+    }
+}
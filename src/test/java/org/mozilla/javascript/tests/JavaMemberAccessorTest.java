@@ -0,0 +1,117 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript.tests;
+
+import org.junit.Test;
+import org.mozilla.javascript.ClassCache;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.ScriptableObject;
+
+import junit.framework.TestCase;
+
+/**
+ * With accessor generation, the fields and bean properties of Java objects are read and written
+ * by a generated class instead of reflection; scripts must see the same values and errors.
+ */
+public class JavaMemberAccessorTest extends TestCase {
+
+    public interface Named {
+        String getName();
+    }
+
+    public static class Bean {
+        public int count = 1;
+        public double ratio = 0.5;
+        public boolean flag;
+        public char letter = 'a';
+        public long big = 1L << 40;
+        public String text = "text";
+        public int[] numbers = {1, 2};
+        public final int fixed = 7;
+        public static int shared = 3;
+        private String title = "title";
+        private boolean active;
+
+        public String getTitle() {
+            return title;
+        }
+
+        public void setTitle(String title) {
+            this.title = title;
+        }
+
+        public boolean isActive() {
+            return active;
+        }
+
+        public Bean setActive(boolean active) {
+            this.active = active;
+            return this;
+        }
+
+        public String getCaller() {
+            return new Throwable().getStackTrace()[1].getClassName();
+        }
+
+        public int getBroken() {
+            throw new IllegalStateException("broken");
+        }
+
+        public Named getNamed() {
+            return new HiddenNamed();
+        }
+    }
+
+    private static class HiddenNamed implements Named {
+        @Override
+        public String getName() {
+            return "hidden";
+        }
+    }
+
+    private static final String SCRIPT =
+            "var r = [];\n"
+                    + "for (var i = 0; i < 3; i++) {\n"
+                    + "  bean.count += 1; bean.ratio *= 2; bean.flag = !bean.flag;\n"
+                    + "  bean.letter = 'b';\n"
+                    + "  bean.big = 5; bean.text = 42; bean.numbers = [3, 4, 5]; bean.fixed = 8;\n"
+                    + "  bean.shared = 4; bean.title = 'x' + i; bean.active = true;\n"
+                    + "  var error;\n"
+                    + "  try { bean.broken; } catch (e) { error = e.javaException.getMessage(); }\n"
+                    + "  r = [bean.count, bean.ratio, bean.flag, bean.letter, bean.big,\n"
+                    + "       bean.text, bean.numbers.length, bean.fixed, bean.shared,\n"
+                    + "       bean.title, bean.active, bean.named.name, error];\n"
+                    + "}\n"
+                    + "r.join()";
+
+    private static final String EXPECTED = "4,4,true,98,5,42,3,7,4,x2,true,hidden,broken";
+
+    private void assertScript(boolean generate) {
+        Utils.runWithAllOptimizationLevels(cx -> {
+            ScriptableObject scope = cx.initStandardObjects();
+            ClassCache.get(scope).setAccessorGenerationEnabled(generate);
+            Bean.shared = 3;
+            Bean bean = new Bean();
+            ScriptableObject.putProperty(scope, "bean", Context.javaToJS(bean, scope));
+            Object result = cx.evaluateString(scope, SCRIPT, "test", 1, null);
+            assertEquals(EXPECTED, Context.toString(result));
+            assertEquals("text", new Bean().text);
+            String caller =
+                    Context.toString(cx.evaluateString(scope, "bean.caller", "test", 1, null));
+            assertEquals(generate, caller.startsWith("org.mozilla.javascript.gen.Accessor_"));
+            return null;
+        });
+    }
+
+    @Test
+    public void testReflection() {
+        assertScript(false);
+    }
+
+    @Test
+    public void testGeneratedAccessor() {
+        assertScript(true);
+    }
+}
@@ -0,0 +1,131 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript.tests;
+
+import org.junit.Test;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.ScriptableObject;
+
+import junit.framework.TestCase;
+
+/**
+ * Calls to Java methods are invoked through method handles, and compiled code links call sites
+ * directly to the method; the results and errors must be the same as before the call is linked.
+ */
+public class JavaMethodCallTest extends TestCase {
+
+    public static class Counter {
+        private int count;
+
+        public int add(int n) {
+            count += n;
+            return count;
+        }
+
+        public void reset() {
+            count = 0;
+        }
+
+        public String describe(String prefix, double value, boolean flag) {
+            return prefix + ':' + value + ':' + flag;
+        }
+
+        public Counter self() {
+            return this;
+        }
+
+        public static long twice(long n) {
+            return n * 2;
+        }
+
+        public int fail(String message) {
+            throw new IllegalStateException(message);
+        }
+
+        public String pick(int n) {
+            return "int";
+        }
+
+        public String pick(String s) {
+            return "String";
+        }
+
+        public String pick(Object o) {
+            return "Object";
+        }
+
+        public String pick(String s, int n) {
+            return "String,int";
+        }
+
+        public String pick(double d, int n) {
+            return "double,int";
+        }
+    }
+
+    private static final String SCRIPT =
+            "var r = [];\n"
+                    + "for (var i = 0; i < 20; i++) {\n"
+                    + "  counter.reset();\n"
+                    + "  var errors = [];\n"
+                    + "  try { counter.add(true, 1); }\n"
+                    + "  catch (e) { errors.push(e.message.split(' (')[0]); }\n"
+                    + "  try { counter.add(); }\n"
+                    + "  catch (e) { errors.push(e.message.split(' (')[0]); }\n"
+                    + "  try { counter.fail('bad'); }\n"
+                    + "  catch (e) { errors.push(e.javaException.getMessage()); }\n"
+                    + "  var derived = Object.create(counter);\n"
+                    + "  r = [counter.add(2), counter.add('3'), derived.add(1),\n"
+                    + "       counter.self() === counter, counter.describe('p', 1.5, true),\n"
+                    + "       Counter.twice(21), String(counter.reset()),\n"
+                    + "       typeof counter.add(0), errors.join(';')];\n"
+                    + "}\n"
+                    + "r.join('|')";
+
+    private static final String OVERLOADS =
+            "var values = [1, 'a', {}, counter, new java.lang.StringBuilder('b'), [], true];\n"
+                    + "var r = [];\n"
+                    + "for (var i = 0; i < 3 * values.length; i++) {\n"
+                    + "  var v = values[i % values.length];\n"
+                    + "  r.push(counter.pick(v), counter.pick(v, 2));\n"
+                    + "}\n"
+                    + "r.slice(-2 * values.length).join()";
+
+    @Test
+    public void testOverloads() {
+        Utils.runWithAllOptimizationLevels(cx -> {
+            ScriptableObject scope = cx.initStandardObjects();
+            ScriptableObject.putProperty(scope, "counter", Context.javaToJS(new Counter(), scope));
+            Object result = cx.evaluateString(scope, OVERLOADS, "test", 1, null);
+            assertEquals(
+                    "int,double,int,String,String,int,Object,String,int,Object,String,int,"
+                            + "Object,String,int,Object,String,int,Object,String,int",
+                    Context.toString(result));
+            return null;
+        });
+    }
+
+    @Test
+    public void testCalls() {
+        Utils.runWithAllOptimizationLevels(cx -> {
+            ScriptableObject scope = cx.initStandardObjects();
+            ScriptableObject.putProperty(scope, "counter", Context.javaToJS(new Counter(), scope));
+            ScriptableObject.putProperty(
+                    scope,
+                    "Counter",
+                    cx.getWrapFactory().wrapJavaClass(cx, scope, Counter.class));
+            Object result = cx.evaluateString(scope, SCRIPT, "test", 1, null);
+            String noSuchMethod = "Can't find method " + Counter.class.getName() + ".add";
+            assertEquals(
+                    "2|5|6|true|p:1.5:true|42|undefined|number|"
+                            + noSuchMethod
+                            + "(boolean,number).;"
+                            + noSuchMethod
+                            + "().;bad",
+                    Context.toString(result));
+            return null;
+        });
+    }
+}
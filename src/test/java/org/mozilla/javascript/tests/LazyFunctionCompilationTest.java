@@ -0,0 +1,179 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript.tests;
+
+import java.util.List;
+import java.util.function.Supplier;
+import org.junit.Test;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.EvaluatorException;
+import org.mozilla.javascript.Function;
+import org.mozilla.javascript.ScriptRuntime;
+import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.ScriptableObject;
+
+import junit.framework.TestCase;
+
+/**
+ * With lazy compilation, nested functions are compiled when they are first called; they must
+ * behave the same as functions compiled with their script.
+ */
+public class LazyFunctionCompilationTest extends TestCase {
+
+    private static final String SCRIPT =
+            "function outer(a) {\n"
+                    + "  var x = a * 2;\n"
+                    + "  function inner(b) { return x + b; }\n"
+                    + "  var expr = function (c) { return inner(c) + 1; };\n"
+                    + "  var named = function nm(k) { return k ? nm(k - 1) + 1 : 0; };\n"
+                    + "  function* gen() { yield x; yield x + 1; }\n"
+                    + "  { let y = 10; function inBlock() { return y; } x += inBlock(); }\n"
+                    + "  return [inner(1), expr(2), named(3), (() => x)(),"
+                    + " gen().next().value].join();\n"
+                    + "}\n"
+                    + "function defaults(a, b = 2, ...rest) { return a + b + rest.length; }\n"
+                    + "function thrower() {\n"
+                    + "  throw new Error('boom');\n"
+                    + "}\n"
+                    + "function unused() { return 'unused'; }\n"
+                    + "var line;\n"
+                    + "try { thrower(); } catch (e) { line = /:(\\d+)/.exec(e.stack)[1]; }\n"
+                    + "var o = { m() { return 'm'; }, f: function () { return this.m(); } };\n"
+                    + "[outer(3), defaults.length, defaults(1), defaults(1, 1, 1, 1), line,"
+                    + " o.f(), unused.length].join('|')";
+
+    private static final String EXPECTED = "17,19,3,16,16|2|3|4|12|m|0";
+
+    private int savedOptimizationLevel;
+
+    private Context enterLazy(int optimizationLevel, boolean lazy) {
+        Context cx = Context.enter();
+        savedOptimizationLevel = cx.getOptimizationLevel();
+        cx.setOptimizationLevel(optimizationLevel);
+        cx.setLazyFunctionCompilation(lazy);
+        return cx;
+    }
+
+    private void exitLazy(Context cx) {
+        cx.setLazyFunctionCompilation(false);
+        cx.setTieredCompilationThreshold(0);
+        cx.setOptimizationLevel(savedOptimizationLevel);
+        Context.exit();
+    }
+
+    private void assertScript(int optimizationLevel, boolean lazy, int threshold) {
+        Context cx = enterLazy(optimizationLevel, lazy);
+        int languageVersion = cx.getLanguageVersion();
+        try {
+            cx.setLanguageVersion(Context.VERSION_ES6);
+            cx.setTieredCompilationThreshold(threshold);
+            for (int i = 0; i < 3; i++) {
+                ScriptableObject scope = cx.initStandardObjects();
+                Object result = cx.evaluateString(scope, SCRIPT, "test", 1, null);
+                assertEquals(EXPECTED, Context.toString(result));
+            }
+        } finally {
+            cx.setLanguageVersion(languageVersion);
+            exitLazy(cx);
+        }
+    }
+
+    @Test
+    public void testSameResults() {
+        assertScript(-1, false, 0);
+        assertScript(-1, true, 0);
+        assertScript(9, true, 0);
+        assertScript(9, true, 1);
+    }
+
+    @Test
+    public void testSyntaxErrorsInUncalledFunctions() {
+        Context cx = enterLazy(-1, true);
+        try {
+            ScriptableObject scope = cx.initStandardObjects();
+            cx.evaluateString(scope, "function f() { return 1 +; }", "test", 1, null);
+            fail();
+        } catch (EvaluatorException e) {
+            // expected
+        } finally {
+            exitLazy(cx);
+        }
+    }
+
+    @Test
+    public void testSharedBody() {
+        Context cx = enterLazy(-1, true);
+        try {
+            ScriptableObject scope = cx.initStandardObjects();
+            Object result =
+                    cx.evaluateString(
+                            scope,
+                            "function make(n) { return function (k) { return n * k; }; }\n"
+                                    + "var a = make(2), b = make(3);\n"
+                                    + "[a(5), b(5), make(4)(5), a.length].join()",
+                            "test",
+                            1,
+                            null);
+            assertEquals("10,15,20,1", Context.toString(result));
+        } finally {
+            exitLazy(cx);
+        }
+    }
+
+    private static final String SOURCES =
+            "function outer(a) {\n"
+                    + "  function inner(b) { return a + b; }\n"
+                    + "  return inner;\n"
+                    + "}\n"
+                    + "var expr = function (c) { return c * 2; };";
+
+    /**
+     * Return the source text and the decompiled text of the functions "list" evaluates to, or the
+     * errors that getting them fails with.
+     */
+    private static String sourceTexts(Context cx, ScriptableObject scope, String list) {
+        Scriptable functions = (Scriptable) cx.evaluateString(scope, list, "test", 1, null);
+        StringBuilder sb = new StringBuilder();
+        for (Object f : (List<?>) functions) {
+            sb.append(textOrError(() -> ScriptRuntime.toString(f))).append('|');
+            sb.append(textOrError(() -> cx.decompileFunction((Function) f, 0))).append('|');
+        }
+        return sb.toString();
+    }
+
+    private static String textOrError(Supplier<String> text) {
+        try {
+            return text.get();
+        } catch (RuntimeException e) {
+            return e.toString();
+        }
+    }
+
+    @Test
+    public void testSourceTextAfterFirstCall() {
+        String notCalled = "[outer, expr]";
+        String called = "outer(1)(2) + expr(3); [outer, expr, outer(1)]";
+        String expectedNotCalled;
+        String expectedCalled;
+        Context cx = enterLazy(-1, false);
+        try {
+            ScriptableObject scope = cx.initStandardObjects();
+            cx.evaluateString(scope, SOURCES, "test", 1, null);
+            expectedNotCalled = sourceTexts(cx, scope, notCalled);
+            expectedCalled = sourceTexts(cx, scope, called);
+        } finally {
+            exitLazy(cx);
+        }
+        cx = enterLazy(-1, true);
+        try {
+            ScriptableObject scope = cx.initStandardObjects();
+            cx.evaluateString(scope, SOURCES, "test", 1, null);
+            assertEquals(expectedNotCalled, sourceTexts(cx, scope, notCalled));
+            assertEquals(expectedCalled, sourceTexts(cx, scope, called));
+        } finally {
+            exitLazy(cx);
+        }
+    }
+}
@@ -12,7 +12,9 @@ import java.util.Arrays;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.mozilla.javascript.Context;
 import org.mozilla.javascript.NativeArray;
+import org.mozilla.javascript.Scriptable;
 
 public class NativeArrayTest {
   private NativeArray array;
@@ -116,4 +118,112 @@ public class NativeArrayTest {
     assertThat(array.getIndexIds(), is(new ArrayList<Integer>()));
   }
 
+  @Test
+  public void numericElementsShouldWidenToDoublesAndThenToObjects() {
+    NativeArray numbers = new NativeArray(new Object[] {1, 2});
+    numbers.put(2, numbers, 3);
+    assertThat(numbers.get(2), is((Object) 3));
+    numbers.put(3, numbers, 0.5);
+    assertThat(numbers.get(0), is((Object) 1.0));
+    assertThat(numbers.get(3), is((Object) 0.5));
+    numbers.put(1, numbers, "b");
+    numbers.put(5, numbers, 6);
+    assertThat(numbers.toArray(), is(new Object[] {1.0, "b", 3.0, 0.5, null, 6}));
+    assertThat(numbers.has(4, numbers), is(false));
+    assertThat(numbers.getIndexIds(), is(Arrays.asList(0, 1, 2, 3, 5)));
+  }
+
+  @Test
+  public void numericElementsShouldBehaveLikeOtherElements() {
+    Utils.runWithAllOptimizationLevels(
+        cx -> {
+          cx.setLanguageVersion(Context.VERSION_ES6);
+          Scriptable scope = cx.initStandardObjects();
+          String script =
+              "var a = []; for (var i = 0; i < 5; i++) a.push(i);\n"
+                  + "var b = a.map(x => x / 2), c = [3, 1, 2], d = [1, 2, 3], out = [];\n"
+                  + "out.push(a.join('-'), b.join(), b.indexOf(1.5), b.lastIndexOf(0),\n"
+                  + "    a.includes(4), [NaN, 1.5].includes(NaN), a.reduce((x, y) => x + y));\n"
+                  + "c.reverse(); c.copyWithin(0, 1); c.unshift(0.5); out.push(String(c));\n"
+                  + "out.push(b.pop(), b.shift(), String(b), 1 / [-0, 0.5].shift());\n"
+                  + "delete d[1]; out.push(String(d), 1 in d, d.length);\n"
+                  + "d.length = 1; d[2] = 4; out.push(String(d), Object.keys(d).join());\n"
+                  + "var e = Object.freeze([1, 2]);\n"
+                  + "try { e[0] = 9; } catch (x) {} out.push(String(e));\n"
+                  + "out.push(String([1, 2].concat([2.5], ['x'])), String([5, 10, 1].sort()));\n"
+                  + "out.join(' ')";
+          Object result = cx.evaluateString(scope, script, "test", 1, null);
+          assertThat(
+              Context.toString(result),
+              is(
+                  "0-1-2-3-4 0,0.5,1,1.5,2 3 0 true true 10 0.5,1,3,3 2 0 0.5,1,1.5"
+                      + " -Infinity 1,,3 false 3 1,,4 0,2 1,2 1,2,2.5,x 1,10,5"));
+          return null;
+        });
+  }
+
+  @Test
+  public void shiftedArraysShouldBehaveLikeOtherArrays() {
+    Utils.runWithAllOptimizationLevels(
+        cx -> {
+          cx.setLanguageVersion(Context.VERSION_ES6);
+          Scriptable scope = cx.initStandardObjects();
+          String script =
+              "var q = [], out = [];\n"
+                  + "for (var i = 0; i < 20; i++) q.push('j' + i);\n"
+                  + "for (var i = 0; i < 1000; i++) q.push(q.shift());\n"
+                  + "q.unshift(q.pop(), q.pop()); q.shift();\n"
+                  + "out.push(q.length, q[0], q[18], q.indexOf('j5'), Object.keys(q).length);\n"
+                  + "var a = ['a', 'b', 'c', 'd']; a.shift(); delete a[0]; a.unshift('x');\n"
+                  + "out.push(String(a), 1 in a, a.slice(2).join());\n"
+                  + "var n = [1, 2, 3, 4]; n.shift(); n.push(5.5); n.splice(0, 1, 'y');\n"
+                  + "out.push(String(n), String(n.reverse()));\n"
+                  + "var g = []; g[40] = 1; g.length = 50; g.shift();\n"
+                  + "out.push(g.length, 39 in g, g[39], 40 in g);\n"
+                  + "out.join(' ')";
+          Object result = cx.evaluateString(scope, script, "test", 1, null);
+          assertThat(
+              Context.toString(result),
+              is("19 j18 j17 6 19 x,,c,d false c,d y,3,4,5.5 5.5,4,3,y 49 true 1 false"));
+          return null;
+        });
+  }
+
+  @Test
+  public void sortShouldCompareStringsOfPrimitivesAndCallComparators() {
+    Utils.runWithAllOptimizationLevels(
+        cx -> {
+          Scriptable scope = cx.initStandardObjects();
+          String script =
+              "var o = {toString: function() { return 'b'; }}, out = [];\n"
+                  + "out.push(String([10, 9, 1, -5, 2.5, NaN, 0].sort()));\n"
+                  + "out.push(String(['b', undefined, 'a', , 'B'].sort()));\n"
+                  + "out.push(String([3, 'c', true, null, 20, o].sort()));\n"
+                  + "var a = [5, 1, undefined, 4, , 3].sort(function(x, y) { return y - x; });\n"
+                  + "out.push(String(a), a.length, 4 in a, 5 in a);\n"
+                  + "out.join(' ')";
+          Object result = cx.evaluateString(scope, script, "test", 1, null);
+          assertThat(
+              Context.toString(result),
+              is("-5,0,1,10,2.5,9,NaN B,a,b,, 20,3,b,c,,true 5,4,3,1,, 6 true false"));
+          return null;
+        });
+  }
+
+  @Test
+  public void popAndShiftShouldNotReturnHoles() {
+    Utils.runWithAllOptimizationLevels(
+        cx -> {
+          Scriptable scope = cx.initStandardObjects();
+          String script =
+              "var a = []; a.length = 1; var b = []; b[2] = 1;\n"
+                  + "var out = [typeof a.pop(), a.length, typeof b.shift(), b.length];\n"
+                  + "Array.prototype[1] = 'p'; var c = [0]; c.length = 2;\n"
+                  + "out.push(c.pop(), c.length); delete Array.prototype[1];\n"
+                  + "out.join()";
+          Object result = cx.evaluateString(scope, script, "test", 1, null);
+          assertThat(Context.toString(result), is("undefined,0,undefined,2,p,1"));
+          return null;
+        });
+  }
 }
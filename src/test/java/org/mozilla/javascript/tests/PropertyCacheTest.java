@@ -0,0 +1,185 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript.tests;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.NativeObject;
+import org.mozilla.javascript.ScriptableObject;
+
+import junit.framework.TestCase;
+
+/**
+ * Property accesses that go through the inline caches in compiled code must see every change to
+ * the objects they were cached for.
+ */
+public class PropertyCacheTest extends TestCase {
+
+    private static void assertScript(final String expected, final String script) {
+        Utils.runWithAllOptimizationLevels(cx -> {
+            final ScriptableObject scope = cx.initStandardObjects();
+            final Object result = cx.evaluateString(scope, script, "test script", 0, null);
+            assertEquals(expected, Context.toString(result));
+            return null;
+        });
+    }
+
+    @Test
+    public void testOwnPropertyChanges() {
+        assertScript("1,10,,42",
+            "var o = {a: 1};\n"
+            + "function get() { return o.a; }\n"
+            + "var r = [get()];\n"
+            + "o.a = 10; r.push(get());\n"
+            + "delete o.a; r.push(get());\n"
+            + "Object.defineProperty(o, 'a', {get: function() { return 42; }});\n"
+            + "r.push(get());\n"
+            + "r.join()");
+    }
+
+    @Test
+    public void testPrototypeChanges() {
+        assertScript("7,1,3,1,99",
+            "function P() {}\n"
+            + "P.prototype.y = 7;\n"
+            + "var p = new P();\n"
+            + "function get() { return p.y; }\n"
+            + "var r = [get()];\n"
+            + "P.prototype.y = 1; r.push(get());\n"
+            + "p.y = 3; r.push(get());\n"
+            + "delete p.y; r.push(get());\n"
+            + "p.__proto__ = {y: 99}; r.push(get());\n"
+            + "r.join()");
+    }
+
+    @Test
+    public void testPolymorphicSite() {
+        assertScript("600",
+            "function get(v) { return v.z; }\n"
+            + "var objs = [];\n"
+            + "for (var i = 0; i < 20; i++) {\n"
+            + "  var o = {}; o['k' + i] = i; o.z = 1; objs.push(o);\n"
+            + "}\n"
+            + "var s = 0;\n"
+            + "for (var k = 0; k < 600; k++) { s += get(objs[k % 20]); }\n"
+            + "s");
+    }
+
+    @Test
+    public void testSharedShapes() {
+        assertScript("3000,2,1,5",
+            "function Pt(x, y) { this.x = x; this.y = y; }\n"
+            + "function getX(p) { return p.x; }\n"
+            + "var s = 0;\n"
+            + "for (var i = 0; i < 1000; i++) { s += getX(new Pt(3, 0)); }\n"
+            + "var a = new Pt(1, 0), b = new Pt(2, 0);\n"
+            + "getX(a); getX(b);\n"
+            + "delete a.y; a.x = 5;\n"
+            + "[s, getX(b), getX(new Pt(1, 1)), getX(a)].join()");
+    }
+
+    @Test
+    public void testPropertyStores() {
+        assertScript("4,E,4,E,2,5",
+            "function set(x, v) { x.a = v; }\n"
+            + "var o = {a: 1};\n"
+            + "for (var i = 0; i < 5; i++) { set(o, i); }\n"
+            + "var r = [o.a];\n"
+            + "Object.freeze(o);\n"
+            + "try { set(o, 99); } catch (e) { r.push('E'); }\n"
+            + "r.push(o.a);\n"
+            + "var p = {a: 1};\n"
+            + "set(p, 2); Object.defineProperty(p, 'a', {writable: false});\n"
+            + "try { set(p, 3); } catch (e) { r.push('E'); }\n"
+            + "r.push(p.a);\n"
+            + "var q = {a: 1}; set(q, 5); r.push(q.a);\n"
+            + "r.join()");
+    }
+
+    @Test
+    public void testMethodCalls() {
+        assertScript("3,3,x,TypeError",
+            "function Acc() { this.total = 0; }\n"
+            + "Acc.prototype.add = function(v) { this.total += v; return this.total; };\n"
+            + "function call(o) { return o.add(1); }\n"
+            + "var a = new Acc(), b = new Acc();\n"
+            + "call(a); call(a); call(b);\n"
+            + "var r = [call(a)];\n"
+            + "r.push(a.total);\n"
+            + "b.add = function() { return 'x'; }; r.push(call(b));\n"
+            + "b.add = 3;\n"
+            + "try { call(b); } catch (e) { r.push(e.name); }\n"
+            + "r.join()");
+    }
+
+    @Test
+    public void testGlobalNames() {
+        assertScript("10,20,ReferenceError,again",
+            "this.g = 10;\n"
+            + "function read() { return g; }\n"
+            + "var r = [read()];\n"
+            + "g = 20; r.push(read());\n"
+            + "delete this.g;\n"
+            + "try { read(); } catch (e) { r.push(e.name); }\n"
+            + "this.g = 'again'; r.push(read());\n"
+            + "r.join()");
+    }
+
+    @Test
+    public void testArrayElements() {
+        assertScript("2,3,,,z|2|3||w,5,proto,proto,E,z",
+            "var arr = [1, 2, 3];\n"
+            + "function get(a, i) { return a[i]; }\n"
+            + "function set(a, i, v) { a[i] = v; }\n"
+            + "var r = [get(arr, 1), get(arr, '2'), get(arr, 5), get(arr, 1.5)];\n"
+            + "set(arr, 0, 'z'); set(arr, 4, 'w');\n"
+            + "r.push(arr.join('|'), arr.length);\n"
+            + "Array.prototype[7] = 'proto';\n"
+            + "r.push(get(arr, 7), get([], 7));\n"
+            + "delete Array.prototype[7];\n"
+            + "Object.freeze(arr);\n"
+            + "try { set(arr, 0, 'q'); } catch (e) { r.push('E'); }\n"
+            + "r.push(arr[0]);\n"
+            + "r.join()");
+    }
+
+    @Test
+    public void testDeserializeBeyondTransitionLimit()
+        throws IOException, ClassNotFoundException {
+        // Each object takes a different transition from the empty shape, so the later ones
+        // cannot get a shape of their own, neither now nor when they are read back.
+        final ArrayList<NativeObject> objs = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            final NativeObject o = new NativeObject();
+            o.put("d" + i, o, i);
+            objs.add(o);
+        }
+        final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bos)) {
+            out.writeObject(objs);
+        }
+        try (ObjectInputStream in =
+                new ObjectInputStream(new ByteArrayInputStream(bos.toByteArray()))) {
+            @SuppressWarnings("unchecked")
+            final List<NativeObject> copy = (List<NativeObject>) in.readObject();
+            for (int i = 0; i < 200; i++) {
+                final NativeObject o = copy.get(i);
+                assertEquals(i, o.get("d" + i, o));
+                o.put("e", o, i);
+                o.delete("d" + i);
+                assertEquals(1, o.getIds().length);
+                assertEquals(i, o.get("e", o));
+            }
+        }
+    }
+}
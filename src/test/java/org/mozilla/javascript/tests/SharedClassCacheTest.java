@@ -0,0 +1,122 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript.tests;
+
+import org.junit.Test;
+import org.mozilla.javascript.ClassCache;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.ScriptableObject;
+import org.mozilla.javascript.SharedClassCache;
+import org.mozilla.javascript.Wrapper;
+
+import junit.framework.TestCase;
+
+/**
+ * Scopes that share a {@link SharedClassCache} reflect each Java class once, but still get Java
+ * methods that are functions of their own scope.
+ */
+public class SharedClassCacheTest extends TestCase {
+
+    public static class Point {
+        public int x;
+        private String label = "";
+
+        public int add(int n) {
+            x += n;
+            return x;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public void setLabel(String label) {
+            this.label = label;
+        }
+
+        public void setLabel(int n) {
+            this.label = "#" + n;
+        }
+    }
+
+    public static class Other {}
+
+    public static class Third {}
+
+    private static final String SCRIPT =
+            "p.x = 1; p.label = 'a'; var s = p.label; p.label = 2;\n"
+                    + "[p.add(2), p.add.call(p, 3), p.add instanceof Function,\n"
+                    + " Object.getPrototypeOf(p.add) === Function.prototype, s, p.label].join()";
+
+    private static ScriptableObject newScope(Context cx, SharedClassCache shared) {
+        ScriptableObject scope = cx.initStandardObjects();
+        ClassCache.get(scope).setSharedCache(shared);
+        return scope;
+    }
+
+    private static Object run(Context cx, ScriptableObject scope, String name, Object value) {
+        ScriptableObject.putProperty(scope, name, Context.javaToJS(value, scope));
+        return cx.evaluateString(scope, SCRIPT, "test", 1, null);
+    }
+
+    @Test
+    public void testSharedMembers() {
+        Utils.runWithAllOptimizationLevels(cx -> {
+            SharedClassCache shared = new SharedClassCache(10);
+            ScriptableObject scope1 = newScope(cx, shared);
+            ScriptableObject scope2 = newScope(cx, shared);
+            assertEquals("3,6,true,true,a,#2", Context.toString(run(cx, scope1, "p", new Point())));
+            long misses = shared.getMissCount();
+            assertEquals(0, shared.getHitCount());
+            assertEquals("3,6,true,true,a,#2", Context.toString(run(cx, scope2, "p", new Point())));
+            assertEquals(misses, shared.getMissCount());
+            assertTrue(shared.getHitCount() > 0);
+            Object add1 = cx.evaluateString(scope1, "p.add", "test", 1, null);
+            Object add2 = cx.evaluateString(scope2, "p.add", "test", 1, null);
+            assertNotSame(add1, add2);
+            return null;
+        });
+    }
+
+    @Test
+    public void testEviction() {
+        Context cx = Context.enter();
+        try {
+            SharedClassCache shared = new SharedClassCache(2);
+            ScriptableObject scope = newScope(cx, shared);
+            ScriptableObject.putProperty(scope, "a", Context.javaToJS(new Point(), scope));
+            ScriptableObject.putProperty(scope, "b", Context.javaToJS(new Other(), scope));
+            ScriptableObject.putProperty(scope, "c", Context.javaToJS(new Third(), scope));
+            assertEquals(2, shared.size());
+            assertEquals(1, shared.getEvictionCount());
+
+            // The evicted class is reflected again for a new scope
+            long misses = shared.getMissCount();
+            run(cx, newScope(cx, shared), "p", new Point());
+            assertTrue(shared.getMissCount() > misses);
+
+            shared.clear();
+            assertEquals(0, shared.size());
+        } finally {
+            Context.exit();
+        }
+    }
+
+    @Test
+    public void testSharedAdapters() {
+        Context cx = Context.enter();
+        try {
+            SharedClassCache shared = new SharedClassCache(10);
+            String script =
+                    "var r = new JavaAdapter(java.lang.Runnable, { run: function () {} });\n"
+                            + "r.getClass()";
+            Object class1 = cx.evaluateString(newScope(cx, shared), script, "test", 1, null);
+            Object class2 = cx.evaluateString(newScope(cx, shared), script, "test", 1, null);
+            assertSame(((Wrapper) class1).unwrap(), ((Wrapper) class2).unwrap());
+        } finally {
+            Context.exit();
+        }
+    }
+}
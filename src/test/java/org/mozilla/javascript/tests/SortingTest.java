@@ -66,6 +66,18 @@ public class SortingTest {
         hybridSort(randomArray(10000));
     }
 
+    @Test
+    public void testHybridSortRange()
+    {
+        Object[] expected = randomArray(1000);
+        Object[] after = Arrays.copyOf(expected, expected.length);
+        sorter.hybridSort(after, 100, 900, new IntComparator());
+        Arrays.sort(expected, 100, 900, new IntComparator());
+        assertArrayEquals(expected, after);
+        sorter.hybridSort(after, 5, 5, new IntComparator());
+        assertArrayEquals(expected, after);
+    }
+
     @Test
     public void testMedian()
     {
@@ -0,0 +1,99 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript.tests;
+
+import org.junit.Test;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.ScriptableObject;
+
+import junit.framework.TestCase;
+
+/**
+ * The interpreter fuses common instruction sequences and quickens property reads; the results
+ * must be the same as with the plain instructions for every kind of operand.
+ */
+public class SuperinstructionTest extends TestCase {
+
+    private static void assertScript(final String expected, final String script) {
+        Utils.runWithAllOptimizationLevels(cx -> {
+            cx.setLanguageVersion(Context.VERSION_ES6);
+            final ScriptableObject scope = cx.initStandardObjects();
+            final Object result = cx.evaluateString(scope, script, "test script", 0, null);
+            assertEquals(expected, Context.toString(result));
+            return null;
+        });
+    }
+
+    @Test
+    public void testCompareAndJump() {
+        assertScript("ltlene gtgene legeeq ne ne ltlene ltlene gtgene legene ne legeeq gtgene",
+            "function cmp(a, b) {\n"
+            + "  var r = [];\n"
+            + "  if (a < b) r.push('lt'); if (a <= b) r.push('le');\n"
+            + "  if (a > b) r.push('gt'); if (a >= b) r.push('ge');\n"
+            + "  if (a === b) r.push('eq'); if (a !== b) r.push('ne');\n"
+            + "  return r.join('');\n"
+            + "}\n"
+            + "var pairs = [[1, 2], [2, 1], [1, 1], [NaN, 1], [1, NaN], ['a', 'b'], ['10', '9'],\n"
+            + "  [10, '9'], [null, 0], [undefined, 0], [0, -0],\n"
+            + "  [{valueOf: function() { return 3; }}, 2]];\n"
+            + "pairs.map(function(p) { return cmp(p[0], p[1]); }).join(' ')");
+    }
+
+    @Test
+    public void testJumpIntoSequence() {
+        assertScript("small big! big small!",
+            "function f(a) { return (a < 3 ? 'small' : 'big') + (a === 3 || a < 0 ? '!' : ''); }\n"
+            + "[f(1), f(3), f(5), f(-1)].join(' ')");
+    }
+
+    @Test
+    public void testVariableUpdates() {
+        assertScript("45,NaN,NaN,-1,3 0,NaN,NaN,-1,3",
+            "function f(n) {\n"
+            + "  var s = 0, x = 'a', y = 'b', k = 1;\n"
+            + "  for (var i = 0; i < n; i++) { s += i; }\n"
+            + "  x++; y--; k--; k--;\n"
+            + "  const c = 1; var r = 0;\n"
+            + "  for (var j = 0; j < 3; j = j + 1) { r = r + c; }\n"
+            + "  return [s, x, y, k, r].join();\n"
+            + "}\n"
+            + "f(10) + ' ' + f(0)");
+    }
+
+    @Test
+    public void testPropertyReads() {
+        assertScript("1,2,p,3,,,g|7||1,2,q,3,,,g|TypeError",
+            "function read(list) { var r = []; for (var i = 0; i < list.length; i++) {\n"
+            + "  var o = list[i]; r.push(o.x); } return r.join(); }\n"
+            + "var proto = {x: 'p'};\n"
+            + "var objs = [{x: 1}, {x: 2}, Object.create(proto), {y: 1, x: 3}, 'str', 5,\n"
+            + "  {get x() { return 'g'; }}];\n"
+            + "var r = [read(objs)]; read(objs);\n"
+            + "var o1 = {x: 1}; function rd(o) { return o.x; }\n"
+            + "rd(o1); rd(o1); o1.x = 7; r.push(rd(o1));\n"
+            + "delete o1.x; r.push(rd(o1));\n"
+            + "proto.x = 'q'; r.push(read(objs));\n"
+            + "try { rd(undefined); } catch (e) { r.push(e.name); }\n"
+            + "r.join('|')");
+    }
+
+    @Test
+    public void testMorePropertyReadsThanCacheSlots() {
+        // Only the first 0xFFFF property reads of a script get a cache slot
+        final StringBuilder script = new StringBuilder("var o = {a: 1}, s = 0;\n");
+        for (int i = 0; i < 10000; i++) {
+            script.append("s += o.a + o.a + o.a + o.a + o.a + o.a + o.a;\n");
+        }
+        script.append("o.a = 2; s += o.a; s");
+        Utils.runWithOptimizationLevel(cx -> {
+            final ScriptableObject scope = cx.initStandardObjects();
+            final Object result =
+                cx.evaluateString(scope, script.toString(), "test script", 0, null);
+            assertEquals("70002", Context.toString(result));
+            return null;
+        }, -1);
+    }
+}
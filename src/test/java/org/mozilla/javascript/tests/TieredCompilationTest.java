@@ -0,0 +1,165 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.ScriptableObject;
+
+/**
+ * With tiered compilation, hot functions switch from the interpreter to compiled code while the
+ * script runs; functions must behave the same before and after the switch.
+ */
+public class TieredCompilationTest {
+
+    /** How long to wait for the background compiler before the test fails. */
+    private static final long TIMEOUT_MILLIS = 30000;
+
+    private static final String PROBE =
+            "Packages.org.mozilla.javascript.tests.TieredCompilationTest.compiledFrameOnStack()";
+
+    private static final String FUNCTIONS =
+            "function fib(n) { return n < 2 ? n : fib(n - 1) + fib(n - 2); }\n"
+                    + "var sum = function (a, b) {\n"
+                    + "  var s = 0; for (var i = a; i < b; i++) s += i; return s;\n"
+                    + "};\n"
+                    + "var named = function nm(k) { return k ? nm(k - 1) + 1 : 0; };\n"
+                    + "function Point(x) { this.x = x; }\n"
+                    + "Point.prototype.get = function () { return this.x; };\n"
+                    + "function self() { return self; }\n"
+                    + "function args() { return arguments.callee === args; }\n"
+                    + "function check(n) {\n"
+                    + "  if (n < 0) throw new RangeError('negative'); return n;\n"
+                    + "}\n"
+                    + "function hot(probe) { return probe ? "
+                    + PROBE
+                    + " : fib(5); }\n"
+                    + "function run() {\n"
+                    + "  var r = [fib(12), sum(0, 100), named(4), new Point(3).get(),"
+                    + " self() === self, args(), fib.name, sum.length, hot(false)];\n"
+                    + "  try { check(-1); } catch (e) { r.push(e.name); }\n"
+                    + "  return r.join();\n"
+                    + "}\n";
+
+    private static final String EXPECTED = "144,4950,4,3,true,true,fib,2,5,RangeError";
+
+    /**
+     * Return true if a function compiled by Codegen is on the stack of the current thread. Scripts
+     * call this to find out whether they run in compiled code.
+     */
+    public static boolean compiledFrameOnStack() {
+        for (StackTraceElement e : new Throwable().getStackTrace()) {
+            if (e.getMethodName().startsWith("_c_")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Object eval(Context cx, ScriptableObject scope, String source) {
+        return cx.evaluateString(scope, source, "test", 1, null);
+    }
+
+    /**
+     * Run "check" until "probe" reports that it ran in compiled code, and fail if that does not
+     * happen before the timeout.
+     */
+    private static void runUntilCompiled(
+            Context cx, ScriptableObject scope, Runnable check, String probe)
+            throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!Boolean.TRUE.equals(eval(cx, scope, probe))) {
+            check.run();
+            if (System.currentTimeMillis() > deadline) {
+                fail("Function was not compiled in time");
+            }
+            Thread.sleep(1);
+        }
+    }
+
+    private int savedOptimizationLevel;
+
+    /**
+     * Enter a context with tiered compilation; the thread may already have a context to restore.
+     */
+    private Context enterTiered(int optimizationLevel, int threshold) {
+        Context cx = Context.enter();
+        savedOptimizationLevel = cx.getOptimizationLevel();
+        cx.setOptimizationLevel(optimizationLevel);
+        cx.setTieredCompilationThreshold(threshold);
+        return cx;
+    }
+
+    private void exitTiered(Context cx) {
+        cx.setTieredCompilationThreshold(0);
+        cx.setOptimizationLevel(savedOptimizationLevel);
+        Context.exit();
+    }
+
+    @Test
+    public void testHotFunctions() throws InterruptedException {
+        Context cx = enterTiered(9, 10);
+        try {
+            ScriptableObject scope = cx.initStandardObjects();
+            eval(cx, scope, FUNCTIONS);
+            assertEquals(Boolean.FALSE, eval(cx, scope, "hot(true)"));
+            runUntilCompiled(
+                    cx, scope, () -> assertEquals(EXPECTED, eval(cx, scope, "run()")), "hot(true)");
+            for (int i = 0; i < 5; i++) {
+                assertEquals(EXPECTED, eval(cx, scope, "run()"));
+            }
+        } finally {
+            exitTiered(cx);
+        }
+    }
+
+    @Test
+    public void testClosures() throws InterruptedException {
+        Context cx = enterTiered(0, 1);
+        try {
+            ScriptableObject scope = cx.initStandardObjects();
+            eval(
+                    cx,
+                    scope,
+                    "function make(base) {\n"
+                            + "  return function (x, probe) { return probe ? "
+                            + PROBE
+                            + " : base + x; };\n"
+                            + "}\n"
+                            + "var add1 = make(1), add2 = make(2);");
+            runUntilCompiled(
+                    cx,
+                    scope,
+                    () -> assertEquals("11,12", eval(cx, scope, "[add1(10), add2(10)].join()")),
+                    "add1(0, true)");
+            assertEquals(Boolean.TRUE, eval(cx, scope, "add2(0, true)"));
+            assertEquals("11,12", eval(cx, scope, "[add1(10), add2(10)].join()"));
+        } finally {
+            exitTiered(cx);
+        }
+    }
+
+    @Test
+    public void testThreshold() {
+        Context cx = Context.enter();
+        try {
+            assertEquals(0, cx.getTieredCompilationThreshold());
+            cx.setTieredCompilationThreshold(100);
+            assertEquals(100, cx.getTieredCompilationThreshold());
+            cx.setTieredCompilationThreshold(0);
+            try {
+                cx.setTieredCompilationThreshold(-1);
+                fail();
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        } finally {
+            Context.exit();
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript.tests;
+
+import org.junit.Test;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.Script;
+import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.ScriptableObject;
+import org.mozilla.javascript.TopScopeCell;
+
+import junit.framework.TestCase;
+
+/**
+ * Reads of top-level variables are cached in both the interpreter and compiled code, and must
+ * still see every redefinition, deletion and shadowing of the variable.
+ */
+public class TopScopeCellTest extends TestCase {
+
+    private static void assertScript(final String expected, final String script) {
+        Utils.runWithAllOptimizationLevels(cx -> {
+            final ScriptableObject scope = cx.initStandardObjects();
+            final Object result = cx.evaluateString(scope, script, "test script", 0, null);
+            assertEquals(expected, Context.toString(result));
+            return null;
+        });
+    }
+
+    @Test
+    public void testRedefinition() {
+        assertScript("1,2,getter,ReferenceError,3",
+            "this.g = 1;\n"
+            + "function read() { return g; }\n"
+            + "var r = [read()];\n"
+            + "g = 2; r.push(read());\n"
+            + "Object.defineProperty(this, 'g',\n"
+            + "  {get: function() { return 'getter'; }, configurable: true});\n"
+            + "r.push(read());\n"
+            + "delete this.g;\n"
+            + "try { read(); } catch (e) { r.push(e.name); }\n"
+            + "this.g = 3; r.push(read());\n"
+            + "r.join()");
+    }
+
+    @Test
+    public void testShadowing() {
+        assertScript("global,local,with,global,inner",
+            "var g = 'global';\n"
+            + "function read() { return g; }\n"
+            + "function outer() { var g = 'local'; return (function() { return g; })(); }\n"
+            + "var r = [read(), outer()];\n"
+            + "with ({g: 'with'}) { r.push(g, read()); }\n"
+            + "function closure() { var g = 'inner'; return function() { return g; }; }\n"
+            + "r.push(closure()());\n"
+            + "r.join()");
+    }
+
+    @Test
+    public void testFunctionCalls() {
+        assertScript("f1,f1,f2,TypeError,true,nested",
+            "this.f = function() { return 'f1'; };\n"
+            + "function call() { return f(); }\n"
+            + "var r = [call(), call()];\n"
+            + "f = function() { return 'f2'; }; r.push(call());\n"
+            + "f = 3;\n"
+            + "try { call(); } catch (e) { r.push(e.name); }\n"
+            + "var top = this;\n"
+            + "function self() { return this === top; }\n"
+            + "function callSelf() { return self(); }\n"
+            + "callSelf(); r.push(callSelf());\n"
+            + "function outer() { function inner() { return 'nested'; } return inner(); }\n"
+            + "outer(); r.push(outer());\n"
+            + "r.join()");
+    }
+
+    @Test
+    public void testSeparateScopes() {
+        Utils.runWithAllOptimizationLevels(cx -> {
+            ScriptableObject scope1 = cx.initStandardObjects();
+            ScriptableObject scope2 = cx.initStandardObjects();
+            scope1.put("v", scope1, "one");
+            scope2.put("v", scope2, "two");
+            Script script =
+                    cx.compileString(
+                            "function read() { return v; } read() + read();", "test", 1, null);
+            assertEquals("oneone", script.exec(cx, scope1));
+            assertEquals("twotwo", script.exec(cx, scope2));
+            assertEquals("oneone", script.exec(cx, scope1));
+            return null;
+        });
+    }
+
+    @Test
+    public void testSharedPrototypeScope() {
+        Utils.runWithAllOptimizationLevels(cx -> {
+            ScriptableObject shared = cx.initStandardObjects();
+            shared.put("lib", shared, "shared");
+            Scriptable scope = cx.newObject(shared);
+            scope.setPrototype(shared);
+            scope.setParentScope(null);
+            Object result =
+                    cx.evaluateString(
+                            scope,
+                            "function read() { return lib + Math.max(1, 2); }\n"
+                                    + "var r = [read(), read()];\n"
+                                    + "this.lib = 'own'; r.push(read());\n"
+                                    + "delete this.lib; r.push(read());\n"
+                                    + "this.Math = {max: function() { return 'M'; }};\n"
+                                    + "r.push(read());\n"
+                                    + "r.join()",
+                            "test",
+                            1,
+                            null);
+            assertEquals("shared2,shared2,own2,shared2,sharedM", result);
+            shared.put("lib", shared, "changed");
+            scope.delete("Math");
+            assertEquals("changed2", cx.evaluateString(scope, "read()", "test", 1, null));
+            return null;
+        });
+    }
+
+    @Test
+    public void testSharedPrototypeVariablesAreCached() {
+        Utils.runWithAllOptimizationLevels(cx -> {
+            ScriptableObject shared = cx.initStandardObjects();
+            Scriptable scope = cx.newObject(shared);
+            scope.setPrototype(shared);
+            scope.setParentScope(null);
+            TopScopeCell cell = TopScopeCell.lookup(cx, scope, "Math");
+            assertNotNull(cell);
+            assertSame(shared.get("Math", shared), cell.getValue(cx, scope, "Math"));
+            // A variable of the top-level scope shadows the one of the prototype
+            scope.put("Math", scope, "own");
+            assertSame(Scriptable.NOT_FOUND, cell.getValue(cx, scope, "Math"));
+            return null;
+        });
+    }
+}
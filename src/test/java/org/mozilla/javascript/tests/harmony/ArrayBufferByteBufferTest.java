@@ -0,0 +1,104 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript.tests.harmony;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import org.junit.Test;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.ScriptRuntime;
+import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.ScriptableObject;
+import org.mozilla.javascript.typedarrays.NativeArrayBuffer;
+
+/** An ArrayBuffer that shares the bytes of a Java ByteBuffer. */
+public class ArrayBufferByteBufferTest {
+
+    private static String eval(ByteBuffer bytes, String script) {
+        Context cx = Context.enter();
+        try {
+            cx.setLanguageVersion(Context.VERSION_ES6);
+            Scriptable scope = cx.initStandardObjects();
+            NativeArrayBuffer buffer = new NativeArrayBuffer(bytes);
+            ScriptRuntime.setObjectProtoAndParent(buffer, scope);
+            ScriptableObject.putProperty(scope, "buf", buffer);
+            return Context.toString(cx.evaluateString(scope, script, "test", 1, null));
+        } finally {
+            Context.exit();
+        }
+    }
+
+    @Test
+    public void testDirectBuffer() {
+        ByteBuffer bytes = ByteBuffer.allocateDirect(16);
+        bytes.putInt(0, 0x01020304);
+        String script =
+                "var dv = new DataView(buf);\n"
+                        + "var u8 = new Uint8Array(buf);\n"
+                        + "var r = [buf.byteLength, dv.getInt32(0), dv.getUint16(2, true),\n"
+                        + "         u8[3]];\n"
+                        + "dv.setFloat64(8, 1.5, true); dv.setInt16(4, -2);\n"
+                        + "u8.copyWithin(5, 4, 6);\n"
+                        + "r.push(dv.getFloat64(8, true),\n"
+                        + "       String(new Uint8Array(buf.slice(0, 4))),\n"
+                        + "       String(new Uint8Array(buf).subarray(2, 4).slice()));\n"
+                        + "r.join('|')";
+        assertEquals("16|16909060|1027|4|1.5|1,2,3,4|3,4", eval(bytes, script));
+        // The script wrote to the same memory
+        assertEquals(-1, bytes.get(4));
+        assertEquals(-1, bytes.get(5));
+        assertEquals((byte) 0xfe, bytes.get(6));
+        assertEquals(1.5, bytes.order(ByteOrder.LITTLE_ENDIAN).getDouble(8), 0);
+    }
+
+    @Test
+    public void testSliceOfHeapBuffer() {
+        byte[] array = {0, 1, 2, 3, 4, 5, 6, 7};
+        ByteBuffer bytes = ByteBuffer.wrap(array);
+        bytes.position(2).limit(6);
+        String script = "var a = new Int8Array(buf); a.set(a.subarray(0, 3), 1); String(a)";
+        assertEquals("2,2,3,4", eval(bytes, script));
+        assertArrayEquals(new byte[] {0, 1, 2, 2, 3, 4, 6, 7}, array);
+
+        NativeArrayBuffer whole = new NativeArrayBuffer(ByteBuffer.wrap(array));
+        assertSame(array, whole.getBuffer());
+        assertEquals(3, whole.getByteBuffer().get(4));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testNoArray() {
+        new NativeArrayBuffer(ByteBuffer.allocateDirect(4)).getBuffer();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testReadOnly() {
+        new NativeArrayBuffer(ByteBuffer.allocate(4).asReadOnlyBuffer());
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+        ByteBuffer bytes = ByteBuffer.allocateDirect(4);
+        bytes.put(1, (byte) 9);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ObjectOutputStream objects = new ObjectOutputStream(out)) {
+            objects.writeObject(new NativeArrayBuffer(bytes));
+        }
+        NativeArrayBuffer copy;
+        try (ObjectInputStream objects =
+                new ObjectInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            copy = (NativeArrayBuffer) objects.readObject();
+        }
+        assertArrayEquals(new byte[] {0, 9, 0, 0}, copy.getBuffer());
+        assertEquals(9, copy.getByteBuffer().get(1));
+    }
+}
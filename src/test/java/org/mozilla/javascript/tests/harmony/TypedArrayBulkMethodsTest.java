@@ -0,0 +1,110 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript.tests.harmony;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.tests.Utils;
+
+/** The fill, copyWithin, slice, indexOf, includes, sort and set methods of the typed arrays. */
+public class TypedArrayBulkMethodsTest {
+
+    private static final String[] TYPES = {
+        "Int8Array", "Uint8Array", "Uint8ClampedArray", "Int16Array", "Uint16Array",
+        "Int32Array", "Uint32Array", "Float32Array", "Float64Array"
+    };
+
+    private static void assertScript(String expected, String script) {
+        Utils.runWithAllOptimizationLevels(
+                cx -> {
+                    cx.setLanguageVersion(Context.VERSION_ES6);
+                    Scriptable scope = cx.initStandardObjects();
+                    for (String type : TYPES) {
+                        String source = "var C = " + type + ";\n" + script;
+                        Object result = cx.evaluateString(scope, source, "test", 1, null);
+                        assertEquals(type, expected, Context.toString(result));
+                    }
+                    return null;
+                });
+    }
+
+    @Test
+    public void testFill() {
+        assertScript(
+                "0,7,7,7,7,0|1,1,0|0,0,0,5",
+                "[new C(6).fill(7, 1, -1), new C(3).fill(1, -10, 2), new C(4).fill(5, 3, 10)]"
+                        + ".join('|')");
+    }
+
+    @Test
+    public void testCopyWithin() {
+        assertScript(
+                "4,5,3,4,5|1,2,1,2,3|1,2,3,4,5|3,2,3,4,5",
+                "var a = [1, 2, 3, 4, 5];\n"
+                        + "[new C(a).copyWithin(0, 3), new C(a).copyWithin(2, 0),\n"
+                        + " new C(a).copyWithin(1, 4, 2),\n"
+                        + " new C(a).copyWithin(-5, 2, 3)].join('|')");
+    }
+
+    @Test
+    public void testSlice() {
+        assertScript(
+                "9,3,4|2,3,4|4,5||true|2,3",
+                "var t = new C([1, 2, 3, 4, 5]);\n"
+                        + "var s = t.slice(1, -1); s[0] = 9;\n"
+                        + "[s, t.slice(1, 4), t.slice(3), t.slice(4, 2), t.slice() instanceof C,\n"
+                        + " t.subarray(1).slice(0, 2)].join('|')");
+    }
+
+    @Test
+    public void testSearch() {
+        assertScript(
+                "2,5,-1,5,5,2,true,false,-1",
+                "var t = new C([5, 1, 3, 100, 0, 3]);\n"
+                        + "[t.indexOf(3), t.indexOf(3, 3), t.indexOf('3'), t.indexOf(3, -1),\n"
+                        + " t.lastIndexOf(3), t.lastIndexOf(3, -2), t.includes(0),\n"
+                        + " t.includes(NaN), t.subarray(3).indexOf(1)].join()");
+    }
+
+    @Test
+    public void testSort() {
+        assertScript(
+                "0,1,3,3,5,100|100,5,3,3,1,0|5,0,1,3,3,100",
+                "var t = new C([5, 1, 3, 100, 0, 3]);\n"
+                        + "[new C(t).sort(), new C(t).sort(function (a, b) { return b - a; }),\n"
+                        + " (t.subarray(1).sort(), t)].join('|')");
+    }
+
+    @Test
+    public void testSortFloats() {
+        Utils.runWithAllOptimizationLevels(
+                cx -> {
+                    cx.setLanguageVersion(Context.VERSION_ES6);
+                    Scriptable scope = cx.initStandardObjects();
+                    String script =
+                            "var f = new Float64Array([NaN, 1, -0, 0, -Infinity]);\n"
+                                    + "[f.includes(NaN), f.indexOf(NaN), f.indexOf(-0),\n"
+                                    + " Array.from(f.sort())"
+                                    + ".map(x => Object.is(x, -0) ? '-0' : x).join(' ')].join()";
+                    Object result = cx.evaluateString(scope, script, "test", 1, null);
+                    assertEquals("true,-1,2,-Infinity -0 0 1 NaN", Context.toString(result));
+                    return null;
+                });
+    }
+
+    @Test
+    public void testSetOverlapping() {
+        assertScript(
+                "1,1,2,3,4|1,2,1,2,3|3,4,5,4,5",
+                "var a = [1, 2, 3, 4, 5];\n"
+                        + "var t = new C(a); t.set(t.subarray(0, 4), 1);\n"
+                        + "var u = new C(a); u.set(new C(a).subarray(0, 3), 2);\n"
+                        + "var v = new C(a); v.set(v.subarray(2), 0);\n"
+                        + "[t, u, v].join('|')");
+    }
+}
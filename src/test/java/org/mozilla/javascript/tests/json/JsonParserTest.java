@@ -5,7 +5,13 @@
 package org.mozilla.javascript.tests.json;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -254,6 +260,138 @@ public class JsonParserTest {
         parser.parseValue("1.");
     }
 
+    @Test
+    public void shouldParseNumbersLikeDoubleParseDouble() throws Exception {
+        String[] numbers = {
+            "0.1", "-0.1", "123.456", "1e22", "1e23", "9007199254740993", "123456789012345.6",
+            "0.000001", "1.7976931348623157e308", "4.9e-324", "2.2250738585072014E-308",
+            "1E+2", "1e-2", "-0.0", "12345678901234567890", "0.30000000000000004"
+        };
+        for (String number : numbers) {
+            double expected = Double.parseDouble(number);
+            assertEquals(number, expected, ((Number) parser.parseValue(number)).doubleValue(), 0.0);
+        }
+        java.util.Random random = new java.util.Random(42);
+        for (int i = 0; i < 10000; i++) {
+            String number =
+                    random.nextInt(100000)
+                            + "."
+                            + random.nextInt(1000)
+                            + "e"
+                            + (random.nextInt(50) - 25);
+            assertEquals(
+                    number,
+                    Double.parseDouble(number),
+                    ((Number) parser.parseValue(number)).doubleValue(),
+                    0.0);
+        }
+        assertEquals(2147483647, parser.parseValue("2147483647"));
+        assertEquals(2147483648.0, parser.parseValue("2147483648"));
+        assertEquals(100, parser.parseValue("1e2"));
+    }
+
+    @Test
+    public void shouldParseRepeatedKeys() throws Exception {
+        NativeArray actual =
+                (NativeArray)
+                        parser.parseValue(
+                                "[{\"id\": 1, \"2\": \"two\", \"id\": 3, \"a\\u0062\": 4},"
+                                        + " {\"id\": 5, \"ab\": 6}]");
+        NativeObject first = (NativeObject) actual.get(0, actual);
+        NativeObject second = (NativeObject) actual.get(1, actual);
+        assertEquals(3, first.get("id", first));
+        assertEquals("two", first.get(2, first));
+        assertEquals(4, first.get("ab", first));
+        assertEquals(5, second.get("id", second));
+        assertEquals(6, second.get("ab", second));
+        assertEquals(3, first.getIds().length);
+    }
+
+    @Test
+    public void shouldParseAgainAfterError() throws Exception {
+        try {
+            parser.parseValue("[{\"a\": [1, 2, {\"b\": }]}]");
+        } catch (ParseException e) {
+            // expected
+        }
+        NativeArray actual = (NativeArray) parser.parseValue("[[1, 2], {\"c\": [3]}]");
+        assertEquals(2, actual.getLength());
+        NativeObject obj = (NativeObject) actual.get(1, actual);
+        assertEquals(1, ((NativeArray) obj.get("c", obj)).getLength());
+    }
+
+    @Test
+    public void shouldParseArrayElementsFromReader() throws Exception {
+        StringBuilder json = new StringBuilder("[ ");
+        for (int i = 0; i < 2000; i++) {
+            json.append(i == 0 ? "" : ",\n ");
+            json.append("{\"id\": ").append(i);
+            json.append(", \"s\": \"a]\\\"}, \", \"n\": [1, [2.5e1, null]]}");
+        }
+        json.append(" ]\n");
+        List<Object> elements = new ArrayList<>();
+        parser.parseArrayElements(new SlowReader(json.toString()), elements::add);
+        assertEquals(2000, elements.size());
+        NativeObject last = (NativeObject) elements.get(1999);
+        assertEquals(1999, last.get("id", last));
+        assertEquals("a]\"}, ", last.get("s", last));
+        NativeArray n = (NativeArray) last.get("n", last);
+        assertEquals(25, ((NativeArray) n.get(1, n)).get(0, n));
+
+        elements.clear();
+        parser.parseArrayElements(new StringReader(" [] "), elements::add);
+        assertEquals(0, elements.size());
+        parser.parseArrayElements(new StringReader("[\"x\",true]"), elements::add);
+        assertEquals(Arrays.asList("x", Boolean.TRUE), elements);
+    }
+
+    @Test
+    public void shouldParseValuesFromReader() throws Exception {
+        String json = "{\"a\": 1}\n[2, 3]\n\"four\"\r\n5\nnull\n\n-6.5 true\n";
+        List<Object> values = new ArrayList<>();
+        parser.parseValues(new SlowReader(json), values::add);
+        assertEquals(7, values.size());
+        assertEquals(1, ((NativeObject) values.get(0)).get("a"));
+        assertEquals(2L, ((NativeArray) values.get(1)).getLength());
+        assertEquals(Arrays.asList("four", 5, null, -6.5, true), values.subList(2, 7));
+    }
+
+    @Test
+    public void shouldFailToParseMalformedStreams() throws Exception {
+        String[] arrays = {"", "{}", "[1,]", "[1 2]", "[1", "[,1]", "[1] 2", "[\"a]", "[tru]"};
+        for (String json : arrays) {
+            try {
+                parser.parseArrayElements(new StringReader(json), value -> {});
+                fail(json);
+            } catch (ParseException e) {
+                // expected
+            }
+        }
+        String[] values = {"1,2", "]", "{\"a\": 1", "truefalse", "\"a"};
+        for (String json : values) {
+            try {
+                parser.parseValues(new StringReader(json), value -> {});
+                fail(json);
+            } catch (ParseException e) {
+                // expected
+            }
+        }
+    }
+
+    /** Returns the input a few characters at a time. */
+    private static class SlowReader extends StringReader {
+        private int count;
+
+        SlowReader(String s) {
+            super(s);
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) throws IOException {
+            return super.read(cbuf, off, Math.min(len, 1 + count++ % 7));
+        }
+    }
+
     private String str(char... chars) {
         return new String(chars);
     }
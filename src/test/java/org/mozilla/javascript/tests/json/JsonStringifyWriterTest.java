@@ -0,0 +1,88 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript.tests.json;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.StringWriter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.EcmaError;
+import org.mozilla.javascript.NativeJSON;
+import org.mozilla.javascript.Scriptable;
+
+/** NativeJSON.stringify to an Appendable writes the same text as JSON.stringify. */
+public class JsonStringifyWriterTest {
+    private Context cx;
+    private Scriptable scope;
+
+    @Before
+    public void setUp() {
+        cx = Context.enter();
+        scope = cx.initStandardObjects();
+    }
+
+    @After
+    public void tearDown() {
+        Context.exit();
+    }
+
+    private Object eval(String source) {
+        return cx.evaluateString(scope, source, "test", 1, null);
+    }
+
+    private void assertSameText(String value, String replacer, String space) throws Exception {
+        Object expected =
+                eval("JSON.stringify(" + value + ", " + replacer + ", " + space + ")");
+        StringWriter out = new StringWriter();
+        assertTrue(
+                NativeJSON.stringify(
+                        cx,
+                        scope,
+                        eval("(" + value + ")"),
+                        eval("(" + replacer + ")"),
+                        eval(space),
+                        out));
+        assertEquals(expected, out.toString());
+    }
+
+    @Test
+    public void shouldWriteLikeStringify() throws Exception {
+        String value =
+                "{a: [1, 'two', null, undefined, function() {}, {}, []], b: {c: true, d: 1.5},"
+                        + " e: 'q\"\\\\\\n\\u0001\\u00e9\\u20ac', f: undefined, g: new Date(0),"
+                        + " h: new String('s'), i: NaN}";
+        assertSameText(value, "null", "undefined");
+        assertSameText(value, "null", "2");
+        assertSameText(value, "null", "'--'");
+        assertSameText(value, "['a', 'e']", "' '");
+        assertSameText(value, "function(k, v) { return typeof v == 'number' ? v + 1 : v; }", "1");
+        assertSameText("[[], [[]], {x: []}]", "null", "4");
+    }
+
+    @Test
+    public void shouldWriteNothingForUndefined() throws Exception {
+        StringWriter out = new StringWriter();
+        assertFalse(NativeJSON.stringify(cx, scope, eval("(function() {})"), null, null, out));
+        assertFalse(NativeJSON.stringify(cx, scope, eval("undefined"), null, null, out));
+        assertEquals("", out.toString());
+    }
+
+    @Test
+    public void shouldThrowForCyclicValues() throws Exception {
+        StringBuilder out = new StringBuilder();
+        try {
+            NativeJSON.stringify(cx, scope, eval("var o = {a: 1}; o.b = o; o"), null, null, out);
+            fail();
+        } catch (EcmaError e) {
+            assertEquals("TypeError", e.getName());
+        }
+    }
+}